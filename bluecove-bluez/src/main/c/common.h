@@ -75,5 +75,7 @@ jmethodID getGetMethodID(JNIEnv * env, jclass clazz, const char *name, const cha
 bool isCurrentThreadInterrupted(JNIEnv *env, jobject peer);
 bool threadSleep(JNIEnv *env, jlong millis);
 
+jbyte* getDirectBufferAddress(JNIEnv *env, jobject buffer, jint off, jint len);
+
 #endif  /* _BLUECOVE_COMMON_H */
 
@@ -24,8 +24,8 @@
  */
 package com.intel.bluetooth;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -35,16 +35,14 @@ import java.util.Vector;
 import javax.bluetooth.DataElement;
 import javax.bluetooth.ServiceRecord;
 import javax.bluetooth.UUID;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Read XML representation of Service records to JAR-82 format records.
@@ -191,36 +189,175 @@ class BlueZServiceRecordXML {
         return b.toString();
     }
     
+    private static final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+
+    /**
+     * SAXParser is not thread safe, each thread reuses its own instance.
+     */
+    private static final ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>();
+
+    /**
+     * Thrown by handler to stop parsing when record does not match UUID filter.
+     */
+    private static final SAXException recordFiltered = new SAXException("record filtered");
+
+    private static SAXParser getParser() throws ParserConfigurationException, SAXException {
+        SAXParser parser = parsers.get();
+        if (parser == null) {
+            synchronized (parserFactory) {
+                parser = parserFactory.newSAXParser();
+            }
+            parsers.set(parser);
+        } else {
+            parser.reset();
+        }
+        return parser;
+    }
+
     public static Map<Integer, DataElement> parsXMLRecord(String xml) throws IOException {
+        return parsXMLRecord(xml, null);
+    }
+
+    /**
+     * Parse service record and apply UUID filter used by service search. Parsing stops as soon as
+     * ServiceClassIDList and ProtocolDescriptorList are read and the record does not match.
+     * 
+     * @param xml
+     *            BlueZ XML representation of service record
+     * @param uuidSet
+     *            all UUIDs should be present in ServiceClassIDList or ProtocolDescriptorList, <code>null</code>
+     *            to accept any record
+     * @return record attributes or <code>null</code> if record does not match the filter
+     */
+    public static Map<Integer, DataElement> parsXMLRecord(String xml, UUID[] uuidSet) throws IOException {
+        RecordHandler handler = new RecordHandler(uuidSet);
         try {
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Document doc = builder.parse(new InputSource(new ByteArrayInputStream(xml.getBytes())));
-            Element root = doc.getDocumentElement();
-            if (!"record".equals(root.getTagName())) {
-                throw new IOException("SDP xml record expected, got " + root.getTagName());
+            getParser().parse(new InputSource(new StringReader(xml)), handler);
+        } catch (ParserConfigurationException e) {
+            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+        } catch (SAXException e) {
+            if (e == recordFiltered) {
+                return null;
             }
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+        }
+        if ((uuidSet != null) && (!handler.isAccepted())) {
+            return null;
+        }
+        return handler.elements;
+    }
 
-            Map<Integer, DataElement> elements = new HashMap<Integer, DataElement>();
-
-            NodeList nodes = root.getElementsByTagName("attribute");
-            for (int i = 0; i < nodes.getLength(); i++) {
-                Node node = nodes.item(i);
-                Node idNode = node.getAttributes().getNamedItem("id");
-                int id = parsInt(idNode.getNodeValue());
-                NodeList children = node.getChildNodes();
-                for (int j = 0; (children != null) && (j < children.getLength()); j++) {
-                    Node child = children.item(j);
-                    if (child.getNodeType() == Node.ELEMENT_NODE) {
-                        elements.put(id, parsDataElement(child));
-                        break;
+    static boolean hasUUID(Map<Integer, DataElement> elements, UUID uuid) {
+        DataElement serviceClassIDList = elements.get(BluetoothConsts.ServiceClassIDList);
+        if ((serviceClassIDList != null) && (serviceClassIDList.getDataType() == DataElement.DATSEQ)) {
+            for (Enumeration<?> en = (Enumeration<?>) serviceClassIDList.getValue(); en.hasMoreElements();) {
+                DataElement d = (DataElement) en.nextElement();
+                if ((d.getDataType() == DataElement.UUID) && (uuid.equals(d.getValue()))) {
+                    return true;
+                }
+            }
+        }
+        DataElement protocolDescriptorList = elements.get(BluetoothConsts.ProtocolDescriptorList);
+        if ((protocolDescriptorList != null) && (protocolDescriptorList.getDataType() == DataElement.DATSEQ)) {
+            for (Enumeration<?> en = (Enumeration<?>) protocolDescriptorList.getValue(); en.hasMoreElements();) {
+                DataElement protocol = (DataElement) en.nextElement();
+                if (protocol.getDataType() != DataElement.DATSEQ) {
+                    continue;
+                }
+                Enumeration<?> protocolEnum = (Enumeration<?>) protocol.getValue();
+                if (protocolEnum.hasMoreElements()) {
+                    DataElement d = (DataElement) protocolEnum.nextElement();
+                    if ((d.getDataType() == DataElement.UUID) && (uuid.equals(d.getValue()))) {
+                        return true;
                     }
                 }
             }
-            return elements;
-        } catch (ParserConfigurationException e) {
-            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
-        } catch (SAXException e) {
-            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+        }
+        return false;
+    }
+
+    private static class RecordHandler extends DefaultHandler {
+
+        private final UUID[] uuidSet;
+
+        final Map<Integer, DataElement> elements = new HashMap<Integer, DataElement>();
+
+        private final Vector<DataElement> stack = new Vector<DataElement>();
+
+        private boolean recordStarted = false;
+
+        private int attributeID = -1;
+
+        private boolean attributeValueSet;
+
+        private boolean serviceClassIDListRead = false;
+
+        private boolean protocolDescriptorListRead = false;
+
+        RecordHandler(UUID[] uuidSet) {
+            this.uuidSet = uuidSet;
+        }
+
+        boolean isAccepted() {
+            for (int u = 0; u < uuidSet.length; u++) {
+                if (!hasUUID(elements, uuidSet[u])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if (!recordStarted) {
+                if (!"record".equals(qName)) {
+                    throw new SAXException(new IOException("SDP xml record expected, got " + qName));
+                }
+                recordStarted = true;
+            } else if (attributeID == -1) {
+                if ("attribute".equals(qName)) {
+                    String id = attributes.getValue("id");
+                    if (id == null) {
+                        throw new SAXException(new IOException("id attribute expected in " + qName));
+                    }
+                    attributeID = parsInt(id);
+                    attributeValueSet = false;
+                }
+            } else {
+                try {
+                    stack.addElement(parsDataElement(qName, attributes));
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+            }
+        }
+
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (attributeID == -1) {
+                return;
+            }
+            if (stack.isEmpty()) {
+                // end of attribute
+                if (attributeID == BluetoothConsts.ServiceClassIDList) {
+                    serviceClassIDListRead = true;
+                } else if (attributeID == BluetoothConsts.ProtocolDescriptorList) {
+                    protocolDescriptorListRead = true;
+                }
+                attributeID = -1;
+                if ((uuidSet != null) && serviceClassIDListRead && protocolDescriptorListRead && (!isAccepted())) {
+                    throw recordFiltered;
+                }
+                return;
+            }
+            DataElement element = stack.remove(stack.size() - 1);
+            if (!stack.isEmpty()) {
+                stack.lastElement().addElement(element);
+            } else if (!attributeValueSet) {
+                elements.put(attributeID, element);
+                attributeValueSet = true;
+            }
         }
     }
 
@@ -242,32 +379,29 @@ class BlueZServiceRecordXML {
         }
     }
 
-    private static long getLongValue(Node node) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        } else {
-            return parsLong(valueNode.getNodeValue());
+    private static String getValue(String name, Attributes attributes) throws IOException {
+        String value = attributes.getValue("value");
+        if (value == null) {
+            throw new IOException("value attribute expected in " + name);
         }
+        return value;
     }
 
-    private static boolean getBoolValue(Node node) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        } else {
-            return "true".equals(valueNode.getNodeValue());
+    private static int digit(String value, int index, int radix) throws IOException {
+        int d = Character.digit(value.charAt(index), radix);
+        if (d == -1) {
+            throw new IOException("invalid digit in value " + value);
         }
+        return d;
     }
 
-    private static UUID getUUIDValue(Node node) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        }
-        String value = valueNode.getNodeValue();
+    private static int parsByte(String value, int index, int radix) throws IOException {
+        return digit(value, index, radix) * radix + digit(value, index + 1, radix);
+    }
+
+    private static UUID getUUIDValue(String value) throws IOException {
         if (value.length() == 32) {
-            return new UUID(value.replace("-", ""), false);
+            return new UUID(value, false);
         } else if (value.startsWith("0x")) {
             return new UUID(Long.valueOf(value.substring(2), 16).longValue());
         } else {
@@ -279,106 +413,75 @@ class BlueZServiceRecordXML {
         }
     }
 
-    private static byte[] getByteArrayValue(Node node, int length) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        }
-        String value = valueNode.getNodeValue();
+    private static byte[] getByteArrayValue(String value, int length) throws IOException {
         if (length != value.length() / 2) {
             throw new IOException("value attribute invalid length " + value.length());
         }
         byte[] result = new byte[length];
         for (int i = 0; i < length; i++) {
-            result[(length - 1) - i] = (byte)(Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16) & 0xFF);
+            result[(length - 1) - i] = (byte) parsByte(value, i * 2, 16);
         }
         return result;
     }
 
-    private static byte[] getByteArrayUINT8(Node node, int length) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        }
-        String value = valueNode.getNodeValue();
+    private static byte[] getByteArrayUINT8(String value, int length) throws IOException {
+        int offset = 0;
         int radix = 10;
         if (value.startsWith("0x")) {
-            value = value.substring(2);
+            offset = 2;
             radix = 16;
         }
-        if (length != value.length() / 2) {
-            throw new IOException("value attribute invalid length " + value.length());
+        if (length != (value.length() - offset) / 2) {
+            throw new IOException("value attribute invalid length " + (value.length() - offset));
         }
         byte[] result = new byte[length];
         for (int i = 0; i < length; i++) {
-            result[i] = (byte)(Integer.parseInt(value.substring(i * 2, i * 2 + 2), radix) & 0xFF);
+            result[i] = (byte) parsByte(value, offset + i * 2, radix);
         }
         return result;
     }
-    
-    private static String getTextValue(Node node) throws IOException {
-        Node valueNode = node.getAttributes().getNamedItem("value");
-        if (valueNode == null) {
-            throw new IOException("value attribute expected in " + node.getNodeName());
-        } else {
-            Node encodingNode = node.getAttributes().getNamedItem("encoding");
-            if (encodingNode == null) {
-                return valueNode.getNodeValue();
-            }
-            if ("hex".equals(encodingNode.getNodeValue())) {
-                StringBuffer b = new StringBuffer();
-                String value = valueNode.getNodeValue();
-                for (int i = 0; i < value.length() / 2; i++) {
-                    b.append((char) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16));
-                }
-                return b.toString();
-            } else {
-                throw new IOException("Unknown text encoding " + encodingNode.getNodeValue());
+
+    private static String getTextValue(String name, Attributes attributes) throws IOException {
+        String value = getValue(name, attributes);
+        String encoding = attributes.getValue("encoding");
+        if (encoding == null) {
+            return value;
+        }
+        if ("hex".equals(encoding)) {
+            char[] chars = new char[value.length() / 2];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) parsByte(value, i * 2, 16);
             }
+            return new String(chars);
+        } else {
+            throw new IOException("Unknown text encoding " + encoding);
         }
     }
 
-    private static DataElement parsDataElement(Node node) throws IOException {
-        String name = node.getNodeName();
+    private static DataElement parsDataElement(String name, Attributes attributes) throws IOException {
         Integer intValueType = integerXMLtypes.get(name);
         if (intValueType != null) {
-            return new DataElement(intValueType.intValue(), getLongValue(node));
+            return new DataElement(intValueType.intValue(), parsLong(getValue(name, attributes)));
         } else if ("sequence".equals(name)) {
-            DataElement seq = new DataElement(DataElement.DATSEQ);
-            NodeList children = node.getChildNodes();
-            for (int j = 0; (children != null) && (j < children.getLength()); j++) {
-                Node child = children.item(j);
-                if (child.getNodeType() == Node.ELEMENT_NODE) {
-                    seq.addElement(parsDataElement(child));
-                }
-            }
-            return seq;
+            return new DataElement(DataElement.DATSEQ);
         } else if ("alternate".equals(name)) {
-            DataElement seq = new DataElement(DataElement.DATALT);
-            NodeList children = node.getChildNodes();
-            for (int j = 0; (children != null) && (j < children.getLength()); j++) {
-                Node child = children.item(j);
-                if (child.getNodeType() == Node.ELEMENT_NODE) {
-                    seq.addElement(parsDataElement(child));
-                }
-            }
-            return seq;
+            return new DataElement(DataElement.DATALT);
         } else if ("uuid".equals(name)) {
-            return new DataElement(DataElement.UUID, getUUIDValue(node));
+            return new DataElement(DataElement.UUID, getUUIDValue(getValue(name, attributes)));
         } else if ("text".equals(name)) {
-            return new DataElement(DataElement.STRING, getTextValue(node));
+            return new DataElement(DataElement.STRING, getTextValue(name, attributes));
         } else if ("url".equals(name)) {
-            return new DataElement(DataElement.URL, getTextValue(node));
+            return new DataElement(DataElement.URL, getTextValue(name, attributes));
         } else if ("nil".equals(name)) {
             return new DataElement(DataElement.NULL);
         } else if ("boolean".equals(name)) {
-            return new DataElement(getBoolValue(node));
+            return new DataElement("true".equals(getValue(name, attributes)));
         } else if ("uint64".equals(name)) {
-            return new DataElement(DataElement.U_INT_8, getByteArrayUINT8(node, 8));
+            return new DataElement(DataElement.U_INT_8, getByteArrayUINT8(getValue(name, attributes), 8));
         } else if ("int128".equals(name)) {
-            return new DataElement(DataElement.INT_16, getByteArrayValue(node, 16));
+            return new DataElement(DataElement.INT_16, getByteArrayValue(getValue(name, attributes), 16));
         } else if ("uint128".equals(name)) {
-            return new DataElement(DataElement.U_INT_16, getByteArrayValue(node, 16));   
+            return new DataElement(DataElement.U_INT_16, getByteArrayValue(getValue(name, attributes), 16));
         } else {
             throw new IOException("Unrecognized DataElement " + name);
         }
@@ -26,7 +26,9 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -69,7 +71,7 @@ import org.freedesktop.dbus.exceptions.DBusExecutionException;
  * documentation. Some I tested and this is uncommented. Some I'm not sure are implemented
  * as described so I commented out.
  */
-class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable, SearchServicesRunnable {
+class BluetoothStackBlueZDBus implements BluetoothStack, BluetoothStackDirectBuffer, DeviceInquiryRunnable, SearchServicesRunnable {
 
     // This native lib contains the rfcomm and l2cap linux-specific
     // implementation for this bluez d-bus implementation.
@@ -105,6 +107,40 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
 
     private boolean deviceInquiryCanceled = false;
 
+    private final static int REMOTE_SERVICES_CACHE_DEVICES = 32;
+
+    /**
+     * Service records received from BlueZ in binary form by device address and record handle. Record is parsed
+     * again only when BlueZ returns different XML for the handle.
+     */
+    private final Map<Long, Map<Integer, CachedServiceRecord>> remoteServicesCache = new LinkedHashMap<Long, Map<Integer, CachedServiceRecord>>(
+            16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<Long, Map<Integer, CachedServiceRecord>> eldest) {
+            return size() > REMOTE_SERVICES_CACHE_DEVICES;
+        }
+    };
+
+    private static class CachedServiceRecord {
+
+        final String xml;
+
+        final byte[] sdpBinary;
+
+        /**
+         * Time the record was last received from the device.
+         */
+        final long received;
+
+        CachedServiceRecord(String xml, byte[] sdpBinary) {
+            this.xml = xml;
+            this.sdpBinary = sdpBinary;
+            this.received = System.currentTimeMillis();
+        }
+    }
+
     private class DiscoveryData {
 
         public int deviceClass;
@@ -297,6 +333,9 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
             dbusConn.disconnect();
             dbusConn = null;
         }
+        synchronized (remoteServicesCache) {
+            remoteServicesCache.clear();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -616,9 +655,10 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
     }
 
     private int getRemoteServices(SearchServicesThread sst, UUID[] uuidSet, RemoteDevice remoteDevice) {
+        long address = RemoteDeviceHelper.getAddress(remoteDevice);
         Map<Integer, String> xmlRecords;
         try {
-            xmlRecords = blueZ.getRemoteDeviceServices(toHexString(RemoteDeviceHelper.getAddress(remoteDevice)));
+            xmlRecords = blueZ.getRemoteDeviceServices(toHexString(address));
         } catch (DBusException e) {
             DebugLog.error("get Service records failed", e);
             return DiscoveryListener.SERVICE_SEARCH_ERROR;
@@ -629,28 +669,56 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
         if (xmlRecords == null) {
             return DiscoveryListener.SERVICE_SEARCH_DEVICE_NOT_REACHABLE;
         }
+        Map<Integer, CachedServiceRecord> cachedRecords;
+        synchronized (remoteServicesCache) {
+            cachedRecords = remoteServicesCache.get(address);
+        }
+        Map<Integer, CachedServiceRecord> records = new HashMap<Integer, CachedServiceRecord>();
         nextRecord: for (Map.Entry<Integer, String> record : xmlRecords.entrySet()) {
-            DebugLog.debug("pars service record", record.getValue());
             ServiceRecordImpl sr = new ServiceRecordImpl(this, remoteDevice, record.getKey().intValue());
-            Map<Integer, DataElement> elements;
-            try {
-                elements = BlueZServiceRecordXML.parsXMLRecord(record.getValue());
-            } catch (IOException e) {
-                DebugLog.error("Error parsing service record", e);
-                continue nextRecord;
-            }
-            for (Map.Entry<Integer, DataElement> element : elements.entrySet()) {
-                sr.populateAttributeValue(element.getKey().intValue(), element.getValue());
-            }
-            for (int u = 0; u < uuidSet.length; u++) {
-                if (!((sr.hasServiceClassUUID(uuidSet[u])) || (sr.hasProtocolClassUUID(uuidSet[u])))) {
-                    DebugLog.debug("ignoring service", sr);
+            CachedServiceRecord cached = (cachedRecords == null) ? null : cachedRecords.get(record.getKey());
+            if ((cached != null) && (cached.xml.equals(record.getValue()))) {
+                records.put(record.getKey(), new CachedServiceRecord(cached.xml, cached.sdpBinary));
+                try {
+                    sr.loadByteArray(cached.sdpBinary);
+                } catch (IOException e) {
+                    DebugLog.error("Error loading cached service record", e);
+                    continue nextRecord;
+                }
+                for (int u = 0; u < uuidSet.length; u++) {
+                    if (!((sr.hasServiceClassUUID(uuidSet[u])) || (sr.hasProtocolClassUUID(uuidSet[u])))) {
+                        DebugLog.debug("ignoring service", sr);
+                        continue nextRecord;
+                    }
+                }
+            } else {
+                DebugLog.debug("pars service record", record.getValue());
+                Map<Integer, DataElement> elements;
+                try {
+                    elements = BlueZServiceRecordXML.parsXMLRecord(record.getValue(), uuidSet);
+                } catch (IOException e) {
+                    DebugLog.error("Error parsing service record", e);
+                    continue nextRecord;
+                }
+                if (elements == null) {
+                    DebugLog.debug("ignoring service", record.getKey());
                     continue nextRecord;
                 }
+                for (Map.Entry<Integer, DataElement> element : elements.entrySet()) {
+                    sr.populateAttributeValue(element.getKey().intValue(), element.getValue());
+                }
+                try {
+                    records.put(record.getKey(), new CachedServiceRecord(record.getValue(), sr.toByteArray()));
+                } catch (IOException e) {
+                    DebugLog.error("Error encoding service record", e);
+                }
             }
             DebugLog.debug("found service");
             sst.addServicesRecords(sr);
         }
+        synchronized (remoteServicesCache) {
+            remoteServicesCache.put(address, records);
+        }
         return DiscoveryListener.SERVICE_SEARCH_COMPLETED;
     }
 
@@ -690,10 +758,85 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
         }
     }
 
+    /**
+     * Used when BlueZ can't return single record. All records of the device are retrieved and the record is cached
+     * for next requests.
+     */
+    private byte[] getRemoteServiceRecordFromXML(RemoteDevice remoteDevice, long address, int handle) throws DBusException,
+            IOException {
+        Map<Integer, String> xmlRecords = blueZ.getRemoteDeviceServices(toHexString(address));
+        if (xmlRecords == null) {
+            throw new IOException("Device not reachable");
+        }
+        String xml = xmlRecords.get(handle);
+        if (xml == null) {
+            return null;
+        }
+        ServiceRecordImpl sr = new ServiceRecordImpl(this, remoteDevice, handle);
+        for (Map.Entry<Integer, DataElement> element : BlueZServiceRecordXML.parsXMLRecord(xml).entrySet()) {
+            sr.populateAttributeValue(element.getKey().intValue(), element.getValue());
+        }
+        byte[] sdpBinary = sr.toByteArray();
+        synchronized (remoteServicesCache) {
+            // Maps in cache are not modified once stored
+            Map<Integer, CachedServiceRecord> cachedRecords = new HashMap<Integer, CachedServiceRecord>();
+            Map<Integer, CachedServiceRecord> previous = remoteServicesCache.get(address);
+            if (previous != null) {
+                cachedRecords.putAll(previous);
+            }
+            cachedRecords.put(handle, new CachedServiceRecord(xml, sdpBinary));
+            remoteServicesCache.put(address, cachedRecords);
+        }
+        return sdpBinary;
+    }
+
+    /**
+     * Record received from the device within SDP cache time to live.
+     * 
+     * @return the record in SDP binary form or {@code null}
+     */
+    private byte[] getRecentServiceRecord(long address, int handle) {
+        long ttl = 1000L * BlueCoveImpl.getConfigProperty(this, BlueCoveConfigProperties.PROPERTY_SDP_CACHE_TTL, 0);
+        if (ttl <= 0) {
+            return null;
+        }
+        synchronized (remoteServicesCache) {
+            Map<Integer, CachedServiceRecord> cachedRecords = remoteServicesCache.get(address);
+            if (cachedRecords == null) {
+                return null;
+            }
+            CachedServiceRecord cached = cachedRecords.get(handle);
+            if ((cached == null) || (System.currentTimeMillis() - cached.received > ttl)) {
+                return null;
+            }
+            return cached.sdpBinary;
+        }
+    }
+
     public boolean populateServicesRecordAttributeValues(ServiceRecordImpl serviceRecord, int[] attrIDs) throws IOException {
         DebugLog.debug("populateServicesRecordAttributeValues()");
-        long remoteDeviceAddress = RemoteDeviceHelper.getAddress(serviceRecord.getHostDevice());
-        throw new UnsupportedOperationException("populateServicesRecordAttributeValues Not supported yet.");
+        long address = RemoteDeviceHelper.getAddress(serviceRecord.getHostDevice());
+        int handle = (int) serviceRecord.getHandle();
+        byte[] sdpBinary;
+        try {
+            sdpBinary = blueZ.getRemoteDeviceServiceRecord(toHexString(address), handle);
+            if (sdpBinary == null) {
+                // BlueZ 4, use records of recent service search
+                sdpBinary = getRecentServiceRecord(address, handle);
+            }
+            if (sdpBinary == null) {
+                sdpBinary = getRemoteServiceRecordFromXML(serviceRecord.getHostDevice(), address, handle);
+            }
+        } catch (DBusException e) {
+            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+        } catch (DBusExecutionException e) {
+            throw (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+        }
+        if (sdpBinary == null) {
+            return false;
+        }
+        return serviceRecord.loadByteArray(sdpBinary, attrIDs, BlueCoveImpl.getConfigProperty(
+                BlueCoveConfigProperties.PROPERTY_SDP_LAZY_ATTRIBUTES, false));
     }
 
     // --- SDP Server
@@ -814,6 +957,20 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
 
     public native void connectionRfWrite(long handle, byte[] b, int off, int len) throws IOException;
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#connectionRfReadDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native int connectionRfReadDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#connectionRfWriteDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native void connectionRfWriteDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
     public native void connectionRfFlush(long handle) throws IOException;
 
     public native long getConnectionRfRemoteAddress(long handle) throws IOException;
@@ -941,6 +1098,20 @@ class BluetoothStackBlueZDBus implements BluetoothStack, DeviceInquiryRunnable,
      */
     public native void l2Send(long handle, byte[] data, int transmitMTU) throws IOException;
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#l2ReceiveDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native int l2ReceiveDirect(long handle, ByteBuffer inBuf, int off, int len) throws IOException;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#l2SendDirect(long, java.nio.ByteBuffer, int, int, int)
+     */
+    public native void l2SendDirect(long handle, ByteBuffer data, int off, int len, int transmitMTU) throws IOException;
+
     /*
      * (non-Javadoc)
      * 
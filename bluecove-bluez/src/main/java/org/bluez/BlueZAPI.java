@@ -99,6 +99,11 @@ public interface BlueZAPI {
      */
     public Map<Integer, String> getRemoteDeviceServices(String deviceAddress) throws DBusException;
 
+    /**
+     * Single service record in SDP binary format. Returns {@code null} if not supported by BlueZ version.
+     */
+    public byte[] getRemoteDeviceServiceRecord(String deviceAddress, long handle) throws DBusException;
+
     public void authenticateRemoteDevice(String deviceAddress) throws DBusException;
 
     public boolean authenticateRemoteDevice(String deviceAddress, String passkey) throws DBusException;
@@ -665,6 +665,15 @@ public class BlueZAPIV3 implements BlueZAPI {
         return xmlRecords;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.bluez.BlueZAPI#getRemoteDeviceServiceRecord(java.lang.String, long)
+     */
+    public byte[] getRemoteDeviceServiceRecord(String deviceAddress, long handle) throws DBusException {
+        return adapter.GetRemoteServiceRecord(deviceAddress, new UInt32(handle));
+    }
+
     private Database getSDPService() throws DBusException {
         //return dbusConn.getRemoteObject("org.bluez", adapterPath.getPath(), Database.class);
         return dbusConn.getRemoteObject("org.bluez", "/org/bluez", Database.class);
@@ -512,6 +512,16 @@ public class BlueZAPIV4 implements BlueZAPI {
         return xmlRecords;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.bluez.BlueZAPI#getRemoteDeviceServiceRecord(java.lang.String, long)
+     */
+    public byte[] getRemoteDeviceServiceRecord(String deviceAddress, long handle) throws DBusException {
+        // Device interface only provides DiscoverServices
+        return null;
+    }
+
     private Service getSDPService() throws DBusException {
         return dbusConn.getRemoteObject("org.bluez", adapterPath.getPath(), Service.class);
     }
@@ -296,4 +296,49 @@ public class BlueZServiceRecordXMLTest extends TestCase {
         validateConversion(new DataElement(false));
         validateConversion(new DataElement(DataElement.NULL));
     }
+
+    public void testTextHexEncoding() throws IOException {
+        assertParser(new DataElement(DataElement.STRING, "BlueCove"), 0x0100, new String[] { "<record>",
+            "<attribute id=\"0x0100\">",
+            "<text encoding=\"hex\" value=\"426c7565436f7665\" />",
+            "</attribute>",
+            "</record>" });
+    }
+
+    private static final String[] filterRecord = new String[] { "<record>",
+        "<attribute id=\"0x0001\">",
+        "<sequence>",
+        "<uuid value=\"0x1101\" />",
+        "</sequence>",
+        "</attribute>",
+        "<attribute id=\"0x0004\">",
+        "<sequence>",
+        "<sequence><uuid value=\"0x0100\" /></sequence>",
+        "<sequence><uuid value=\"0x0003\" /><uint8 value=\"0x01\" /></sequence>",
+        "</sequence>",
+        "</attribute>",
+        "<attribute id=\"0x0100\">",
+        "<text value=\"Serial Port\" />",
+        "</attribute>",
+        "</record>" };
+
+    public void testParserUUIDFilter() throws IOException {
+        StringBuffer b = new StringBuffer();
+        for (String x : filterRecord) {
+            b.append(x).append('\n');
+        }
+        String xml = b.toString();
+
+        Map<Integer, DataElement> elements = BlueZServiceRecordXML.parsXMLRecord(xml, new UUID[] { new UUID(0x1101),
+                new UUID(0x0003) });
+        assertNotNull("accepted", elements);
+        assertEquals("Parsed elements", 3, elements.size());
+        assertEquals("name", new DataElement(DataElement.STRING, "Serial Port"), elements.get(0x0100));
+
+        assertNull("filtered", BlueZServiceRecordXML.parsXMLRecord(xml, new UUID[] { new UUID(0x0003),
+                new UUID(0x1105) }));
+
+        // Parser is reused after filtered record
+        assertEquals("Parsed elements", 3, BlueZServiceRecordXML.parsXMLRecord(xml).size());
+    }
 }
@@ -26,6 +26,7 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import javax.bluetooth.BluetoothStateException;
 import javax.bluetooth.DeviceClass;
@@ -34,7 +35,7 @@ import javax.bluetooth.RemoteDevice;
 import javax.bluetooth.ServiceRegistrationException;
 import javax.bluetooth.UUID;
 
-class BluetoothEmulator implements BluetoothStack {
+class BluetoothEmulator implements BluetoothStack, BluetoothStackDirectBuffer {
 
 	static final int NATIVE_LIBRARY_VERSION = BlueCoveImpl.nativeLibraryVersionExpected;
 
@@ -423,6 +424,14 @@ class BluetoothEmulator implements BluetoothStack {
 		((EmulatorRFCOMMClient) activeLocalDevice().getConnection(handle)).write(b, off, len);
 	}
 
+	public int connectionRfReadDirect(long handle, ByteBuffer b, int off, int len) throws IOException {
+		return ((EmulatorRFCOMMClient) activeLocalDevice().getConnection(handle)).read(b, off, len);
+	}
+
+	public void connectionRfWriteDirect(long handle, ByteBuffer b, int off, int len) throws IOException {
+		((EmulatorRFCOMMClient) activeLocalDevice().getConnection(handle)).write(b, off, len);
+	}
+
 	public void connectionRfFlush(long handle) throws IOException {
 		((EmulatorRFCOMMClient) activeLocalDevice().getConnection(handle)).flush();
 	}
@@ -549,6 +558,14 @@ class BluetoothEmulator implements BluetoothStack {
 		((EmulatorL2CAPClient) activeLocalDevice().getConnection(handle)).send(data);
 	}
 
+	public int l2ReceiveDirect(long handle, ByteBuffer inBuf, int off, int len) throws IOException {
+		return ((EmulatorL2CAPClient) activeLocalDevice().getConnection(handle)).receive(inBuf, off, len);
+	}
+
+	public void l2SendDirect(long handle, ByteBuffer data, int off, int len, int transmitMTU) throws IOException {
+		((EmulatorL2CAPClient) activeLocalDevice().getConnection(handle)).send(data, off, len);
+	}
+
 	public int l2GetReceiveMTU(long handle) throws IOException {
 		return ((EmulatorL2CAPClient) activeLocalDevice().getConnection(handle)).getReceiveMTU();
 	}
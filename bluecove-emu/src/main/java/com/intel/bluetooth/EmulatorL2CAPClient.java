@@ -26,6 +26,7 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -88,6 +89,19 @@ class EmulatorL2CAPClient extends EmulatorLinkedConnection {
 		return length;
 	}
 
+	int receive(ByteBuffer inBuf, int off, int len) throws IOException {
+		byte[] packetData = localDevice.getDeviceManagerService().l2Receive(localDevice.getAddress(),
+				this.connectionHandle, this.receiveMTU);
+		int length = packetData.length;
+		if (length > len) {
+			length = len;
+		}
+		ByteBuffer dst = inBuf.duplicate();
+		dst.position(off);
+		dst.put(packetData, 0, length);
+		return length;
+	}
+
 	void send(byte[] data) throws IOException {
 		if (data.length > transmitMTU) {
 			byte[] b = new byte[transmitMTU];
@@ -97,4 +111,15 @@ class EmulatorL2CAPClient extends EmulatorLinkedConnection {
 		localDevice.getDeviceManagerService().l2Send(localDevice.getAddress(), this.connectionHandle, data);
 	}
 
+	void send(ByteBuffer data, int off, int len) throws IOException {
+		if (len > transmitMTU) {
+			len = transmitMTU;
+		}
+		byte[] b = new byte[len];
+		ByteBuffer src = data.duplicate();
+		src.position(off);
+		src.get(b);
+		localDevice.getDeviceManagerService().l2Send(localDevice.getAddress(), this.connectionHandle, b);
+	}
+
 }
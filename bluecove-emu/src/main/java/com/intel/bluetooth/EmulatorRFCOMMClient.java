@@ -26,6 +26,7 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * 
@@ -62,6 +63,17 @@ class EmulatorRFCOMMClient extends EmulatorLinkedConnection {
 		return buf.length;
 	}
 
+	int read(ByteBuffer b, int off, int len) throws IOException {
+		byte buf[] = localDevice.getDeviceManagerService().rfRead(localDevice.getAddress(), this.connectionHandle, len);
+		if (buf == null) {
+			return -1;
+		}
+		ByteBuffer dst = b.duplicate();
+		dst.position(off);
+		dst.put(buf);
+		return buf.length;
+	}
+
 	int available() throws IOException {
 		return localDevice.getDeviceManagerService().rfAvailable(localDevice.getAddress(), this.connectionHandle);
 	}
@@ -83,6 +95,14 @@ class EmulatorRFCOMMClient extends EmulatorLinkedConnection {
 		localDevice.getDeviceManagerService().rfWrite(localDevice.getAddress(), this.connectionHandle, buf);
 	}
 
+	void write(ByteBuffer b, int off, int len) throws IOException {
+		byte buf[] = new byte[len];
+		ByteBuffer src = b.duplicate();
+		src.position(off);
+		src.get(buf);
+		localDevice.getDeviceManagerService().rfWrite(localDevice.getAddress(), this.connectionHandle, buf);
+	}
+
 	void flush() throws IOException {
 	    localDevice.getDeviceManagerService().rfFlush(localDevice.getAddress(), this.connectionHandle);
 	}
@@ -28,7 +28,6 @@ package com.intel.bluetooth;
 import java.io.IOException;
 
 import javax.bluetooth.BluetoothStateException;
-import javax.bluetooth.DataElement;
 import javax.bluetooth.DiscoveryListener;
 import javax.bluetooth.RemoteDevice;
 import javax.bluetooth.UUID;
@@ -93,18 +92,8 @@ class EmulatorSearchServices implements SearchServicesRunnable {
 	static boolean populateServicesRecordAttributeValues(EmulatorLocalDevice localDevice,
 			ServiceRecordImpl serviceRecord, int[] attrIDs, long remoteDeviceAddress, long handle) throws IOException {
 		byte[] blob = localDevice.getDeviceManagerService().getServicesRecordBinary(remoteDeviceAddress, handle);
-		ServiceRecordImpl temp = new ServiceRecordImpl(null, null, handle);
-		temp.loadByteArray(blob);
-		boolean anyRetrived = false;
-		for (int i = 0; i < attrIDs.length; i++) {
-			int id = attrIDs[i];
-			DataElement element = temp.getAttributeValue(id);
-			serviceRecord.populateAttributeValue(id, element);
-			if (element != null) {
-				anyRetrived = true;
-			}
-		}
-		return anyRetrived;
+		return serviceRecord.loadByteArray(blob, attrIDs, BlueCoveImpl.getConfigProperty(
+				BlueCoveConfigProperties.PROPERTY_SDP_LAZY_ATTRIBUTES, false));
 	}
 
 }
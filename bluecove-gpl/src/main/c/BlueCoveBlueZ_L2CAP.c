@@ -174,19 +174,8 @@ JNIEXPORT jboolean JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Ready
     return JNI_FALSE;
 }
 
-JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Receive
-  (JNIEnv* env, jobject peer, jlong handle, jbyteArray inBuf) {
-    if (inBuf == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return 0;
-    }
-#ifdef BLUECOVE_L2CAP_MTU_TRUNCATE
-    struct l2cap_options opt;
-    if (!l2Get_options(env, handle, &opt)) {
-       return 0;
-    }
-#endif //BLUECOVE_L2CAP_MTU_TRUNCATE
-
+// Wait for packet to receive
+static bool l2WaitReceive(JNIEnv* env, jobject peer, jlong handle) {
     bool dataReady = false;
     while(!dataReady) {
         struct pollfd fds;
@@ -199,34 +188,34 @@ JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Receive
         if (poll_rc > 0) {
             if (fds.revents & (POLLHUP | POLLERR /*| POLLRDHUP*/)) {
                 throwIOException(env, "Peer closed connection");
-                return 0;
+                return false;
             } else if (fds.revents & POLLNVAL) {
                 // this connection has been closed by invoking the close() method.
                 throwIOException(env, "Connection closed");
-                return 0;
+                return false;
             } else if (fds.revents & POLLIN) {
                 dataReady = true;
             }
         } else if (poll_rc == -1) {
             throwIOException(env, "Failed to read. [%d] %s", errno, strerror(errno));
-            return 0;
+            return false;
         } else {
             //Edebug("poll: call timed out");
         }
         if(isCurrentThreadInterrupted(env, peer)) {
-            return 0;
+            return false;
         }
     }
 
-    jbyte *bytes = (*env)->GetByteArrayElements(env, inBuf, 0);
-    if (bytes == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return 0;
-    }
-    size_t inBufLen = (size_t)(*env)->GetArrayLength(env, inBuf);
-    int readLen = inBufLen;
+    return true;
+}
 
+static jint l2ReceiveBytes(JNIEnv* env, jlong handle, jbyte *bytes, jint readLen) {
 #ifdef BLUECOVE_L2CAP_MTU_TRUNCATE
+    struct l2cap_options opt;
+    if (!l2Get_options(env, handle, &opt)) {
+       return 0;
+    }
     if (readLen > opt.imtu) {
         readLen = opt.imtu;
     }
@@ -252,13 +241,44 @@ JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Receive
         count = 0;
     }
 
+    return count;
+}
+
+JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Receive
+  (JNIEnv* env, jobject peer, jlong handle, jbyteArray inBuf) {
+    if (inBuf == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return 0;
+    }
+    if (!l2WaitReceive(env, peer, handle)) {
+        return 0;
+    }
+    jbyte *bytes = (*env)->GetByteArrayElements(env, inBuf, 0);
+    if (bytes == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return 0;
+    }
+    jint count = l2ReceiveBytes(env, handle, bytes, (*env)->GetArrayLength(env, inBuf));
     (*env)->ReleaseByteArrayElements(env, inBuf, bytes, 0);
     debug("receive[] returns %i", count);
     return count;
 }
 
-JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Send
-  (JNIEnv* env, jobject peer, jlong handle, jbyteArray data, jint transmitMTU) {
+JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2ReceiveDirect
+  (JNIEnv* env, jobject peer, jlong handle, jobject inBuf, jint off, jint len) {
+    jbyte *bytes = getDirectBufferAddress(env, inBuf, off, len);
+    if (bytes == NULL) {
+        return 0;
+    }
+    if (!l2WaitReceive(env, peer, handle)) {
+        return 0;
+    }
+    jint count = l2ReceiveBytes(env, handle, bytes, len);
+    debug("receive direct returns %i", count);
+    return count;
+}
+
+static void l2SendBytes(JNIEnv* env, jlong handle, jbyte *bytes, jint len, jint transmitMTU) {
 #ifdef BLUECOVE_L2CAP_MTU_TRUNCATE
     struct l2cap_options opt;
     if (!l2Get_options(env, handle, &opt)) {
@@ -266,19 +286,9 @@ JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Send
     }
 #endif //BLUECOVE_L2CAP_MTU_TRUNCATE
 
-    if (data == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return;
-    }
-    jbyte *bytes = (*env)->GetByteArrayElements(env, data, 0);
-    if (bytes == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return;
-    }
-    int len = (int)(*env)->GetArrayLength(env, data);
     if (len > transmitMTU) {
-		len = transmitMTU;
-	}
+        len = transmitMTU;
+    }
 
 #ifdef BLUECOVE_L2CAP_MTU_TRUNCATE
     if (len > opt.omtu) {
@@ -290,9 +300,32 @@ JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Send
     if (count < 0) {
         throwIOException(env, "Failed to write. [%d] %s", errno, strerror(errno));
     }
+}
+
+JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2Send
+  (JNIEnv* env, jobject peer, jlong handle, jbyteArray data, jint transmitMTU) {
+    if (data == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return;
+    }
+    jbyte *bytes = (*env)->GetByteArrayElements(env, data, 0);
+    if (bytes == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return;
+    }
+    l2SendBytes(env, handle, bytes, (*env)->GetArrayLength(env, data), transmitMTU);
     (*env)->ReleaseByteArrayElements(env, data, bytes, 0);
 }
 
+JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2SendDirect
+  (JNIEnv* env, jobject peer, jlong handle, jobject data, jint off, jint len, jint transmitMTU) {
+    jbyte *bytes = getDirectBufferAddress(env, data, off, len);
+    if (bytes == NULL) {
+        return;
+    }
+    l2SendBytes(env, handle, bytes, len, transmitMTU);
+}
+
 JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_l2GetReceiveMTU
   (JNIEnv* env, jobject peer, jlong handle) {
     struct l2cap_options opt;
@@ -131,21 +131,11 @@ JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_rfGetSecurit
     }
 }
 
-JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfRead
-  (JNIEnv* env, jobject peer, jlong handle, jbyteArray b, jint off, jint len ) {
-    if (b == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return 0;
-    }
-    jbyte *bytes = (*env)->GetByteArrayElements(env, b, 0);
-    if (bytes == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return 0;
-    }
+static jint rfRead(JNIEnv* env, jobject peer, jlong handle, jbyte *bytes, jint len) {
     int done = 0;
     while (done == 0) {
         int flags = MSG_DONTWAIT;
-        int count = recv(handle, (char *)(bytes + off + done), len - done, flags);
+        int count = recv(handle, (char *)(bytes + done), len - done, flags);
         if (count < 0) {
             if (errno == EAGAIN) { // Try again for non-blocking operation
                 count = 0;
@@ -216,10 +206,34 @@ JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRf
         }
     }
 rfReadEnd:
+    return done;
+}
+
+JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfRead
+  (JNIEnv* env, jobject peer, jlong handle, jbyteArray b, jint off, jint len ) {
+    if (b == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return 0;
+    }
+    jbyte *bytes = (*env)->GetByteArrayElements(env, b, 0);
+    if (bytes == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return 0;
+    }
+    jint done = rfRead(env, peer, handle, bytes + off, len);
     (*env)->ReleaseByteArrayElements(env, b, bytes, 0);
     return done;
 }
 
+JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfReadDirect
+  (JNIEnv* env, jobject peer, jlong handle, jobject b, jint off, jint len) {
+    jbyte *bytes = getDirectBufferAddress(env, b, off, len);
+    if (bytes == NULL) {
+        return 0;
+    }
+    return rfRead(env, peer, handle, bytes, len);
+}
+
 JNIEXPORT jint JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfReadAvailable
   (JNIEnv* env, jobject peer, jlong handle) {
     struct pollfd fds;
@@ -251,20 +265,10 @@ JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRf
     }
 }
 
-JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfWrite__J_3BII
-  (JNIEnv* env, jobject peer, jlong handle, jbyteArray b, jint off, jint len) {
-    if (b == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return;
-    }
-    jbyte *bytes = (*env)->GetByteArrayElements(env, b, 0);
-    if (bytes == NULL) {
-        throwRuntimeException(env, "Invalid argument");
-        return;
-    }
+static void rfWrite(JNIEnv* env, jobject peer, jlong handle, jbyte *bytes, jint len) {
     int done = 0;
     while(done < len) {
-        int count = send(handle, (char *)(bytes + off + done), len - done, 0);
+        int count = send(handle, (char *)(bytes + done), len - done, 0);
         if (count < 0) {
             throwIOException(env, "Failed to write. [%d] %s", errno, strerror(errno));
             break;
@@ -274,9 +278,32 @@ JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRf
         }
         done += count;
     }
+}
+
+JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfWrite__J_3BII
+  (JNIEnv* env, jobject peer, jlong handle, jbyteArray b, jint off, jint len) {
+    if (b == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return;
+    }
+    jbyte *bytes = (*env)->GetByteArrayElements(env, b, 0);
+    if (bytes == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return;
+    }
+    rfWrite(env, peer, handle, bytes + off, len);
     (*env)->ReleaseByteArrayElements(env, b, bytes, 0);
 }
 
+JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfWriteDirect
+  (JNIEnv* env, jobject peer, jlong handle, jobject b, jint off, jint len) {
+    jbyte *bytes = getDirectBufferAddress(env, b, off, len);
+    if (bytes == NULL) {
+        return;
+    }
+    rfWrite(env, peer, handle, bytes, len);
+}
+
 JNIEXPORT void JNICALL Java_com_intel_bluetooth_BluetoothStackBlueZ_connectionRfFlush
   (JNIEnv* env, jobject peer, jlong handle) {
 }
@@ -226,6 +226,25 @@ bool threadSleep(JNIEnv *env, jlong millis) {
     return true;
 }
 
+// Memory of direct java.nio.ByteBuffer starting at off, NULL and exception thrown when len bytes are not available
+jbyte* getDirectBufferAddress(JNIEnv *env, jobject buffer, jint off, jint len) {
+    if (buffer == NULL) {
+        throwRuntimeException(env, "Invalid argument");
+        return NULL;
+    }
+    jbyte *address = (jbyte *)(*env)->GetDirectBufferAddress(env, buffer);
+    if (address == NULL) {
+        throwRuntimeException(env, "Not a direct buffer");
+        return NULL;
+    }
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    if ((off < 0) || (len < 0) || ((jlong)off + len > capacity)) {
+        throwRuntimeException(env, "Invalid buffer range");
+        return NULL;
+    }
+    return address + off;
+}
+
 jmethodID getGetMethodID(JNIEnv * env, jclass clazz, const char *name, const char *sig) {
     if (clazz == NULL) {
         throwRuntimeException(env, "Fail to get MethodID %s for NULL class", name);
@@ -68,6 +68,8 @@ jmethodID getGetMethodID(JNIEnv * env, jclass clazz, const char *name, const cha
 bool isCurrentThreadInterrupted(JNIEnv *env, jobject peer);
 bool threadSleep(JNIEnv *env, jlong millis);
 
+jbyte* getDirectBufferAddress(JNIEnv *env, jobject buffer, jint off, jint len);
+
 struct DeviceInquiryCallback {
     jobject inquiryRunnable;
     jmethodID deviceDiscoveredCallbackMethod;
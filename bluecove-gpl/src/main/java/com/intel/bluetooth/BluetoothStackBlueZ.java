@@ -21,6 +21,7 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Vector;
 
@@ -38,7 +39,7 @@ import javax.bluetooth.UUID;
  * Bluetooth device.
  * 
  */
-class BluetoothStackBlueZ implements BluetoothStack, BluetoothStackExtension {
+class BluetoothStackBlueZ implements BluetoothStack, BluetoothStackExtension, BluetoothStackDirectBuffer {
 
     public static final String NATIVE_BLUECOVE_LIB_BLUEZ = "bluecove";
 
@@ -653,6 +654,20 @@ class BluetoothStackBlueZ implements BluetoothStack, BluetoothStackExtension {
 
     public native void connectionRfWrite(long handle, byte[] b, int off, int len) throws IOException;
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#connectionRfReadDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native int connectionRfReadDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#connectionRfWriteDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native void connectionRfWriteDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
     public native void connectionRfFlush(long handle) throws IOException;
 
     public native long getConnectionRfRemoteAddress(long handle) throws IOException;
@@ -780,6 +795,20 @@ class BluetoothStackBlueZ implements BluetoothStack, BluetoothStackExtension {
      */
     public native void l2Send(long handle, byte[] data, int transmitMTU) throws IOException;
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#l2ReceiveDirect(long, java.nio.ByteBuffer, int, int)
+     */
+    public native int l2ReceiveDirect(long handle, ByteBuffer inBuf, int off, int len) throws IOException;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.intel.bluetooth.BluetoothStackDirectBuffer#l2SendDirect(long, java.nio.ByteBuffer, int, int, int)
+     */
+    public native void l2SendDirect(long handle, ByteBuffer data, int off, int len, int transmitMTU) throws IOException;
+
     /*
      * (non-Javadoc)
      * 
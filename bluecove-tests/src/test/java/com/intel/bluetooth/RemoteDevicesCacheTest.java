@@ -0,0 +1,112 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.lang.reflect.Field;
+
+import javax.bluetooth.RemoteDevice;
+
+import net.sf.bluecove.BaseEmulatorTestCase;
+
+/**
+ *
+ */
+public class RemoteDevicesCacheTest extends BaseEmulatorTestCase {
+
+	private BluetoothStack stack;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		stack = BlueCoveImpl.instance().getBluetoothStack();
+		RemoteDeviceHelper.clearCachedDevices();
+		RemoteDeviceHelper.resetCachedDevicesStatistics();
+	}
+
+	private RemoteDevice create(long address, boolean paired) {
+		return RemoteDeviceHelper.createRemoteDevice(stack, 0x0B1000EE0000l + address, null, paired);
+	}
+
+	public void testSameInstance() throws Exception {
+		RemoteDevice dev = create(1, false);
+		assertSame("same device", dev, create(1, false));
+		assertEquals("miss", 1, RemoteDeviceHelper.getCachedDevicesMissCount());
+		assertEquals("hit", 1, RemoteDeviceHelper.getCachedDevicesHitCount());
+		assertEquals("size", 1, RemoteDeviceHelper.cachedDevices());
+	}
+
+	public void testEviction() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_SIZE, "3");
+		RemoteDevice dev1 = create(1, false);
+		RemoteDevice dev2 = create(2, false);
+		create(3, false);
+		// Make dev1 recently used
+		assertSame("dev1", dev1, create(1, false));
+		create(4, false);
+		assertEquals("size", 3, RemoteDeviceHelper.cachedDevices());
+		assertEquals("evictions", 1, RemoteDeviceHelper.getCachedDevicesEvictionCount());
+		assertSame("dev1 kept", dev1, create(1, false));
+		assertNotSame("dev2 removed", dev2, create(2, false));
+	}
+
+	public void testPairedNotEvicted() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_SIZE, "2");
+		RemoteDevice paired = create(1, true);
+		for (int i = 2; i < 10; i++) {
+			create(i, false);
+		}
+		assertEquals("size", 2, RemoteDeviceHelper.cachedDevices());
+		assertSame("paired kept", paired, create(1, false));
+	}
+
+	public void testIdleExpiration() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_IDLE, "1");
+		create(1, false);
+		create(2, true);
+		Thread.sleep(1100);
+		create(3, false);
+		assertEquals("size", 2, RemoteDeviceHelper.cachedDevices());
+		assertEquals("expirations", 1, RemoteDeviceHelper.getCachedDevicesExpirationCount());
+	}
+
+	private void setPaired(RemoteDevice dev, boolean paired) throws Exception {
+		Field field = dev.getClass().getDeclaredField("paired");
+		field.setAccessible(true);
+		field.setBoolean(dev, paired);
+	}
+
+	public void testInUseDeviceRenewed() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_IDLE, "1");
+		RemoteDevice dev1 = create(1, true);
+		Thread.sleep(1100);
+		// dev1 is idle for too long but in use
+		create(2, false);
+		setPaired(dev1, false);
+		create(2, false);
+		// dev1 was in use until now and should not expire
+		create(3, false);
+		assertEquals("expirations", 0, RemoteDeviceHelper.getCachedDevicesExpirationCount());
+		assertEquals("size", 3, RemoteDeviceHelper.cachedDevices());
+	}
+}
@@ -36,6 +36,14 @@ public abstract class BlueCoveInternals {
         return OBEXClientOperation.isShortRequestPhase();
     }
 
+    /**
+     * @return true if the connection uses reliable session that is not suspended
+     */
+    public static boolean isReliableSessionActive(Connection c) {
+        OBEXReliableSession rs = ((OBEXSessionBase) c).reliableSession;
+        return (rs != null) && (!rs.suspended);
+    }
+
     public static int readServerErrorCount() {
         synchronized (OBEXServerSessionImpl.class) {
             int count = OBEXServerSessionImpl.errorCount;
@@ -0,0 +1,219 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import javax.bluetooth.L2CAPConnection;
+import javax.bluetooth.L2CAPConnectionNotifier;
+import javax.bluetooth.UUID;
+import javax.microedition.io.Connection;
+import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnection;
+import javax.microedition.io.StreamConnectionNotifier;
+
+import com.intel.bluetooth.BluetoothByteChannel;
+
+/**
+ *
+ */
+public class BluetoothByteChannelTest extends BaseEmulatorTestCase {
+
+	private static final UUID serverUUID = new UUID("B10C0BE1111111111111111111110050", false);
+
+	private static final int DATA_SIZE = 3000;
+
+	private static final int L2CAP_PACKETS = 4;
+
+	@Override
+	protected Runnable createTestServer() {
+		if (getName().startsWith("testL2CAP")) {
+			return new TestCaseRunnable() {
+				public void execute() throws Exception {
+					L2CAPConnectionNotifier serverConnection = (L2CAPConnectionNotifier) Connector.open("btl2cap://localhost:"
+							+ serverUUID + ";name=ChannelTest;TransmitMTU=672");
+					try {
+						L2CAPConnection conn = serverConnection.acceptAndOpen();
+						byte[] buffer = new byte[conn.getReceiveMTU()];
+						// Echo packets, last one is sent by client when it is done
+						for (int i = 0; i < L2CAP_PACKETS; i++) {
+							int len = conn.receive(buffer);
+							byte[] packet = new byte[len];
+							System.arraycopy(buffer, 0, packet, 0, len);
+							conn.send(packet);
+						}
+						conn.receive(buffer);
+						conn.close();
+					} finally {
+						serverConnection.close();
+					}
+				}
+			};
+		}
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				StreamConnectionNotifier serverConnection = (StreamConnectionNotifier) Connector.open("btspp://localhost:"
+						+ serverUUID + ";name=ChannelTest");
+				try {
+					StreamConnection conn = serverConnection.acceptAndOpen();
+					DataInputStream is = conn.openDataInputStream();
+					byte[] data = new byte[is.readInt()];
+					is.readFully(data);
+					OutputStream os = conn.openOutputStream();
+					os.write(data);
+					os.flush();
+					// Wait for client to close
+					assertEquals("client EOF", -1, is.read());
+					os.close();
+					is.close();
+					conn.close();
+				} finally {
+					serverConnection.close();
+				}
+			}
+		};
+	}
+
+	private static void fill(ByteBuffer buffer, int start) {
+		for (int i = start; buffer.hasRemaining(); i++) {
+			buffer.put((byte) i);
+		}
+		buffer.flip();
+	}
+
+	private static void assertData(String message, ByteBuffer buffer, int start) {
+		for (int i = start; buffer.hasRemaining(); i++) {
+			assertEquals(message + " byte " + i, (byte) i, buffer.get());
+		}
+	}
+
+	public void testRFCOMM() throws Exception {
+		Connection conn = Connector.open(selectService(serverUUID));
+		BluetoothByteChannel channel = BluetoothByteChannel.open(conn);
+		assertTrue("open", channel.isOpen());
+
+		ByteBuffer header = ByteBuffer.allocateDirect(4);
+		header.putInt(DATA_SIZE);
+		header.flip();
+		assertEquals("header", 4, channel.write(header));
+		assertFalse("header written", header.hasRemaining());
+
+		// Heap, direct and read-only buffers in one gathering write
+		ByteBuffer part1 = ByteBuffer.allocate(1000);
+		fill(part1, 0);
+		ByteBuffer part2 = ByteBuffer.allocateDirect(1500);
+		fill(part2, 1000);
+		ByteBuffer part3 = ByteBuffer.allocate(500);
+		fill(part3, 2500);
+		assertEquals("written", DATA_SIZE, channel.write(new ByteBuffer[] { part1, part2, part3.asReadOnlyBuffer() }));
+		assertFalse("part2 written", part2.hasRemaining());
+
+		try {
+			channel.read(ByteBuffer.allocate(10).asReadOnlyBuffer());
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+
+		ByteBuffer in = ByteBuffer.allocateDirect(DATA_SIZE);
+		// Read first part to array with offset
+		ByteBuffer heap = ByteBuffer.allocate(200);
+		heap.position(100);
+		ByteBuffer slice = heap.slice();
+		while (slice.hasRemaining()) {
+			assertTrue("read", channel.read(slice) > 0);
+		}
+		slice.flip();
+		assertData("heap", slice, 0);
+		in.position(100);
+		while (in.hasRemaining()) {
+			assertTrue("read", channel.read(in) > 0);
+		}
+		in.flip();
+		in.position(100);
+		assertData("direct", in, 100);
+
+		channel.close();
+		assertFalse("closed", channel.isOpen());
+		try {
+			channel.read(in);
+			fail("ClosedChannelException expected");
+		} catch (ClosedChannelException e) {
+		}
+	}
+
+	public void testL2CAP() throws Exception {
+		L2CAPConnection conn = (L2CAPConnection) Connector.open(selectService(serverUUID));
+		BluetoothByteChannel channel = BluetoothByteChannel.open(conn);
+		int mtu = conn.getTransmitMTU();
+
+		// One packet for each write
+		ByteBuffer packet = ByteBuffer.allocateDirect(100);
+		fill(packet, 0);
+		assertEquals("sent", 100, channel.write(packet));
+		ByteBuffer heap = ByteBuffer.allocate(50);
+		heap.position(10);
+		fill(heap, 10);
+		heap.position(10);
+		assertEquals("sent", 40, channel.write(heap));
+		ByteBuffer part1 = ByteBuffer.allocate(10);
+		fill(part1, 0);
+		ByteBuffer part2 = ByteBuffer.allocateDirect(20);
+		fill(part2, 10);
+		assertEquals("gathering", 30, channel.write(new ByteBuffer[] { part1, ByteBuffer.allocate(0), part2 }));
+		ByteBuffer big = ByteBuffer.allocateDirect(mtu + 10);
+		fill(big, 0);
+		assertEquals("sent MTU", mtu, channel.write(big));
+		assertEquals("not sent", 10, big.remaining());
+
+		ByteBuffer in = ByteBuffer.allocateDirect(conn.getReceiveMTU());
+		assertEquals("received", 100, channel.read(in));
+		in.flip();
+		assertData("packet", in, 0);
+
+		in.clear();
+		assertEquals("received", 40, channel.read(in));
+		in.flip();
+		assertData("heap packet", in, 10);
+
+		// Bytes that do not fit into buffer are discarded
+		ByteBuffer small = ByteBuffer.allocateDirect(15);
+		assertEquals("received", 15, channel.read(small));
+		small.flip();
+		assertData("gathering packet", small, 0);
+
+		ByteBuffer heapIn = ByteBuffer.allocate(mtu + 100);
+		heapIn.position(100);
+		assertEquals("received MTU", mtu, channel.read(heapIn));
+		heapIn.flip();
+		heapIn.position(100);
+		assertData("MTU packet", heapIn, 0);
+
+		conn.send(new byte[] { 1 });
+		channel.close();
+		assertFalse("closed", channel.isOpen());
+	}
+}
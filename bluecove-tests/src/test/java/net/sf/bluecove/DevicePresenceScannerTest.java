@@ -0,0 +1,185 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.util.Vector;
+
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.LocalDevice;
+
+import com.intel.bluetooth.DevicePresence;
+import com.intel.bluetooth.DevicePresenceListener;
+import com.intel.bluetooth.DevicePresenceScanner;
+
+/**
+ *
+ */
+public class DevicePresenceScannerTest extends BaseEmulatorTestCase {
+
+	private Object serverLock = new Object();
+
+	private boolean serverHidden;
+
+	private boolean serverStop;
+
+	private String serverAddress;
+
+	private Vector arrived = new Vector();
+
+	private Vector departed = new Vector();
+
+	private DevicePresenceScanner scanner;
+
+	private class Events implements DevicePresenceListener {
+
+		public void deviceArrived(DevicePresence device) {
+			synchronized (arrived) {
+				arrived.addElement(device.getDevice().getBluetoothAddress());
+				arrived.notifyAll();
+			}
+		}
+
+		public void deviceDeparted(DevicePresence device) {
+			synchronized (departed) {
+				departed.addElement(device.getDevice().getBluetoothAddress());
+				departed.notifyAll();
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (scanner != null) {
+			scanner.stop();
+		}
+		synchronized (serverLock) {
+			serverStop = true;
+			serverLock.notifyAll();
+		}
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				LocalDevice localDevice = LocalDevice.getLocalDevice();
+				localDevice.setDiscoverable(DiscoveryAgent.GIAC);
+				synchronized (serverLock) {
+					serverAddress = localDevice.getBluetoothAddress();
+					serverLock.notifyAll();
+					while (!serverHidden && !serverStop) {
+						serverLock.wait();
+					}
+				}
+				localDevice.setDiscoverable(DiscoveryAgent.NOT_DISCOVERABLE);
+				synchronized (serverLock) {
+					while (!serverStop) {
+						serverLock.wait();
+					}
+				}
+			}
+		};
+	}
+
+	private void waitFor(Vector events, String address) throws InterruptedException {
+		long end = System.currentTimeMillis() + 20 * 1000;
+		synchronized (events) {
+			while (!events.contains(address) && (System.currentTimeMillis() < end)) {
+				events.wait(500);
+			}
+		}
+		assertTrue("event for " + address, events.contains(address));
+	}
+
+	public void testArrivalDeparture() throws Exception {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+		scanner = new DevicePresenceScanner(LocalDevice.getLocalDevice().getDiscoveryAgent(), new Events());
+		scanner.setDepartureInquiries(2);
+		scanner.start();
+		waitFor(arrived, serverAddress);
+		assertNotNull("present", scanner.getDevices());
+		assertEquals("present", 1, scanner.getDevices().length);
+		assertEquals("arrived once", 1, arrived.size());
+
+		synchronized (serverLock) {
+			serverHidden = true;
+			serverLock.notifyAll();
+		}
+		waitFor(departed, serverAddress);
+		assertEquals("present", 0, scanner.getDevices().length);
+	}
+
+	public void testPause() throws Exception {
+		scanner = new DevicePresenceScanner(LocalDevice.getLocalDevice().getDiscoveryAgent(), new Events());
+		scanner.pause();
+		scanner.start();
+		Thread.sleep(500);
+		assertEquals("no inquiry while paused", 0, arrived.size());
+		scanner.resume();
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+		waitFor(arrived, serverAddress);
+	}
+
+	private int scanThreads() {
+		int count = 0;
+		for (Thread t : Thread.getAllStackTraces().keySet()) {
+			if (t.getName().startsWith("DevicePresenceScanner-")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public void testRestart() throws Exception {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+		scanner = new DevicePresenceScanner(LocalDevice.getLocalDevice().getDiscoveryAgent(), new Events());
+		scanner.start();
+		waitFor(arrived, serverAddress);
+		for (int i = 0; i < 5; i++) {
+			scanner.stop();
+			scanner.start();
+		}
+		Thread.sleep(500);
+		assertTrue("running", scanner.isRunning());
+		assertEquals("scan threads", 1, scanThreads());
+		scanner.stop();
+		for (int i = 0; (i < 50) && (scanThreads() != 0); i++) {
+			Thread.sleep(100);
+		}
+		assertEquals("scan threads after stop", 0, scanThreads());
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.LocalDevice;
+
+import com.intel.bluetooth.DiscoveryEvent;
+import com.intel.bluetooth.DiscoveryStream;
+import com.intel.bluetooth.DiscoverySubscription;
+
+/**
+ *
+ */
+public class DiscoveryStreamTest extends BaseEmulatorTestCase {
+
+	private Object serverLock = new Object();
+
+	private boolean serverStop;
+
+	private String serverAddress;
+
+	@Override
+	protected void tearDown() throws Exception {
+		synchronized (serverLock) {
+			serverStop = true;
+			serverLock.notifyAll();
+		}
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				LocalDevice localDevice = LocalDevice.getLocalDevice();
+				localDevice.setDiscoverable(DiscoveryAgent.GIAC);
+				synchronized (serverLock) {
+					serverAddress = localDevice.getBluetoothAddress();
+					serverLock.notifyAll();
+					while (!serverStop) {
+						serverLock.wait();
+					}
+				}
+			}
+		};
+	}
+
+	private void waitServer() throws InterruptedException {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+	}
+
+	private int countServer(DiscoverySubscription subscription) throws InterruptedException {
+		int count = 0;
+		DiscoveryEvent event;
+		while ((event = subscription.next(20 * 1000)) != null) {
+			assertNotNull("deviceClass", event.getDeviceClass());
+			if (serverAddress.equals(event.getDevice().getBluetoothAddress())) {
+				count++;
+			}
+		}
+		assertTrue("completed", subscription.isCompleted());
+		return count;
+	}
+
+	public void testMulticast() throws Exception {
+		waitServer();
+		DiscoveryStream stream = DiscoveryStream.getInstance(LocalDevice.getLocalDevice().getDiscoveryAgent());
+		assertSame("shared", stream, DiscoveryStream.getInstance(LocalDevice.getLocalDevice().getDiscoveryAgent()));
+		DiscoverySubscription s1 = stream.subscribe(DiscoveryAgent.GIAC);
+		DiscoverySubscription s2 = stream.subscribe(DiscoveryAgent.GIAC);
+		assertEquals("s1 discovered once", 1, countServer(s1));
+		assertEquals("s2 discovered once", 1, countServer(s2));
+		assertEquals("s1 discType", DiscoveryListener.INQUIRY_COMPLETED, s1.getDiscType());
+		assertEquals("s2 discType", DiscoveryListener.INQUIRY_COMPLETED, s2.getDiscType());
+		assertEquals("s1 lag", 0, s1.getLag());
+		assertFalse("inquiry running", stream.isInquiryRunning());
+		assertEquals("subscribers", 0, stream.getSubscribersCount());
+	}
+
+	public void testSlowSubscriber() throws Exception {
+		waitServer();
+		DiscoveryStream stream = DiscoveryStream.getInstance(LocalDevice.getLocalDevice().getDiscoveryAgent());
+		DiscoverySubscription fast = stream.subscribe(DiscoveryAgent.GIAC);
+		DiscoverySubscription slow = stream.subscribe(DiscoveryAgent.GIAC);
+		int fastCount = 0;
+		while (fast.next(20 * 1000) != null) {
+			fastCount++;
+		}
+		assertTrue("fast completed", fast.isCompleted());
+		assertEquals("slow lag", fastCount, slow.getLag());
+		int slowCount = 0;
+		while (slow.next(1000) != null) {
+			slowCount++;
+		}
+		assertEquals("slow received all", fastCount, slowCount);
+		assertTrue("slow completed", slow.isCompleted());
+	}
+
+	public void testReleaseIdleStream() throws Exception {
+		waitServer();
+		DiscoveryAgent agent = LocalDevice.getLocalDevice().getDiscoveryAgent();
+		DiscoveryStream stream = DiscoveryStream.getInstance(agent);
+		DiscoverySubscription s = stream.subscribe(DiscoveryAgent.GIAC);
+		assertSame("shared while in use", stream, DiscoveryStream.getInstance(agent));
+		s.cancel();
+		DiscoveryStream next = DiscoveryStream.getInstance(agent);
+		assertNotSame("released", stream, next);
+		// Released instance still usable by components holding it
+		s = stream.subscribe(DiscoveryAgent.GIAC);
+		assertTrue("inquiry running", next.isInquiryRunning());
+		assertEquals("server discovered", 1, countServer(s));
+	}
+
+	public void testCancel() throws Exception {
+		waitServer();
+		DiscoveryStream stream = DiscoveryStream.getInstance(LocalDevice.getLocalDevice().getDiscoveryAgent());
+		DiscoverySubscription s = stream.subscribe(DiscoveryAgent.GIAC);
+		s.cancel();
+		assertTrue("completed", s.isCompleted() || (s.next(1000) != null));
+		assertFalse("inquiry running", stream.isInquiryRunning());
+		assertEquals("subscribers", 0, stream.getSubscribersCount());
+		assertNull("no more events", s.next(100));
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.io.IOException;
+
+import javax.bluetooth.LocalDevice;
+import javax.bluetooth.RemoteDevice;
+
+import com.intel.bluetooth.FriendlyNameListener;
+import com.intel.bluetooth.FriendlyNameRequest;
+import com.intel.bluetooth.FriendlyNameResolver;
+
+/**
+ *
+ */
+public class FriendlyNameResolverTest extends BaseEmulatorTestCase {
+
+	private Object serverLock = new Object();
+
+	private boolean serverStop;
+
+	private String serverAddress;
+
+	private String serverName;
+
+	private FriendlyNameResolver resolver;
+
+	private class TestRemoteDevice extends RemoteDevice {
+
+		TestRemoteDevice(String address) {
+			super(address);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (resolver != null) {
+			resolver.shutdown();
+		}
+		synchronized (serverLock) {
+			serverStop = true;
+			serverLock.notifyAll();
+		}
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				LocalDevice localDevice = LocalDevice.getLocalDevice();
+				synchronized (serverLock) {
+					serverName = localDevice.getFriendlyName();
+					serverAddress = localDevice.getBluetoothAddress();
+					serverLock.notifyAll();
+					while (!serverStop) {
+						serverLock.wait();
+					}
+				}
+			}
+		};
+	}
+
+	private RemoteDevice getServerDevice() throws InterruptedException {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+		return new TestRemoteDevice(serverAddress);
+	}
+
+	public void testResolve() throws Exception {
+		RemoteDevice server = getServerDevice();
+		resolver = new FriendlyNameResolver();
+		final String[] result = new String[1];
+		FriendlyNameRequest request = resolver.resolve(server, new FriendlyNameListener() {
+
+			public void friendlyNameResolved(RemoteDevice device, String name) {
+				synchronized (result) {
+					result[0] = name;
+					result.notifyAll();
+				}
+			}
+
+			public void friendlyNameFailed(RemoteDevice device, IOException e) {
+			}
+		});
+		assertEquals("name", serverName, request.getName(10 * 1000));
+		synchronized (result) {
+			if (result[0] == null) {
+				result.wait(5000);
+			}
+		}
+		assertEquals("listener name", serverName, result[0]);
+
+		// Name is cached
+		FriendlyNameRequest cached = resolver.resolve(server);
+		assertTrue("cached done", cached.isDone());
+		assertEquals("cached name", serverName, cached.getName());
+	}
+
+	public void testShutdown() throws Exception {
+		resolver = new FriendlyNameResolver();
+		resolver.shutdown();
+		try {
+			resolver.resolve(getServerDevice());
+			fail("resolver is shut down");
+		} catch (IOException e) {
+		}
+	}
+}
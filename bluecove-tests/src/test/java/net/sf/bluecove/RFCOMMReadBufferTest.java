@@ -0,0 +1,103 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+
+import javax.bluetooth.UUID;
+import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnection;
+import javax.microedition.io.StreamConnectionNotifier;
+
+/**
+ *
+ */
+public class RFCOMMReadBufferTest extends BaseEmulatorTestCase {
+
+	private static final UUID serverUUID = new UUID("B10C0BE1111111111111111111110048", false);
+
+	private static final int DATA_SIZE = 3000;
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				StreamConnectionNotifier serverConnection = (StreamConnectionNotifier) Connector.open("btspp://localhost:"
+						+ serverUUID + ";name=ReadBufferTest;bluecovereadbuffer=16");
+				try {
+					StreamConnection conn = serverConnection.acceptAndOpen();
+					DataInputStream is = conn.openDataInputStream();
+					int size = is.readInt();
+					DataOutputStream os = conn.openDataOutputStream();
+					os.writeInt(size);
+					for (int i = 0; i < size; i++) {
+						os.write(i);
+					}
+					os.flush();
+					// Wait for client to close
+					assertEquals("client EOF", -1, is.read());
+					os.close();
+					is.close();
+					conn.close();
+				} finally {
+					serverConnection.close();
+				}
+			}
+		};
+	}
+
+	public void testReadBuffer() throws Exception {
+		String url = selectService(serverUUID);
+		try {
+			Connector.open(url + ";bluecovereadbuffer=-1");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+		StreamConnection conn = (StreamConnection) Connector.open(url + ";bluecovereadbuffer=64");
+		DataOutputStream os = conn.openDataOutputStream();
+		os.writeInt(DATA_SIZE);
+		os.flush();
+		DataInputStream is = conn.openDataInputStream();
+		assertEquals("size", DATA_SIZE, is.readInt());
+		int i = 0;
+		// Small reads served from buffer
+		for (; i < 100; i++) {
+			assertEquals("byte " + i, i & 0xFF, is.read());
+			assertTrue("available", is.available() >= 0);
+		}
+		byte[] b = new byte[1000];
+		while (i < DATA_SIZE) {
+			int len = is.read(b, 0, Math.min(b.length, DATA_SIZE - i));
+			assertTrue("read", len > 0);
+			for (int k = 0; k < len; k++, i++) {
+				assertEquals("byte " + i, (byte) i, b[k]);
+			}
+		}
+		os.close();
+		is.close();
+		conn.close();
+	}
+}
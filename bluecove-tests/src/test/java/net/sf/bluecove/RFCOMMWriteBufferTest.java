@@ -0,0 +1,227 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.bluetooth.UUID;
+import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnection;
+import javax.microedition.io.StreamConnectionNotifier;
+
+/**
+ *
+ */
+public class RFCOMMWriteBufferTest extends BaseEmulatorTestCase {
+
+	private static final UUID serverUUID = new UUID("B10C0BE1111111111111111111110049", false);
+
+	private static final int SMALL_SIZE = 10;
+
+	private static final int DATA_SIZE = 3000;
+
+	private static final int CLOSE_REQUEST = 0xFF;
+
+	private static final int STALL_REQUEST = 0xFE;
+
+	private Object stallLock = new Object();
+
+	private boolean stallReleased;
+
+	private void waitStallReleased() throws InterruptedException {
+		synchronized (stallLock) {
+			while (!stallReleased) {
+				stallLock.wait();
+			}
+		}
+	}
+
+	private void releaseStall() {
+		synchronized (stallLock) {
+			stallReleased = true;
+			stallLock.notifyAll();
+		}
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				StreamConnectionNotifier serverConnection = (StreamConnectionNotifier) Connector.open("btspp://localhost:"
+						+ serverUUID + ";name=WriteBufferTest;bluecovewritebuffer=16;bluecovewritelinger=0");
+				try {
+					StreamConnection conn = serverConnection.acceptAndOpen();
+					DataInputStream is = conn.openDataInputStream();
+					OutputStream os = conn.openOutputStream();
+					int first = is.read();
+					if (first == STALL_REQUEST) {
+						// Do not read till client closes the connection
+						waitStallReleased();
+						try {
+							while (is.read() != -1) {
+							}
+						} catch (IOException ignore) {
+						}
+						os.close();
+						is.close();
+						conn.close();
+						return;
+					}
+					if (first == CLOSE_REQUEST) {
+						os.close();
+						is.close();
+						conn.close();
+						return;
+					}
+					byte[] data = new byte[SMALL_SIZE - 1];
+					is.readFully(data);
+					// Sent without flush when buffer is full
+					for (int i = 0; i < 16; i++) {
+						os.write(1);
+					}
+					data = new byte[DATA_SIZE];
+					is.readFully(data);
+					for (int i = 0; i < DATA_SIZE; i++) {
+						assertEquals("byte " + i, (byte) i, data[i]);
+					}
+					os.write(2);
+					os.flush();
+					assertEquals("client EOF", -1, is.read());
+					os.close();
+					is.close();
+					conn.close();
+				} finally {
+					serverConnection.close();
+				}
+			}
+		};
+	}
+
+	public void testWriteBuffer() throws Exception {
+		String url = selectService(serverUUID);
+		StreamConnection conn = (StreamConnection) Connector.open(url
+				+ ";bluecovewritebuffer=64;bluecovewritelinger=20");
+		OutputStream os = conn.openOutputStream();
+		InputStream is = conn.openInputStream();
+		// Sent after linger time without flush
+		for (int i = 0; i < SMALL_SIZE; i++) {
+			os.write(i);
+		}
+		for (int i = 0; i < 16; i++) {
+			assertEquals("ack 1", 1, is.read());
+		}
+		int i = 0;
+		while (i < DATA_SIZE) {
+			int len = Math.min(1 + (i % 100), DATA_SIZE - i);
+			byte[] b = new byte[len];
+			for (int k = 0; k < len; k++) {
+				b[k] = (byte) (i + k);
+			}
+			if (len == 1) {
+				os.write(b[0]);
+			} else {
+				os.write(b, 0, len);
+			}
+			i += len;
+		}
+		os.flush();
+		assertEquals("ack 2", 2, is.read());
+		os.close();
+		is.close();
+		conn.close();
+	}
+
+	public void testLingerErrorOnClose() throws Exception {
+		String url = selectService(serverUUID);
+		StreamConnection conn = (StreamConnection) Connector.open(url
+				+ ";bluecovewritebuffer=64;bluecovewritelinger=20");
+		OutputStream os = conn.openOutputStream();
+		InputStream is = conn.openInputStream();
+		os.write(CLOSE_REQUEST);
+		os.flush();
+		assertEquals("server EOF", -1, is.read());
+		// Written by linger timer to closed connection
+		os.write(1);
+		Thread.sleep(200);
+		try {
+			os.close();
+			fail("linger error not reported");
+		} catch (IOException e) {
+		}
+		is.close();
+		conn.close();
+	}
+
+	public void testCloseDuringStalledWrite() throws Exception {
+		String url = selectService(serverUUID);
+		StreamConnection conn = (StreamConnection) Connector.open(url + ";bluecovewritebuffer=64;bluecovewritelinger=0");
+		final OutputStream os = conn.openOutputStream();
+		InputStream is = conn.openInputStream();
+		os.write(STALL_REQUEST);
+		os.flush();
+		final IOException[] writeError = new IOException[1];
+		Thread writer = new Thread() {
+			public void run() {
+				byte[] data = new byte[1000];
+				try {
+					while (true) {
+						os.write(data, 0, data.length);
+					}
+				} catch (IOException e) {
+					writeError[0] = e;
+				}
+			}
+		};
+		writer.start();
+		// Server does not read, writer blocks when emulator buffer is full
+		Thread.sleep(500);
+		assertTrue("writer blocked", writer.isAlive());
+
+		final Throwable[] closeResult = new Throwable[1];
+		Thread closer = new Thread() {
+			public void run() {
+				try {
+					os.close();
+				} catch (Throwable e) {
+					closeResult[0] = e;
+				}
+			}
+		};
+		conn.close();
+		is.close();
+		closer.start();
+		closer.join(5000);
+		try {
+			assertFalse("close blocked by stalled write", closer.isAlive());
+			writer.join(5000);
+			assertFalse("writer ended", writer.isAlive());
+			assertNotNull("write error", writeError[0]);
+		} finally {
+			releaseStall();
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import javax.bluetooth.DataElement;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.LocalDevice;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+import javax.bluetooth.UUID;
+import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnectionNotifier;
+
+import com.intel.bluetooth.BlueCoveConfigProperties;
+import com.intel.bluetooth.BlueCoveImpl;
+import com.intel.bluetooth.ServiceRecordsCache;
+
+/**
+ *
+ */
+public class ServiceRecordsCacheTest extends BaseEmulatorTestCase {
+
+	private static final UUID serverUUID = new UUID("B10C0BE1111111111111111111110037", false);
+
+	private Object serverLock = new Object();
+
+	private boolean serverClose;
+
+	private boolean serverClosed;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ServiceRecordsCache.clear();
+		ServiceRecordsCache.resetStatistics();
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_SDP_CACHE_TTL, "60");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		closeServer();
+		ServiceRecordsCache.clear();
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				StreamConnectionNotifier serverConnection = (StreamConnectionNotifier) Connector
+						.open("btspp://localhost:" + serverUUID + ";name=CacheTest");
+				try {
+					synchronized (serverLock) {
+						while (!serverClose) {
+							serverLock.wait();
+						}
+					}
+				} finally {
+					serverConnection.close();
+					synchronized (serverLock) {
+						serverClosed = true;
+						serverLock.notifyAll();
+					}
+				}
+			}
+		};
+	}
+
+	private void closeServer() throws InterruptedException {
+		synchronized (serverLock) {
+			serverClose = true;
+			serverLock.notifyAll();
+			while (!serverClosed) {
+				serverLock.wait(5000);
+			}
+		}
+	}
+
+	/**
+	 * selectService returns when records are discovered, search results are stored when search completes.
+	 */
+	private void assertCacheSize(int expected) throws InterruptedException {
+		for (int i = 0; (i < 50) && (ServiceRecordsCache.size() != expected); i++) {
+			Thread.sleep(100);
+		}
+		assertEquals("size", expected, ServiceRecordsCache.size());
+	}
+
+	public void testCacheHit() throws Exception {
+		String url = selectService(serverUUID);
+		assertEquals("miss", 1, ServiceRecordsCache.getMissCount());
+		assertEquals("hit", 0, ServiceRecordsCache.getHitCount());
+		assertCacheSize(1);
+
+		assertEquals("cached URL", url, selectService(serverUUID));
+		assertEquals("hit", 1, ServiceRecordsCache.getHitCount());
+		assertEquals("miss", 1, ServiceRecordsCache.getMissCount());
+	}
+
+	public void testCacheDisabled() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_SDP_CACHE_TTL, "0");
+		selectService(serverUUID);
+		selectService(serverUUID);
+		Thread.sleep(500);
+		assertEquals("hit", 0, ServiceRecordsCache.getHitCount());
+		assertEquals("miss", 0, ServiceRecordsCache.getMissCount());
+		assertEquals("size", 0, ServiceRecordsCache.size());
+	}
+
+	public void testInvalidateOnConnectionFailure() throws Exception {
+		String url = selectService(serverUUID);
+		assertCacheSize(1);
+		closeServer();
+		try {
+			Connector.open(url).close();
+			fail("Connection should fail");
+		} catch (IOException e) {
+		}
+		assertEquals("size", 0, ServiceRecordsCache.size());
+		assertEquals("invalidations", 1, ServiceRecordsCache.getInvalidationCount());
+	}
+
+	public void testEviction() throws Exception {
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_SDP_CACHE_SIZE, "1");
+		selectService(serverUUID);
+		assertCacheSize(1);
+		selectService(new UUID(0x0100));
+		Thread.sleep(500);
+		assertEquals("size", 1, ServiceRecordsCache.size());
+		assertEquals("evictions", 1, ServiceRecordsCache.getEvictionCount());
+	}
+
+	private ServiceRecord[] searchServices(RemoteDevice device) throws Exception {
+		final Vector records = new Vector();
+		final Object completed = new Object();
+		DiscoveryListener listener = new DiscoveryListener() {
+
+			public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			}
+
+			public void inquiryCompleted(int discType) {
+			}
+
+			public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+				for (int i = 0; i < servRecord.length; i++) {
+					records.addElement(servRecord[i]);
+				}
+			}
+
+			public void serviceSearchCompleted(int transID, int respCode) {
+				synchronized (completed) {
+					completed.notifyAll();
+				}
+			}
+		};
+		synchronized (completed) {
+			LocalDevice.getLocalDevice().getDiscoveryAgent().searchServices(null, new UUID[] { serverUUID }, device,
+					listener);
+			completed.wait(5000);
+		}
+		ServiceRecord[] found = new ServiceRecord[records.size()];
+		records.copyInto(found);
+		return found;
+	}
+
+	public void testCachedRecordsCopied() throws Exception {
+		selectService(serverUUID);
+		assertCacheSize(1);
+		RemoteDevice[] devices = LocalDevice.getLocalDevice().getDiscoveryAgent().retrieveDevices(
+				DiscoveryAgent.CACHED);
+		assertNotNull("devices", devices);
+		assertEquals("devices", 1, devices.length);
+		ServiceRecord[] first = searchServices(devices[0]);
+		assertEquals("hit", 1, ServiceRecordsCache.getHitCount());
+		assertEquals("records", 1, first.length);
+		DataElement classes = first[0].getAttributeValue(0x0001);
+		int classesSize = classes.getSize();
+		classes.addElement(new DataElement(DataElement.UUID, new UUID(0x1101)));
+
+		ServiceRecord[] second = searchServices(devices[0]);
+		assertEquals("hit", 2, ServiceRecordsCache.getHitCount());
+		assertEquals("records", 1, second.length);
+		assertNotSame("record", first[0], second[0]);
+		assertEquals("ServiceClassIDList size", classesSize, second[0].getAttributeValue(0x0001).getSize());
+		assertEquals("URL", first[0].getConnectionURL(ServiceRecord.NOAUTHENTICATE_NOENCRYPT, false), second[0]
+				.getConnectionURL(ServiceRecord.NOAUTHENTICATE_NOENCRYPT, false));
+	}
+}
@@ -0,0 +1,192 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.util.Hashtable;
+
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.LocalDevice;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+import javax.bluetooth.UUID;
+import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnectionNotifier;
+
+import com.intel.bluetooth.ServiceSearchScheduler;
+import com.intel.bluetooth.ServiceSearchSchedulerListener;
+
+/**
+ *
+ */
+public class ServiceSearchSchedulerTest extends BaseEmulatorTestCase {
+
+	private static final UUID serverUUID = new UUID("B10C0BE1111111111111111111110040", false);
+
+	private Object serverLock = new Object();
+
+	private String serverAddress;
+
+	private Hashtable results = new Hashtable();
+
+	private int blockListenerUntil = 0;
+
+	private int listenersRunning = 0;
+
+	private int maxListenersRunning = 0;
+
+	private class TestRemoteDevice extends RemoteDevice {
+
+		TestRemoteDevice(String address) {
+			super(address);
+		}
+	}
+
+	private class ResultsListener implements ServiceSearchSchedulerListener {
+
+		public void serviceSearchCompleted(RemoteDevice device, ServiceRecord[] servRecord, int respCode) {
+			synchronized (results) {
+				results.put(device.getBluetoothAddress(), new Object[] { servRecord, new Integer(respCode) });
+				// Listener is called by the worker, holding it shows how many searches run in parallel
+				listenersRunning++;
+				maxListenersRunning = Math.max(maxListenersRunning, listenersRunning);
+				results.notifyAll();
+				long end = System.currentTimeMillis() + 5 * 1000;
+				try {
+					while ((listenersRunning < blockListenerUntil) && (System.currentTimeMillis() < end)) {
+						try {
+							results.wait(end - System.currentTimeMillis());
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+				} finally {
+					listenersRunning--;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		synchronized (serverLock) {
+			serverLock.notifyAll();
+		}
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				StreamConnectionNotifier serverConnection = (StreamConnectionNotifier) Connector
+						.open("btspp://localhost:" + serverUUID + ";name=SchedulerTest");
+				try {
+					synchronized (serverLock) {
+						serverAddress = LocalDevice.getLocalDevice().getBluetoothAddress();
+						serverLock.notifyAll();
+						serverLock.wait();
+					}
+				} finally {
+					serverConnection.close();
+				}
+			}
+		};
+	}
+
+	private RemoteDevice getServerDevice() throws InterruptedException {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+		return new TestRemoteDevice(serverAddress);
+	}
+
+	private int getRespCode(RemoteDevice device) {
+		Object[] result = (Object[]) results.get(device.getBluetoothAddress());
+		assertNotNull("result of " + device.getBluetoothAddress(), result);
+		return ((Integer) result[1]).intValue();
+	}
+
+	public void testSearchDevices() throws Exception {
+		RemoteDevice server = getServerDevice();
+		RemoteDevice[] devices = new RemoteDevice[] { new TestRemoteDevice("0B100000EE01"), server,
+				new TestRemoteDevice("0B100000EE02"), new TestRemoteDevice("0B100000EE03") };
+		ServiceSearchScheduler scheduler = new ServiceSearchScheduler(LocalDevice.getLocalDevice().getDiscoveryAgent(),
+				null, new UUID[] { serverUUID }, new ResultsListener());
+		scheduler.setTimeout(10 * 1000);
+		scheduler.add(devices);
+		assertTrue("completed", scheduler.waitCompleted(20 * 1000));
+		assertEquals("pending", 0, scheduler.getPendingCount());
+		assertEquals("results", devices.length, results.size());
+
+		assertEquals("server respCode", DiscoveryListener.SERVICE_SEARCH_COMPLETED, getRespCode(server));
+		ServiceRecord[] servRecord = (ServiceRecord[]) ((Object[]) results.get(server.getBluetoothAddress()))[0];
+		assertEquals("records", 1, servRecord.length);
+		for (int i = 0; i < devices.length; i++) {
+			if (devices[i] != server) {
+				assertTrue("respCode", getRespCode(devices[i]) != DiscoveryListener.SERVICE_SEARCH_COMPLETED);
+			}
+		}
+	}
+
+	public void testBatchWhileWorkerIdle() throws Exception {
+		ServiceSearchScheduler scheduler = new ServiceSearchScheduler(LocalDevice.getLocalDevice().getDiscoveryAgent(),
+				null, new UUID[] { serverUUID }, new ResultsListener());
+		scheduler.setTimeout(10 * 1000);
+		scheduler.setMaxConcurrentSearches(3);
+		scheduler.add(new TestRemoteDevice("0B100000EE30"));
+		assertTrue("first completed", scheduler.waitCompleted(20 * 1000));
+		// The first worker now waits for next device
+		RemoteDevice[] devices = new RemoteDevice[] { new TestRemoteDevice("0B100000EE31"),
+				new TestRemoteDevice("0B100000EE32"), new TestRemoteDevice("0B100000EE33") };
+		synchronized (results) {
+			blockListenerUntil = devices.length;
+		}
+		scheduler.add(devices);
+		assertTrue("completed", scheduler.waitCompleted(30 * 1000));
+		assertEquals("results", devices.length + 1, results.size());
+		assertEquals("concurrent searches", devices.length, maxListenersRunning);
+	}
+
+	public void testCancel() throws Exception {
+		ServiceSearchScheduler scheduler = new ServiceSearchScheduler(LocalDevice.getLocalDevice().getDiscoveryAgent(),
+				null, new UUID[] { serverUUID }, new ResultsListener());
+		scheduler.setMaxConcurrentSearches(1);
+		int count = 10;
+		for (int i = 0; i < count; i++) {
+			scheduler.add(new TestRemoteDevice("0B100000EE" + (10 + i)));
+		}
+		scheduler.cancel();
+		assertTrue("completed", scheduler.waitCompleted(20 * 1000));
+		assertEquals("results", count, results.size());
+		int terminated = 0;
+		for (int i = 0; i < count; i++) {
+			if (getRespCode(new TestRemoteDevice("0B100000EE" + (10 + i))) == DiscoveryListener.SERVICE_SEARCH_TERMINATED) {
+				terminated++;
+			}
+		}
+		assertTrue("terminated " + terminated, terminated >= count - 1);
+	}
+}
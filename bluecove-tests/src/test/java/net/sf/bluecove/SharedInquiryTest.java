@@ -0,0 +1,192 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove;
+
+import java.util.Vector;
+
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.LocalDevice;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+
+import com.intel.bluetooth.BlueCoveConfigProperties;
+import com.intel.bluetooth.BlueCoveImpl;
+
+/**
+ *
+ */
+public class SharedInquiryTest extends BaseEmulatorTestCase {
+
+	private Object serverLock = new Object();
+
+	private boolean serverStop;
+
+	private String serverAddress;
+
+	private Vector completions = new Vector();
+
+	private class Listener implements DiscoveryListener {
+
+		Vector devices = new Vector();
+
+		int discType = -1;
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			devices.addElement(btDevice.getBluetoothAddress());
+		}
+
+		public void inquiryCompleted(int discType) {
+			synchronized (completions) {
+				this.discType = discType;
+				completions.addElement(this);
+				completions.notifyAll();
+			}
+		}
+
+		public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+		}
+
+		public void serviceSearchCompleted(int transID, int respCode) {
+		}
+
+		int count(String address) {
+			int count = 0;
+			for (int i = 0; i < devices.size(); i++) {
+				if (address.equals(devices.elementAt(i))) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_INQUIRY_SHARED, "true");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		synchronized (serverLock) {
+			serverStop = true;
+			serverLock.notifyAll();
+		}
+		super.tearDown();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				LocalDevice localDevice = LocalDevice.getLocalDevice();
+				localDevice.setDiscoverable(DiscoveryAgent.GIAC);
+				synchronized (serverLock) {
+					serverAddress = localDevice.getBluetoothAddress();
+					serverLock.notifyAll();
+					while (!serverStop) {
+						serverLock.wait();
+					}
+				}
+			}
+		};
+	}
+
+	private void waitServer() throws InterruptedException {
+		synchronized (serverLock) {
+			while (serverAddress == null) {
+				serverLock.wait(5000);
+			}
+		}
+	}
+
+	private void waitCompleted(int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 20 * 1000;
+		synchronized (completions) {
+			while ((completions.size() < count) && (System.currentTimeMillis() < end)) {
+				completions.wait(500);
+			}
+		}
+		assertEquals("completed", count, completions.size());
+	}
+
+	public void testJoinRunningInquiry() throws Exception {
+		waitServer();
+		DiscoveryAgent agent = LocalDevice.getLocalDevice().getDiscoveryAgent();
+		Listener first = new Listener();
+		Listener second = new Listener();
+		assertTrue("first started", agent.startInquiry(DiscoveryAgent.GIAC, first));
+		assertTrue("second started", agent.startInquiry(DiscoveryAgent.GIAC, second));
+		waitCompleted(2);
+		assertSame("first completed first", first, completions.elementAt(0));
+		assertEquals("first discType", DiscoveryListener.INQUIRY_COMPLETED, first.discType);
+		assertEquals("second discType", DiscoveryListener.INQUIRY_COMPLETED, second.discType);
+		assertEquals("first discovered once", 1, first.count(serverAddress));
+		assertEquals("second discovered once", 1, second.count(serverAddress));
+	}
+
+	public void testCancel() throws Exception {
+		waitServer();
+		DiscoveryAgent agent = LocalDevice.getLocalDevice().getDiscoveryAgent();
+		Listener first = new Listener();
+		Listener second = new Listener();
+		assertTrue("first started", agent.startInquiry(DiscoveryAgent.GIAC, first));
+		assertTrue("second started", agent.startInquiry(DiscoveryAgent.GIAC, second));
+		assertTrue("second canceled", agent.cancelInquiry(second));
+		assertFalse("second canceled again", agent.cancelInquiry(second));
+		waitCompleted(2);
+		assertEquals("second discType", DiscoveryListener.INQUIRY_TERMINATED, second.discType);
+		assertEquals("first discType", DiscoveryListener.INQUIRY_COMPLETED, first.discType);
+		assertEquals("first discovered once", 1, first.count(serverAddress));
+	}
+
+	public void testStartWhileNextInquiryPending() throws Exception {
+		waitServer();
+		final DiscoveryAgent agent = LocalDevice.getLocalDevice().getDiscoveryAgent();
+		final Listener third = new Listener();
+		final Vector thirdStarted = new Vector();
+		Listener first = new Listener() {
+			public void inquiryCompleted(int discType) {
+				// Second listener is waiting for the next inquiry that is not started yet
+				try {
+					thirdStarted.addElement(Boolean.valueOf(agent.startInquiry(DiscoveryAgent.GIAC, third)));
+				} catch (Throwable e) {
+					thirdStarted.addElement(e);
+				}
+				super.inquiryCompleted(discType);
+			}
+		};
+		Listener second = new Listener();
+		assertTrue("first started", agent.startInquiry(DiscoveryAgent.GIAC, first));
+		assertTrue("second started", agent.startInquiry(DiscoveryAgent.GIAC, second));
+		waitCompleted(3);
+		assertEquals("third started", Boolean.TRUE, thirdStarted.elementAt(0));
+		assertEquals("second discType", DiscoveryListener.INQUIRY_COMPLETED, second.discType);
+		assertEquals("third discType", DiscoveryListener.INQUIRY_COMPLETED, third.discType);
+		assertEquals("second discovered once", 1, second.count(serverAddress));
+		assertEquals("third discovered once", 1, third.count(serverAddress));
+	}
+}
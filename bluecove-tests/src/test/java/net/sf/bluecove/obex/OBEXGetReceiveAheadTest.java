@@ -0,0 +1,157 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove.obex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.microedition.io.Connector;
+import javax.obex.ClientSession;
+import javax.obex.HeaderSet;
+import javax.obex.Operation;
+import javax.obex.ResponseCodes;
+import javax.obex.ServerRequestHandler;
+
+import com.intel.bluetooth.BlueCoveConfigProperties;
+import com.intel.bluetooth.BlueCoveImpl;
+import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.obex.OBEXConnectionParams;
+
+/**
+ *
+ */
+public class OBEXGetReceiveAheadTest extends OBEXBaseEmulatorTestCase {
+
+	private static final int RECEIVE_AHEAD = 3;
+
+	private byte[] serverData;
+
+	private class RequestHandler extends ServerRequestHandler {
+
+		@Override
+		public int onGet(Operation op) {
+			try {
+				serverRequestHandlerInvocations++;
+				OutputStream os = op.openOutputStream();
+				os.write(serverData);
+				os.close();
+				op.close();
+				return ResponseCodes.OBEX_HTTP_OK;
+			} catch (IOException e) {
+				DebugLog.debug("==TEST== server error", e);
+				return ResponseCodes.OBEX_HTTP_UNAVAILABLE;
+			}
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		serverData = makeTestData(OBEXConnectionParams.OBEX_DEFAULT_MTU * 10);
+		BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_OBEX_RECEIVE_AHEAD, String
+				.valueOf(RECEIVE_AHEAD));
+	}
+
+	@Override
+	protected ServerRequestHandler createRequestHandler() {
+		return new RequestHandler();
+	}
+
+	private ClientSession connect() throws IOException {
+		ClientSession clientSession = (ClientSession) Connector.open(selectService(serverUUID));
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+		return clientSession;
+	}
+
+	private Operation get(ClientSession clientSession) throws IOException {
+		HeaderSet hs = clientSession.createHeaderSet();
+		hs.setHeader(HeaderSet.NAME, "Hello.txt");
+		return clientSession.get(hs);
+	}
+
+	public void testReceiveAhead() throws Exception {
+		ClientSession clientSession = connect();
+		Operation getOp = get(clientSession);
+		InputStream is = getOp.openInputStream();
+		// Let the packets arrive
+		Thread.sleep(300);
+		int available = is.available();
+		assertTrue("received ahead " + available, available > OBEXConnectionParams.OBEX_DEFAULT_MTU);
+		assertTrue("bounded " + available, available <= (RECEIVE_AHEAD + 1) * OBEXConnectionParams.OBEX_DEFAULT_MTU);
+
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		byte[] b = new byte[100];
+		int len;
+		while ((len = is.read(b)) != -1) {
+			buf.write(b, 0, len);
+		}
+		assertEquals("ResponseCodes.OBEX_HTTP_OK", ResponseCodes.OBEX_HTTP_OK, getOp.getResponseCode());
+		is.close();
+		getOp.close();
+
+		// Session is usable after the operation
+		getOp = get(clientSession);
+		getOp.getResponseCode();
+		getOp.close();
+
+		clientSession.disconnect(null);
+		clientSession.close();
+
+		assertEquals("invocations", 2, serverRequestHandlerInvocations);
+		assertEquals("data", serverData, buf.toByteArray());
+		assertServerErrors();
+	}
+
+	public void testCloseBeforeEnd() throws Exception {
+		ClientSession clientSession = connect();
+		Operation getOp = get(clientSession);
+		InputStream is = getOp.openInputStream();
+		assertTrue("data", is.read() != -1);
+		assertEquals("ResponseCodes.OBEX_HTTP_OK", ResponseCodes.OBEX_HTTP_OK, getOp.getResponseCode());
+		is.close();
+		getOp.close();
+
+		clientSession.disconnect(null);
+		clientSession.close();
+		assertServerErrors();
+	}
+
+	public void testAbort() throws Exception {
+		ClientSession clientSession = connect();
+		Operation getOp = get(clientSession);
+		InputStream is = getOp.openInputStream();
+		assertTrue("data", is.read() != -1);
+		getOp.abort();
+		getOp.close();
+		try {
+			is.read();
+			fail("Stream should be closed");
+		} catch (IOException e) {
+		}
+		clientSession.close();
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove.obex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.microedition.io.Connector;
+import javax.obex.ClientSession;
+import javax.obex.HeaderSet;
+import javax.obex.Operation;
+import javax.obex.ResponseCodes;
+import javax.obex.ServerRequestHandler;
+import javax.obex.SessionNotifier;
+
+import net.sf.bluecove.TestCaseRunnable;
+
+import com.intel.bluetooth.BlueCoveConfigProperties;
+import com.intel.bluetooth.BlueCoveImpl;
+import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.obex.BlueCoveOBEX;
+import com.intel.bluetooth.obex.OBEXConnectionParams;
+
+/**
+ *
+ */
+public class OBEXPutReceiveAheadTest extends OBEXBaseEmulatorTestCase {
+
+	private static final int RECEIVE_AHEAD = 3;
+
+	private ByteArrayOutputStream serverData;
+
+	private int serverAvailable;
+
+	private boolean useWriteBehind;
+
+	@Override
+	protected void setUp() throws Exception {
+		serverData = new ByteArrayOutputStream();
+		serverAvailable = 0;
+		useWriteBehind = false;
+		super.setUp();
+	}
+
+	/**
+	 * Simulates slow disk
+	 */
+	private class SlowOutputStream extends OutputStream {
+
+		boolean closed;
+
+		public void write(int b) throws IOException {
+			serverData.write(b);
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				throw new IOException(e.getMessage());
+			}
+			serverData.write(b, off, len);
+		}
+
+		public void close() throws IOException {
+			closed = true;
+		}
+	}
+
+	private class RequestHandler extends ServerRequestHandler {
+
+		@Override
+		public int onPut(Operation op) {
+			serverRequestHandlerInvocations++;
+			try {
+				if (useWriteBehind) {
+					SlowOutputStream out = new SlowOutputStream();
+					long len = BlueCoveOBEX.receiveBody(op, out, 2);
+					DebugLog.debug("==TEST== server received", len);
+					if (!out.closed) {
+						return ResponseCodes.OBEX_HTTP_INTERNAL_ERROR;
+					}
+				} else {
+					InputStream is = op.openInputStream();
+					// Let the packets arrive
+					Thread.sleep(300);
+					serverAvailable = is.available();
+					int data;
+					while ((data = is.read()) != -1) {
+						serverData.write(data);
+					}
+					is.close();
+				}
+				op.close();
+				return ResponseCodes.OBEX_HTTP_OK;
+			} catch (Throwable e) {
+				DebugLog.error("==TEST== server error", e);
+				return ResponseCodes.OBEX_HTTP_UNAVAILABLE;
+			}
+		}
+	}
+
+	@Override
+	protected ServerRequestHandler createRequestHandler() {
+		return new RequestHandler();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				BlueCoveImpl.setConfigProperty(BlueCoveConfigProperties.PROPERTY_OBEX_RECEIVE_AHEAD, String
+						.valueOf(RECEIVE_AHEAD));
+				SessionNotifier serverConnection = (SessionNotifier) Connector.open("btgoep://localhost:" + serverUUID
+						+ ";name=ObexTest");
+				serverConnection.acceptAndOpen(createRequestHandler());
+			}
+		};
+	}
+
+	private byte[] put(int length) throws IOException {
+		ClientSession clientSession = (ClientSession) Connector.open(selectService(serverUUID));
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+
+		byte[] data = makeTestData(length);
+		HeaderSet hsOperation = clientSession.createHeaderSet();
+		hsOperation.setHeader(HeaderSet.NAME, "Hello.txt");
+		Operation putOperation = clientSession.put(hsOperation);
+		OutputStream os = putOperation.openOutputStream();
+		os.write(data);
+		os.close();
+		assertEquals("PUT code", ResponseCodes.OBEX_HTTP_OK, putOperation.getResponseCode());
+		putOperation.close();
+
+		clientSession.disconnect(null);
+		clientSession.close();
+		return data;
+	}
+
+	public void testReceiveAhead() throws IOException {
+		byte[] data = put(OBEXConnectionParams.OBEX_DEFAULT_MTU * 10);
+		assertEquals("invocations", 1, serverRequestHandlerInvocations);
+		assertEquals("data", data, serverData.toByteArray());
+		assertTrue("received ahead " + serverAvailable, serverAvailable > OBEXConnectionParams.OBEX_DEFAULT_MTU);
+		assertServerErrors();
+	}
+
+	public void testWriteBehind() throws IOException {
+		useWriteBehind = true;
+		byte[] data = put(OBEXConnectionParams.OBEX_DEFAULT_MTU * 20 + 7);
+		assertEquals("invocations", 1, serverRequestHandlerInvocations);
+		assertEquals("data", data, serverData.toByteArray());
+		assertServerErrors();
+	}
+
+	public void testWriteBehindSmallData() throws IOException {
+		useWriteBehind = true;
+		byte[] data = put(simpleData.length);
+		assertEquals("data", data, serverData.toByteArray());
+		assertServerErrors();
+	}
+}
@@ -25,11 +25,14 @@
 package net.sf.bluecove.obex;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 import javax.microedition.io.Connector;
+import javax.microedition.io.StreamConnection;
 import javax.obex.ClientSession;
 import javax.obex.HeaderSet;
 import javax.obex.Operation;
@@ -269,4 +272,52 @@ public class OBEXPutStandardTest extends OBEXBaseEmulatorTestCase {
 				.getPacketsCountRead(clientSession));
 		assertServerErrors();
 	}
+
+	private static int exchangeRawPacket(DataOutputStream os, DataInputStream is, byte[] packet) throws IOException {
+		os.write(packet);
+		os.flush();
+		int responseCode = is.readUnsignedByte();
+		int length = is.readUnsignedShort();
+		is.readFully(new byte[length - 3]);
+		return responseCode;
+	}
+
+	/**
+	 * Final PUT packet with End of Body is a PUT, not a delete request.
+	 */
+	public void testPUTOperationSinglePacket() throws IOException {
+		// Raw OBEX over RFCOMM, BlueCove client never sends headers and body in one final packet
+		String url = selectService(serverUUID);
+		StreamConnection conn = (StreamConnection) Connector.open("btspp" + url.substring(url.indexOf(':')));
+		DataOutputStream os = conn.openDataOutputStream();
+		DataInputStream is = conn.openDataInputStream();
+
+		byte[] connect = new byte[] { (byte) 0x80, 0x00, 0x07, 0x10, 0x00, 0x04, 0x00 };
+		assertEquals("connect", 0xA0, exchangeRawPacket(os, is, connect));
+
+		ByteArrayOutputStream put = new ByteArrayOutputStream();
+		put.write(0x82);
+		put.write(0);
+		put.write(0);
+		// NAME "a" Unicode null terminated
+		put.write(new byte[] { 0x01, 0x00, 0x07, 0x00, 'a', 0x00, 0x00 });
+		put.write(0x49);
+		put.write(0);
+		put.write(3 + simpleData.length);
+		put.write(simpleData);
+		byte[] putPacket = put.toByteArray();
+		putPacket[2] = (byte) putPacket.length;
+		assertEquals("put", 0xA0, exchangeRawPacket(os, is, putPacket));
+
+		byte[] disconnect = new byte[] { (byte) 0x81, 0x00, 0x03 };
+		assertEquals("disconnect", 0xA0, exchangeRawPacket(os, is, disconnect));
+		os.close();
+		is.close();
+		conn.close();
+
+		assertEquals("invocations", 1, serverRequestHandlerInvocations);
+		assertEquals("NAME", "a", serverHeaders.getHeader(HeaderSet.NAME));
+		assertEquals("data", simpleData, serverData);
+		assertServerErrors();
+	}
 }
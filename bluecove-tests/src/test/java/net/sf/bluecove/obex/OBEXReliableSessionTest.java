@@ -0,0 +1,265 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove.obex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.microedition.io.Connector;
+import javax.obex.ClientSession;
+import javax.obex.HeaderSet;
+import javax.obex.Operation;
+import javax.obex.ResponseCodes;
+import javax.obex.ServerRequestHandler;
+import javax.obex.SessionNotifier;
+
+import net.sf.bluecove.TestCaseRunnable;
+
+import com.intel.bluetooth.BluetoothConnectionAccess;
+import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.EmulatorTestsHelper;
+import com.intel.bluetooth.obex.BlueCoveInternals;
+import com.intel.bluetooth.obex.BlueCoveOBEX;
+
+/**
+ *
+ */
+public class OBEXReliableSessionTest extends OBEXBaseEmulatorTestCase {
+
+	private ByteArrayOutputStream serverData;
+
+	private long serverResumeOffset;
+
+	@Override
+	protected void setUp() throws Exception {
+		serverData = new ByteArrayOutputStream();
+		serverResumeOffset = -1;
+		super.setUp();
+	}
+
+	private class RequestHandler extends ServerRequestHandler {
+
+		@Override
+		public int onPut(Operation op) {
+			serverRequestHandlerInvocations++;
+			serverResumeOffset = BlueCoveOBEX.getReliableSessionResumeOffset(op);
+			DebugLog.debug("==TEST== server resume offset", serverResumeOffset);
+			try {
+				InputStream is = op.openInputStream();
+				int data;
+				while ((data = is.read()) != -1) {
+					serverData.write(data);
+				}
+				op.close();
+				return ResponseCodes.OBEX_HTTP_OK;
+			} catch (IOException e) {
+				DebugLog.debug("==TEST== server read error", e);
+				return ResponseCodes.OBEX_HTTP_UNAVAILABLE;
+			}
+		}
+	}
+
+	@Override
+	protected ServerRequestHandler createRequestHandler() {
+		return new RequestHandler();
+	}
+
+	@Override
+	protected Runnable createTestServer() {
+		return new TestCaseRunnable() {
+			public void execute() throws Exception {
+				SessionNotifier serverConnection = (SessionNotifier) Connector.open("btgoep://localhost:" + serverUUID
+						+ ";name=ObexTest");
+				ServerRequestHandler handler = createRequestHandler();
+				// Second connection is used to resume the session, third by other device
+				int connections = "testResumeFromOtherDevice".equals(getName()) ? 3 : 2;
+				for (int i = 0; i < connections; i++) {
+					serverConnection.acceptAndOpen(handler);
+				}
+			}
+		};
+	}
+
+	private void put(ClientSession clientSession, byte[] data, int off) throws IOException {
+		HeaderSet hsOperation = clientSession.createHeaderSet();
+		hsOperation.setHeader(HeaderSet.NAME, "Hello.txt");
+		Operation putOperation = clientSession.put(hsOperation);
+		OutputStream os = putOperation.openOutputStream();
+		os.write(data, off, data.length - off);
+		os.close();
+		assertEquals("PUT code", ResponseCodes.OBEX_HTTP_OK, putOperation.getResponseCode());
+		putOperation.close();
+	}
+
+	public void testCreateAndClose() throws IOException {
+		ClientSession clientSession = (ClientSession) Connector.open(selectService(serverUUID));
+		byte[] sessionID = BlueCoveOBEX.createReliableSession(clientSession, -1);
+		assertNotNull("sessionID", sessionID);
+		assertEquals("sessionID length", 16, sessionID.length);
+
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+
+		put(clientSession, simpleData, 0);
+
+		BlueCoveOBEX.closeReliableSession(clientSession);
+		clientSession.disconnect(null);
+		clientSession.close();
+
+		assertEquals("invocations", 1, serverRequestHandlerInvocations);
+		assertEquals("data", simpleData, serverData.toByteArray());
+		assertEquals("resume offset", 0, serverResumeOffset);
+		assertServerErrors();
+	}
+
+	public void testSuspendResume() throws IOException {
+		String url = selectService(serverUUID);
+		ClientSession clientSession = (ClientSession) Connector.open(url);
+		byte[] sessionID = BlueCoveOBEX.createReliableSession(clientSession, 60);
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+		BlueCoveOBEX.suspendReliableSession(clientSession);
+
+		ClientSession clientSession2 = (ClientSession) Connector.open(url);
+		BlueCoveOBEX.resumeReliableSession(clientSession2, sessionID);
+		assertEquals("resume offset", 0, BlueCoveOBEX.getReliableSessionResumeOffset(clientSession2));
+
+		// Connection state is restored, no connect required
+		put(clientSession2, simpleData, 0);
+
+		BlueCoveOBEX.closeReliableSession(clientSession2);
+		clientSession2.disconnect(null);
+		clientSession2.close();
+
+		assertEquals("data", simpleData, serverData.toByteArray());
+	}
+
+	public void testResumeInterruptedPut() throws IOException {
+		String url = selectService(serverUUID);
+		ClientSession clientSession = (ClientSession) Connector.open(url);
+		byte[] sessionID = BlueCoveOBEX.createReliableSession(clientSession, -1);
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+
+		byte[] data = makeTestData(BlueCoveOBEX.getPacketSize(clientSession) * 4);
+		HeaderSet hsOperation = clientSession.createHeaderSet();
+		hsOperation.setHeader(HeaderSet.NAME, "Hello.txt");
+		Operation putOperation = clientSession.put(hsOperation);
+		OutputStream os = putOperation.openOutputStream();
+		os.write(data, 0, data.length / 2);
+
+		// Break the transport connection
+		((BluetoothConnectionAccess) clientSession).shutdown();
+		try {
+			clientSession.close();
+		} catch (IOException ignore) {
+		}
+
+		ClientSession clientSession2 = (ClientSession) Connector.open(url);
+		BlueCoveOBEX.resumeReliableSession(clientSession2, sessionID);
+		long offset = BlueCoveOBEX.getReliableSessionResumeOffset(clientSession2);
+		assertTrue("resume offset " + offset, offset > 0);
+		assertTrue("resume offset " + offset, offset <= data.length / 2);
+
+		put(clientSession2, data, (int) offset);
+		assertEquals("server resume offset", offset, serverResumeOffset);
+		assertEquals("client resume offset reset", 0, BlueCoveOBEX.getReliableSessionResumeOffset(clientSession2));
+
+		BlueCoveOBEX.closeReliableSession(clientSession2);
+		clientSession2.disconnect(null);
+		clientSession2.close();
+
+		assertEquals("invocations", 2, serverRequestHandlerInvocations);
+		assertEquals("data", data, serverData.toByteArray());
+	}
+
+	public void testCloseAfterResume() throws IOException {
+		String url = selectService(serverUUID);
+		ClientSession clientSession = (ClientSession) Connector.open(url);
+		byte[] sessionID = BlueCoveOBEX.createReliableSession(clientSession, -1);
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+
+		// Break the transport connection, old session is closed only after the resume
+		((BluetoothConnectionAccess) clientSession).shutdown();
+
+		ClientSession clientSession2 = (ClientSession) Connector.open(url);
+		BlueCoveOBEX.resumeReliableSession(clientSession2, sessionID);
+		try {
+			clientSession.close();
+		} catch (IOException ignore) {
+		}
+		assertTrue("session active", BlueCoveInternals.isReliableSessionActive(clientSession2));
+
+		put(clientSession2, simpleData, 0);
+		assertTrue("session active", BlueCoveInternals.isReliableSessionActive(clientSession2));
+
+		BlueCoveOBEX.closeReliableSession(clientSession2);
+		clientSession2.disconnect(null);
+		clientSession2.close();
+
+		assertEquals("data", simpleData, serverData.toByteArray());
+	}
+
+	public void testResumeFromOtherDevice() throws Exception {
+		final String url = selectService(serverUUID);
+		ClientSession clientSession = (ClientSession) Connector.open(url);
+		final byte[] sessionID = BlueCoveOBEX.createReliableSession(clientSession, 60);
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+		BlueCoveOBEX.suspendReliableSession(clientSession);
+
+		final Throwable[] otherResult = new Throwable[1];
+		Thread other = new Thread() {
+			public void run() {
+				try {
+					EmulatorTestsHelper.useThreadLocalEmulator();
+					ClientSession otherSession = (ClientSession) Connector.open(url);
+					try {
+						BlueCoveOBEX.resumeReliableSession(otherSession, sessionID);
+					} finally {
+						otherSession.close();
+					}
+				} catch (Throwable e) {
+					otherResult[0] = e;
+				}
+			}
+		};
+		other.start();
+		other.join(10000);
+		assertTrue("other device resume rejected " + otherResult[0], otherResult[0] instanceof IOException);
+
+		// Session is still suspended for the device that created it
+		ClientSession clientSession2 = (ClientSession) Connector.open(url);
+		BlueCoveOBEX.resumeReliableSession(clientSession2, sessionID);
+		put(clientSession2, simpleData, 0);
+		BlueCoveOBEX.closeReliableSession(clientSession2);
+		clientSession2.disconnect(null);
+		clientSession2.close();
+
+		assertEquals("data", simpleData, serverData.toByteArray());
+	}
+}
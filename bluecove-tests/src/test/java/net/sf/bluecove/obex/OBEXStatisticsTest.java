@@ -0,0 +1,164 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2008-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package net.sf.bluecove.obex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Vector;
+
+import javax.microedition.io.Connection;
+import javax.microedition.io.Connector;
+import javax.obex.ClientSession;
+import javax.obex.HeaderSet;
+import javax.obex.Operation;
+import javax.obex.ResponseCodes;
+import javax.obex.ServerRequestHandler;
+
+import com.intel.bluetooth.obex.BlueCoveOBEX;
+import com.intel.bluetooth.obex.OBEXSessionStatistics;
+import com.intel.bluetooth.obex.OBEXSessionStatisticsListener;
+
+/**
+ *
+ */
+public class OBEXStatisticsTest extends OBEXBaseEmulatorTestCase {
+
+	private static final int CONNECT = 0x80;
+
+	private static final int PUT = 0x02;
+
+	private static final int HANDLER_DELAY = 30;
+
+	private final Vector reported = new Vector();
+
+	private OBEXSessionStatistics serverOperationStatistics;
+
+	private class RequestHandler extends ServerRequestHandler {
+
+		@Override
+		public int onPut(Operation op) {
+			serverRequestHandlerInvocations++;
+			try {
+				InputStream is = op.openInputStream();
+				while (is.read() != -1) {
+				}
+				op.close();
+				Thread.sleep(HANDLER_DELAY);
+				serverOperationStatistics = BlueCoveOBEX.getStatistics(op);
+				return ResponseCodes.OBEX_HTTP_OK;
+			} catch (Exception e) {
+				return ResponseCodes.OBEX_HTTP_UNAVAILABLE;
+			}
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		reported.removeAllElements();
+		BlueCoveOBEX.setStatisticsListener(new OBEXSessionStatisticsListener() {
+			public void sessionClosed(Connection session, OBEXSessionStatistics statistics) {
+				synchronized (reported) {
+					reported.addElement(statistics);
+					reported.notifyAll();
+				}
+			}
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		BlueCoveOBEX.setStatisticsListener(null);
+		super.tearDown();
+	}
+
+	@Override
+	protected ServerRequestHandler createRequestHandler() {
+		return new RequestHandler();
+	}
+
+	private static long sum(int[] histogram) {
+		long count = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			count += histogram[i];
+		}
+		return count;
+	}
+
+	public void testStatistics() throws Exception {
+		ClientSession clientSession = (ClientSession) Connector.open(selectService(serverUUID));
+		HeaderSet hsConnectReply = clientSession.connect(null);
+		assertEquals("connect", ResponseCodes.OBEX_HTTP_OK, hsConnectReply.getResponseCode());
+
+		HeaderSet hsOperation = clientSession.createHeaderSet();
+		hsOperation.setHeader(HeaderSet.NAME, "Hello.txt");
+		Operation putOperation = clientSession.put(hsOperation);
+		OutputStream os = putOperation.openOutputStream();
+		os.write(simpleData);
+		os.close();
+		assertEquals("PUT code", ResponseCodes.OBEX_HTTP_OK, putOperation.getResponseCode());
+		putOperation.close();
+
+		OBEXSessionStatistics statistics = BlueCoveOBEX.getStatistics(clientSession);
+		assertFalse("client", statistics.isServer());
+		assertTrue("packets sent", statistics.getPacketsSent() >= 2);
+		assertEquals("packets received", statistics.getPacketsSent(), statistics.getPacketsReceived());
+		assertTrue("bytes sent", statistics.getBytesSent() > simpleData.length);
+		assertEquals("CONNECT", 1, statistics.getResponseCount(CONNECT));
+		long putCount = statistics.getResponseCount(PUT | 0x80);
+		assertEquals("PUT", statistics.getPacketsSent() - 1, putCount);
+		assertEquals("PUT histogram", putCount, sum(statistics.getResponseTimeHistogram(PUT)));
+		assertTrue("PUT response time", statistics.getResponseTimeMax(PUT) >= HANDLER_DELAY);
+		assertEquals("MTU", BlueCoveOBEX.getPacketSize(clientSession), statistics.getMTU());
+		try {
+			statistics.getResponseCount(0x10);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+
+		clientSession.disconnect(null);
+		clientSession.close();
+
+		assertNotNull("server statistics", serverOperationStatistics);
+		assertTrue("server", serverOperationStatistics.isServer());
+		assertEquals("server CONNECT", 1, serverOperationStatistics.getResponseCount(CONNECT));
+		assertEquals("server packets received", statistics.getPacketsSent(), serverOperationStatistics
+				.getPacketsReceived());
+
+		synchronized (reported) {
+			long end = System.currentTimeMillis() + 5000;
+			while ((reported.size() < 2) && (System.currentTimeMillis() < end)) {
+				reported.wait(500);
+			}
+		}
+		assertEquals("reported sessions", 2, reported.size());
+		for (int i = 0; i < reported.size(); i++) {
+			OBEXSessionStatistics s = (OBEXSessionStatistics) reported.elementAt(i);
+			assertEquals("reported packets sent", statistics.getPacketsSent() + 1, s.getPacketsSent());
+			assertEquals("reported packets received", statistics.getPacketsSent() + 1, s.getPacketsReceived());
+		}
+		assertServerErrors();
+	}
+}
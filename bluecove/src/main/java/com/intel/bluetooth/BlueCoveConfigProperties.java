@@ -161,12 +161,57 @@ public interface BlueCoveConfigProperties {
      */
     public static final String PROPERTY_INQUIRY_REPORT_ASAP = "bluecove.inquiry.report_asap";
 
+    /**
+     * Set true to share one device inquiry between DiscoveryAgent callers.
+     * startInquiry() called while inquiry is running joins the running
+     * inquiry and receives the devices discovered from that moment, another
+     * inquiry is started when the running one is completed so each listener
+     * receives results of complete inquiry. Requests with different access
+     * code are queued.
+     * 
+     * Defaults to false.
+     */
+    public static final String PROPERTY_INQUIRY_SHARED = "bluecove.inquiry.shared";
+
     /**
      * You can increase OBEX transfer speed by changing mtu to bigger value.
      * Default is 1024
      */
     public static final String PROPERTY_OBEX_MTU = "bluecove.obex.mtu";
 
+    /**
+     * Size in bytes of RFCOMM input stream read-ahead buffer. Data is received
+     * from stack in blocks and single byte and small reads are served from the
+     * buffer. Can be defined for one connection using URL parameter
+     * "bluecovereadbuffer", e.g. btspp://0B1000000001:1;bluecovereadbuffer=512
+     * 
+     * Defaults to 0, read directly from stack.
+     */
+    public static final String PROPERTY_RFCOMM_READ_BUFFER = "bluecove.rfcomm.read_buffer";
+
+    /**
+     * Size in bytes of RFCOMM output stream write-combining buffer. Small
+     * writes are collected and sent to stack when the buffer is full, on
+     * flush() and close() or after linger time. Should be set to RFCOMM
+     * frame size of the connection, e.g. 990. Can be defined for one
+     * connection using URL parameter "bluecovewritebuffer".
+     * 
+     * Defaults to 0, write directly to stack.
+     */
+    public static final String PROPERTY_RFCOMM_WRITE_BUFFER = "bluecove.rfcomm.write_buffer";
+
+    /**
+     * Time in milliseconds data is kept in RFCOMM output stream
+     * write-combining buffer before it is sent without flush(). Set to 0 to
+     * send data only when the buffer is full, on flush() and close(). Can be
+     * defined for one connection using URL parameter "bluecovewritelinger".
+     * 
+     * Defaults to 20.
+     */
+    public static final String PROPERTY_RFCOMM_WRITE_LINGER = "bluecove.rfcomm.write_linger";
+
+    static final int PROPERTY_RFCOMM_WRITE_LINGER_DEFAULT = 20;
+
     /**
      * The amount of time in milliseconds for which the implementation will
      * attempt to successfully transmit a packet before it throws
@@ -174,6 +219,18 @@ public interface BlueCoveConfigProperties {
      */
     public static final String PROPERTY_OBEX_TIMEOUT = "bluecove.obex.timeout";
 
+    /**
+     * Number of OBEX packets received ahead of the application reading
+     * operation data. Packets are received on separate thread while the
+     * application is busy with previous data. On server PUT the CONTINUE
+     * response is delayed when the queue is full, on client GET the next
+     * request is sent as soon as the response is received and there is
+     * space in the queue.
+     * 
+     * Defaults to 0, data received only when application reads it.
+     */
+    public static final String PROPERTY_OBEX_RECEIVE_AHEAD = "bluecove.obex.receive_ahead";
+
     /**
      * Remove JSR-82 1.1 restriction for legal PSM values are in the range
      * (0x1001..0xFFFF).
@@ -194,6 +251,88 @@ public interface BlueCoveConfigProperties {
      */
     public static final String PROPERTY_SDP_STRING_ENCODING_ASCII = "bluecove.sdp.string_encoding_ascii";
 
+    /**
+     * Keep attributes of remote service records in SDP binary form and create
+     * DataElement only when it is requested by ServiceRecord.getAttributeValue().
+     * Useful when many records are discovered and most attributes are never read.
+     * 
+     * Used on emulator for now.
+     * 
+     * Defaults to false.
+     */
+    public static final String PROPERTY_SDP_LAZY_ATTRIBUTES = "bluecove.sdp.lazy_attributes";
+
+    /**
+     * Time in seconds the results of DiscoveryAgent.searchServices() and
+     * selectService() are cached. Next search on the same device with the
+     * same UUIDs and attributes is answered from cache without SDP query.
+     * Cached records of the device are removed when connection to the
+     * service fails.
+     * 
+     * On BlueZ 4 D-Bus stack ServiceRecord.populateRecord() also uses the
+     * records received by service search within this time instead of
+     * querying all records of the device again.
+     * 
+     * Defaults to 0, cache is disabled.
+     * 
+     * @see com.intel.bluetooth.ServiceRecordsCache
+     */
+    public static final String PROPERTY_SDP_CACHE_TTL = "bluecove.sdp.cache_ttl";
+
+    /**
+     * Maximum number of search results kept in service records cache, least
+     * recently used entries are removed.
+     * 
+     * Defaults to 32.
+     */
+    public static final String PROPERTY_SDP_CACHE_SIZE = "bluecove.sdp.cache_size";
+
+    /**
+     * Maximum number of RemoteDevice instances kept by BlueCove for each
+     * stack, e.g. devices found by DiscoveryAgent.startInquiry(). Least
+     * recently used devices are removed. Devices with open connections or
+     * paired during the session are never removed.
+     * 
+     * Defaults to 0, number of devices is not limited.
+     */
+    public static final String PROPERTY_REMOTE_DEVICE_CACHE_SIZE = "bluecove.remote_device_cache.size";
+
+    /**
+     * Time in seconds RemoteDevice without connections and not paired is kept
+     * by BlueCove after it was last discovered or used.
+     * 
+     * Defaults to 0, devices are kept until removed because of cache size.
+     */
+    public static final String PROPERTY_REMOTE_DEVICE_CACHE_IDLE = "bluecove.remote_device_cache.idle";
+
+    /**
+     * Maximum number of idle threads kept by BlueCove for reuse by device
+     * inquiry, service search, OBEX server sessions and timers. Set to 0 to
+     * create new thread for each operation.
+     * 
+     * Defaults to 8.
+     */
+    public static final String PROPERTY_THREAD_POOL_SIZE = "bluecove.thread_pool.size";
+
+    static final int PROPERTY_THREAD_POOL_SIZE_DEFAULT = 8;
+
+    /**
+     * Time in seconds idle thread is kept for reuse.
+     * 
+     * Defaults to 60.
+     */
+    public static final String PROPERTY_THREAD_POOL_IDLE = "bluecove.thread_pool.idle";
+
+    static final int PROPERTY_THREAD_POOL_IDLE_DEFAULT = 60;
+
+    /**
+     * Set true to run BlueCove operations on virtual threads instead of the
+     * thread pool. Requires Java 21, ignored on older Java versions.
+     * 
+     * Defaults to false.
+     */
+    public static final String PROPERTY_THREAD_POOL_VIRTUAL = "bluecove.thread_pool.virtual";
+
 	/**
 	 * To be able to use some of android bluetooth APIs, we need a reference to
 	 * an android context object
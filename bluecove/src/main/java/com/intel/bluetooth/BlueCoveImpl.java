@@ -161,13 +161,17 @@ public class BlueCoveImpl {
 
     private static ShutdownHookThread shutdownHookRegistered;
 
-    private static BlueCoveImpl instance;
+    /*
+     * Stack resolution on the path of API calls reads these without lock. Lock is
+     * used when stacks are created or destroyed.
+     */
+    private static volatile BlueCoveImpl instance;
 
-    private static BluetoothStackHolder singleStack;
+    private static volatile BluetoothStackHolder singleStack;
 
-    private static ThreadLocalWrapper threadStack;
+    private static volatile ThreadLocalWrapper threadStack;
 
-    private static BluetoothStackHolder threadStackIDDefault;
+    private static volatile BluetoothStackHolder threadStackIDDefault;
 
     private static Hashtable resourceConfigProperties = new Hashtable();
 
@@ -187,7 +191,7 @@ public class BlueCoveImpl {
      */
     private static class BluetoothStackHolder {
 
-        private BluetoothStack bluetoothStack;
+        private volatile BluetoothStack bluetoothStack;
 
         Hashtable configProperties = new Hashtable();
 
@@ -292,11 +296,17 @@ public class BlueCoveImpl {
      *
      * @return Instance of the class, getBluetoothStack() can be called.
      */
-    public static synchronized BlueCoveImpl instance() {
-        if (instance == null) {
-            instance = new BlueCoveImpl();
+    public static BlueCoveImpl instance() {
+        BlueCoveImpl i = instance;
+        if (i != null) {
+            return i;
+        }
+        synchronized (BlueCoveImpl.class) {
+            if (instance == null) {
+                instance = new BlueCoveImpl();
+            }
+            return instance;
         }
-        return instance;
     }
 
     private BlueCoveImpl() {
@@ -656,11 +666,12 @@ public class BlueCoveImpl {
      *         call to <code>setThreadBluetoothStackID</code> or
      *         <code>null<code> if ThreadLocalBluetoothStack not used.
      */
-    public static synchronized Object getCurrentThreadBluetoothStackID() {
-        if (threadStack == null) {
+    public static Object getCurrentThreadBluetoothStackID() {
+        ThreadLocalWrapper ts = threadStack;
+        if (ts == null) {
             return null;
         }
-        return threadStack.get();
+        return ts.get();
     }
 
     /**
@@ -672,25 +683,27 @@ public class BlueCoveImpl {
      * @param stackID
      *            stackID to use or <code>null</code> to detach the current Thread
      */
-    public static synchronized void setThreadBluetoothStackID(Object stackID) {
+    public static void setThreadBluetoothStackID(Object stackID) {
         if ((stackID != null) && (!(stackID instanceof BluetoothStackHolder))) {
             throw new IllegalArgumentException("stackID is not valid");
         }
-        if (threadStack == null) {
+        ThreadLocalWrapper ts = threadStack;
+        if (ts == null) {
             throw new IllegalArgumentException("ThreadLocal configuration is not initialized");
         }
-        threadStack.set(stackID);
+        ts.set(stackID);
     }
 
     /**
      * Detach BluetoothStack from ThreadLocal. Used for removing itself from container
      * threads. Also can be use to initialize different stack in the same thread.
      */
-    public static synchronized void releaseThreadBluetoothStack() {
-        if (threadStack == null) {
+    public static void releaseThreadBluetoothStack() {
+        ThreadLocalWrapper ts = threadStack;
+        if (ts == null) {
             throw new IllegalArgumentException("ThreadLocal configuration is not initialized");
         }
-        threadStack.set(null);
+        ts.set(null);
     }
 
     /**
@@ -712,11 +725,12 @@ public class BlueCoveImpl {
         threadStackIDDefault = (BluetoothStackHolder) stackID;
     }
 
-    static synchronized void setThreadBluetoothStack(BluetoothStack bluetoothStack) {
-        if (threadStack == null) {
+    static void setThreadBluetoothStack(BluetoothStack bluetoothStack) {
+        ThreadLocalWrapper ts = threadStack;
+        if (ts == null) {
             return;
         }
-        BluetoothStackHolder s = ((BluetoothStackHolder) threadStack.get());
+        BluetoothStackHolder s = ((BluetoothStackHolder) ts.get());
         if ((s != null) && (s.bluetoothStack == bluetoothStack)) {
             return;
         }
@@ -725,7 +739,17 @@ public class BlueCoveImpl {
         if (sh == null) {
             throw new RuntimeException("ThreadLocal not found for BluetoothStack");
         }
-        threadStack.set(sh);
+        ts.set(sh);
+    }
+
+    /**
+     * Remove BluetoothStack binding of pooled thread when task is finished.
+     */
+    static void clearThreadBluetoothStack() {
+        ThreadLocalWrapper ts = threadStack;
+        if (ts != null) {
+            ts.set(null);
+        }
     }
 
     /**
@@ -748,6 +772,7 @@ public class BlueCoveImpl {
         if (s.bluetoothStack != null) {
             BluetoothConnectionNotifierBase.shutdownConnections(s.bluetoothStack);
             RemoteDeviceHelper.shutdownConnections(s.bluetoothStack);
+            ServiceRecordsCache.shutdown(s.bluetoothStack);
             s.bluetoothStack.destroy();
             stacks.remove(s.bluetoothStack);
             s.bluetoothStack = null;
@@ -764,6 +789,7 @@ public class BlueCoveImpl {
             if (s.bluetoothStack != null) {
                 BluetoothConnectionNotifierBase.shutdownConnections(s.bluetoothStack);
                 RemoteDeviceHelper.shutdownConnections(s.bluetoothStack);
+                ServiceRecordsCache.shutdown(s.bluetoothStack);
                 try {
                     s.bluetoothStack.destroy();
                 } finally {
@@ -848,19 +874,18 @@ public class BlueCoveImpl {
             }
         }
         if (value == null) {
-            synchronized (resourceConfigProperties) {
-                Object casheValue = resourceConfigProperties.get(key);
-                if (casheValue != null) {
-                    if (casheValue instanceof String) {
-                        value = (String) casheValue;
-                    }
+            // Loading the same resource twice is harmless, don't lock
+            Object casheValue = resourceConfigProperties.get(key);
+            if (casheValue != null) {
+                if (casheValue instanceof String) {
+                    value = (String) casheValue;
+                }
+            } else {
+                value = Utils.getResourceProperty(BlueCoveImpl.class, key);
+                if (value == null) {
+                    resourceConfigProperties.put(key, new Object());
                 } else {
-                    value = Utils.getResourceProperty(BlueCoveImpl.class, key);
-                    if (value == null) {
-                        resourceConfigProperties.put(key, new Object());
-                    } else {
-                        resourceConfigProperties.put(key, value);
-                    }
+                    resourceConfigProperties.put(key, value);
                 }
             }
         }
@@ -889,6 +914,27 @@ public class BlueCoveImpl {
         }
     }
 
+    /**
+     * Configuration property of the given stack, used when current thread may be not bound to this stack.
+     */
+    static int getConfigProperty(BluetoothStack stack, String key, int defaultValue) {
+        BluetoothStackHolder sh = (BluetoothStackHolder) stacks.get(stack);
+        Object value = (sh == null) ? null : sh.configProperties.get(key);
+        if (value instanceof String) {
+            return Integer.parseInt((String) value);
+        }
+        return getConfigProperty(key, defaultValue);
+    }
+
+    static boolean getConfigProperty(BluetoothStack stack, String key, boolean defaultValue) {
+        BluetoothStackHolder sh = (BluetoothStackHolder) stacks.get(stack);
+        Object value = (sh == null) ? null : sh.configProperties.get(key);
+        if (value instanceof String) {
+            return TRUE.equals(value) || "1".equals(value);
+        }
+        return getConfigProperty(key, defaultValue);
+    }
+
     static String[] getSystemPropertiesList() {
         String[] p = { BluetoothConsts.PROPERTY_BLUETOOTH_MASTER_SWITCH, BluetoothConsts.PROPERTY_BLUETOOTH_SD_ATTR_RETRIEVABLE_MAX,
                 BluetoothConsts.PROPERTY_BLUETOOTH_CONNECTED_DEVICES_MAX, BluetoothConsts.PROPERTY_BLUETOOTH_L2CAP_RECEIVEMTU_MAX,
@@ -1032,21 +1078,31 @@ public class BlueCoveImpl {
     }
 
     private static BluetoothStackHolder currentStackHolder(boolean create) {
-        if (threadStack != null) {
-            BluetoothStackHolder s = ((BluetoothStackHolder) threadStack.get());
-            if ((s == null) && (threadStackIDDefault != null)) {
-                return threadStackIDDefault;
+        ThreadLocalWrapper ts = threadStack;
+        if (ts != null) {
+            BluetoothStackHolder s = ((BluetoothStackHolder) ts.get());
+            if (s == null) {
+                BluetoothStackHolder d = threadStackIDDefault;
+                if (d != null) {
+                    return d;
+                }
             }
             if ((s == null) && create) {
                 s = new BluetoothStackHolder();
-                threadStack.set(s);
+                ts.set(s);
             }
             return s;
         } else {
-            if ((singleStack == null) && create) {
-                singleStack = new BluetoothStackHolder();
+            BluetoothStackHolder s = singleStack;
+            if ((s == null) && create) {
+                synchronized (BlueCoveImpl.class) {
+                    if (singleStack == null) {
+                        singleStack = new BluetoothStackHolder();
+                    }
+                    s = singleStack;
+                }
             }
-            return singleStack;
+            return s;
         }
     }
 
@@ -1060,8 +1116,19 @@ public class BlueCoveImpl {
      * @exception Error
      *                if called from outside of BlueCove internal code.
      */
-    public synchronized BluetoothStack getBluetoothStack() throws BluetoothStateException {
+    public BluetoothStack getBluetoothStack() throws BluetoothStateException {
         Utils.isLegalAPICall(fqcnSet);
+        BluetoothStackHolder sh = currentStackHolder(false);
+        if (sh != null) {
+            BluetoothStack stack = sh.bluetoothStack;
+            if (stack != null) {
+                return stack;
+            }
+        }
+        return detectBluetoothStack();
+    }
+
+    private synchronized BluetoothStack detectBluetoothStack() throws BluetoothStateException {
         BluetoothStackHolder sh = currentStackHolder(false);
         if ((sh != null) && (sh.bluetoothStack != null)) {
             return sh.bluetoothStack;
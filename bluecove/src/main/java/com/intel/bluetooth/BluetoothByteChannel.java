@@ -0,0 +1,213 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+
+import javax.microedition.io.Connection;
+
+/**
+ * NIO channel view of RFCOMM and L2CAP connection. Non JSR-82.
+ * <p>
+ * Direct <code>ByteBuffer</code> are transferred without intermediate java arrays when supported by the stack, this
+ * is the case for BlueZ on Linux. Heap buffers use the backing array.
+ * <p>
+ * RFCOMM: <code>read</code> blocks until at least one byte is available and returns <code>-1</code> at the end of the
+ * stream, <code>write</code> writes all remaining bytes.
+ * <p>
+ * L2CAP: each <code>read</code> receives one packet, the bytes that do not fit into the remaining space of the buffer
+ * are discarded. Each <code>write</code> sends one packet of up to TransmitMTU bytes, gathering write combines the
+ * buffers into one packet.
+ * <p>
+ * The data held by RFCOMM stream buffers (<code>bluecovereadbuffer</code> and <code>bluecovewritebuffer</code>) is not
+ * seen by the channel, do not mix streams and channel in the same direction. Closing the channel closes the
+ * connection.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public abstract class BluetoothByteChannel implements ByteChannel, GatheringByteChannel {
+
+	/**
+	 * Maximum size of intermediate array used when the stack can't access the buffer directly.
+	 */
+	static final int TEMP_ARRAY_MAX = 0x10000;
+
+	final BluetoothStack bluetoothStack;
+
+	/**
+	 * The stack if it support direct buffers, otherwise <code>null</code>.
+	 */
+	final BluetoothStackDirectBuffer directStack;
+
+	private final Connection connection;
+
+	private final Object readLock = new Object();
+
+	private final Object writeLock = new Object();
+
+	BluetoothByteChannel(Connection connection, BluetoothStack bluetoothStack) {
+		this.connection = connection;
+		this.bluetoothStack = bluetoothStack;
+		if (bluetoothStack instanceof BluetoothStackDirectBuffer) {
+			this.directStack = (BluetoothStackDirectBuffer) bluetoothStack;
+		} else {
+			this.directStack = null;
+		}
+	}
+
+	/**
+	 * Create channel for RFCOMM or L2CAP connection.
+	 * 
+	 * @param connection
+	 *            StreamConnection opened with <code>btspp://</code> URL or L2CAPConnection
+	 * @return the channel, reading and writing the connection
+	 * @throws IOException
+	 *             if the connection is closed
+	 */
+	public static BluetoothByteChannel open(Connection connection) throws IOException {
+		if (connection instanceof BluetoothRFCommConnection) {
+			return new BluetoothRFCommChannel((BluetoothRFCommConnection) connection);
+		} else if (connection instanceof BluetoothL2CAPConnection) {
+			return new BluetoothL2CAPChannel((BluetoothL2CAPConnection) connection);
+		} else {
+			throw new IllegalArgumentException("Not a BlueCove RFCOMM or L2CAP Connection "
+					+ connection.getClass().getName());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.ReadableByteChannel#read(java.nio.ByteBuffer)
+	 */
+	public int read(ByteBuffer dst) throws IOException {
+		if (dst.isReadOnly()) {
+			throw new IllegalArgumentException("Read-only buffer");
+		}
+		synchronized (readLock) {
+			ensureOpen();
+			if (!dst.hasRemaining()) {
+				return 0;
+			}
+			return readImpl(dst);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.WritableByteChannel#write(java.nio.ByteBuffer)
+	 */
+	public int write(ByteBuffer src) throws IOException {
+		synchronized (writeLock) {
+			ensureOpen();
+			if (!src.hasRemaining()) {
+				return 0;
+			}
+			return writeImpl(src);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.GatheringByteChannel#write(java.nio.ByteBuffer[])
+	 */
+	public long write(ByteBuffer[] srcs) throws IOException {
+		return write(srcs, 0, srcs.length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.GatheringByteChannel#write(java.nio.ByteBuffer[], int, int)
+	 */
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		if ((offset < 0) || (length < 0) || (offset > srcs.length - length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		synchronized (writeLock) {
+			ensureOpen();
+			return writeImpl(srcs, offset, length);
+		}
+	}
+
+	/**
+	 * Read to buffer with remaining space.
+	 */
+	abstract int readImpl(ByteBuffer dst) throws IOException;
+
+	/**
+	 * Write buffer with remaining bytes.
+	 */
+	abstract int writeImpl(ByteBuffer src) throws IOException;
+
+	abstract long writeImpl(ByteBuffer[] srcs, int offset, int length) throws IOException;
+
+	abstract boolean isConnectionClosed();
+
+	private void ensureOpen() throws IOException {
+		if (isConnectionClosed()) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.Channel#isOpen()
+	 */
+	public boolean isOpen() {
+		return !isConnectionClosed();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.Channel#close()
+	 */
+	public void close() throws IOException {
+		connection.close();
+	}
+
+	/**
+	 * Intermediate array for buffer without accessible array, reused while it is big enough.
+	 */
+	static byte[] tempArray(byte[] current, int len) {
+		if (len > TEMP_ARRAY_MAX) {
+			len = TEMP_ARRAY_MAX;
+		}
+		if ((current == null) || (current.length < len)) {
+			return new byte[len];
+		}
+		return current;
+	}
+
+}
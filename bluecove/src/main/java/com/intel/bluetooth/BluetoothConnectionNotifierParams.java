@@ -55,6 +55,20 @@ class BluetoothConnectionNotifierParams {
 	 */
 	int bluecove_ext_psm = 0;
 
+	/**
+	 * Size of RFCOMM input stream read-ahead buffer of accepted connections. Usage:
+	 * btspp://localhost:uuid;bluecovereadbuffer=512
+	 */
+	int readBuffer = 0;
+
+	/**
+	 * Size of RFCOMM output stream write-combining buffer and linger time in milliseconds of accepted connections.
+	 * Usage: btspp://localhost:uuid;bluecovewritebuffer=990;bluecovewritelinger=20
+	 */
+	int writeBuffer = 0;
+
+	int writeLinger = 0;
+
 	public BluetoothConnectionNotifierParams(UUID uuid, boolean authenticate, boolean encrypt, boolean authorize,
 			String name, boolean master) {
 		super();
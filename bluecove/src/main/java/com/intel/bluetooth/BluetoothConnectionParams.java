@@ -57,6 +57,28 @@ class BluetoothConnectionParams {
 	 */
 	public int timeout = DEFAULT_CONNECT_TIMEOUT;
 
+	/**
+	 * Size of RFCOMM input stream read-ahead buffer, <code>0</code> to read directly from stack. Usage:
+	 * btspp://0B1000000001:1;bluecovereadbuffer=512
+	 * <p>
+	 * Java System property "bluecove.rfcomm.read_buffer" can be used to define the value.
+	 */
+	int readBuffer = 0;
+
+	/**
+	 * Size of RFCOMM output stream write-combining buffer, <code>0</code> to write directly to stack. Usage:
+	 * btspp://0B1000000001:1;bluecovewritebuffer=990;bluecovewritelinger=20
+	 * <p>
+	 * Java System properties "bluecove.rfcomm.write_buffer" and "bluecove.rfcomm.write_linger" can be used to define
+	 * the values.
+	 */
+	int writeBuffer = 0;
+
+	/**
+	 * Time in milliseconds data is kept in write-combining buffer.
+	 */
+	int writeLinger = 0;
+
 	public BluetoothConnectionParams(long address, int channel, boolean authenticate, boolean encrypt) {
 		super();
 		this.address = address;
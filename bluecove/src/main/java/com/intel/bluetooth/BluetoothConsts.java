@@ -37,6 +37,14 @@ public abstract class BluetoothConsts {
 
 	public static final String SHORT_UUID_BASE = "00001000800000805F9B34FB";
 
+	/**
+	 * Shared instances of well-known 16-bit UUIDs, protocols 0x0000-0x01FF and service classes 0x1000-0x12FF. Filled
+	 * on first use, UUID is immutable so concurrent fill is harmless.
+	 */
+	private static final UUID[] protocolUUIDs = new UUID[0x200];
+
+	private static final UUID[] serviceClassUUIDs = new UUID[0x300];
+
 	public static final String PROTOCOL_SCHEME_L2CAP = "btl2cap";
 
 	public static final String PROTOCOL_SCHEME_RFCOMM = "btspp";
@@ -45,13 +53,13 @@ public abstract class BluetoothConsts {
 
 	public static final String PROTOCOL_SCHEME_TCP_OBEX = "tcpobex";
 
-	public static final UUID L2CAP_PROTOCOL_UUID = new UUID(0x0100);
+	public static final UUID L2CAP_PROTOCOL_UUID = shortUUID(0x0100);
 
-	public static final UUID RFCOMM_PROTOCOL_UUID = new UUID(0x0003);
+	public static final UUID RFCOMM_PROTOCOL_UUID = shortUUID(0x0003);
 
-	public static final UUID OBEX_PROTOCOL_UUID = new UUID(0x0008);
+	public static final UUID OBEX_PROTOCOL_UUID = shortUUID(0x0008);
 
-	public static final UUID OBEXFileTransferServiceClass_UUID = new UUID(0x1106);
+	public static final UUID OBEXFileTransferServiceClass_UUID = shortUUID(0x1106);
 
 	public static final int RFCOMM_CHANNEL_MIN = 1;
 
@@ -93,8 +101,35 @@ public abstract class BluetoothConsts {
 
 	}
 
+	/**
+	 * Returns shared instance for well-known 16-bit UUIDs, creates new UUID for other values.
+	 * 
+	 * @param value
+	 *            16-bit or 32-bit UUID value
+	 * @return the UUID
+	 */
+	static UUID shortUUID(long value) {
+		UUID[] cache;
+		int index;
+		if ((value >= 0) && (value < 0x200)) {
+			cache = protocolUUIDs;
+			index = (int) value;
+		} else if ((value >= 0x1000) && (value < 0x1300)) {
+			cache = serviceClassUUIDs;
+			index = (int) value - 0x1000;
+		} else {
+			return new UUID(value);
+		}
+		UUID uuid = cache[index];
+		if (uuid == null) {
+			uuid = new UUID(value);
+			cache[index] = uuid;
+		}
+		return uuid;
+	}
+
 	private static void addObex(int uuid) {
-		UUID u = new UUID(uuid);
+		UUID u = shortUUID(uuid);
 		obexUUIDs.put(u, u);
 	}
 
@@ -106,7 +141,7 @@ public abstract class BluetoothConsts {
 		addObex(0x111B);// IMG_RESPONDER
 	}
 
-	public static final UUID SERIAL_PORT_UUID = new UUID(0x1101);
+	public static final UUID SERIAL_PORT_UUID = shortUUID(0x1101);
 
 	public static final int BluetoothProfileDescriptorList = 0x0009;
 
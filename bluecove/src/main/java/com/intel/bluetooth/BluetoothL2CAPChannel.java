@@ -0,0 +1,145 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Channel receiving and sending L2CAP packets.
+ * 
+ * @see com.intel.bluetooth.BluetoothByteChannel
+ */
+class BluetoothL2CAPChannel extends BluetoothByteChannel {
+
+	private final BluetoothL2CAPConnection conn;
+
+	private final int receiveMTU;
+
+	private byte[] readArray;
+
+	/**
+	 * Packet assembled by gathering write when the stack support direct buffers.
+	 */
+	private ByteBuffer writePacket;
+
+	BluetoothL2CAPChannel(BluetoothL2CAPConnection conn) throws IOException {
+		super(conn, conn.bluetoothStack);
+		this.conn = conn;
+		this.receiveMTU = conn.getReceiveMTU();
+	}
+
+	boolean isConnectionClosed() {
+		return conn.isClosed();
+	}
+
+	int readImpl(ByteBuffer dst) throws IOException {
+		int pos = dst.position();
+		int len = dst.remaining();
+		int n;
+		if ((directStack != null) && dst.isDirect()) {
+			n = directStack.l2ReceiveDirect(conn.handle, dst, pos, len);
+		} else if (dst.hasArray() && (dst.arrayOffset() + pos == 0) && (len == dst.array().length)) {
+			n = bluetoothStack.l2Receive(conn.handle, dst.array());
+		} else {
+			// Receive complete packet, the part that does not fit into buffer is discarded
+			if (readArray == null) {
+				readArray = new byte[receiveMTU];
+			}
+			n = bluetoothStack.l2Receive(conn.handle, readArray);
+			if (n > len) {
+				n = len;
+			}
+			dst.put(readArray, 0, n);
+			return n;
+		}
+		dst.position(pos + n);
+		return n;
+	}
+
+	int writeImpl(ByteBuffer src) throws IOException {
+		int pos = src.position();
+		int len = Math.min(src.remaining(), conn.transmitMTU);
+		if ((directStack != null) && src.isDirect()) {
+			directStack.l2SendDirect(conn.handle, src, pos, len, conn.transmitMTU);
+		} else if (src.hasArray() && (src.arrayOffset() + pos == 0) && (len == src.array().length)) {
+			bluetoothStack.l2Send(conn.handle, src.array(), conn.transmitMTU);
+		} else {
+			// Packet size is the size of array
+			byte[] packet = new byte[len];
+			src.get(packet);
+			bluetoothStack.l2Send(conn.handle, packet, conn.transmitMTU);
+			return len;
+		}
+		src.position(pos + len);
+		return len;
+	}
+
+	long writeImpl(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		int buffers = 0;
+		int last = 0;
+		long remaining = 0;
+		for (int i = offset; i < offset + length; i++) {
+			if (srcs[i].hasRemaining()) {
+				buffers++;
+				last = i;
+				remaining += srcs[i].remaining();
+			}
+		}
+		if (buffers == 0) {
+			return 0;
+		} else if (buffers == 1) {
+			return writeImpl(srcs[last]);
+		}
+		int len = (int) Math.min(remaining, conn.transmitMTU);
+		if (directStack != null) {
+			if ((writePacket == null) || (writePacket.capacity() < len)) {
+				writePacket = ByteBuffer.allocateDirect(conn.transmitMTU);
+			}
+			writePacket.clear();
+			for (int i = offset; (i < offset + length) && (writePacket.position() < len); i++) {
+				int n = Math.min(srcs[i].remaining(), len - writePacket.position());
+				if (n == 0) {
+					continue;
+				}
+				ByteBuffer part = srcs[i].duplicate();
+				part.limit(part.position() + n);
+				writePacket.put(part);
+				srcs[i].position(srcs[i].position() + n);
+			}
+			directStack.l2SendDirect(conn.handle, writePacket, 0, len, conn.transmitMTU);
+		} else {
+			byte[] packet = new byte[len];
+			int done = 0;
+			for (int i = offset; (i < offset + length) && (done < len); i++) {
+				int n = Math.min(srcs[i].remaining(), len - done);
+				srcs[i].get(packet, done, n);
+				done += n;
+			}
+			bluetoothStack.l2Send(conn.handle, packet, conn.transmitMTU);
+		}
+		return len;
+	}
+
+}
@@ -32,7 +32,7 @@ import java.io.IOException;
 class BluetoothL2CAPClientConnection extends BluetoothL2CAPConnection {
 
     public BluetoothL2CAPClientConnection(BluetoothStack bluetoothStack, BluetoothConnectionParams params, int receiveMTU, int transmitMTU) throws IOException {
-        super(bluetoothStack, bluetoothStack.l2OpenClientConnection(params, receiveMTU, transmitMTU));
+        super(bluetoothStack, openConnection(bluetoothStack, params, receiveMTU, transmitMTU));
         boolean initOK = false;
         try {
             this.securityOpt = bluetoothStack.l2GetSecurityOpt(this.handle, Utils.securityOpt(params.authenticate, params.encrypt));
@@ -54,6 +54,16 @@ class BluetoothL2CAPClientConnection extends BluetoothL2CAPConnection {
         }
     }
 
+    private static long openConnection(BluetoothStack bluetoothStack, BluetoothConnectionParams params, int receiveMTU, int transmitMTU)
+            throws IOException {
+        try {
+            return bluetoothStack.l2OpenClientConnection(params, receiveMTU, transmitMTU);
+        } catch (IOException e) {
+            ServiceRecordsCache.connectionFailed(bluetoothStack, params.address, BluetoothConsts.L2CAP_PROTOCOL_UUID, params.channel);
+            throw e;
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
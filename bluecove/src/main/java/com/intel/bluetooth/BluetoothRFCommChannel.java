@@ -0,0 +1,106 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Channel reading and writing RFCOMM connection.
+ * 
+ * @see com.intel.bluetooth.BluetoothByteChannel
+ */
+class BluetoothRFCommChannel extends BluetoothByteChannel {
+
+	private final BluetoothRFCommConnection conn;
+
+	private byte[] readArray;
+
+	private byte[] writeArray;
+
+	BluetoothRFCommChannel(BluetoothRFCommConnection conn) throws IOException {
+		super(conn, conn.bluetoothStack);
+		if (conn.isClosed()) {
+			throw new IOException("RFCOMM Connection is already closed");
+		}
+		this.conn = conn;
+	}
+
+	boolean isConnectionClosed() {
+		return conn.isClosed();
+	}
+
+	int readImpl(ByteBuffer dst) throws IOException {
+		int pos = dst.position();
+		int len = dst.remaining();
+		int n;
+		if (dst.hasArray()) {
+			n = bluetoothStack.connectionRfRead(conn.handle, dst.array(), dst.arrayOffset() + pos, len);
+		} else if ((directStack != null) && dst.isDirect()) {
+			n = directStack.connectionRfReadDirect(conn.handle, dst, pos, len);
+		} else {
+			readArray = tempArray(readArray, len);
+			n = bluetoothStack.connectionRfRead(conn.handle, readArray, 0, Math.min(len, readArray.length));
+			if (n > 0) {
+				dst.put(readArray, 0, n);
+			}
+			return n;
+		}
+		if (n > 0) {
+			dst.position(pos + n);
+		}
+		return n;
+	}
+
+	int writeImpl(ByteBuffer src) throws IOException {
+		int pos = src.position();
+		int len = src.remaining();
+		if (src.hasArray()) {
+			bluetoothStack.connectionRfWrite(conn.handle, src.array(), src.arrayOffset() + pos, len);
+		} else if ((directStack != null) && src.isDirect()) {
+			directStack.connectionRfWriteDirect(conn.handle, src, pos, len);
+		} else {
+			writeArray = tempArray(writeArray, len);
+			while (src.hasRemaining()) {
+				int n = Math.min(src.remaining(), writeArray.length);
+				src.get(writeArray, 0, n);
+				bluetoothStack.connectionRfWrite(conn.handle, writeArray, 0, n);
+			}
+			return len;
+		}
+		src.position(pos + len);
+		return len;
+	}
+
+	long writeImpl(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		long count = 0;
+		for (int i = offset; i < offset + length; i++) {
+			if (srcs[i].hasRemaining()) {
+				count += writeImpl(srcs[i]);
+			}
+		}
+		return count;
+	}
+
+}
@@ -34,7 +34,10 @@ class BluetoothRFCommClientConnection extends BluetoothRFCommConnection {
 
 	public BluetoothRFCommClientConnection(BluetoothStack bluetoothStack, BluetoothConnectionParams params)
 			throws IOException {
-		super(bluetoothStack, bluetoothStack.connectionRfOpenClientConnection(params));
+		super(bluetoothStack, openConnection(bluetoothStack, params));
+		this.readBufferSize = params.readBuffer;
+		this.writeBufferSize = params.writeBuffer;
+		this.writeLinger = params.writeLinger;
 		boolean initOK = false;
 		try {
 			this.securityOpt = bluetoothStack.rfGetSecurityOpt(this.handle, Utils.securityOpt(params.authenticate,
@@ -52,6 +55,17 @@ class BluetoothRFCommClientConnection extends BluetoothRFCommConnection {
 		}
 	}
 
+	private static long openConnection(BluetoothStack bluetoothStack, BluetoothConnectionParams params)
+			throws IOException {
+		try {
+			return bluetoothStack.connectionRfOpenClientConnection(params);
+		} catch (IOException e) {
+			ServiceRecordsCache.connectionFailed(bluetoothStack, params.address, BluetoothConsts.RFCOMM_PROTOCOL_UUID,
+					params.channel);
+			throw e;
+		}
+	}
+
 	void closeConnectionHandle(long handle) throws IOException {
 		RemoteDeviceHelper.disconnected(this);
 		bluetoothStack.connectionRfCloseClientConnection(handle);
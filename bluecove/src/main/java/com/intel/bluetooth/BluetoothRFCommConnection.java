@@ -60,6 +60,18 @@ abstract class BluetoothRFCommConnection implements StreamConnection, BluetoothC
 
 	protected int securityOpt;
 
+	/**
+	 * Size of input stream read-ahead buffer, <code>0</code> for no buffer.
+	 */
+	int readBufferSize = 0;
+
+	/**
+	 * Size of output stream write-combining buffer, <code>0</code> for no buffer.
+	 */
+	int writeBufferSize = 0;
+
+	int writeLinger = 0;
+
 	RemoteDevice remoteDevice;
 
 	protected BluetoothRFCommConnection(BluetoothStack bluetoothStack, long handle) {
@@ -137,7 +149,7 @@ abstract class BluetoothRFCommConnection implements StreamConnection, BluetoothC
 			throw new IOException("RFCOMM Connection is already closed");
 		} else {
 			if (in == null) {
-				in = new BluetoothRFCommInputStream(this);
+				in = new BluetoothRFCommInputStream(this, readBufferSize);
 				return in;
 			} else if (in.isClosed()) {
 				throw new IOException("Stream cannot be reopened");
@@ -184,7 +196,7 @@ abstract class BluetoothRFCommConnection implements StreamConnection, BluetoothC
 			throw new IOException("RFCOMM Connection is already closed");
 		} else {
 			if (out == null) {
-				out = new BluetoothRFCommOutputStream(this);
+				out = new BluetoothRFCommOutputStream(this, writeBufferSize, writeLinger);
 				return out;
 			} else if (out.isClosed()) {
 				throw new IOException("Stream cannot be reopened");
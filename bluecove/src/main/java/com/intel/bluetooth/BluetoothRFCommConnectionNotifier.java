@@ -35,6 +35,12 @@ class BluetoothRFCommConnectionNotifier extends BluetoothConnectionNotifierBase
 
 	private int rfcommChannel = -1;
 
+	private int readBufferSize;
+
+	private int writeBufferSize;
+
+	private int writeLinger;
+
 	public BluetoothRFCommConnectionNotifier(BluetoothStack bluetoothStack, BluetoothConnectionNotifierParams params)
 			throws IOException {
 		super(bluetoothStack, params);
@@ -47,6 +53,12 @@ class BluetoothRFCommConnectionNotifier extends BluetoothConnectionNotifierBase
 
 		this.securityOpt = Utils.securityOpt(params.authenticate, params.encrypt);
 
+		this.readBufferSize = params.readBuffer;
+
+		this.writeBufferSize = params.writeBuffer;
+
+		this.writeLinger = params.writeLinger;
+
 		this.connectionCreated();
 	}
 
@@ -73,7 +85,12 @@ class BluetoothRFCommConnectionNotifier extends BluetoothConnectionNotifierBase
 		try {
 			long clientHandle = bluetoothStack.rfServerAcceptAndOpenRfServerConnection(handle);
 			int clientSecurityOpt = bluetoothStack.rfGetSecurityOpt(clientHandle, this.securityOpt);
-			return new BluetoothRFCommServerConnection(bluetoothStack, clientHandle, clientSecurityOpt);
+			BluetoothRFCommServerConnection c = new BluetoothRFCommServerConnection(bluetoothStack, clientHandle,
+					clientSecurityOpt);
+			c.readBufferSize = this.readBufferSize;
+			c.writeBufferSize = this.writeBufferSize;
+			c.writeLinger = this.writeLinger;
+			return c;
 		} catch (InterruptedIOException e) {
 			throw e;
 		} catch (IOException e) {
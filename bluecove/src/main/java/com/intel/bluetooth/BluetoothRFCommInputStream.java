@@ -30,8 +30,20 @@ class BluetoothRFCommInputStream extends InputStream {
 
 	volatile private BluetoothRFCommConnection conn;
 
-	public BluetoothRFCommInputStream(BluetoothRFCommConnection conn) {
+	/**
+	 * Read-ahead buffer, <code>null</code> when data is read directly from stack.
+	 */
+	private byte[] buffer;
+
+	private int bufferPos = 0;
+
+	private int bufferCount = 0;
+
+	public BluetoothRFCommInputStream(BluetoothRFCommConnection conn, int readBufferSize) {
 		this.conn = conn;
+		if (readBufferSize > 0) {
+			this.buffer = new byte[readBufferSize];
+		}
 	}
 
 	/*
@@ -43,6 +55,10 @@ class BluetoothRFCommInputStream extends InputStream {
 		if (conn == null) {
 			throw new IOException("Stream closed");
 		} else {
+			int buffered = bufferCount - bufferPos;
+			if (buffered > 0) {
+				return buffered;
+			}
 			return conn.bluetoothStack.connectionRfReadAvailable(conn.handle);
 		}
 	}
@@ -63,6 +79,12 @@ class BluetoothRFCommInputStream extends InputStream {
 		if (conn == null) {
 			throw new IOException("Stream closed");
 		} else {
+			if (buffer != null) {
+				if ((bufferPos >= bufferCount) && (!fillBuffer())) {
+					return -1;
+				}
+				return buffer[bufferPos++] & 0xFF;
+			}
 			try {
                 return conn.bluetoothStack.connectionRfRead(conn.handle);
             } catch (IOException e) {
@@ -134,6 +156,23 @@ class BluetoothRFCommInputStream extends InputStream {
 				// If the length of b is zero, then no bytes are read and 0 is returned
 				return 0;
 			}
+			if (buffer != null) {
+				int buffered = bufferCount - bufferPos;
+				if ((buffered == 0) && (len < buffer.length)) {
+					if (!fillBuffer()) {
+						return -1;
+					}
+					buffered = bufferCount;
+				}
+				if (buffered > 0) {
+					// Don't block for more data
+					int count = Math.min(buffered, len);
+					System.arraycopy(buffer, bufferPos, b, off, count);
+					bufferPos += count;
+					return count;
+				}
+				// Big read directly to application buffer
+			}
 			// otherwise, there is an attempt to read at least one byte.
 			try {
 			    return conn.bluetoothStack.connectionRfRead(conn.handle, b, off, len);
@@ -147,6 +186,35 @@ class BluetoothRFCommInputStream extends InputStream {
 		}
 	}
 
+	/**
+	 * Receive next block of data to empty buffer.
+	 *
+	 * @return <code>false</code> if the end of the stream is reached
+	 */
+	private boolean fillBuffer() throws IOException {
+		bufferPos = 0;
+		bufferCount = 0;
+		BluetoothRFCommConnection c = conn;
+		if (c == null) {
+			throw new IOException("Stream closed");
+		}
+		int n;
+		try {
+			n = c.bluetoothStack.connectionRfRead(c.handle, buffer, 0, buffer.length);
+		} catch (IOException e) {
+			if (isClosed()) {
+				return false;
+			} else {
+				throw e;
+			}
+		}
+		if (n <= 0) {
+			return false;
+		}
+		bufferCount = n;
+		return true;
+	}
+
 	/**
 	 * Closes this input stream and releases any system resources associated with the stream.
 	 * <p>
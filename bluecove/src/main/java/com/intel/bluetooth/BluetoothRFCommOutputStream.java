@@ -24,14 +24,41 @@
 package com.intel.bluetooth;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
 class BluetoothRFCommOutputStream extends OutputStream {
 
 	volatile private BluetoothRFCommConnection conn;
 
-	public BluetoothRFCommOutputStream(BluetoothRFCommConnection conn) {
+	/**
+	 * Write-combining buffer, <code>null</code> when data is written directly to stack.
+	 */
+	private byte[] buffer;
+
+	private int bufferCount = 0;
+
+	/**
+	 * Buffer is being sent to stack by one thread, the lock is not held during the write so close() is never blocked
+	 * by stalled write. Other threads wait before using the buffer.
+	 */
+	private boolean writing = false;
+
+	private long linger;
+
+	private Utils.TimerThread lingerTimer;
+
+	/**
+	 * Error of write on linger timer reported to application by next call.
+	 */
+	private IOException lingerError;
+
+	public BluetoothRFCommOutputStream(BluetoothRFCommConnection conn, int writeBufferSize, int writeLinger) {
 		this.conn = conn;
+		if (writeBufferSize > 0) {
+			this.buffer = new byte[writeBufferSize];
+			this.linger = writeLinger;
+		}
 	}
 
 	/*
@@ -49,6 +76,23 @@ class BluetoothRFCommOutputStream extends OutputStream {
 	public void write(int b) throws IOException {
 		if (conn == null) {
 			throw new IOException("Stream closed");
+		} else if (buffer != null) {
+			BluetoothRFCommConnection c;
+			int count;
+			synchronized (this) {
+				c = lockBuffer();
+				buffer[bufferCount++] = (byte) b;
+				if (bufferCount < buffer.length) {
+					scheduleLinger();
+					return;
+				}
+				count = takeBuffer();
+			}
+			try {
+				c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, count);
+			} finally {
+				sendCompleted();
+			}
 		} else {
 			conn.bluetoothStack.connectionRfWrite(conn.handle, b);
 		}
@@ -80,6 +124,40 @@ class BluetoothRFCommOutputStream extends OutputStream {
 
 		if (conn == null) {
 			throw new IOException("Stream closed");
+		} else if (buffer != null) {
+			BluetoothRFCommConnection c;
+			int count;
+			synchronized (this) {
+				c = lockBuffer();
+				if (len < buffer.length - bufferCount) {
+					System.arraycopy(b, off, buffer, bufferCount, len);
+					bufferCount += len;
+					if (bufferCount > 0) {
+						scheduleLinger();
+					}
+					return;
+				}
+				count = takeBuffer();
+			}
+			// Buffer is owned by this thread until sendCompleted()
+			try {
+				if (count + len == buffer.length) {
+					System.arraycopy(b, off, buffer, count, len);
+					c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, buffer.length);
+				} else {
+					if (count > 0) {
+						c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, count);
+					}
+					if (len >= buffer.length) {
+						c.bluetoothStack.connectionRfWrite(c.handle, b, off, len);
+					} else {
+						System.arraycopy(b, off, buffer, 0, len);
+						bufferCount = len;
+					}
+				}
+			} finally {
+				sendCompleted();
+			}
 		} else {
 			conn.bluetoothStack.connectionRfWrite(conn.handle, b, off, len);
 		}
@@ -90,10 +168,123 @@ class BluetoothRFCommOutputStream extends OutputStream {
 			throw new IOException("Stream closed");
 		} else {
 			super.flush();
+			if (buffer != null) {
+				BluetoothRFCommConnection c;
+				int count;
+				synchronized (this) {
+					c = lockBuffer();
+					count = takeBuffer();
+				}
+				try {
+					if (count > 0) {
+						c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, count);
+					}
+				} finally {
+					sendCompleted();
+				}
+			}
 			conn.bluetoothStack.connectionRfFlush(conn.handle);
 		}
     }
 
+	/**
+	 * Wait while other thread is sending the buffer. Called with lock held.
+	 *
+	 * @return the connection to write to
+	 */
+	private BluetoothRFCommConnection lockBuffer() throws IOException {
+		while (writing) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+		BluetoothRFCommConnection c = conn;
+		if (c == null) {
+			throw new IOException("Stream closed");
+		}
+		checkLingerError();
+		return c;
+	}
+
+	/**
+	 * Called with lock held, the buffer is owned by calling thread until sendCompleted() is called.
+	 *
+	 * @return number of bytes in buffer to be sent
+	 */
+	private int takeBuffer() {
+		if (lingerTimer != null) {
+			lingerTimer.cancel();
+			lingerTimer = null;
+		}
+		int count = bufferCount;
+		bufferCount = 0;
+		writing = true;
+		return count;
+	}
+
+	private synchronized void sendCompleted() {
+		writing = false;
+		if (bufferCount > 0) {
+			scheduleLinger();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Called with lock held after data is added to the buffer.
+	 */
+	private void scheduleLinger() {
+		if ((linger > 0) && (lingerTimer == null)) {
+			lingerTimer = Utils.schedule(linger, new Runnable() {
+				public void run() {
+					lingerExpired(this);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param task
+	 *            task of the timer that fired, ignored when the buffer has been written and another timer scheduled
+	 *            since.
+	 */
+	private void lingerExpired(Runnable task) {
+		BluetoothRFCommConnection c;
+		int count;
+		synchronized (this) {
+			if ((lingerTimer == null) || (lingerTimer.run != task)) {
+				return;
+			}
+			lingerTimer = null;
+			// Thread sending the buffer schedules new timer when done
+			c = conn;
+			if (writing || (bufferCount == 0) || (c == null)) {
+				return;
+			}
+			count = takeBuffer();
+		}
+		try {
+			c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, count);
+		} catch (IOException e) {
+			DebugLog.debug("linger write error", e);
+			synchronized (this) {
+				lingerError = e;
+			}
+		} finally {
+			sendCompleted();
+		}
+	}
+
+	private void checkLingerError() throws IOException {
+		if (lingerError != null) {
+			IOException e = lingerError;
+			lingerError = null;
+			throw e;
+		}
+	}
+
 	/**
 	 * Closes this output stream and releases any system resources associated
 	 * with this stream.
@@ -105,10 +296,37 @@ class BluetoothRFCommOutputStream extends OutputStream {
 	 *             If an I/O error occurs
 	 */
 	public void close() throws IOException {
-		// Function is not synchronized
-		BluetoothRFCommConnection c = conn;
-		if (c != null) {
+		// Function is not blocked by other thread write, the lock is not held while data is sent to stack
+		BluetoothRFCommConnection c;
+		int count = 0;
+		boolean drain = false;
+		synchronized (this) {
+			c = conn;
+			if (c == null) {
+				return;
+			}
 			conn = null;
+			// Buffered data is sent unless other thread is writing, the write may be stalled
+			if ((buffer != null) && (!writing)) {
+				count = takeBuffer();
+				drain = true;
+			}
+			notifyAll();
+		}
+		try {
+			if (drain) {
+				try {
+					if (count > 0) {
+						c.bluetoothStack.connectionRfWrite(c.handle, buffer, 0, count);
+					}
+				} finally {
+					sendCompleted();
+				}
+			}
+			synchronized (this) {
+				checkLingerError();
+			}
+		} finally {
 			c.streamClosed();
 		}
 	}
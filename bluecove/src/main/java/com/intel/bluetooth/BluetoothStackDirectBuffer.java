@@ -0,0 +1,62 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Native stack support may implement this interface to transfer data directly from and to the memory of direct
+ * <code>ByteBuffer</code>. Used by BluetoothByteChannel.
+ * <p>
+ * The buffers are always direct, <code>off</code> is absolute index in the buffer. Implementations should not change
+ * position or limit of the buffer.
+ * 
+ * <p>
+ * <b><u>Your application should not use this class directly.</u></b>
+ * 
+ */
+public interface BluetoothStackDirectBuffer {
+
+	/**
+	 * @see com.intel.bluetooth.BluetoothStack#connectionRfRead(long, byte[], int, int)
+	 */
+	public int connectionRfReadDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
+	/**
+	 * @see com.intel.bluetooth.BluetoothStack#connectionRfWrite(long, byte[], int, int)
+	 */
+	public void connectionRfWriteDirect(long handle, ByteBuffer b, int off, int len) throws IOException;
+
+	/**
+	 * @see com.intel.bluetooth.BluetoothStack#l2Receive(long, byte[])
+	 */
+	public int l2ReceiveDirect(long handle, ByteBuffer inBuf, int off, int len) throws IOException;
+
+	/**
+	 * @see com.intel.bluetooth.BluetoothStack#l2Send(long, byte[], int)
+	 */
+	public void l2SendDirect(long handle, ByteBuffer data, int off, int len, int transmitMTU) throws IOException;
+
+}
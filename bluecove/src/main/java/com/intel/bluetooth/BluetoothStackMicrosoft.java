@@ -23,7 +23,6 @@
  */
 package com.intel.bluetooth;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.Enumeration;
@@ -59,7 +58,7 @@ class BluetoothStackMicrosoft implements BluetoothStack {
 
 	private DiscoveryListener currentDeviceDiscoveryListener;
 
-	private Thread limitedDiscoverableTimer;
+	private Utils.TimerThread limitedDiscoverableTimer;
 
 	// TODO what is the real number for Attributes retrievable ?
 	private final static int ATTR_RETRIEVABLE_MAX = 256;
@@ -215,7 +214,7 @@ class BluetoothStackMicrosoft implements BluetoothStack {
 
 	private void cancelLimitedDiscoverableTimer() {
 		if (limitedDiscoverableTimer != null) {
-			limitedDiscoverableTimer.interrupt();
+			limitedDiscoverableTimer.cancel();
 			limitedDiscoverableTimer = null;
 		}
 	}
@@ -559,7 +558,7 @@ class BluetoothStackMicrosoft implements BluetoothStack {
 		if (blob.length > 0) {
 			try {
 				boolean anyRetrived = false;
-				DataElement element = (new SDPInputStream(new ByteArrayInputStream(blob))).readElement();
+				DataElement element = (new SDPDecoder(blob)).readElement();
 				for (Enumeration e = (Enumeration) element.getValue(); e.hasMoreElements();) {
 					int attrID = (int) ((DataElement) e.nextElement()).getLong();
 					serviceRecord.populateAttributeValue(attrID, (DataElement) e.nextElement());
@@ -751,12 +751,13 @@ class BluetoothStackWIDCOMM implements BluetoothStack, BluetoothStackExtension {
 
 	private byte[] sdpServiceSequenceAttribute(Enumeration en) throws ServiceRegistrationException {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		SDPOutputStream sdpOut = new SDPOutputStream(out);
+		SDPEncoder encoder = new SDPEncoder();
 		try {
 			while (en.hasMoreElements()) {
-				sdpOut.writeElement((DataElement) en.nextElement());
+				byte[] b = encoder.toByteArray((DataElement) en.nextElement());
+				out.write(b, 0, b.length);
 			}
-		} catch (IOException e) {
+		} catch (IllegalArgumentException e) {
 			throw new ServiceRegistrationException(e.getMessage());
 		}
 		return out.toByteArray();
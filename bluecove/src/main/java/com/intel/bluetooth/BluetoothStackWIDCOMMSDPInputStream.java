@@ -74,8 +74,16 @@ class BluetoothStackWIDCOMMSDPInputStream extends InputStream {
 
     private byte[] readBytes(int size) throws IOException {
         byte[] result = new byte[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = (byte) read();
+        for (int off = 0; off < size;) {
+            int count = source.read(result, off, size - off);
+            if (count == -1) {
+                // Compatible with the values read from closed stream
+                for (; off < size; off++) {
+                    result[off] = (byte) -1;
+                }
+                break;
+            }
+            off += count;
         }
         return result;
     }
@@ -192,13 +200,13 @@ class BluetoothStackWIDCOMMSDPInputStream extends InputStream {
                 UUID uuid = null;
                 switch (length) {
                 case 2:
-                    uuid = new UUID(readLong(2));
+                    uuid = BluetoothConsts.shortUUID(readLong(2));
                     break;
                 case 4:
-                    uuid = new UUID(readLong(4));
+                    uuid = BluetoothConsts.shortUUID(readLong(4));
                     break;
                 case 16:
-                    uuid = new UUID(hexString(readBytes(16)), false);
+                    uuid = SDPDecoder.readUUID128(readBytes(16), 0);
                     break;
                 default:
                     throw new IOException("Unknown UUID length " + length);
@@ -33,7 +33,9 @@ import javax.bluetooth.DiscoveryListener;
  * <b><u>Your application should not use this class directly.</u></b>
  * 
  */
-class DeviceInquiryThread extends Thread {
+class DeviceInquiryThread implements Runnable {
+
+	private String name;
 
 	private BluetoothStack stack;
 
@@ -59,7 +61,7 @@ class DeviceInquiryThread extends Thread {
 
 	private DeviceInquiryThread(BluetoothStack stack, DeviceInquiryRunnable inquiryRunnable, int accessCode,
 			DiscoveryListener listener) {
-		super("DeviceInquiryThread-" + nextThreadNum());
+		this.name = "DeviceInquiryThread-" + nextThreadNum();
 		this.stack = stack;
 		this.inquiryRunnable = inquiryRunnable;
 		this.accessCode = accessCode;
@@ -72,10 +74,9 @@ class DeviceInquiryThread extends Thread {
 	static boolean startInquiry(BluetoothStack stack, DeviceInquiryRunnable inquiryRunnable, int accessCode,
 			DiscoveryListener listener) throws BluetoothStateException {
 		DeviceInquiryThread t = (new DeviceInquiryThread(stack, inquiryRunnable, accessCode, listener));
-		// In case the BTStack hangs, exit JVM anyway
-		UtilsJavaSE.threadSetDaemon(t);
 		synchronized (t.inquiryStartedEvent) {
-			t.start();
+			// Daemon thread, in case the BTStack hangs, exit JVM anyway
+			WorkerThreadPool.execute(t.name, t);
 			while (!t.started && !t.terminated) {
 				try {
 					t.inquiryStartedEvent.wait();
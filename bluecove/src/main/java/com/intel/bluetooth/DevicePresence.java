@@ -0,0 +1,100 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.RemoteDevice;
+
+/**
+ * Device seen by {@link DevicePresenceScanner}.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class DevicePresence {
+
+	private final RemoteDevice device;
+
+	private DeviceClass deviceClass;
+
+	private final long firstSeen;
+
+	private long lastSeen;
+
+	private int seenCount;
+
+	int missedInquiries;
+
+	DevicePresence(RemoteDevice device, DeviceClass deviceClass, long time) {
+		this.device = device;
+		this.deviceClass = deviceClass;
+		this.firstSeen = time;
+		this.lastSeen = time;
+		this.seenCount = 1;
+	}
+
+	synchronized void seen(DeviceClass deviceClass, long time) {
+		this.deviceClass = deviceClass;
+		this.lastSeen = time;
+		this.seenCount++;
+		this.missedInquiries = 0;
+	}
+
+	public RemoteDevice getDevice() {
+		return device;
+	}
+
+	/**
+	 * @return the device class reported by last inquiry
+	 */
+	public synchronized DeviceClass getDeviceClass() {
+		return deviceClass;
+	}
+
+	/**
+	 * @return time in milliseconds when the device was found by scanner
+	 */
+	public long getFirstSeen() {
+		return firstSeen;
+	}
+
+	/**
+	 * @return time in milliseconds when the device was last reported by inquiry
+	 */
+	public synchronized long getLastSeen() {
+		return lastSeen;
+	}
+
+	/**
+	 * @return number of inquiries the device was reported by
+	 */
+	public synchronized int getSeenCount() {
+		return seenCount;
+	}
+
+	public String toString() {
+		return device.getBluetoothAddress() + " " + getDeviceClass();
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+/**
+ * Receives arrival and departure events from {@link DevicePresenceScanner}.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public interface DevicePresenceListener {
+
+	/**
+	 * Called when device is reported by inquiry for the first time or after it has departed.
+	 * 
+	 * @param device
+	 *            the device presence information
+	 */
+	public void deviceArrived(DevicePresence device);
+
+	/**
+	 * Called when device was not reported by the configured number of consecutive inquiries.
+	 * 
+	 * @param device
+	 *            the device presence information
+	 */
+	public void deviceDeparted(DevicePresence device);
+
+}
@@ -0,0 +1,368 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+
+/**
+ * Background scanner that runs device inquiries one after another and keeps the table of nearby devices.
+ * <p>
+ * Arrival is reported when device is discovered for the first time. Departure is reported when device was not
+ * discovered by the configured number of consecutive completed inquiries, so a device missed by one inquiry is not
+ * reported as departed. Inquiry can be paused to leave radio time for connections and service search.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class DevicePresenceScanner {
+
+	/**
+	 * Delay before next inquiry when inquiry can't be started, e.g. when application runs its own inquiry.
+	 */
+	private static final long START_RETRY_DELAY = 1000;
+
+	private static int threadNumber;
+
+	private final DiscoveryAgent agent;
+
+	private final DevicePresenceListener listener;
+
+	private int accessCode = DiscoveryAgent.GIAC;
+
+	private long inquiryInterval = 0;
+
+	private int departureInquiries = 3;
+
+	private final Hashtable devices = new Hashtable();
+
+	private boolean running = false;
+
+	/**
+	 * Scan task executed by WorkerThreadPool, <code>null</code> when the task has ended.
+	 */
+	private Runnable scanTask;
+
+	private boolean paused = false;
+
+	private Inquiry currentInquiry;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * @param agent
+	 *            the DiscoveryAgent used to start inquiries
+	 * @param listener
+	 *            receives arrival and departure events
+	 */
+	public DevicePresenceScanner(DiscoveryAgent agent, DevicePresenceListener listener) {
+		if ((agent == null) || (listener == null)) {
+			throw new NullPointerException();
+		}
+		this.agent = agent;
+		this.listener = listener;
+	}
+
+	/**
+	 * @param accessCode
+	 *            the type of inquiry, defaults to <code>DiscoveryAgent.GIAC</code>
+	 */
+	public synchronized void setAccessCode(int accessCode) {
+		this.accessCode = accessCode;
+	}
+
+	/**
+	 * Duty cycle of the scanner. Inquiry duration is defined by stack and property "bluecove.inquiry.duration".
+	 * 
+	 * @param interval
+	 *            time in milliseconds between the end of inquiry and the start of next one, defaults to
+	 *            <code>0</code>
+	 */
+	public synchronized void setInquiryInterval(long interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("interval is negative");
+		}
+		this.inquiryInterval = interval;
+	}
+
+	/**
+	 * @param count
+	 *            number of consecutive completed inquiries the device is not discovered before it is reported as
+	 *            departed, defaults to <code>3</code>
+	 */
+	public synchronized void setDepartureInquiries(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count should be positive");
+		}
+		this.departureInquiries = count;
+	}
+
+	/**
+	 * Start scanner thread. When called soon after stop() the scan of previous start continues if it has not ended
+	 * yet.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		if (scanTask != null) {
+			notifyAll();
+			return;
+		}
+		scanTask = new Runnable() {
+			public void run() {
+				try {
+					scan();
+				} finally {
+					scanEnded(this);
+				}
+			}
+		};
+		WorkerThreadPool.execute("DevicePresenceScanner-" + nextThreadNum(), scanTask);
+	}
+
+	private synchronized void scanEnded(Runnable task) {
+		if (scanTask == task) {
+			// Unexpected error in scan
+			scanTask = null;
+			running = false;
+		}
+	}
+
+	/**
+	 * Stop scanner thread, running inquiry is canceled. The devices table is kept.
+	 */
+	public void stop() {
+		Inquiry inquiry;
+		synchronized (this) {
+			running = false;
+			inquiry = currentInquiry;
+			notifyAll();
+		}
+		if (inquiry != null) {
+			agent.cancelInquiry(inquiry);
+		}
+	}
+
+	/**
+	 * Cancel running inquiry and do not start new inquiries until resume() is called. Departures are not reported
+	 * while scanner is paused.
+	 */
+	public void pause() {
+		Inquiry inquiry;
+		synchronized (this) {
+			paused = true;
+			inquiry = currentInquiry;
+		}
+		if (inquiry != null) {
+			agent.cancelInquiry(inquiry);
+		}
+	}
+
+	public synchronized void resume() {
+		paused = false;
+		notifyAll();
+	}
+
+	public synchronized boolean isPaused() {
+		return paused;
+	}
+
+	public synchronized boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return devices currently present
+	 */
+	public DevicePresence[] getDevices() {
+		synchronized (devices) {
+			DevicePresence[] present = new DevicePresence[devices.size()];
+			int i = 0;
+			for (Enumeration en = devices.elements(); en.hasMoreElements();) {
+				present[i++] = (DevicePresence) en.nextElement();
+			}
+			return present;
+		}
+	}
+
+	/**
+	 * @return presence information or <code>null</code> if device is not present
+	 */
+	public DevicePresence getDevice(RemoteDevice device) {
+		return (DevicePresence) devices.get(device);
+	}
+
+	private void scan() {
+		while (true) {
+			Inquiry inquiry;
+			int accessCode;
+			synchronized (this) {
+				while (running && paused) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+				if (!running) {
+					scanTask = null;
+					break;
+				}
+				inquiry = new Inquiry();
+				currentInquiry = inquiry;
+				accessCode = this.accessCode;
+			}
+			boolean started = false;
+			try {
+				started = agent.startInquiry(accessCode, inquiry);
+			} catch (BluetoothStateException e) {
+				DebugLog.debug("startInquiry", e.getMessage());
+			}
+			if (started) {
+				synchronized (this) {
+					if ((!running) || paused) {
+						agent.cancelInquiry(inquiry);
+					}
+				}
+				if (inquiry.waitCompleted() == DiscoveryListener.INQUIRY_COMPLETED) {
+					inquiryCompleted(inquiry.discovered);
+				}
+			}
+			synchronized (this) {
+				currentInquiry = null;
+				long delay = started ? inquiryInterval : Math.max(inquiryInterval, START_RETRY_DELAY);
+				if (running && (delay > 0)) {
+					try {
+						wait(delay);
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+			}
+		}
+		DebugLog.debug("DevicePresenceScanner ends");
+	}
+
+	private void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+		DevicePresence presence;
+		synchronized (devices) {
+			presence = (DevicePresence) devices.get(btDevice);
+			if (presence != null) {
+				presence.seen(cod, System.currentTimeMillis());
+				return;
+			}
+			presence = new DevicePresence(btDevice, cod, System.currentTimeMillis());
+			devices.put(btDevice, presence);
+		}
+		try {
+			listener.deviceArrived(presence);
+		} catch (Throwable e) {
+			DebugLog.error("DevicePresenceListener error", e);
+		}
+	}
+
+	private void inquiryCompleted(Hashtable discovered) {
+		Vector departed = new Vector();
+		int departureInquiries;
+		synchronized (this) {
+			departureInquiries = this.departureInquiries;
+		}
+		synchronized (devices) {
+			for (Enumeration en = devices.elements(); en.hasMoreElements();) {
+				DevicePresence presence = (DevicePresence) en.nextElement();
+				if (discovered.containsKey(presence.getDevice())) {
+					continue;
+				}
+				presence.missedInquiries++;
+				if (presence.missedInquiries >= departureInquiries) {
+					departed.addElement(presence);
+				}
+			}
+			for (Enumeration en = departed.elements(); en.hasMoreElements();) {
+				devices.remove(((DevicePresence) en.nextElement()).getDevice());
+			}
+		}
+		for (Enumeration en = departed.elements(); en.hasMoreElements();) {
+			try {
+				listener.deviceDeparted((DevicePresence) en.nextElement());
+			} catch (Throwable e) {
+				DebugLog.error("DevicePresenceListener error", e);
+			}
+		}
+	}
+
+	/**
+	 * Listener of one inquiry.
+	 */
+	private class Inquiry implements DiscoveryListener {
+
+		final Hashtable discovered = new Hashtable();
+
+		private boolean completed = false;
+
+		private int discType;
+
+		synchronized int waitCompleted() {
+			while (!completed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					agent.cancelInquiry(this);
+					return DiscoveryListener.INQUIRY_TERMINATED;
+				}
+			}
+			return discType;
+		}
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			discovered.put(btDevice, btDevice);
+			DevicePresenceScanner.this.deviceDiscovered(btDevice, cod);
+		}
+
+		public synchronized void inquiryCompleted(int discType) {
+			this.discType = discType;
+			completed = true;
+			notifyAll();
+		}
+
+		public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+		}
+
+		public void serviceSearchCompleted(int transID, int respCode) {
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.RemoteDevice;
+
+/**
+ * Device discovered by inquiry, delivered by {@link DiscoverySubscription}.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class DiscoveryEvent {
+
+	private final RemoteDevice device;
+
+	private final DeviceClass deviceClass;
+
+	DiscoveryEvent(RemoteDevice device, DeviceClass deviceClass) {
+		this.device = device;
+		this.deviceClass = deviceClass;
+	}
+
+	public RemoteDevice getDevice() {
+		return device;
+	}
+
+	public DeviceClass getDeviceClass() {
+		return deviceClass;
+	}
+
+	public String toString() {
+		return device.getBluetoothAddress() + " " + deviceClass;
+	}
+}
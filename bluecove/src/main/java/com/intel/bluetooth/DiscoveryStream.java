@@ -0,0 +1,235 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+
+/**
+ * Streaming access to device inquiry shared by application components.
+ * <p>
+ * One inquiry is run for all subscribers of the same DiscoveryAgent. Each device is delivered once per inquiry to
+ * every subscriber, subscriber joining running inquiry receives the devices already discovered first. Devices are
+ * recorded once per inquiry and each subscriber reads them from its own position, so the stack callback thread is never
+ * blocked by the application and slow subscriber does not lose devices.
+ * <p>
+ * The stream is released when its last subscriber leaves and the inquiry ends; {@link #getInstance(DiscoveryAgent)}
+ * creates new one on next use.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class DiscoveryStream {
+
+	private static final Hashtable streams = new Hashtable();
+
+	private final DiscoveryAgent agent;
+
+	private final Vector subscribers = new Vector();
+
+	private Inquiry currentInquiry;
+
+	private boolean released = false;
+
+	/**
+	 * Get the stream shared by all users of the DiscoveryAgent.
+	 * 
+	 * @param agent
+	 *            the DiscoveryAgent used to start inquiries
+	 * @return the DiscoveryStream instance
+	 */
+	public static DiscoveryStream getInstance(DiscoveryAgent agent) {
+		if (agent == null) {
+			throw new NullPointerException("agent is null");
+		}
+		synchronized (streams) {
+			DiscoveryStream stream = (DiscoveryStream) streams.get(agent);
+			if (stream == null) {
+				stream = new DiscoveryStream(agent);
+				streams.put(agent, stream);
+			}
+			return stream;
+		}
+	}
+
+	private DiscoveryStream(DiscoveryAgent agent) {
+		this.agent = agent;
+	}
+
+	/**
+	 * Subscribe to devices discovered by inquiry. Inquiry is started if there are none running.
+	 * 
+	 * @param accessCode
+	 *            the type of inquiry
+	 * @return the subscription, completed when inquiry is completed
+	 * @throws BluetoothStateException
+	 *             if inquiry can't be started or inquiry with different access code is running
+	 */
+	public DiscoverySubscription subscribe(int accessCode) throws BluetoothStateException {
+		synchronized (this) {
+			if (!released) {
+				return subscribeStream(accessCode);
+			}
+		}
+		// This instance was released after the caller got it, use the one registered for the agent
+		return getInstance(agent).subscribe(accessCode);
+	}
+
+	private synchronized DiscoverySubscription subscribeStream(int accessCode) throws BluetoothStateException {
+		if (currentInquiry == null) {
+			Inquiry inquiry = new Inquiry(accessCode);
+			currentInquiry = inquiry;
+			boolean started = false;
+			try {
+				started = agent.startInquiry(accessCode, inquiry);
+			} finally {
+				if (!started && (currentInquiry == inquiry)) {
+					currentInquiry = null;
+				}
+			}
+			if (!started) {
+				throw new BluetoothStateException("Inquiry not started");
+			}
+		} else if (currentInquiry.accessCode != accessCode) {
+			throw new BluetoothStateException("Inquiry with access code 0x" + Integer.toHexString(currentInquiry.accessCode)
+					+ " is running");
+		}
+		DiscoverySubscription subscription = new DiscoverySubscription(this, currentInquiry.events);
+		subscribers.addElement(subscription);
+		DebugLog.debug("discovery subscribers", subscribers.size());
+		return subscription;
+	}
+
+	/**
+	 * @return <code>true</code> if inquiry started by this stream is running
+	 */
+	public synchronized boolean isInquiryRunning() {
+		return currentInquiry != null;
+	}
+
+	/**
+	 * @return number of active subscriptions
+	 */
+	public synchronized int getSubscribersCount() {
+		return subscribers.size();
+	}
+
+	void unsubscribe(DiscoverySubscription subscription) {
+		Inquiry cancel = null;
+		synchronized (this) {
+			subscribers.removeElement(subscription);
+			if (subscribers.isEmpty() && (currentInquiry != null)) {
+				cancel = currentInquiry;
+				currentInquiry = null;
+			}
+		}
+		// Stack may call inquiryCompleted while inquiry is canceled
+		if (cancel != null) {
+			DebugLog.debug("no discovery subscribers, cancel inquiry");
+			agent.cancelInquiry(cancel);
+		}
+		release();
+	}
+
+	/**
+	 * Remove idle stream from the shared instances so DiscoveryAgent is not retained.
+	 */
+	private void release() {
+		synchronized (streams) {
+			synchronized (this) {
+				if (released || (!subscribers.isEmpty()) || (currentInquiry != null)) {
+					return;
+				}
+				released = true;
+				if (streams.get(agent) == this) {
+					streams.remove(agent);
+				}
+			}
+		}
+	}
+
+	private synchronized void deviceDiscovered(Inquiry inquiry, RemoteDevice btDevice, DeviceClass cod) {
+		if (inquiry != currentInquiry) {
+			return;
+		}
+		Long address = new Long(RemoteDeviceHelper.getAddress(btDevice));
+		if (inquiry.discovered.containsKey(address)) {
+			return;
+		}
+		DiscoveryEvent event = new DiscoveryEvent(btDevice, cod);
+		inquiry.discovered.put(address, event);
+		inquiry.events.addElement(event);
+		for (Enumeration en = subscribers.elements(); en.hasMoreElements();) {
+			((DiscoverySubscription) en.nextElement()).eventAdded();
+		}
+	}
+
+	private synchronized void inquiryCompleted(Inquiry inquiry, int discType) {
+		if (inquiry != currentInquiry) {
+			return;
+		}
+		currentInquiry = null;
+		for (Enumeration en = subscribers.elements(); en.hasMoreElements();) {
+			((DiscoverySubscription) en.nextElement()).completed(discType);
+		}
+		subscribers.removeAllElements();
+	}
+
+	private class Inquiry implements DiscoveryListener {
+
+		private final int accessCode;
+
+		private final Hashtable discovered = new Hashtable();
+
+		private final Vector events = new Vector();
+
+		Inquiry(int accessCode) {
+			this.accessCode = accessCode;
+		}
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			DiscoveryStream.this.deviceDiscovered(this, btDevice, cod);
+		}
+
+		public void inquiryCompleted(int discType) {
+			DiscoveryStream.this.inquiryCompleted(this, discType);
+			release();
+		}
+
+		public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+		}
+
+		public void serviceSearchCompleted(int transID, int respCode) {
+		}
+	}
+}
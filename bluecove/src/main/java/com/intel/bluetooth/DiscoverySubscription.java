@@ -0,0 +1,142 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Vector;
+
+import javax.bluetooth.DiscoveryListener;
+
+/**
+ * Devices discovered by one inquiry for one consumer. Devices are recorded once by the inquiry and each subscription
+ * reads them at its own pace with {@link #next(long)}, a slow consumer only lags behind and never delays the stack
+ * callbacks or loses devices.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @see DiscoveryStream#subscribe(int)
+ * @since bluecove 2.1.1
+ */
+public class DiscoverySubscription {
+
+	private final DiscoveryStream stream;
+
+	/**
+	 * Events recorded by the inquiry, shared by all its subscriptions and only appended to.
+	 */
+	private final Vector events;
+
+	private int cursor = 0;
+
+	private boolean completed = false;
+
+	private boolean canceled = false;
+
+	private int discType = DiscoveryListener.INQUIRY_ERROR;
+
+	DiscoverySubscription(DiscoveryStream stream, Vector events) {
+		this.stream = stream;
+		this.events = events;
+	}
+
+	/**
+	 * Take next discovered device.
+	 * 
+	 * @param timeout
+	 *            time in milliseconds to wait for device, <code>0</code> to wait until inquiry is completed
+	 * @return the next device or <code>null</code> if none is discovered in time or inquiry is completed
+	 * @throws InterruptedException
+	 */
+	public synchronized DiscoveryEvent next(long timeout) throws InterruptedException {
+		long end = (timeout == 0) ? 0 : System.currentTimeMillis() + timeout;
+		while (!hasNext() && (!completed)) {
+			long left = 0;
+			if (end != 0) {
+				left = end - System.currentTimeMillis();
+				if (left <= 0) {
+					return null;
+				}
+			}
+			wait(left);
+		}
+		if (!hasNext()) {
+			return null;
+		}
+		return (DiscoveryEvent) events.elementAt(cursor++);
+	}
+
+	/**
+	 * @return <code>true</code> when inquiry is completed and all devices are taken
+	 */
+	public synchronized boolean isCompleted() {
+		return completed && !hasNext();
+	}
+
+	/**
+	 * @return DiscoveryListener.INQUIRY_COMPLETED, INQUIRY_TERMINATED or INQUIRY_ERROR once inquiry is completed
+	 */
+	public synchronized int getDiscType() {
+		return discType;
+	}
+
+	/**
+	 * @return number of discovered devices not yet taken by {@link #next(long)}
+	 */
+	public synchronized int getLag() {
+		return canceled ? 0 : (events.size() - cursor);
+	}
+
+	/**
+	 * Stop receiving devices. Inquiry is canceled when there are no other subscribers.
+	 */
+	public void cancel() {
+		synchronized (this) {
+			if (canceled) {
+				return;
+			}
+			canceled = true;
+		}
+		stream.unsubscribe(this);
+		completed(DiscoveryListener.INQUIRY_TERMINATED);
+	}
+
+	/**
+	 * Devices discovered after cancel are not delivered, the inquiry may still run for other subscribers.
+	 */
+	private boolean hasNext() {
+		return (!canceled) && (cursor < events.size());
+	}
+
+	synchronized void eventAdded() {
+		notifyAll();
+	}
+
+	synchronized void completed(int discType) {
+		if (completed) {
+			return;
+		}
+		this.discType = discType;
+		completed = true;
+		notifyAll();
+	}
+}
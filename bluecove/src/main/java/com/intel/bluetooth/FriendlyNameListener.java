@@ -0,0 +1,55 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+
+import javax.bluetooth.RemoteDevice;
+
+/**
+ * Receives results of {@link FriendlyNameResolver} requests.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public interface FriendlyNameListener {
+
+	/**
+	 * @param device
+	 *            the remote device
+	 * @param name
+	 *            the name of the device, empty string if the device does not have a name
+	 */
+	public void friendlyNameResolved(RemoteDevice device, String name);
+
+	/**
+	 * @param device
+	 *            the remote device
+	 * @param e
+	 *            the reason name can't be retrieved
+	 */
+	public void friendlyNameFailed(RemoteDevice device, IOException e);
+
+}
@@ -0,0 +1,150 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Enumeration;
+import java.util.Vector;
+
+import javax.bluetooth.RemoteDevice;
+
+/**
+ * Pending or completed name request of {@link FriendlyNameResolver}. Requests for the same device made while the
+ * request is pending share one instance.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class FriendlyNameRequest {
+
+	private final RemoteDevice device;
+
+	private Vector listeners;
+
+	private boolean done = false;
+
+	private String name;
+
+	private IOException error;
+
+	FriendlyNameRequest(RemoteDevice device) {
+		this.device = device;
+	}
+
+	public RemoteDevice getDevice() {
+		return device;
+	}
+
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Wait for request to complete.
+	 * 
+	 * @return the name of the device
+	 * @throws IOException
+	 *             if name can't be retrieved
+	 */
+	public String getName() throws IOException {
+		return getName(0);
+	}
+
+	/**
+	 * Wait for request to complete.
+	 * 
+	 * @param timeout
+	 *            time in milliseconds, <code>0</code> to wait forever
+	 * @return the name of the device or <code>null</code> if request is not completed in time
+	 * @throws IOException
+	 *             if name can't be retrieved
+	 */
+	public synchronized String getName(long timeout) throws IOException {
+		long end = (timeout == 0) ? 0 : System.currentTimeMillis() + timeout;
+		while (!done) {
+			long left = 0;
+			if (end != 0) {
+				left = end - System.currentTimeMillis();
+				if (left <= 0) {
+					return null;
+				}
+			}
+			try {
+				wait(left);
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		return name;
+	}
+
+	/**
+	 * @return <code>false</code> when request is already completed and listener should be called by caller
+	 */
+	synchronized boolean addListener(FriendlyNameListener listener) {
+		if (done) {
+			return false;
+		}
+		if (listeners == null) {
+			listeners = new Vector();
+		}
+		listeners.addElement(listener);
+		return true;
+	}
+
+	void completed(String name, IOException error) {
+		Vector listeners;
+		synchronized (this) {
+			this.name = name;
+			this.error = error;
+			this.done = true;
+			listeners = this.listeners;
+			this.listeners = null;
+			notifyAll();
+		}
+		if (listeners == null) {
+			return;
+		}
+		for (Enumeration en = listeners.elements(); en.hasMoreElements();) {
+			notifyListener((FriendlyNameListener) en.nextElement());
+		}
+	}
+
+	void notifyListener(FriendlyNameListener listener) {
+		try {
+			if (error != null) {
+				listener.friendlyNameFailed(device, error);
+			} else {
+				listener.friendlyNameResolved(device, name);
+			}
+		} catch (Throwable e) {
+			DebugLog.error("FriendlyNameListener error", e);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.RemoteDevice;
+
+/**
+ * Retrieves friendly names of remote devices on background thread.
+ * <p>
+ * Requests are sent to the stack one at a time. Request for a device that is already queued or running is joined to
+ * the pending request. Names received less than cache TTL ago, including names reported by device inquiry, are
+ * returned without request to the stack.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class FriendlyNameResolver {
+
+	/**
+	 * Time worker waits for next request before it ends.
+	 */
+	private static final long WORKER_IDLE_TIMEOUT = 5 * 1000;
+
+	private static int threadNumber;
+
+	private final BluetoothStack bluetoothStack;
+
+	private long cacheTTL = 10 * 60 * 1000;
+
+	private int maxQueueSize = 64;
+
+	private final Vector queue = new Vector();
+
+	private final Hashtable pending = new Hashtable();
+
+	private boolean workerRunning = false;
+
+	private boolean shutdown = false;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * Creates resolver for Bluetooth stack used by current thread.
+	 * 
+	 * @throws BluetoothStateException
+	 *             if the Bluetooth system could not be initialized
+	 */
+	public FriendlyNameResolver() throws BluetoothStateException {
+		this.bluetoothStack = BlueCoveImpl.instance().getBluetoothStack();
+	}
+
+	/**
+	 * @param ttl
+	 *            time in milliseconds the known name is used without request to the device, defaults to 10 minutes.
+	 *            <code>0</code> to always send request.
+	 */
+	public synchronized void setCacheTTL(long ttl) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("ttl is negative");
+		}
+		this.cacheTTL = ttl;
+	}
+
+	/**
+	 * @param size
+	 *            maximum number of requests waiting to be sent, defaults to 64
+	 */
+	public synchronized void setMaxQueueSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size should be positive");
+		}
+		this.maxQueueSize = size;
+	}
+
+	/**
+	 * @return number of requests waiting to be sent
+	 */
+	public synchronized int getQueueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * Request the friendly name of the device.
+	 * 
+	 * @param device
+	 *            the remote device
+	 * @param listener
+	 *            receives the result, may be <code>null</code>. Called on the caller thread when name is known,
+	 *            otherwise on resolver thread.
+	 * @return the request, completed if name is known
+	 * @throws BluetoothStateException
+	 *             if the request queue is full or resolver is shut down
+	 */
+	public FriendlyNameRequest resolve(RemoteDevice device, FriendlyNameListener listener)
+			throws BluetoothStateException {
+		if (device == null) {
+			throw new NullPointerException("device is null");
+		}
+		RemoteDevice dev = RemoteDeviceHelper.getStackBoundDevice(bluetoothStack, device);
+		FriendlyNameRequest request;
+		synchronized (this) {
+			if (shutdown) {
+				throw new BluetoothStateException("FriendlyNameResolver is shut down");
+			}
+			String name = RemoteDeviceHelper.getCachedFriendlyName(dev, cacheTTL);
+			Long key = new Long(RemoteDeviceHelper.getAddress(dev));
+			if (name != null) {
+				request = new FriendlyNameRequest(dev);
+				request.completed(name, null);
+			} else {
+				request = (FriendlyNameRequest) pending.get(key);
+				if (request == null) {
+					if (queue.size() >= maxQueueSize) {
+						throw new BluetoothStateException("Already " + queue.size() + " name requests in queue");
+					}
+					request = new FriendlyNameRequest(dev);
+					pending.put(key, request);
+					queue.addElement(request);
+					startWorker();
+					notifyAll();
+				}
+			}
+		}
+		if ((listener != null) && (!request.addListener(listener))) {
+			request.notifyListener(listener);
+		}
+		return request;
+	}
+
+	public FriendlyNameRequest resolve(RemoteDevice device) throws BluetoothStateException {
+		return resolve(device, null);
+	}
+
+	/**
+	 * Stop resolver thread, queued requests fail with IOException.
+	 */
+	public void shutdown() {
+		Vector canceled;
+		synchronized (this) {
+			shutdown = true;
+			canceled = (Vector) queue.clone();
+			queue.removeAllElements();
+			for (int i = 0; i < canceled.size(); i++) {
+				pending.remove(new Long(RemoteDeviceHelper.getAddress(((FriendlyNameRequest) canceled.elementAt(i))
+						.getDevice())));
+			}
+			notifyAll();
+		}
+		for (int i = 0; i < canceled.size(); i++) {
+			((FriendlyNameRequest) canceled.elementAt(i)).completed(null, new IOException(
+					"FriendlyNameResolver is shut down"));
+		}
+	}
+
+	private void startWorker() {
+		if (workerRunning) {
+			return;
+		}
+		workerRunning = true;
+		WorkerThreadPool.execute("FriendlyNameResolver-" + nextThreadNum(), new Runnable() {
+			public void run() {
+				BlueCoveImpl.setThreadBluetoothStack(bluetoothStack);
+				FriendlyNameRequest request;
+				while ((request = nextRequest()) != null) {
+					runRequest(request);
+				}
+			}
+		});
+	}
+
+	private synchronized FriendlyNameRequest nextRequest() {
+		long idleEnd = System.currentTimeMillis() + WORKER_IDLE_TIMEOUT;
+		while (queue.isEmpty() && (!shutdown)) {
+			long left = idleEnd - System.currentTimeMillis();
+			if (left <= 0) {
+				break;
+			}
+			try {
+				wait(left);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		if (queue.isEmpty() || shutdown) {
+			workerRunning = false;
+			return null;
+		}
+		FriendlyNameRequest request = (FriendlyNameRequest) queue.elementAt(0);
+		queue.removeElementAt(0);
+		return request;
+	}
+
+	private void runRequest(FriendlyNameRequest request) {
+		RemoteDevice device = request.getDevice();
+		long address = RemoteDeviceHelper.getAddress(device);
+		String name = null;
+		IOException error = null;
+		try {
+			name = RemoteDeviceHelper.implGetFriendlyName(device, address, true);
+			if (name == null) {
+				error = new NotSupportedIOException(bluetoothStack.getStackID());
+			}
+		} catch (IOException e) {
+			error = e;
+		} catch (Throwable e) {
+			DebugLog.error("getRemoteDeviceFriendlyName", e);
+			error = (IOException) UtilsJavaSE.initCause(new IOException(e.getMessage()), e);
+		}
+		synchronized (this) {
+			pending.remove(new Long(address));
+		}
+		request.completed(name, error);
+	}
+}
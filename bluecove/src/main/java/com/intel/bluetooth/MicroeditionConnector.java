@@ -86,6 +86,9 @@ public abstract class MicroeditionConnector {
 	private static final String RECEIVE_MTU = "receivemtu";
 	private static final String TRANSMIT_MTU = "transmitmtu";
 	private static final String EXT_BLUECOVE_L2CAP_PSM = "bluecovepsm";
+	private static final String EXT_BLUECOVE_READ_BUFFER = "bluecovereadbuffer";
+	private static final String EXT_BLUECOVE_WRITE_BUFFER = "bluecovewritebuffer";
+	private static final String EXT_BLUECOVE_WRITE_LINGER = "bluecovewritelinger";
 	private static final String ANDROID = "android";
 
 	static {
@@ -109,6 +112,14 @@ public abstract class MicroeditionConnector {
 		srvParamsL2CAP.put(NAME, NAME);
 		srvParamsL2CAP.put(EXT_BLUECOVE_L2CAP_PSM, EXT_BLUECOVE_L2CAP_PSM);
 
+		// RFCOMM only
+		cliParams.put(EXT_BLUECOVE_READ_BUFFER, EXT_BLUECOVE_READ_BUFFER);
+		srvParams.put(EXT_BLUECOVE_READ_BUFFER, EXT_BLUECOVE_READ_BUFFER);
+		cliParams.put(EXT_BLUECOVE_WRITE_BUFFER, EXT_BLUECOVE_WRITE_BUFFER);
+		srvParams.put(EXT_BLUECOVE_WRITE_BUFFER, EXT_BLUECOVE_WRITE_BUFFER);
+		cliParams.put(EXT_BLUECOVE_WRITE_LINGER, EXT_BLUECOVE_WRITE_LINGER);
+		srvParams.put(EXT_BLUECOVE_WRITE_LINGER, EXT_BLUECOVE_WRITE_LINGER);
+
 		// "socket://" host ":" port
 		// no validation for socket, since this is internal connector
 
@@ -292,6 +303,12 @@ public abstract class MicroeditionConnector {
 						values, AUTHENTICATE), paramBoolean(values, ENCRYPT), paramBoolean(values, AUTHORIZE),
 						(String) values.get(NAME), paramBoolean(values, MASTER));
 				notifierParams.timeouts = timeouts;
+				notifierParams.readBuffer = paramReadBuffer(values);
+				notifierParams.writeBuffer = paramNotNegative(values, EXT_BLUECOVE_WRITE_BUFFER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_BUFFER, 0);
+				notifierParams.writeLinger = paramNotNegative(values, EXT_BLUECOVE_WRITE_LINGER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_LINGER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_LINGER_DEFAULT);
 				if (notifierParams.encrypt && (!notifierParams.authenticate)) {
 					if (values.get(AUTHENTICATE) == null) {
 						notifierParams.authenticate = true;
@@ -356,6 +373,12 @@ public abstract class MicroeditionConnector {
 				}
 				
 				connectionParams.timeouts = timeouts;
+				connectionParams.readBuffer = paramReadBuffer(values);
+				connectionParams.writeBuffer = paramNotNegative(values, EXT_BLUECOVE_WRITE_BUFFER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_BUFFER, 0);
+				connectionParams.writeLinger = paramNotNegative(values, EXT_BLUECOVE_WRITE_LINGER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_LINGER,
+						BlueCoveConfigProperties.PROPERTY_RFCOMM_WRITE_LINGER_DEFAULT);
 				if (connectionParams.encrypt && (!connectionParams.authenticate)) {
 					if (values.get(AUTHENTICATE) == null) {
 						connectionParams.authenticate = true;
@@ -379,6 +402,8 @@ public abstract class MicroeditionConnector {
 					BlueCoveConfigProperties.PROPERTY_OBEX_TIMEOUT, OBEXConnectionParams.DEFAULT_TIMEOUT);
 			obexConnectionParams.mtu = BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_OBEX_MTU,
 					OBEXConnectionParams.OBEX_DEFAULT_MTU);
+			obexConnectionParams.receiveAhead = BlueCoveImpl.getConfigProperty(
+					BlueCoveConfigProperties.PROPERTY_OBEX_RECEIVE_AHEAD, 0);
 		}
 
 		/*
@@ -490,6 +515,29 @@ public abstract class MicroeditionConnector {
 		}
 	}
 
+	private static int paramReadBuffer(Hashtable values) {
+		return paramNotNegative(values, EXT_BLUECOVE_READ_BUFFER, BlueCoveConfigProperties.PROPERTY_RFCOMM_READ_BUFFER,
+				0);
+	}
+
+	/**
+	 * URL parameter value or configuration property value when parameter is not present.
+	 */
+	private static int paramNotNegative(Hashtable values, String name, String property, int defaultValue) {
+		String v = (String) values.get(name);
+		if (v == null) {
+			return BlueCoveImpl.getConfigProperty(property, defaultValue);
+		}
+		try {
+			int value = Integer.parseInt(v);
+			if (value >= 0) {
+				return value;
+			}
+		} catch (NumberFormatException e) {
+		}
+		throw new IllegalArgumentException("invalid param value " + name + "=" + v);
+	}
+
 	private static int paramL2CAPMTU(Hashtable values, String name) {
 		String v = (String) values.get(name);
 		if (v == null) {
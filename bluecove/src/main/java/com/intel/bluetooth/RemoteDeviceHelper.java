@@ -56,6 +56,11 @@ public abstract class RemoteDeviceHelper {
 
         String name;
 
+        /**
+         * Time the name was received from stack.
+         */
+        long nameUpdated;
+
         long addressLong;
 
         BluetoothStack bluetoothStack;
@@ -69,10 +74,22 @@ public abstract class RemoteDeviceHelper {
          */
         private WeakVector connections;
 
+        /**
+         * Least recently used order in DevicesCache.
+         */
+        private RemoteDeviceWithExtendedInfo lruPrev;
+
+        private RemoteDeviceWithExtendedInfo lruNext;
+
+        private long lastUsed;
+
         private RemoteDeviceWithExtendedInfo(BluetoothStack bluetoothStack, long address, String name) {
             super(RemoteDeviceHelper.getBluetoothAddress(address));
             this.bluetoothStack = bluetoothStack;
             this.name = name;
+            if (name != null) {
+                this.nameUpdated = System.currentTimeMillis();
+            }
             this.addressLong = address;
         }
 
@@ -318,24 +335,187 @@ public abstract class RemoteDeviceHelper {
         }
     }
 
+    /**
+     * Devices of one stack. Keeps the least recently used order to remove devices when cache is full or idle for
+     * too long.
+     */
+    private static class DevicesCache {
+
+        private final BluetoothStack bluetoothStack;
+
+        private final Hashtable devices = new Hashtable();
+
+        /**
+         * Most recently used device.
+         */
+        private RemoteDeviceWithExtendedInfo head;
+
+        private RemoteDeviceWithExtendedInfo tail;
+
+        DevicesCache(BluetoothStack bluetoothStack) {
+            this.bluetoothStack = bluetoothStack;
+        }
+
+        synchronized RemoteDeviceWithExtendedInfo get(Long key) {
+            RemoteDeviceWithExtendedInfo dev = (RemoteDeviceWithExtendedInfo) devices.get(key);
+            if (dev != null) {
+                touch(dev, System.currentTimeMillis());
+            }
+            return dev;
+        }
+
+        /**
+         * @return the device already in cache or <code>dev</code> if it was added
+         */
+        synchronized RemoteDeviceWithExtendedInfo putIfAbsent(Long key, RemoteDeviceWithExtendedInfo dev) {
+            RemoteDeviceWithExtendedInfo cached = (RemoteDeviceWithExtendedInfo) devices.get(key);
+            long now = System.currentTimeMillis();
+            if (cached != null) {
+                touch(cached, now);
+                return cached;
+            }
+            devices.put(key, dev);
+            touch(dev, now);
+            removeExpired(now);
+            int maxSize = BlueCoveImpl.getConfigProperty(bluetoothStack,
+                    BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_SIZE, 0);
+            if (maxSize > 0) {
+                // Devices in use are renewed and moved to head, each device is checked once
+                for (int checked = devices.size(); (devices.size() > maxSize) && (checked > 0); checked--) {
+                    RemoteDeviceWithExtendedInfo eldest = tail;
+                    if (isInUse(eldest)) {
+                        touch(eldest, now);
+                    } else {
+                        remove(eldest);
+                        synchronized (devicesStatisticsLock) {
+                            devicesEvictionCount++;
+                        }
+                    }
+                }
+            }
+            return dev;
+        }
+
+        private void removeExpired(long now) {
+            int idle = BlueCoveImpl.getConfigProperty(bluetoothStack,
+                    BlueCoveConfigProperties.PROPERTY_REMOTE_DEVICE_CACHE_IDLE, 0);
+            if (idle <= 0) {
+                return;
+            }
+            long expired = now - idle * 1000L;
+            // List stays ordered by lastUsed, devices in use are renewed so the scan ends at first recent device
+            for (int checked = devices.size(); (tail != null) && (tail.lastUsed < expired) && (checked > 0); checked--) {
+                RemoteDeviceWithExtendedInfo eldest = tail;
+                if (isInUse(eldest)) {
+                    touch(eldest, now);
+                } else {
+                    remove(eldest);
+                    synchronized (devicesStatisticsLock) {
+                        devicesExpirationCount++;
+                    }
+                }
+            }
+        }
+
+        private boolean isInUse(RemoteDeviceWithExtendedInfo dev) {
+            return dev.paired || dev.hasConnections();
+        }
+
+        private void touch(RemoteDeviceWithExtendedInfo dev, long now) {
+            dev.lastUsed = now;
+            if (head == dev) {
+                return;
+            }
+            unlink(dev);
+            dev.lruNext = head;
+            if (head != null) {
+                head.lruPrev = dev;
+            }
+            head = dev;
+            if (tail == null) {
+                tail = dev;
+            }
+        }
+
+        private void unlink(RemoteDeviceWithExtendedInfo dev) {
+            if (dev.lruPrev != null) {
+                dev.lruPrev.lruNext = dev.lruNext;
+            }
+            if (dev.lruNext != null) {
+                dev.lruNext.lruPrev = dev.lruPrev;
+            }
+            if (head == dev) {
+                head = dev.lruNext;
+            }
+            if (tail == dev) {
+                tail = dev.lruPrev;
+            }
+            dev.lruPrev = null;
+            dev.lruNext = null;
+        }
+
+        private void remove(RemoteDeviceWithExtendedInfo dev) {
+            unlink(dev);
+            devices.remove(new Long(dev.addressLong));
+            DebugLog.debug0x("remove devicesCashed", dev.addressLong);
+        }
+
+        synchronized int size() {
+            return devices.size();
+        }
+
+        /**
+         * @return copy of devices list
+         */
+        synchronized Vector elements() {
+            removeExpired(System.currentTimeMillis());
+            Vector v = new Vector(devices.size());
+            for (Enumeration en = devices.elements(); en.hasMoreElements();) {
+                v.addElement(en.nextElement());
+            }
+            return v;
+        }
+
+        synchronized void clear() {
+            for (Enumeration en = devices.elements(); en.hasMoreElements();) {
+                RemoteDeviceWithExtendedInfo dev = (RemoteDeviceWithExtendedInfo) en.nextElement();
+                if (!isInUse(dev)) {
+                    remove(dev);
+                }
+            }
+        }
+    }
+
     private static Hashtable stackDevicesCashed = new Hashtable();
 
+    /**
+     * Guards the devices cache counters, updated by caches of all stacks.
+     */
+    private static final Object devicesStatisticsLock = new Object();
+
+    private static long devicesHitCount;
+
+    private static long devicesMissCount;
+
+    private static long devicesEvictionCount;
+
+    private static long devicesExpirationCount;
+
     private RemoteDeviceHelper() {
 
     }
 
-    private static synchronized Hashtable devicesCashed(BluetoothStack bluetoothStack) {
-        Hashtable devicesCashed = (Hashtable) stackDevicesCashed.get(bluetoothStack);
+    private static synchronized DevicesCache devicesCashed(BluetoothStack bluetoothStack) {
+        DevicesCache devicesCashed = (DevicesCache) stackDevicesCashed.get(bluetoothStack);
         if (devicesCashed == null) {
-            devicesCashed = new Hashtable();
+            devicesCashed = new DevicesCache(bluetoothStack);
             stackDevicesCashed.put(bluetoothStack, devicesCashed);
         }
         return devicesCashed;
     }
 
     private static RemoteDeviceWithExtendedInfo getCashedDeviceWithExtendedInfo(BluetoothStack bluetoothStack, long address) {
-        Object key = new Long(address);
-        return (RemoteDeviceWithExtendedInfo) devicesCashed(bluetoothStack).get(key);
+        return devicesCashed(bluetoothStack).get(new Long(address));
     }
 
     static RemoteDevice getCashedDevice(BluetoothStack bluetoothStack, long address) {
@@ -350,25 +530,44 @@ public abstract class RemoteDeviceHelper {
     }
     
     static RemoteDevice createRemoteDevice(BluetoothStack bluetoothStack, long address, String name, boolean paired) {
-        RemoteDeviceWithExtendedInfo dev = getCashedDeviceWithExtendedInfo(bluetoothStack, address);
+        DevicesCache devicesCashed = devicesCashed(bluetoothStack);
+        Long key = new Long(address);
+        RemoteDeviceWithExtendedInfo dev = devicesCashed.get(key);
         if (dev == null) {
+            RemoteDeviceWithExtendedInfo newDev;
             Object saveID = BlueCoveImpl.getCurrentThreadBluetoothStackID();
             try {
                 BlueCoveImpl.setThreadBluetoothStack(bluetoothStack);
-                dev = new RemoteDeviceWithExtendedInfo(bluetoothStack, address, name);
+                newDev = new RemoteDeviceWithExtendedInfo(bluetoothStack, address, name);
             } finally {
                 if (saveID != null) {
                     BlueCoveImpl.setThreadBluetoothStackID(saveID);
                 }
             }
-            devicesCashed(bluetoothStack).put(new Long(address), dev);
-            DebugLog.debug0x("new devicesCashed", address);
-        } else if (!Utils.isStringSet(dev.name)) {
+            newDev.paired = paired;
+            // Other thread may create the same device
+            dev = devicesCashed.putIfAbsent(key, newDev);
+            if (dev == newDev) {
+                synchronized (devicesStatisticsLock) {
+                    devicesMissCount++;
+                }
+                DebugLog.debug0x("new devicesCashed", address);
+                return dev;
+            }
+        }
+        synchronized (devicesStatisticsLock) {
+            devicesHitCount++;
+        }
+        if (!Utils.isStringSet(dev.name)) {
             // name found
             dev.name = name;
+            if (name != null) {
+                dev.nameUpdated = System.currentTimeMillis();
+            }
         } else if (Utils.isStringSet(name)) {
             // Update name if changed
             dev.name = name;
+            dev.nameUpdated = System.currentTimeMillis();
         }
         if (paired) {
             dev.paired = paired;
@@ -376,6 +575,93 @@ public abstract class RemoteDeviceHelper {
         return dev;
     }
 
+    /**
+     * Number of RemoteDevice instances kept by BlueCove for current thread stack.
+     * <p>
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @see com.intel.bluetooth.BlueCoveConfigProperties#PROPERTY_REMOTE_DEVICE_CACHE_SIZE
+     * @since bluecove 2.1.1
+     */
+    public static int cachedDevices() {
+        return devicesCashed(getBluetoothStack()).size();
+    }
+
+    /**
+     * Remove devices without open connections and not paired from the cache of current thread stack.
+     * <p>
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @since bluecove 2.1.1
+     */
+    public static void clearCachedDevices() {
+        devicesCashed(getBluetoothStack()).clear();
+    }
+
+    /**
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @return the number of times known device was found in cache
+     * @since bluecove 2.1.1
+     */
+    public static long getCachedDevicesHitCount() {
+        synchronized (devicesStatisticsLock) {
+            return devicesHitCount;
+        }
+    }
+
+    /**
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @return the number of RemoteDevice instances created
+     * @since bluecove 2.1.1
+     */
+    public static long getCachedDevicesMissCount() {
+        synchronized (devicesStatisticsLock) {
+            return devicesMissCount;
+        }
+    }
+
+    /**
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @return the number of devices removed because cache size limit was reached
+     * @since bluecove 2.1.1
+     */
+    public static long getCachedDevicesEvictionCount() {
+        synchronized (devicesStatisticsLock) {
+            return devicesEvictionCount;
+        }
+    }
+
+    /**
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @return the number of devices removed because they were idle
+     * @since bluecove 2.1.1
+     */
+    public static long getCachedDevicesExpirationCount() {
+        synchronized (devicesStatisticsLock) {
+            return devicesExpirationCount;
+        }
+    }
+
+    /**
+     * Reset devices cache counters.
+     * <p>
+     * <b>PUBLIC JSR-82 extension</b>
+     * 
+     * @since bluecove 2.1.1
+     */
+    public static void resetCachedDevicesStatistics() {
+        synchronized (devicesStatisticsLock) {
+            devicesHitCount = 0;
+            devicesMissCount = 0;
+            devicesEvictionCount = 0;
+            devicesExpirationCount = 0;
+        }
+    }
+
     private static BluetoothStack getBluetoothStack() throws RuntimeException {
         try {
             return BlueCoveImpl.instance().getBluetoothStack();
@@ -415,11 +701,8 @@ public abstract class RemoteDeviceHelper {
      */
     public static int openConnections() {
         int c = 0;
-        Hashtable devicesCashed = devicesCashed(getBluetoothStack());
-        synchronized (devicesCashed) {
-            for (Enumeration en = devicesCashed.elements(); en.hasMoreElements();) {
-                c += ((RemoteDeviceWithExtendedInfo) en.nextElement()).connectionsCount();
-            }
+        for (Enumeration en = devicesCashed(getBluetoothStack()).elements().elements(); en.hasMoreElements();) {
+            c += ((RemoteDeviceWithExtendedInfo) en.nextElement()).connectionsCount();
         }
         return c;
     }
@@ -444,23 +727,17 @@ public abstract class RemoteDeviceHelper {
      */
     public static int connectedDevices() {
         int c = 0;
-        Hashtable devicesCashed = devicesCashed(getBluetoothStack());
-        synchronized (devicesCashed) {
-            for (Enumeration en = devicesCashed.elements(); en.hasMoreElements();) {
-                if (((RemoteDeviceWithExtendedInfo) en.nextElement()).hasConnections()) {
-                    c++;
-                }
+        for (Enumeration en = devicesCashed(getBluetoothStack()).elements().elements(); en.hasMoreElements();) {
+            if (((RemoteDeviceWithExtendedInfo) en.nextElement()).hasConnections()) {
+                c++;
             }
         }
         return c;
     }
 
     static void shutdownConnections(BluetoothStack bluetoothStack) {
-        Hashtable devicesCashed = devicesCashed(bluetoothStack);
-        synchronized (devicesCashed) {
-            for (Enumeration en = devicesCashed.elements(); en.hasMoreElements();) {
-                ((RemoteDeviceWithExtendedInfo) en.nextElement()).shutdownConnections();
-            }
+        for (Enumeration en = devicesCashed(bluetoothStack).elements().elements(); en.hasMoreElements();) {
+            ((RemoteDeviceWithExtendedInfo) en.nextElement()).shutdownConnections();
         }
     }
 
@@ -645,11 +922,27 @@ public abstract class RemoteDeviceHelper {
             name = ((RemoteDeviceWithExtendedInfo) device).bluetoothStack.getRemoteDeviceFriendlyName(address);
             if (name != null) {
                 ((RemoteDeviceWithExtendedInfo) device).name = name;
+                ((RemoteDeviceWithExtendedInfo) device).nameUpdated = System.currentTimeMillis();
             }
         }
         return name;
     }
 
+    /**
+     * @return the name received from stack less than <code>ttl</code> milliseconds ago or <code>null</code>
+     */
+    static String getCachedFriendlyName(RemoteDevice device, long ttl) {
+        if (!(device instanceof RemoteDeviceWithExtendedInfo)) {
+            return null;
+        }
+        RemoteDeviceWithExtendedInfo dev = (RemoteDeviceWithExtendedInfo) device;
+        String name = dev.name;
+        if ((name == null) || (dev.nameUpdated + ttl < System.currentTimeMillis())) {
+            return null;
+        }
+        return name;
+    }
+
     /**
      * Retrieves the Bluetooth device that is at the other end of the Bluetooth
      * connection.
@@ -690,7 +983,7 @@ public abstract class RemoteDeviceHelper {
             }
         }
 
-        Hashtable devicesCashed = devicesCashed(bluetoothStack);
+        Vector devicesCashed = devicesCashed(bluetoothStack).elements();
         switch (option) {
         case DiscoveryAgent.PREKNOWN:
             if (devicesCashed.size() == 0) {
@@ -714,12 +1007,7 @@ public abstract class RemoteDeviceHelper {
                 // Spec: null if no devices meet the criteria
                 return null;
             }
-            RemoteDevice[] devices = new RemoteDevice[devicesCashed.size()];
-            int k = 0;
-            for (Enumeration en = devicesCashed.elements(); en.hasMoreElements();) {
-                devices[k++] = (RemoteDevice) en.nextElement();
-            }
-            return devices;
+            return remoteDeviceListToArray(devicesCashed);
         default:
             throw new IllegalArgumentException("invalid option");
         }
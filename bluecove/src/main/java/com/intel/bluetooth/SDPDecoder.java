@@ -0,0 +1,300 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+
+import javax.bluetooth.DataElement;
+import javax.bluetooth.UUID;
+
+/**
+ * Decodes SDP data elements directly from byte array. The position cursor is advanced as elements are read or
+ * skipped, so only the required parts of the record are materialized.
+ */
+class SDPDecoder {
+
+	private static final char[] hexDigits = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Bytes 4..15 of Bluetooth Base UUID 00000000-0000-1000-8000-00805F9B34FB
+	 */
+	private static final byte[] shortUUIDBase = { 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0x80, 0x5F,
+			(byte) 0x9B, 0x34, (byte) 0xFB };
+
+	private final byte[] data;
+
+	private int pos;
+
+	private final int end;
+
+	SDPDecoder(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	SDPDecoder(byte[] data, int off, int len) {
+		if ((off < 0) || (len < 0) || (off + len > data.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.data = data;
+		this.pos = off;
+		this.end = off + len;
+	}
+
+	int getPosition() {
+		return pos;
+	}
+
+	void setPosition(int pos) {
+		if ((pos < 0) || (pos > end)) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.pos = pos;
+	}
+
+	boolean hasMoreElements() {
+		return pos < end;
+	}
+
+	private void require(int size) throws IOException {
+		if ((size < 0) || (size > end - pos)) {
+			throw new IOException("SDP data truncated at " + pos);
+		}
+	}
+
+	private long readLong(int size) throws IOException {
+		require(size);
+		long result = 0;
+		for (int i = 0; i < size; i++) {
+			result = (result << 8) | (data[pos++] & 0xFF);
+		}
+		return result;
+	}
+
+	private byte[] readBytes(int size) throws IOException {
+		require(size);
+		byte[] result = new byte[size];
+		System.arraycopy(data, pos, result, 0, size);
+		pos += size;
+		return result;
+	}
+
+	/**
+	 * Read the length of variable size element
+	 */
+	private int readLength(int sizeDescriptor) throws IOException {
+		int length;
+		switch (sizeDescriptor) {
+		case 5:
+			length = (int) readLong(1);
+			break;
+		case 6:
+			length = (int) readLong(2);
+			break;
+		case 7:
+			length = (int) readLong(4);
+			break;
+		default:
+			throw new IOException("Invalid size descriptor " + sizeDescriptor);
+		}
+		require(length);
+		return length;
+	}
+
+	/**
+	 * Read the data element header and return the number of data bytes, position is set to the data.
+	 */
+	private int readDataSize(int type, int sizeDescriptor) throws IOException {
+		if (type == 0) {
+			return 0;
+		}
+		switch (sizeDescriptor) {
+		case 0:
+			return 1;
+		case 1:
+			return 2;
+		case 2:
+			return 4;
+		case 3:
+			return 8;
+		case 4:
+			return 16;
+		default:
+			return readLength(sizeDescriptor);
+		}
+	}
+
+	/**
+	 * Skip the data element at current position including all the elements of DATSEQ and DATALT.
+	 */
+	void skipElement() throws IOException {
+		require(1);
+		int header = data[pos++] & 0xFF;
+		int size = readDataSize(header >> 3 & 0x1f, header & 0x07);
+		require(size);
+		pos += size;
+	}
+
+	/**
+	 * Read service record attribute ID, U_INT_2 data element.
+	 */
+	int readAttributeID() throws IOException {
+		require(3);
+		int header = data[pos] & 0xFF;
+		if (header != 0x09) {
+			throw new IOException("U_INT_2 expected instead of header 0x" + Integer.toHexString(header));
+		}
+		pos++;
+		return (int) readLong(2);
+	}
+
+	/**
+	 * Read DATSEQ or DATALT header.
+	 *
+	 * @return the end position of the sequence
+	 */
+	int readSequenceHeader() throws IOException {
+		require(1);
+		int header = data[pos++] & 0xFF;
+		int type = header >> 3 & 0x1f;
+		if ((type != 6) && (type != 7)) {
+			throw new IOException("DATSEQ expected instead of type " + type);
+		}
+		int length = readLength(header & 0x07);
+		return pos + length;
+	}
+
+	DataElement readElement() throws IOException {
+		require(1);
+		int header = data[pos++] & 0xFF;
+		int type = header >> 3 & 0x1f;
+		int sizeDescriptor = header & 0x07;
+
+		switch (type) {
+		case 0: // NULL
+			return new DataElement(DataElement.NULL);
+		case 1: // U_INT
+			switch (sizeDescriptor) {
+			case 0:
+				return new DataElement(DataElement.U_INT_1, readLong(1));
+			case 1:
+				return new DataElement(DataElement.U_INT_2, readLong(2));
+			case 2:
+				return new DataElement(DataElement.U_INT_4, readLong(4));
+			case 3:
+				return new DataElement(DataElement.U_INT_8, readBytes(8));
+			case 4:
+				return new DataElement(DataElement.U_INT_16, readBytes(16));
+			default:
+				throw new IOException();
+			}
+		case 2: // INT
+			switch (sizeDescriptor) {
+			case 0:
+				return new DataElement(DataElement.INT_1, (long) (byte) readLong(1));
+			case 1:
+				return new DataElement(DataElement.INT_2, (long) (short) readLong(2));
+			case 2:
+				return new DataElement(DataElement.INT_4, (long) (int) readLong(4));
+			case 3:
+				return new DataElement(DataElement.INT_8, readLong(8));
+			case 4:
+				return new DataElement(DataElement.INT_16, readBytes(16));
+			default:
+				throw new IOException();
+			}
+		case 3: // UUID
+			switch (sizeDescriptor) {
+			case 1:
+				return new DataElement(DataElement.UUID, BluetoothConsts.shortUUID(readLong(2)));
+			case 2:
+				return new DataElement(DataElement.UUID, BluetoothConsts.shortUUID(readLong(4)));
+			case 4:
+				require(16);
+				UUID uuid = readUUID128(data, pos);
+				pos += 16;
+				return new DataElement(DataElement.UUID, uuid);
+			default:
+				throw new IOException();
+			}
+		case 4: // STRING
+		{
+			int length = readLength(sizeDescriptor);
+			String strValue = Utils.newStringUTF8(data, pos, length);
+			pos += length;
+			DebugLog.debug("DataElement.STRING", strValue, Integer.toString(length - strValue.length()));
+			return new DataElement(DataElement.STRING, strValue);
+		}
+		case 5: // BOOL
+			return new DataElement(readLong(1) != 0);
+		case 6: // DATSEQ
+		case 7: // DATALT
+		{
+			int length = readLength(sizeDescriptor);
+			DataElement element = new DataElement((type == 6) ? DataElement.DATSEQ : DataElement.DATALT);
+			int sequenceEnd = pos + length;
+			while (pos < sequenceEnd) {
+				element.addElement(readElement());
+			}
+			if (pos != sequenceEnd) {
+				throw new IOException(((type == 6) ? "DATSEQ" : "DATALT") + " size corruption "
+						+ (sequenceEnd - pos));
+			}
+			return element;
+		}
+		case 8: // URL
+		{
+			int length = readLength(sizeDescriptor);
+			String url = Utils.newStringASCII(data, pos, length);
+			pos += length;
+			return new DataElement(DataElement.URL, url);
+		}
+		default:
+			throw new IOException("Unknown type " + type);
+		}
+	}
+
+	/**
+	 * Create UUID from 16 bytes. UUIDs based on Bluetooth Base UUID are created as short UUID.
+	 */
+	static UUID readUUID128(byte[] b, int off) {
+		boolean shortUUID = true;
+		for (int i = 0; i < shortUUIDBase.length; i++) {
+			if (b[off + 4 + i] != shortUUIDBase[i]) {
+				shortUUID = false;
+				break;
+			}
+		}
+		if (shortUUID) {
+			long value = ((b[off] & 0xFFl) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8)
+					| (b[off + 3] & 0xFF);
+			return BluetoothConsts.shortUUID(value);
+		}
+		char[] hex = new char[32];
+		for (int i = 0; i < 16; i++) {
+			hex[i * 2] = hexDigits[(b[off + i] >> 4) & 0xF];
+			hex[i * 2 + 1] = hexDigits[b[off + i] & 0xF];
+		}
+		return new UUID(new String(hex), false);
+	}
+}
@@ -0,0 +1,334 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Enumeration;
+
+import javax.bluetooth.DataElement;
+import javax.bluetooth.UUID;
+
+/**
+ * Encodes SDP data elements to byte array. Element sizes are computed once in first pass together with encoded strings
+ * and UUIDs, second pass writes the elements into array of exact size.
+ */
+class SDPEncoder {
+
+	private final boolean stringEncodingASCII;
+
+	/**
+	 * DATSEQ and DATALT content length, indexed by element order in tree traversal
+	 */
+	private int[] contentLengths = new int[16];
+
+	/**
+	 * Encoded STRING, URL and UUID values, indexed by element order
+	 */
+	private byte[][] values = new byte[16][];
+
+	private int count;
+
+	private int index;
+
+	private byte[] out;
+
+	private int pos;
+
+	SDPEncoder() {
+		stringEncodingASCII = BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_SDP_STRING_ENCODING_ASCII,
+				false);
+	}
+
+	static byte[] encode(DataElement d) {
+		return (new SDPEncoder()).toByteArray(d);
+	}
+
+	byte[] toByteArray(DataElement d) {
+		count = 0;
+		out = new byte[measure(d)];
+		pos = 0;
+		index = 0;
+		write(d);
+		byte[] result = out;
+		out = null;
+		return result;
+	}
+
+	/**
+	 * Encode service record DATSEQ from attribute IDs and values already in SDP binary form.
+	 */
+	static byte[] encodeRecord(int[] attrIDs, byte[][] values, int count) {
+		int contentLength = 0;
+		for (int i = 0; i < count; i++) {
+			contentLength += 3 + values[i].length;
+		}
+		SDPEncoder encoder = new SDPEncoder();
+		encoder.out = new byte[1 + sequenceLengthSize(contentLength) + contentLength];
+		encoder.writeHeader(6, contentLength, sequenceLengthSize(contentLength));
+		for (int i = 0; i < count; i++) {
+			encoder.writeHeader(1, 1);
+			encoder.writeLong(attrIDs[i], 2);
+			encoder.writeBytes(values[i]);
+		}
+		return encoder.out;
+	}
+
+	int getLength(DataElement d) {
+		count = 0;
+		return measure(d);
+	}
+
+	/**
+	 * Size of DATSEQ and DATALT length field. Same limits as in previous versions to keep the encoding unchanged.
+	 */
+	private static int sequenceLengthSize(int contentLength) {
+		if (contentLength < 0xFE) {
+			return 1;
+		} else if (contentLength < 0xFFFE) {
+			return 2;
+		} else {
+			return 4;
+		}
+	}
+
+	private static int lengthSize(int length) {
+		if (length < 0x100) {
+			return 1;
+		} else if (length < 0x10000) {
+			return 2;
+		} else {
+			return 4;
+		}
+	}
+
+	private static byte[] encodeUUID(UUID uuid) {
+		long shortUUID = Utils.UUIDTo32Bit(uuid);
+		if (shortUUID == -1) {
+			return Utils.UUIDToByteArray(uuid);
+		}
+		byte[] b = new byte[(shortUUID <= 0xFFFF) ? 2 : 4];
+		for (int i = b.length - 1; i >= 0; i--) {
+			b[i] = (byte) shortUUID;
+			shortUUID >>= 8;
+		}
+		return b;
+	}
+
+	private int measure(DataElement d) {
+		int i = count++;
+		if (i == contentLengths.length) {
+			int[] newContentLengths = new int[i * 2];
+			System.arraycopy(contentLengths, 0, newContentLengths, 0, i);
+			contentLengths = newContentLengths;
+			byte[][] newValues = new byte[i * 2][];
+			System.arraycopy(values, 0, newValues, 0, i);
+			values = newValues;
+		}
+		int size;
+		byte[] value = null;
+		switch (d.getDataType()) {
+		case DataElement.NULL:
+			size = 1;
+			break;
+		case DataElement.BOOL:
+		case DataElement.U_INT_1:
+		case DataElement.INT_1:
+			size = 2;
+			break;
+		case DataElement.U_INT_2:
+		case DataElement.INT_2:
+			size = 3;
+			break;
+		case DataElement.U_INT_4:
+		case DataElement.INT_4:
+			size = 5;
+			break;
+		case DataElement.U_INT_8:
+		case DataElement.INT_8:
+			size = 9;
+			break;
+		case DataElement.U_INT_16:
+		case DataElement.INT_16:
+			size = 17;
+			break;
+		case DataElement.UUID:
+			value = encodeUUID((UUID) d.getValue());
+			size = 1 + value.length;
+			break;
+		case DataElement.STRING:
+			if (stringEncodingASCII) {
+				value = Utils.getASCIIBytes((String) d.getValue());
+			} else {
+				value = Utils.getUTF8Bytes((String) d.getValue());
+			}
+			size = 1 + lengthSize(value.length) + value.length;
+			break;
+		case DataElement.URL:
+			value = Utils.getASCIIBytes((String) d.getValue());
+			size = 1 + lengthSize(value.length) + value.length;
+			break;
+		case DataElement.DATSEQ:
+		case DataElement.DATALT: {
+			int contentLength = 0;
+			for (Enumeration e = (Enumeration) d.getValue(); e.hasMoreElements();) {
+				contentLength += measure((DataElement) e.nextElement());
+			}
+			size = 1 + sequenceLengthSize(contentLength) + contentLength;
+			contentLengths[i] = contentLength;
+			break;
+		}
+		default:
+			throw new IllegalArgumentException();
+		}
+		values[i] = value;
+		return size;
+	}
+
+	private void writeLong(long l, int size) {
+		for (int i = size - 1; i >= 0; i--) {
+			out[pos + i] = (byte) l;
+			l >>= 8;
+		}
+		pos += size;
+	}
+
+	private void writeBytes(byte[] b) {
+		System.arraycopy(b, 0, out, pos, b.length);
+		pos += b.length;
+	}
+
+	private void writeHeader(int type, int sizeDescriptor) {
+		out[pos++] = (byte) ((type << 3) | sizeDescriptor);
+	}
+
+	/**
+	 * Write the header with size descriptor 5, 6 or 7 followed by the length
+	 */
+	private void writeHeader(int type, int length, int lengthSize) {
+		switch (lengthSize) {
+		case 1:
+			writeHeader(type, 5);
+			break;
+		case 2:
+			writeHeader(type, 6);
+			break;
+		default:
+			writeHeader(type, 7);
+		}
+		writeLong(length, lengthSize);
+	}
+
+	private void write(DataElement d) {
+		int i = index++;
+		switch (d.getDataType()) {
+		case DataElement.NULL:
+			writeHeader(0, 0);
+			break;
+
+		case DataElement.U_INT_1:
+			writeHeader(1, 0);
+			writeLong(d.getLong(), 1);
+			break;
+		case DataElement.U_INT_2:
+			writeHeader(1, 1);
+			writeLong(d.getLong(), 2);
+			break;
+		case DataElement.U_INT_4:
+			writeHeader(1, 2);
+			writeLong(d.getLong(), 4);
+			break;
+		case DataElement.U_INT_8:
+			writeHeader(1, 3);
+			writeBytes((byte[]) d.getValue());
+			break;
+		case DataElement.U_INT_16:
+			writeHeader(1, 4);
+			writeBytes((byte[]) d.getValue());
+			break;
+
+		case DataElement.INT_1:
+			writeHeader(2, 0);
+			writeLong(d.getLong(), 1);
+			break;
+		case DataElement.INT_2:
+			writeHeader(2, 1);
+			writeLong(d.getLong(), 2);
+			break;
+		case DataElement.INT_4:
+			writeHeader(2, 2);
+			writeLong(d.getLong(), 4);
+			break;
+		case DataElement.INT_8:
+			writeHeader(2, 3);
+			writeLong(d.getLong(), 8);
+			break;
+		case DataElement.INT_16:
+			writeHeader(2, 4);
+			writeBytes((byte[]) d.getValue());
+			break;
+
+		case DataElement.UUID:
+			switch (values[i].length) {
+			case 2:
+				writeHeader(3, 1);
+				break;
+			case 4:
+				writeHeader(3, 2);
+				break;
+			default:
+				writeHeader(3, 4);
+			}
+			writeBytes(values[i]);
+			break;
+
+		case DataElement.STRING:
+			writeHeader(4, values[i].length, lengthSize(values[i].length));
+			writeBytes(values[i]);
+			break;
+
+		case DataElement.BOOL:
+			writeHeader(5, 0);
+			writeLong(d.getBoolean() ? 1 : 0, 1);
+			break;
+
+		case DataElement.DATSEQ:
+		case DataElement.DATALT: {
+			int type = (d.getDataType() == DataElement.DATSEQ) ? 6 : 7;
+			int contentLength = contentLengths[i];
+			writeHeader(type, contentLength, sequenceLengthSize(contentLength));
+			for (Enumeration e = (Enumeration) d.getValue(); e.hasMoreElements();) {
+				write((DataElement) e.nextElement());
+			}
+			break;
+		}
+
+		case DataElement.URL:
+			writeHeader(8, values[i].length, lengthSize(values[i].length));
+			writeBytes(values[i]);
+			break;
+
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+}
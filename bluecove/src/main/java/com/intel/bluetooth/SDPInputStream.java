@@ -23,229 +23,91 @@
  */
 package com.intel.bluetooth;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
 import javax.bluetooth.DataElement;
-import javax.bluetooth.UUID;
 
+/**
+ * Reads SDP data elements from stream. Bytes of each element are read in one block and decoded by SDPDecoder, use
+ * SDPDecoder directly when the data is already in byte array.
+ */
 class SDPInputStream extends InputStream {
 
-	private InputStream source;
+	/**
+	 * Initial buffer size for element data.
+	 */
+	private static final int CHUNK_SIZE = 0x1000;
 
-	private int pos;
+	private InputStream source;
 
 	public SDPInputStream(InputStream in) {
 		this.source = in;
-		pos = 0;
 	}
 
 	public int read() throws IOException {
 		return source.read();
 	}
 
-	private long readLong(int size) throws IOException {
-		long result = 0;
-		for (int i = 0; i < size; i++) {
-			result = result << 8 | read();
+	private int readByte() throws IOException {
+		int b = source.read();
+		if (b == -1) {
+			throw new EOFException("SDP data truncated");
 		}
-		pos += size;
-		return result;
+		return b;
 	}
 
-	private int readInteger(int size) throws IOException {
-        int result = 0;
-        for (int i = 0; i < size; i++) {
-            result = result << 8 | read();
-        }
-        pos += size;
-        return result;
-    }
-	
-	private String hexString(byte[] b) throws IOException {
-		StringBuffer buf = new StringBuffer();
-		for (int i = 0; i < b.length; i++) {
-			buf.append(Integer.toHexString(b[i] >> 4 & 0xf));
-			buf.append(Integer.toHexString(b[i] & 0xf));
-		}
-		return buf.toString();
-	}
-
-	private byte[] readBytes(int size) throws IOException {
-		byte[] result = new byte[size];
-		for (int i = 0; i < size; i++) {
-			result[i] = (byte) read();
+	private void readFully(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int count = source.read(b, off, len);
+			if (count == -1) {
+				throw new EOFException("SDP data truncated");
+			}
+			off += count;
+			len -= count;
 		}
-		pos += size;
-		return result;
 	}
 
 	public DataElement readElement() throws IOException {
-		int header = read();
+		int header = readByte();
 		int type = header >> 3 & 0x1f;
 		int sizeDescriptor = header & 0x07;
-
-		pos++;
-
-		switch (type) {
-		case 0: // NULL
-			return new DataElement(DataElement.NULL);
-		case 1: // U_INT
-			switch (sizeDescriptor) {
-			case 0:
-				return new DataElement(DataElement.U_INT_1, readLong(1));
-			case 1:
-				return new DataElement(DataElement.U_INT_2, readLong(2));
-			case 2:
-				return new DataElement(DataElement.U_INT_4, readLong(4));
-			case 3:
-				return new DataElement(DataElement.U_INT_8, readBytes(8));
-			case 4:
-				return new DataElement(DataElement.U_INT_16, readBytes(16));
-			default:
-				throw new IOException();
-			}
-		case 2: // INT
-			switch (sizeDescriptor) {
-			case 0:
-				return new DataElement(DataElement.INT_1, (long) (byte) readLong(1));
-			case 1:
-				return new DataElement(DataElement.INT_2, (long) (short) readLong(2));
-			case 2:
-				return new DataElement(DataElement.INT_4, (long) (int) readLong(4));
-			case 3:
-				return new DataElement(DataElement.INT_8, readLong(8));
-			case 4:
-				return new DataElement(DataElement.INT_16, readBytes(16));
-			default:
-				throw new IOException();
-			}
-		case 3: // UUID
-		{
-			UUID uuid = null;
-
-			switch (sizeDescriptor) {
-			case 1:
-				uuid = new UUID(readLong(2));
-				break;
-			case 2:
-				uuid = new UUID(readLong(4));
-				break;
-			case 4:
-				uuid = new UUID(hexString(readBytes(16)), false);
-				break;
-			default:
-				throw new IOException();
-			}
-
-			return new DataElement(DataElement.UUID, uuid);
-		}
-		case 4: // STRING
-		{
-			int length = -1;
-
-			switch (sizeDescriptor) {
-			case 5:
-				length = readInteger(1);
-				break;
-			case 6:
-				length = readInteger(2);
-				break;
-			case 7:
-				length = readInteger(4);
-				break;
-			default:
-				throw new IOException();
+		int lengthSize = 0;
+		long size;
+		if (type == 0) {
+			size = 0;
+		} else if (sizeDescriptor <= 4) {
+			size = 1 << sizeDescriptor;
+		} else {
+			lengthSize = 1 << (sizeDescriptor - 5);
+			size = 0;
+			for (int i = 0; i < lengthSize; i++) {
+				size = (size << 8) | readByte();
 			}
-			String strValue = Utils.newStringUTF8(readBytes(length));
-			DebugLog.debug("DataElement.STRING", strValue, Integer.toString(length - strValue.length()));
-			return new DataElement(DataElement.STRING, strValue);
 		}
-		case 5: // BOOL
-			return new DataElement(readLong(1) != 0);
-		case 6: // DATSEQ
-		{
-			int length;
-
-			switch (sizeDescriptor) {
-			case 5:
-				length = readInteger(1);
-				break;
-			case 6:
-				length = readInteger(2);
-				break;
-			case 7:
-				length = readInteger(4);
-				break;
-			default:
-				throw new IOException();
-			}
-
-			DataElement element = new DataElement(DataElement.DATSEQ);
-
-			int started = pos;
-
-			for (int end = pos + length; pos < end;) {
-				element.addElement(readElement());
-			}
-			if (started + length != pos) {
-				throw new IOException("DATSEQ size corruption " + (started + length - pos));
-			}
-			return element;
+		if (size > Integer.MAX_VALUE - 5) {
+			throw new IOException("Invalid element size " + size);
 		}
-		case 7: // DATALT
-		{
-			int length;
-
-			switch (sizeDescriptor) {
-			case 5:
-				length = readInteger(1);
-				break;
-			case 6:
-				length = readInteger(2);
-				break;
-			case 7:
-				length = readInteger(4);
-				break;
-			default:
-				throw new IOException();
-			}
-
-			DataElement element = new DataElement(DataElement.DATALT);
-
-			int started = pos;
-
-			for (long end = pos + length; pos < end;) {
-				element.addElement(readElement());
-			}
-			if (started + length != pos) {
-				throw new IOException("DATALT size corruption " + (started + length - pos));
-			}
-			return element;
+		int length = 1 + lengthSize + (int) size;
+		// Size comes from remote device, buffer grows only when the data is actually received
+		byte[] element = new byte[Math.min(length, CHUNK_SIZE)];
+		element[0] = (byte) header;
+		for (int i = lengthSize, shift = 0; i > 0; i--, shift += 8) {
+			element[i] = (byte) (size >> shift);
 		}
-		case 8: // URL
-		{
-			int length;
-
-			switch (sizeDescriptor) {
-			case 5:
-				length = readInteger(1);
-				break;
-			case 6:
-				length = readInteger(2);
-				break;
-			case 7:
-				length = readInteger(4);
-				break;
-			default:
-				throw new IOException();
+		int position = 1 + lengthSize;
+		while (position < length) {
+			if (position == element.length) {
+				byte[] grown = new byte[(int) Math.min(length, 2L * element.length)];
+				System.arraycopy(element, 0, grown, 0, position);
+				element = grown;
 			}
-
-			return new DataElement(DataElement.URL, Utils.newStringASCII(readBytes(length)));
-		}
-		default:
-			throw new IOException("Unknown type " + type);
+			int len = element.length - position;
+			readFully(element, position, len);
+			position += len;
 		}
+		return (new SDPDecoder(element)).readElement();
 	}
 
-}
\ No newline at end of file
+}
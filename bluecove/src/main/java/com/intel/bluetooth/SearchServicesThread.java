@@ -40,7 +40,7 @@ import javax.bluetooth.UUID;
  * <b><u>Your application should not use this class directly.</u></b>
  *
  */
-class SearchServicesThread extends Thread {
+class SearchServicesThread implements Runnable {
 
 	private static int transIDGenerator = 0;
 
@@ -78,7 +78,6 @@ class SearchServicesThread extends Thread {
 
 	private SearchServicesThread(int transID, BluetoothStack stack, SearchServicesRunnable serachRunnable,
 			int[] attrSet, UUID[] uuidSet, RemoteDevice device, DiscoveryListener listener) {
-		super("SearchServicesThread-" + transID);
 		this.stack = stack;
 		this.serachRunnable = serachRunnable;
 		this.transID = transID;
@@ -94,6 +93,12 @@ class SearchServicesThread extends Thread {
 	 */
 	static int startSearchServices(BluetoothStack stack, SearchServicesRunnable searchRunnable, int[] attrSet,
 			UUID[] uuidSet, RemoteDevice device, DiscoveryListener listener) throws BluetoothStateException {
+		ServiceRecord[] cachedRecords = ServiceRecordsCache.get(stack, attrSet, uuidSet, device);
+		if (cachedRecords != null) {
+			searchRunnable = new ServiceRecordsCache.CachedSearchServices(cachedRecords);
+		} else {
+			listener = ServiceRecordsCache.recordingListener(stack, attrSet, uuidSet, device, listener);
+		}
 		SearchServicesThread t;
 		synchronized (threads) {
 			int runningCount = countRunningSearchServicesThreads(stack);
@@ -104,10 +109,9 @@ class SearchServicesThread extends Thread {
 			t = (new SearchServicesThread(nextThreadNum(), stack, searchRunnable, attrSet, uuidSet, device, listener));
 			threads.put(new Integer(t.getTransID()), t);
 		}
-		// In case the BTStack hangs, exit JVM anyway
-		UtilsJavaSE.threadSetDaemon(t);
 		synchronized (t.serviceSearchStartedEvent) {
-			t.start();
+			// Daemon thread, in case the BTStack hangs, exit JVM anyway
+			WorkerThreadPool.execute("SearchServicesThread-" + t.getTransID(), t);
 			while (!t.started && !t.finished) {
 				try {
 					t.serviceSearchStartedEvent.wait();
@@ -144,7 +144,7 @@ public class SelectServiceHandler implements DiscoveryListener {
 			}
 		}
 		ParallelSearchServicesThread t = new ParallelSearchServicesThread(uuid);
-		t.start();
+		WorkerThreadPool.execute("SelectServiceThread-" + nextThreadNum(), t);
 
 		synchronized (inquiryCompletedEvent) {
 			if (!agent.startInquiry(DiscoveryAgent.GIAC, this)) {
@@ -170,7 +170,7 @@ public class SelectServiceHandler implements DiscoveryListener {
 				return null;
 			}
 		}
-		t.interrupt();
+		t.stop();
 
 		if (servRecordDiscovered != null) {
 			return servRecordDiscovered.getConnectionURL(security, master);
@@ -179,10 +179,12 @@ public class SelectServiceHandler implements DiscoveryListener {
 		return null;
 	}
 
-	private class ParallelSearchServicesThread extends Thread {
+	private class ParallelSearchServicesThread implements Runnable {
 
 		private boolean stoped = false;
 
+		private boolean finished = false;
+
 		private int processedNext = 0;
 
 		private int processedSize = 0;
@@ -190,7 +192,6 @@ public class SelectServiceHandler implements DiscoveryListener {
 		private UUID uuid;
 
 		ParallelSearchServicesThread(UUID uuid) {
-			super("SelectServiceThread-" + nextThreadNum());
 			this.uuid = uuid;
 		}
 
@@ -198,15 +199,31 @@ public class SelectServiceHandler implements DiscoveryListener {
 			return (processedNext == serviceSearchDeviceQueue.size());
 		}
 
-		public void interrupt() {
+		void stop() {
 			stoped = true;
 			synchronized (serviceSearchDeviceQueue) {
 				serviceSearchDeviceQueue.notifyAll();
 			}
-			super.interrupt();
+		}
+
+		synchronized void join() throws InterruptedException {
+			while (!finished) {
+				wait();
+			}
 		}
 
 		public void run() {
+			try {
+				searchDevices();
+			} finally {
+				synchronized (this) {
+					finished = true;
+					notifyAll();
+				}
+			}
+		}
+
+		private void searchDevices() {
 			mainLoop: while ((!stoped) && (servRecordDiscovered == null)) {
 				synchronized (serviceSearchDeviceQueue) {
 					if ((inquiryCompleted) && (processedSize == serviceSearchDeviceQueue.size())) {
@@ -23,11 +23,8 @@
  */
 package com.intel.bluetooth;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Enumeration;
-import java.util.Hashtable;
 
 import javax.bluetooth.BluetoothStateException;
 import javax.bluetooth.DataElement;
@@ -46,7 +43,26 @@ class ServiceRecordImpl implements ServiceRecord {
 
 	private long handle;
 
-	Hashtable attributes;
+	/**
+	 * Attribute IDs sorted in ascending order and corresponding values. Value is <code>null</code> while the attribute
+	 * is kept in binary form at <code>rawOffsets</code> in <code>rawData</code>.
+	 */
+	private int[] attrIDs;
+
+	private DataElement[] attrValues;
+
+	private int attrCount;
+
+	private byte[] rawData;
+
+	private int[] rawOffsets;
+
+	private int rawCount;
+
+	/**
+	 * Cached result of toByteArray() or the data record was loaded from, reset when attributes are modified.
+	 */
+	private byte[] sdpBinary;
 
 	protected boolean attributeUpdated;
 
@@ -64,63 +80,254 @@ class ServiceRecordImpl implements ServiceRecord {
 
 		this.deviceServiceClassesRegistered = 0;
 
-		this.attributes = new Hashtable();
+		this.attrIDs = new int[8];
+
+		this.attrValues = new DataElement[8];
 	}
 
-	byte[] toByteArray() throws IOException {
-	    DataElement rootSeq = new DataElement(DataElement.DATSEQ);
-		final boolean sort = true;
-		if (sort) {
-			int[] sortIDs = new int[attributes.size()];
-			int k = 0;
-			for (Enumeration e = attributes.keys(); e.hasMoreElements();) {
-				Integer key = (Integer) e.nextElement();
-				sortIDs[k] = key.intValue();
-				k++;
+	/**
+	 * Service record in SDP binary form. The result is cached until attributes are modified and should not be changed
+	 * by caller.
+	 */
+	synchronized byte[] toByteArray() throws IOException {
+		if ((sdpBinary == null) && (rawCount != 0)) {
+			// Copy attributes still in binary form without decoding them
+			byte[][] values = new byte[attrCount][];
+			for (int i = 0; i < attrCount; i++) {
+				if (attrValues[i] == null) {
+					SDPDecoder decoder = new SDPDecoder(rawData);
+					decoder.setPosition(rawOffsets[i]);
+					decoder.skipElement();
+					values[i] = new byte[decoder.getPosition() - rawOffsets[i]];
+					System.arraycopy(rawData, rawOffsets[i], values[i], 0, values[i].length);
+				} else {
+					values[i] = SDPEncoder.encode(attrValues[i]);
+				}
 			}
-			// DebugLog.debug("b4 sort", sortIDs);
-			// Sort
-			for (int i = 0; i < sortIDs.length; i++) {
-				for (int j = 0; j < sortIDs.length - i - 1; j++) {
-					if (sortIDs[j] > sortIDs[j + 1]) {
-						int temp = sortIDs[j];
-						sortIDs[j] = sortIDs[j + 1];
-						sortIDs[j + 1] = temp;
-					}
+			sdpBinary = SDPEncoder.encodeRecord(attrIDs, values, attrCount);
+		} else if (sdpBinary == null) {
+			DataElement rootSeq = new DataElement(DataElement.DATSEQ);
+			for (int i = 0; i < attrCount; i++) {
+				rootSeq.addElement(new DataElement(DataElement.U_INT_2, attrIDs[i]));
+				rootSeq.addElement(attrValues[i]);
+			}
+			sdpBinary = SDPEncoder.encode(rootSeq);
+		}
+		return sdpBinary;
+	}
+
+	void loadByteArray(byte data[]) throws IOException {
+		loadByteArray(data, null, BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_SDP_LAZY_ATTRIBUTES,
+				false));
+	}
+
+	/**
+	 * Populate attribute values from SDP service record data.
+	 * 
+	 * @param data
+	 *            DATSEQ of attribute ID and value pairs
+	 * @param attrIDs
+	 *            attributes to populate, <code>null</code> for all. Requested attributes not found in data are removed.
+	 * @param lazy
+	 *            keep values in binary form and decode them when requested by getAttributeValue
+	 * @return <code>true</code> if any attribute was populated
+	 */
+	boolean loadByteArray(byte data[], int[] attrIDs, boolean lazy) throws IOException {
+		SDPDecoder decoder = new SDPDecoder(data);
+		int end = decoder.readSequenceHeader();
+		boolean[] found = (attrIDs == null) ? null : new boolean[attrIDs.length];
+		boolean anyPopulated = false;
+		boolean copy;
+		synchronized (this) {
+			copy = (attrCount == 0) && (end == data.length);
+		}
+		while (decoder.getPosition() < end) {
+			int id = decoder.readAttributeID();
+			if (decoder.getPosition() >= end) {
+				throw new IOException("Attribute value expected");
+			}
+			if (attrIDs != null) {
+				int idx = indexOf(attrIDs, attrIDs.length, id);
+				if (idx == -1) {
+					decoder.skipElement();
+					copy = false;
+					continue;
 				}
+				found[idx] = true;
+			}
+			anyPopulated = true;
+			if (lazy) {
+				int offset = decoder.getPosition();
+				decoder.skipElement();
+				populateRawAttribute(data, id, offset);
+			} else {
+				populateAttributeValue(id, decoder.readElement());
 			}
-			// DebugLog.debug("sorted", sortIDs);
-			for (int i = 0; i < sortIDs.length; i++) {
-			    int attrID  = sortIDs[i];
-			    rootSeq.addElement(new DataElement(DataElement.U_INT_2, attrID));
-			    rootSeq.addElement(getAttributeValue(attrID));
+		}
+		if (attrIDs != null) {
+			for (int i = 0; i < attrIDs.length; i++) {
+				if (!found[i]) {
+					populateAttributeValue(attrIDs[i], null);
+				}
+			}
+		}
+		if (copy) {
+			synchronized (this) {
+				// Record has exactly the attributes of data, toByteArray() returns it until attributes are modified
+				sdpBinary = data;
+			}
+		}
+		return anyPopulated;
+	}
+
+	private static int indexOf(int[] ids, int count, int id) {
+		for (int i = 0; i < count; i++) {
+			if (ids[i] == id) {
+				return i;
 			}
+		}
+		return -1;
+	}
+
+	private synchronized void populateRawAttribute(byte[] data, int attrID, int offset) {
+		if ((rawData != data) && (rawCount != 0)) {
+			// Values from previous populateRecord request reference other data
+			decodeRawAttributes();
+		}
+		rawData = data;
+		if (rawOffsets == null) {
+			rawOffsets = new int[attrIDs.length];
+		}
+		int idx = putAttribute(attrID, null);
+		rawOffsets[idx] = offset;
+		rawCount++;
+	}
+
+	/**
+	 * Binary search of attribute.
+	 * 
+	 * @return index of the attribute or <code>-(insertion point) - 1</code>
+	 */
+	private int findAttribute(int attrID) {
+		int low = 0;
+		int high = attrCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int id = attrIDs[mid];
+			if (id < attrID) {
+				low = mid + 1;
+			} else if (id > attrID) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Add or replace attribute value, <code>null</code> value is used for attribute in binary form.
+	 * 
+	 * @return index of the attribute
+	 */
+	private int putAttribute(int attrID, DataElement value) {
+		sdpBinary = null;
+		int idx = findAttribute(attrID);
+		if (idx >= 0) {
+			if (attrValues[idx] == null) {
+				rawCount--;
+				if ((rawCount == 0) && (value != null)) {
+					rawData = null;
+				}
+			}
+			attrValues[idx] = value;
+			return idx;
+		}
+		idx = -(idx + 1);
+		if (attrCount == attrIDs.length) {
+			int size = attrCount * 2;
+			int[] ids = new int[size];
+			DataElement[] values = new DataElement[size];
+			System.arraycopy(attrIDs, 0, ids, 0, attrCount);
+			System.arraycopy(attrValues, 0, values, 0, attrCount);
+			attrIDs = ids;
+			attrValues = values;
+			if (rawOffsets != null) {
+				int[] offsets = new int[size];
+				System.arraycopy(rawOffsets, 0, offsets, 0, attrCount);
+				rawOffsets = offsets;
+			}
+		}
+		int move = attrCount - idx;
+		if (move > 0) {
+			System.arraycopy(attrIDs, idx, attrIDs, idx + 1, move);
+			System.arraycopy(attrValues, idx, attrValues, idx + 1, move);
+			if (rawOffsets != null) {
+				System.arraycopy(rawOffsets, idx, rawOffsets, idx + 1, move);
+			}
+		}
+		attrIDs[idx] = attrID;
+		attrValues[idx] = value;
+		attrCount++;
+		return idx;
+	}
+
+	private boolean removeAttribute(int attrID) {
+		int idx = findAttribute(attrID);
+		if (idx < 0) {
+			return false;
+		}
+		sdpBinary = null;
+		if (attrValues[idx] == null) {
+			rawCount--;
+		}
+		int move = attrCount - idx - 1;
+		if (move > 0) {
+			System.arraycopy(attrIDs, idx + 1, attrIDs, idx, move);
+			System.arraycopy(attrValues, idx + 1, attrValues, idx, move);
+			if (rawOffsets != null) {
+				System.arraycopy(rawOffsets, idx + 1, rawOffsets, idx, move);
+			}
+		}
+		attrCount--;
+		attrValues[attrCount] = null;
+		if (rawCount == 0) {
+			rawData = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Decode attribute value kept in binary form.
+	 * 
+	 * @return the value or <code>null</code> if attribute is corrupted
+	 */
+	private DataElement decodeRawAttribute(int idx) {
+		SDPDecoder decoder = new SDPDecoder(rawData);
+		DataElement value = null;
+		try {
+			decoder.setPosition(rawOffsets[idx]);
+			value = decoder.readElement();
+		} catch (IOException e) {
+			DebugLog.error("Corrupted SDP attribute 0x" + Integer.toHexString(attrIDs[idx]), e);
+		}
+		if (value == null) {
+			removeAttribute(attrIDs[idx]);
 		} else {
-			for (Enumeration e = attributes.keys(); e.hasMoreElements();) {
-				Integer key = (Integer) e.nextElement();
-				rootSeq.addElement(new DataElement(DataElement.U_INT_2, key.intValue()));
-				rootSeq.addElement((DataElement) attributes.get(key));
+			attrValues[idx] = value;
+			rawCount--;
+			if (rawCount == 0) {
+				rawData = null;
 			}
 		}
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        SDPOutputStream sdpOut = new SDPOutputStream(out);
-        sdpOut.writeElement(rootSeq);
-		return out.toByteArray();
+		return value;
 	}
 
-	void loadByteArray(byte data[]) throws IOException {
-		DataElement element = (new SDPInputStream(new ByteArrayInputStream(data))).readElement();
-		if (element.getDataType() != DataElement.DATSEQ) {
-			throw new IOException("DATSEQ expected instead of " + element.getDataType());
-		}
-		Enumeration en = (Enumeration) element.getValue();
-		while (en.hasMoreElements()) {
-			DataElement id = (DataElement) en.nextElement();
-			if (id.getDataType() != DataElement.U_INT_2) {
-				throw new IOException("U_INT_2 expected instead of " + id.getDataType());
+	private synchronized void decodeRawAttributes() {
+		for (int i = attrCount - 1; (i >= 0) && (rawCount != 0); i--) {
+			if (attrValues[i] == null) {
+				decodeRawAttribute(i);
 			}
-			DataElement value = (DataElement) en.nextElement();
-			this.populateAttributeValue((int) id.getLong(), value);
 		}
 	}
 
@@ -133,12 +340,20 @@ class ServiceRecordImpl implements ServiceRecord {
 	 * or equal to 2^16
 	 */
 
-	public DataElement getAttributeValue(int attrID) {
+	public synchronized DataElement getAttributeValue(int attrID) {
 		if (attrID < 0x0000 || attrID > 0xffff) {
 			throw new IllegalArgumentException();
 		}
 
-		return (DataElement) attributes.get(new Integer(attrID));
+		int idx = findAttribute(attrID);
+		if (idx < 0) {
+			return null;
+		}
+		DataElement value = attrValues[idx];
+		if (value == null) {
+			value = decodeRawAttribute(idx);
+		}
+		return value;
 	}
 
 	/*
@@ -163,16 +378,10 @@ class ServiceRecordImpl implements ServiceRecord {
 	 * of length zero. See Also: getAttributeValue(int)
 	 */
 
-	public int[] getAttributeIDs() {
-		int[] attrIDs = new int[attributes.size()];
-
-		int i = 0;
-
-		for (Enumeration e = attributes.keys(); e.hasMoreElements();) {
-			attrIDs[i++] = ((Integer) e.nextElement()).intValue();
-		}
-
-		return attrIDs;
+	public synchronized int[] getAttributeIDs() {
+		int[] ids = new int[attrCount];
+		System.arraycopy(attrIDs, 0, ids, 0, attrCount);
+		return ids;
 	}
 
 	/*
@@ -242,14 +451,14 @@ class ServiceRecordImpl implements ServiceRecord {
 
 		int[] sortIDs = new int[attrIDs.length];
 		System.arraycopy(attrIDs, 0, sortIDs, 0, attrIDs.length);
-		for (int i = 0; i < sortIDs.length; i++) {
-			for (int j = 0; j < sortIDs.length - i - 1; j++) {
-				if (sortIDs[j] > sortIDs[j + 1]) {
-					int temp = sortIDs[j];
-					sortIDs[j] = sortIDs[j + 1];
-					sortIDs[j + 1] = temp;
-				}
+		for (int i = 1; i < sortIDs.length; i++) {
+			int id = sortIDs[i];
+			int j = i - 1;
+			while ((j >= 0) && (sortIDs[j] > id)) {
+				sortIDs[j + 1] = sortIDs[j];
+				j--;
 			}
+			sortIDs[j + 1] = id;
 		}
 		/*
 		 * check for duplicates
@@ -604,12 +813,14 @@ class ServiceRecordImpl implements ServiceRecord {
 		 * remove, add or modify attribute
 		 */
 
-		attributeUpdated = true;
-		if (attrValue == null) {
-			return (attributes.remove(new Integer(attrID)) != null);
-		} else {
-			attributes.put(new Integer(attrID), attrValue);
-			return true;
+		synchronized (this) {
+			attributeUpdated = true;
+			if (attrValue == null) {
+				return removeAttribute(attrID);
+			} else {
+				putAttribute(attrID, attrValue);
+				return true;
+			}
 		}
 	}
 
@@ -620,27 +831,27 @@ class ServiceRecordImpl implements ServiceRecord {
 		if (attrID < 0x0000 || attrID > 0xffff) {
 			throw new IllegalArgumentException();
 		}
-		if (attrValue == null) {
-			attributes.remove(new Integer(attrID));
-		} else {
-			attributes.put(new Integer(attrID), attrValue);
+		synchronized (this) {
+			if (attrValue == null) {
+				removeAttribute(attrID);
+			} else {
+				putAttribute(attrID, attrValue);
+			}
 		}
 	}
 
-	public String toString() {
+	public synchronized String toString() {
 
-		StringBuffer buf = new StringBuffer("{\n");
+		decodeRawAttributes();
 
-		for (Enumeration e = attributes.keys(); e.hasMoreElements();) {
-			Integer i = (Integer) e.nextElement();
+		StringBuffer buf = new StringBuffer("{\n");
 
+		for (int i = 0; i < attrCount; i++) {
 			buf.append("0x");
-			buf.append(Integer.toHexString(i.intValue()));
+			buf.append(Integer.toHexString(attrIDs[i]));
 			buf.append(":\n\t");
 
-			DataElement d = (DataElement) attributes.get(i);
-
-			buf.append(d);
+			buf.append(attrValues[i]);
 			buf.append("\n");
 		}
 
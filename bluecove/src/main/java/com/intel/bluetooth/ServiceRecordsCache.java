@@ -0,0 +1,452 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+import javax.bluetooth.UUID;
+
+/**
+ * Cache of remote service records found by DiscoveryAgent.searchServices() and selectService(). Records are stored by
+ * device address, UUID set and attribute set and returned to next search with the same parameters without SDP query.
+ * <p>
+ * Enabled by configuration property "bluecove.sdp.cache_ttl", entries are removed when the time expires, when cache
+ * size "bluecove.sdp.cache_size" is exceeded and when connection to the channel of cached record fails.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b> Methods invalidate, clear and statistics can be used by application.
+ * 
+ * @since bluecove 2.1.1
+ */
+public abstract class ServiceRecordsCache {
+
+	static final int DEFAULT_SIZE = 32;
+
+	/**
+	 * Entries by search parameters, separate table for each BluetoothStack
+	 */
+	private static Hashtable stackCaches = new Hashtable();
+
+	private static long hitCount;
+
+	private static long missCount;
+
+	private static long evictionCount;
+
+	private static long invalidationCount;
+
+	/**
+	 * Records are kept in SDP binary form, each get() creates new ServiceRecord objects that can be populated or
+	 * modified by application without affecting the cache.
+	 */
+	private static class Entry {
+
+		long address;
+
+		RemoteDevice device;
+
+		long[] handles;
+
+		byte[][] sdpData;
+
+		long created;
+
+		long lastAccess;
+
+		ServiceRecordImpl createRecord(BluetoothStack stack, int i) throws IOException {
+			ServiceRecordImpl record = new ServiceRecordImpl(stack, device, handles[i]);
+			record.loadByteArray(sdpData[i]);
+			return record;
+		}
+	}
+
+	private ServiceRecordsCache() {
+
+	}
+
+	/**
+	 * Time in milliseconds records are kept for stack configuration, <code>0</code> when cache is disabled.
+	 */
+	private static long getTTL(BluetoothStack stack) {
+		return 1000l * BlueCoveImpl.getConfigProperty(stack, BlueCoveConfigProperties.PROPERTY_SDP_CACHE_TTL, 0);
+	}
+
+	private static String key(long address, int[] attrSet, UUID[] uuidSet) {
+		StringBuffer buf = new StringBuffer();
+		buf.append(RemoteDeviceHelper.getBluetoothAddress(address));
+		String[] uuids = new String[uuidSet.length];
+		for (int i = 0; i < uuidSet.length; i++) {
+			uuids[i] = uuidSet[i].toString();
+		}
+		sort(uuids);
+		for (int i = 0; i < uuids.length; i++) {
+			buf.append(i == 0 ? '/' : ',').append(uuids[i]);
+		}
+		buf.append('/');
+		if (attrSet != null) {
+			int[] ids = new int[attrSet.length];
+			System.arraycopy(attrSet, 0, ids, 0, attrSet.length);
+			sort(ids);
+			for (int i = 0; i < ids.length; i++) {
+				if (i != 0) {
+					buf.append(',');
+				}
+				buf.append(Integer.toHexString(ids[i]));
+			}
+		}
+		return buf.toString();
+	}
+
+	private static void sort(String[] values) {
+		for (int i = 1; i < values.length; i++) {
+			String v = values[i];
+			int j = i - 1;
+			while ((j >= 0) && (values[j].compareTo(v) > 0)) {
+				values[j + 1] = values[j];
+				j--;
+			}
+			values[j + 1] = v;
+		}
+	}
+
+	private static void sort(int[] values) {
+		for (int i = 1; i < values.length; i++) {
+			int v = values[i];
+			int j = i - 1;
+			while ((j >= 0) && (values[j] > v)) {
+				values[j + 1] = values[j];
+				j--;
+			}
+			values[j + 1] = v;
+		}
+	}
+
+	/**
+	 * Find records of previous search with the same parameters.
+	 * 
+	 * @return the records or <code>null</code> if cache is disabled or there are no valid entry
+	 */
+	static synchronized ServiceRecord[] get(BluetoothStack stack, int[] attrSet, UUID[] uuidSet, RemoteDevice device) {
+		long ttl = getTTL(stack);
+		if (ttl <= 0) {
+			return null;
+		}
+		Hashtable entries = (Hashtable) stackCaches.get(stack);
+		String key = key(RemoteDeviceHelper.getAddress(device), attrSet, uuidSet);
+		Entry entry = (entries == null) ? null : (Entry) entries.get(key);
+		long now = System.currentTimeMillis();
+		if ((entry != null) && (now - entry.created > ttl)) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		ServiceRecord[] records = new ServiceRecord[entry.sdpData.length];
+		try {
+			for (int i = 0; i < records.length; i++) {
+				records[i] = entry.createRecord(stack, i);
+			}
+		} catch (IOException e) {
+			DebugLog.error("invalid cached service record", e);
+			entries.remove(key);
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		entry.lastAccess = now;
+		DebugLog.debug("service records from cache", key);
+		return records;
+	}
+
+	private static synchronized void put(BluetoothStack stack, String key, long address, RemoteDevice device,
+			long[] handles, byte[][] sdpData) {
+		Hashtable entries = (Hashtable) stackCaches.get(stack);
+		if (entries == null) {
+			entries = new Hashtable();
+			stackCaches.put(stack, entries);
+		}
+		Entry entry = new Entry();
+		entry.address = address;
+		entry.device = device;
+		entry.handles = handles;
+		entry.sdpData = sdpData;
+		entry.created = System.currentTimeMillis();
+		entry.lastAccess = entry.created;
+		entries.put(key, entry);
+		int maxSize = BlueCoveImpl.getConfigProperty(stack, BlueCoveConfigProperties.PROPERTY_SDP_CACHE_SIZE,
+				DEFAULT_SIZE);
+		while (entries.size() > maxSize) {
+			// Remove least recently used
+			String oldestKey = null;
+			long oldest = Long.MAX_VALUE;
+			for (Enumeration en = entries.keys(); en.hasMoreElements();) {
+				String k = (String) en.nextElement();
+				Entry e = (Entry) entries.get(k);
+				if (e.lastAccess < oldest) {
+					oldest = e.lastAccess;
+					oldestKey = k;
+				}
+			}
+			entries.remove(oldestKey);
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Create listener that stores the records of completed search to cache.
+	 * 
+	 * @return the listener to be used for search or <code>listener</code> if cache is disabled
+	 */
+	static DiscoveryListener recordingListener(BluetoothStack stack, int[] attrSet, UUID[] uuidSet,
+			RemoteDevice device, DiscoveryListener listener) {
+		if (getTTL(stack) <= 0) {
+			return listener;
+		}
+		long address = RemoteDeviceHelper.getAddress(device);
+		return new RecordingListener(stack, key(address, attrSet, uuidSet), address, listener);
+	}
+
+	/**
+	 * Called when client connection can't be established. Removes entries of the device with records describing
+	 * this channel.
+	 * 
+	 * @param protocolUUID
+	 *            RFCOMM or L2CAP protocol UUID
+	 */
+	static synchronized void connectionFailed(BluetoothStack stack, long address, UUID protocolUUID, int channel) {
+		Hashtable entries = (Hashtable) stackCaches.get(stack);
+		if ((entries == null) || (entries.isEmpty())) {
+			return;
+		}
+		Vector invalid = new Vector();
+		for (Enumeration en = entries.keys(); en.hasMoreElements();) {
+			String k = (String) en.nextElement();
+			Entry e = (Entry) entries.get(k);
+			if (e.address != address) {
+				continue;
+			}
+			for (int i = 0; i < e.sdpData.length; i++) {
+				try {
+					if (e.createRecord(stack, i).getChannel(protocolUUID) != channel) {
+						continue;
+					}
+				} catch (IOException ignore) {
+				}
+				invalid.addElement(k);
+				break;
+			}
+		}
+		for (Enumeration en = invalid.elements(); en.hasMoreElements();) {
+			entries.remove(en.nextElement());
+			invalidationCount++;
+		}
+		if (!invalid.isEmpty()) {
+			DebugLog.debug("service records cache invalidated", RemoteDeviceHelper.getBluetoothAddress(address));
+		}
+	}
+
+	static synchronized void shutdown(BluetoothStack stack) {
+		stackCaches.remove(stack);
+	}
+
+	/**
+	 * Remove all cached records of the device.
+	 * 
+	 * @param device
+	 *            the remote device
+	 */
+	public static synchronized void invalidate(RemoteDevice device) {
+		long address = RemoteDeviceHelper.getAddress(device);
+		for (Enumeration sen = stackCaches.elements(); sen.hasMoreElements();) {
+			Hashtable entries = (Hashtable) sen.nextElement();
+			Vector invalid = new Vector();
+			for (Enumeration en = entries.keys(); en.hasMoreElements();) {
+				Object k = en.nextElement();
+				if (((Entry) entries.get(k)).address == address) {
+					invalid.addElement(k);
+				}
+			}
+			for (Enumeration en = invalid.elements(); en.hasMoreElements();) {
+				entries.remove(en.nextElement());
+				invalidationCount++;
+			}
+		}
+	}
+
+	/**
+	 * Remove all cached records.
+	 */
+	public static synchronized void clear() {
+		stackCaches.clear();
+	}
+
+	/**
+	 * @return number of cached search results
+	 */
+	public static synchronized int size() {
+		int size = 0;
+		for (Enumeration en = stackCaches.elements(); en.hasMoreElements();) {
+			size += ((Hashtable) en.nextElement()).size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return number of searches served from cache
+	 */
+	public static synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return number of searches not found in cache while cache is enabled
+	 */
+	public static synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return number of entries removed because cache size is exceeded
+	 */
+	public static synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return number of entries removed because connection failed or by invalidate(RemoteDevice)
+	 */
+	public static synchronized long getInvalidationCount() {
+		return invalidationCount;
+	}
+
+	/**
+	 * Reset hit, miss, eviction and invalidation counters.
+	 */
+	public static synchronized void resetStatistics() {
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+		invalidationCount = 0;
+	}
+
+	/**
+	 * Deliver cached records to listener from SearchServicesThread.
+	 */
+	static class CachedSearchServices implements SearchServicesRunnable {
+
+		private ServiceRecord[] records;
+
+		CachedSearchServices(ServiceRecord[] records) {
+			this.records = records;
+		}
+
+		public int runSearchServices(SearchServicesThread sst, int[] attrSet, UUID[] uuidSet, RemoteDevice device,
+				DiscoveryListener listener) throws BluetoothStateException {
+			sst.searchServicesStartedCallback();
+			if (sst.isTerminated()) {
+				return DiscoveryListener.SERVICE_SEARCH_TERMINATED;
+			}
+			listener.servicesDiscovered(sst.getTransID(), records);
+			return DiscoveryListener.SERVICE_SEARCH_COMPLETED;
+		}
+	}
+
+	private static class RecordingListener implements DiscoveryListener {
+
+		private BluetoothStack stack;
+
+		private String key;
+
+		private long address;
+
+		private DiscoveryListener listener;
+
+		private RemoteDevice device;
+
+		private Vector handles = new Vector();
+
+		private Vector sdpData = new Vector();
+
+		private boolean recordable = true;
+
+		RecordingListener(BluetoothStack stack, String key, long address, DiscoveryListener listener) {
+			this.stack = stack;
+			this.key = key;
+			this.address = address;
+			this.listener = listener;
+		}
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			listener.deviceDiscovered(btDevice, cod);
+		}
+
+		public void inquiryCompleted(int discType) {
+			listener.inquiryCompleted(discType);
+		}
+
+		public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+			// Copy the records before application receives them
+			for (int i = 0; (i < servRecord.length) && recordable; i++) {
+				if (!(servRecord[i] instanceof ServiceRecordImpl)) {
+					recordable = false;
+					break;
+				}
+				ServiceRecordImpl record = (ServiceRecordImpl) servRecord[i];
+				try {
+					// Unmodified record returns data it was loaded from, lazy attributes are not decoded
+					sdpData.addElement(record.toByteArray());
+				} catch (IOException e) {
+					DebugLog.error("can't cache service record", e);
+					recordable = false;
+					break;
+				}
+				handles.addElement(new Long(record.getHandle()));
+				device = record.getHostDevice();
+			}
+			listener.servicesDiscovered(transID, servRecord);
+		}
+
+		public void serviceSearchCompleted(int transID, int respCode) {
+			if ((respCode == DiscoveryListener.SERVICE_SEARCH_COMPLETED) && recordable && (!sdpData.isEmpty())) {
+				long[] h = new long[handles.size()];
+				for (int i = 0; i < h.length; i++) {
+					h[i] = ((Long) handles.elementAt(i)).longValue();
+				}
+				byte[][] data = new byte[sdpData.size()][];
+				sdpData.copyInto(data);
+				put(stack, key, address, device, h, data);
+			}
+			listener.serviceSearchCompleted(transID, respCode);
+		}
+	}
+}
@@ -0,0 +1,440 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryAgent;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.LocalDevice;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+import javax.bluetooth.UUID;
+
+/**
+ * Runs service search on many devices using all service discovery transactions allowed by the stack.
+ * <p>
+ * Devices are queued and searched by worker threads, the number of workers is limited by
+ * "bluetooth.sd.trans.max" local device property. Results are delivered to the listener for each device as soon as
+ * its search is completed. Workers are reused for next devices in the queue and end when the queue stays empty.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class ServiceSearchScheduler {
+
+	/**
+	 * Time worker waits for next device before it ends.
+	 */
+	private static final long WORKER_IDLE_TIMEOUT = 5 * 1000;
+
+	/**
+	 * Delay before next start attempt when all stack service search transactions are in use.
+	 */
+	private static final long START_RETRY_DELAY = 100;
+
+	/**
+	 * Time to retry start of the search when all stack service search transactions are in use.
+	 */
+	private static final long START_TIMEOUT = 30 * 1000;
+
+	/**
+	 * Time to wait for search to end after it was canceled.
+	 */
+	private static final long CANCEL_TIMEOUT = 5 * 1000;
+
+	private static int threadNumber;
+
+	private final DiscoveryAgent agent;
+
+	private final int[] attrSet;
+
+	private final UUID[] uuidSet;
+
+	private final ServiceSearchSchedulerListener listener;
+
+	private long timeout = 0;
+
+	private int maxConcurrentSearches;
+
+	private final Vector queue = new Vector();
+
+	private final Vector searches = new Vector();
+
+	private int workersCount = 0;
+
+	private int idleWorkersCount = 0;
+
+	private int pendingCount = 0;
+
+	private boolean canceled = false;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * Creates scheduler for service search with the same parameters as
+	 * {@link DiscoveryAgent#searchServices(int[], UUID[], RemoteDevice, DiscoveryListener)}.
+	 * 
+	 * @param agent
+	 *            the DiscoveryAgent used to start searches
+	 * @param attrSet
+	 *            additional attributes to retrieve, may be <code>null</code>
+	 * @param uuidSet
+	 *            the UUIDs to search for
+	 * @param listener
+	 *            receives results of each device
+	 * @throws BluetoothStateException
+	 *             if the number of allowed service discovery transactions can't be retrieved
+	 */
+	public ServiceSearchScheduler(DiscoveryAgent agent, int[] attrSet, UUID[] uuidSet,
+			ServiceSearchSchedulerListener listener) throws BluetoothStateException {
+		if ((agent == null) || (uuidSet == null) || (listener == null)) {
+			throw new NullPointerException();
+		}
+		this.agent = agent;
+		this.attrSet = attrSet;
+		this.uuidSet = uuidSet;
+		this.listener = listener;
+		String max = LocalDevice.getProperty(BluetoothConsts.PROPERTY_BLUETOOTH_SD_TRANS_MAX);
+		this.maxConcurrentSearches = (max == null) ? 1 : Math.max(1, Integer.parseInt(max));
+	}
+
+	/**
+	 * Limit time of service search on each device. The search is canceled and reported with
+	 * <code>SERVICE_SEARCH_TERMINATED</code> response code when it does not complete in time.
+	 * 
+	 * @param timeout
+	 *            time in milliseconds, <code>0</code> for no limit
+	 */
+	public synchronized void setTimeout(long timeout) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout is negative");
+		}
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Use fewer concurrent searches than allowed by the stack, e.g. to leave transactions to other application
+	 * threads.
+	 * 
+	 * @param max
+	 *            the number of concurrent searches
+	 */
+	public synchronized void setMaxConcurrentSearches(int max) {
+		if (max < 1) {
+			throw new IllegalArgumentException("max should be positive");
+		}
+		this.maxConcurrentSearches = max;
+	}
+
+	public synchronized int getMaxConcurrentSearches() {
+		return maxConcurrentSearches;
+	}
+
+	/**
+	 * Queue service search on the device.
+	 * 
+	 * @param device
+	 *            the remote device
+	 */
+	public synchronized void add(RemoteDevice device) {
+		if (device == null) {
+			throw new NullPointerException("device is null");
+		}
+		if (canceled) {
+			throw new IllegalStateException("Scheduler canceled");
+		}
+		queue.addElement(device);
+		pendingCount++;
+		if (idleWorkersCount > 0) {
+			notifyAll();
+		}
+		// Idle workers stay counted until they take a device, start more when the queue outgrows them
+		if ((queue.size() > idleWorkersCount) && (workersCount < maxConcurrentSearches)) {
+			workersCount++;
+			WorkerThreadPool.execute("ServiceSearchScheduler-" + nextThreadNum(), new Worker());
+		}
+	}
+
+	/**
+	 * Queue service search on the devices.
+	 * 
+	 * @param devices
+	 *            the remote devices
+	 */
+	public void add(RemoteDevice[] devices) {
+		for (int i = 0; i < devices.length; i++) {
+			add(devices[i]);
+		}
+	}
+
+	/**
+	 * @return the number of devices queued or being searched
+	 */
+	public synchronized int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * Wait until all queued devices are searched and results delivered to listener.
+	 * 
+	 * @param timeout
+	 *            time in milliseconds, <code>0</code> to wait forever
+	 * @return <code>true</code> if all searches are completed
+	 * @throws InterruptedException
+	 */
+	public synchronized boolean waitCompleted(long timeout) throws InterruptedException {
+		long end = (timeout == 0) ? 0 : System.currentTimeMillis() + timeout;
+		while (pendingCount > 0) {
+			if (end == 0) {
+				wait();
+			} else {
+				long left = end - System.currentTimeMillis();
+				if (left <= 0) {
+					return false;
+				}
+				wait(left);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cancel running searches. Devices not yet searched are reported with <code>SERVICE_SEARCH_TERMINATED</code>
+	 * response code.
+	 */
+	public void cancel() {
+		Vector notStarted;
+		Vector running;
+		synchronized (this) {
+			if (canceled) {
+				return;
+			}
+			canceled = true;
+			notStarted = (Vector) queue.clone();
+			queue.removeAllElements();
+			running = (Vector) searches.clone();
+			notifyAll();
+		}
+		for (int i = 0; i < running.size(); i++) {
+			((Search) running.elementAt(i)).cancel();
+		}
+		for (int i = 0; i < notStarted.size(); i++) {
+			deliver((RemoteDevice) notStarted.elementAt(i), new ServiceRecord[0],
+					DiscoveryListener.SERVICE_SEARCH_TERMINATED);
+		}
+	}
+
+	private void deliver(RemoteDevice device, ServiceRecord[] servRecord, int respCode) {
+		try {
+			listener.serviceSearchCompleted(device, servRecord, respCode);
+		} catch (Throwable e) {
+			DebugLog.error("ServiceSearchSchedulerListener error", e);
+		} finally {
+			synchronized (this) {
+				pendingCount--;
+				notifyAll();
+			}
+		}
+	}
+
+	private synchronized RemoteDevice nextDevice() {
+		long idleEnd = System.currentTimeMillis() + WORKER_IDLE_TIMEOUT;
+		while (queue.isEmpty() && (!canceled)) {
+			long left = idleEnd - System.currentTimeMillis();
+			if (left <= 0) {
+				break;
+			}
+			idleWorkersCount++;
+			try {
+				wait(left);
+			} catch (InterruptedException e) {
+				break;
+			} finally {
+				idleWorkersCount--;
+			}
+		}
+		if (queue.isEmpty() || canceled) {
+			workersCount--;
+			return null;
+		}
+		RemoteDevice device = (RemoteDevice) queue.elementAt(0);
+		queue.removeElementAt(0);
+		return device;
+	}
+
+	private class Worker implements Runnable {
+
+		public void run() {
+			RemoteDevice device;
+			while ((device = nextDevice()) != null) {
+				Search search = new Search(device);
+				search.run();
+				deliver(device, search.getServiceRecords(), search.respCode);
+			}
+		}
+	}
+
+	/**
+	 * Service search on one device, also used as DiscoveryListener of the search.
+	 */
+	private class Search implements DiscoveryListener {
+
+		private final RemoteDevice device;
+
+		private final Vector records = new Vector();
+
+		private int transID = 0;
+
+		private boolean completed = false;
+
+		private boolean cancelRequested = false;
+
+		int respCode = DiscoveryListener.SERVICE_SEARCH_ERROR;
+
+		Search(RemoteDevice device) {
+			this.device = device;
+		}
+
+		void run() {
+			long searchTimeout;
+			synchronized (ServiceSearchScheduler.this) {
+				if (canceled) {
+					respCode = DiscoveryListener.SERVICE_SEARCH_TERMINATED;
+					return;
+				}
+				searchTimeout = timeout;
+				searches.addElement(this);
+			}
+			try {
+				long end = (searchTimeout == 0) ? 0 : System.currentTimeMillis() + searchTimeout;
+				if (!start(end)) {
+					return;
+				}
+				long cancelEnd = 0;
+				synchronized (this) {
+					while (!completed) {
+						long now = System.currentTimeMillis();
+						if ((!cancelRequested) && (end != 0) && (now >= end)) {
+							DebugLog.debug("service search timeout", transID);
+							cancelRequested = true;
+							agent.cancelServiceSearch(transID);
+						}
+						if (cancelRequested) {
+							if (cancelEnd == 0) {
+								cancelEnd = now + CANCEL_TIMEOUT;
+							} else if (now >= cancelEnd) {
+								DebugLog.debug("service search not ended after cancel", transID);
+								respCode = DiscoveryListener.SERVICE_SEARCH_TERMINATED;
+								return;
+							}
+						}
+						long wakeup = (cancelEnd != 0) ? cancelEnd : end;
+						wait((wakeup == 0) ? 0 : Math.max(1, wakeup - now));
+					}
+				}
+			} catch (InterruptedException e) {
+				respCode = DiscoveryListener.SERVICE_SEARCH_TERMINATED;
+			} finally {
+				synchronized (ServiceSearchScheduler.this) {
+					searches.removeElement(this);
+				}
+			}
+		}
+
+		private boolean start(long end) throws InterruptedException {
+			long startEnd = System.currentTimeMillis() + START_TIMEOUT;
+			if ((end != 0) && (end < startEnd)) {
+				startEnd = end;
+			}
+			while (true) {
+				try {
+					int id = agent.searchServices(attrSet, uuidSet, device, this);
+					synchronized (this) {
+						transID = id;
+						if (cancelRequested) {
+							agent.cancelServiceSearch(transID);
+						}
+					}
+					return true;
+				} catch (BluetoothStateException e) {
+					// Transactions may be used by other application threads
+					synchronized (ServiceSearchScheduler.this) {
+						if (canceled) {
+							respCode = DiscoveryListener.SERVICE_SEARCH_TERMINATED;
+							return false;
+						}
+					}
+					if (System.currentTimeMillis() + START_RETRY_DELAY > startEnd) {
+						DebugLog.debug("searchServices can't start", e.getMessage());
+						respCode = (startEnd == end) ? DiscoveryListener.SERVICE_SEARCH_TERMINATED
+								: DiscoveryListener.SERVICE_SEARCH_ERROR;
+						return false;
+					}
+					Thread.sleep(START_RETRY_DELAY);
+				}
+			}
+		}
+
+		synchronized void cancel() {
+			if (cancelRequested) {
+				return;
+			}
+			cancelRequested = true;
+			if (transID != 0) {
+				agent.cancelServiceSearch(transID);
+			}
+			notifyAll();
+		}
+
+		synchronized ServiceRecord[] getServiceRecords() {
+			ServiceRecord[] servRecord = new ServiceRecord[records.size()];
+			records.copyInto(servRecord);
+			return servRecord;
+		}
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+		}
+
+		public void inquiryCompleted(int discType) {
+		}
+
+		public synchronized void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+			for (int i = 0; i < servRecord.length; i++) {
+				records.addElement(servRecord[i]);
+			}
+		}
+
+		public synchronized void serviceSearchCompleted(int transID, int respCode) {
+			this.respCode = respCode;
+			completed = true;
+			notifyAll();
+		}
+	}
+}
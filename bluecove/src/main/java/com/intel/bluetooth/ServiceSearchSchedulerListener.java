@@ -0,0 +1,51 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+
+/**
+ * Receives results of service search scheduled by {@link ServiceSearchScheduler}.
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public interface ServiceSearchSchedulerListener {
+
+	/**
+	 * Called on scheduler worker thread when service search on the device is completed.
+	 * 
+	 * @param device
+	 *            the remote device
+	 * @param servRecord
+	 *            service records found, empty array if none
+	 * @param respCode
+	 *            one of DiscoveryListener.SERVICE_SEARCH_* response codes,
+	 *            <code>SERVICE_SEARCH_TERMINATED</code> when search timed out or scheduler was canceled
+	 */
+	public void serviceSearchCompleted(RemoteDevice device, ServiceRecord[] servRecord, int respCode);
+
+}
@@ -0,0 +1,392 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.bluetooth.BluetoothStateException;
+import javax.bluetooth.DeviceClass;
+import javax.bluetooth.DiscoveryListener;
+import javax.bluetooth.RemoteDevice;
+import javax.bluetooth.ServiceRecord;
+
+/**
+ * Implementation of DiscoveryAgent.startInquiry() when property "bluecove.inquiry.shared" is set.
+ * <p>
+ * One inquiry is run by the stack for all listeners. Listener that started the inquiry receives the results as usual.
+ * Listener joining the running inquiry receives devices discovered from that moment, the inquiry is repeated when
+ * completed so the listener receives the results of complete inquiry. Device is reported to each listener once.
+ * Inquiries with different access code are run one after another.
+ * 
+ * <p>
+ * <b><u>Your application should not use this class directly.</u></b>
+ * 
+ * @see BlueCoveConfigProperties#PROPERTY_INQUIRY_SHARED
+ */
+public class SharedInquiry {
+
+	/**
+	 * Stack may still finish previous inquiry when next one is started.
+	 */
+	private static final int START_RETRY_COUNT = 10;
+
+	private static final long START_RETRY_DELAY = 100;
+
+	private static final Hashtable instances = new Hashtable();
+
+	private static int threadNumber;
+
+	private final BluetoothStack stack;
+
+	private final Vector participants = new Vector();
+
+	private Inquiry currentInquiry;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	public static boolean startInquiry(BluetoothStack stack, int accessCode, DiscoveryListener listener)
+			throws BluetoothStateException {
+		if (!BlueCoveImpl.getConfigProperty(stack, BlueCoveConfigProperties.PROPERTY_INQUIRY_SHARED, false)) {
+			return stack.startInquiry(accessCode, listener);
+		}
+		SharedInquiry shared;
+		synchronized (instances) {
+			shared = (SharedInquiry) instances.get(stack);
+			if (shared == null) {
+				shared = new SharedInquiry(stack);
+				instances.put(stack, shared);
+			}
+		}
+		return shared.start(accessCode, listener);
+	}
+
+	public static boolean cancelInquiry(BluetoothStack stack, DiscoveryListener listener) {
+		SharedInquiry shared;
+		synchronized (instances) {
+			shared = (SharedInquiry) instances.get(stack);
+		}
+		if ((shared != null) && shared.cancel(listener)) {
+			return true;
+		}
+		return stack.cancelInquiry(listener);
+	}
+
+	private SharedInquiry(BluetoothStack stack) {
+		this.stack = stack;
+	}
+
+	private synchronized boolean start(int accessCode, DiscoveryListener listener) throws BluetoothStateException {
+		if (findParticipant(listener) != null) {
+			throw new BluetoothStateException("Inquiry already started by this listener");
+		}
+		// Participants waiting without current inquiry are started by runNext() after previous inquiry is completed
+		boolean nextPending = !participants.isEmpty();
+		Participant participant = new Participant(accessCode, listener);
+		participants.addElement(participant);
+		if (currentInquiry != null) {
+			if ((currentInquiry.accessCode == accessCode) && (!currentInquiry.canceled)) {
+				participant.inquiry = currentInquiry;
+				DebugLog.debug("join running inquiry");
+			} else {
+				DebugLog.debug("inquiry queued");
+			}
+			return true;
+		} else if (nextPending) {
+			DebugLog.debug("inquiry queued, next pending");
+			return true;
+		}
+		boolean started = false;
+		try {
+			started = startStackInquiry(accessCode);
+		} finally {
+			if (!started) {
+				participants.removeElement(participant);
+				Vector failed = stackInquiryFailed();
+				if (!failed.isEmpty()) {
+					// Notify others on separate thread
+					startNext(failed);
+				}
+			}
+		}
+		return started;
+	}
+
+	/**
+	 * Called with lock held.
+	 */
+	private boolean startStackInquiry(int accessCode) throws BluetoothStateException {
+		Inquiry inquiry = new Inquiry(accessCode);
+		currentInquiry = inquiry;
+		for (Enumeration en = participants.elements(); en.hasMoreElements();) {
+			Participant p = (Participant) en.nextElement();
+			if ((p.inquiry == null) && (p.accessCode == accessCode)) {
+				p.inquiry = inquiry;
+				p.covered = true;
+			}
+		}
+		DebugLog.debug("start shared inquiry", participants.size());
+		return stack.startInquiry(accessCode, inquiry);
+	}
+
+	/**
+	 * Called with lock held.
+	 * 
+	 * @return participants to be notified about the error
+	 */
+	private Vector stackInquiryFailed() {
+		Vector failed = new Vector();
+		if (currentInquiry == null) {
+			return failed;
+		}
+		for (Enumeration en = copy(participants).elements(); en.hasMoreElements();) {
+			Participant p = (Participant) en.nextElement();
+			if (p.inquiry == currentInquiry) {
+				participants.removeElement(p);
+				failed.addElement(p);
+			}
+		}
+		currentInquiry = null;
+		return failed;
+	}
+
+	private boolean cancel(DiscoveryListener listener) {
+		Participant participant;
+		Inquiry cancel = null;
+		synchronized (this) {
+			participant = findParticipant(listener);
+			if (participant == null) {
+				return false;
+			}
+			participants.removeElement(participant);
+			if ((participant.inquiry != null) && (participant.inquiry == currentInquiry)) {
+				boolean used = false;
+				for (Enumeration en = participants.elements(); en.hasMoreElements();) {
+					if (((Participant) en.nextElement()).inquiry == currentInquiry) {
+						used = true;
+						break;
+					}
+				}
+				if (!used) {
+					currentInquiry.canceled = true;
+					cancel = currentInquiry;
+				}
+			}
+		}
+		if (cancel != null) {
+			DebugLog.debug("cancel shared inquiry");
+			stack.cancelInquiry(cancel);
+		}
+		participant.listener.inquiryCompleted(DiscoveryListener.INQUIRY_TERMINATED);
+		return true;
+	}
+
+	private void deviceDiscovered(Inquiry inquiry, RemoteDevice btDevice, DeviceClass cod) {
+		Vector deliver = new Vector();
+		synchronized (this) {
+			Long address = new Long(RemoteDeviceHelper.getAddress(btDevice));
+			for (Enumeration en = participants.elements(); en.hasMoreElements();) {
+				Participant p = (Participant) en.nextElement();
+				if ((p.inquiry == inquiry) && (!p.discovered.containsKey(address))) {
+					p.discovered.put(address, address);
+					deliver.addElement(p);
+				}
+			}
+		}
+		for (Enumeration en = deliver.elements(); en.hasMoreElements();) {
+			((Participant) en.nextElement()).listener.deviceDiscovered(btDevice, cod);
+		}
+	}
+
+	private void inquiryCompleted(Inquiry inquiry, int discType) {
+		Vector completed = new Vector();
+		boolean next;
+		synchronized (this) {
+			if (inquiry == currentInquiry) {
+				currentInquiry = null;
+			}
+			for (Enumeration en = copy(participants).elements(); en.hasMoreElements();) {
+				Participant p = (Participant) en.nextElement();
+				if (p.inquiry != inquiry) {
+					continue;
+				}
+				if (p.covered || (discType != DiscoveryListener.INQUIRY_COMPLETED)) {
+					participants.removeElement(p);
+					completed.addElement(p);
+				} else {
+					// Joined running inquiry, continue with next one
+					p.inquiry = null;
+				}
+			}
+			next = (currentInquiry == null) && (!participants.isEmpty());
+		}
+		for (Enumeration en = completed.elements(); en.hasMoreElements();) {
+			((Participant) en.nextElement()).listener.inquiryCompleted(discType);
+		}
+		if (next) {
+			startNext(null);
+		}
+	}
+
+	/**
+	 * Start next inquiry for waiting participants on separate thread, the stack callback thread may still be used by
+	 * previous inquiry.
+	 */
+	private void startNext(final Vector failed) {
+		WorkerThreadPool.execute("SharedInquiry-" + nextThreadNum(), new Runnable() {
+			public void run() {
+				BlueCoveImpl.setThreadBluetoothStack(stack);
+				notifyFailed(failed);
+				runNext();
+			}
+		});
+	}
+
+	private void runNext() {
+		int retry = 0;
+		while (true) {
+			Vector failed;
+			synchronized (this) {
+				if ((currentInquiry != null) || participants.isEmpty()) {
+					return;
+				}
+				int accessCode = ((Participant) participants.firstElement()).accessCode;
+				BluetoothStateException error = null;
+				boolean started = false;
+				try {
+					started = startStackInquiry(accessCode);
+				} catch (BluetoothStateException e) {
+					error = e;
+				}
+				if (started) {
+					return;
+				}
+				if ((error != null) && (retry < START_RETRY_COUNT)) {
+					// Try again with the same participants
+					for (Enumeration en = participants.elements(); en.hasMoreElements();) {
+						Participant p = (Participant) en.nextElement();
+						if (p.inquiry == currentInquiry) {
+							p.inquiry = null;
+						}
+					}
+					currentInquiry = null;
+					failed = null;
+				} else {
+					DebugLog.error("shared inquiry not started", (error == null) ? "" : error.getMessage());
+					failed = stackInquiryFailed();
+				}
+			}
+			if (failed == null) {
+				retry++;
+				try {
+					Thread.sleep(START_RETRY_DELAY);
+				} catch (InterruptedException e) {
+					return;
+				}
+			} else {
+				retry = 0;
+				notifyFailed(failed);
+			}
+		}
+	}
+
+	private void notifyFailed(Vector failed) {
+		if (failed == null) {
+			return;
+		}
+		for (Enumeration en = failed.elements(); en.hasMoreElements();) {
+			((Participant) en.nextElement()).listener.inquiryCompleted(DiscoveryListener.INQUIRY_ERROR);
+		}
+	}
+
+	private Participant findParticipant(DiscoveryListener listener) {
+		for (Enumeration en = participants.elements(); en.hasMoreElements();) {
+			Participant p = (Participant) en.nextElement();
+			if (p.listener == listener) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	private static Vector copy(Vector v) {
+		Vector c = new Vector(v.size());
+		for (Enumeration en = v.elements(); en.hasMoreElements();) {
+			c.addElement(en.nextElement());
+		}
+		return c;
+	}
+
+	private static class Participant {
+
+		private final int accessCode;
+
+		private final DiscoveryListener listener;
+
+		private final Hashtable discovered = new Hashtable();
+
+		/**
+		 * Inquiry delivering devices to this participant, <code>null</code> while waiting for next inquiry.
+		 */
+		private Inquiry inquiry;
+
+		/**
+		 * Participant was waiting when the inquiry was started.
+		 */
+		private boolean covered;
+
+		Participant(int accessCode, DiscoveryListener listener) {
+			this.accessCode = accessCode;
+			this.listener = listener;
+		}
+	}
+
+	private class Inquiry implements DiscoveryListener {
+
+		private final int accessCode;
+
+		private boolean canceled = false;
+
+		Inquiry(int accessCode) {
+			this.accessCode = accessCode;
+		}
+
+		public void deviceDiscovered(RemoteDevice btDevice, DeviceClass cod) {
+			SharedInquiry.this.deviceDiscovered(this, btDevice, cod);
+		}
+
+		public void inquiryCompleted(int discType) {
+			SharedInquiry.this.inquiryCompleted(this, discType);
+		}
+
+		public void servicesDiscovered(int transID, ServiceRecord[] servRecord) {
+		}
+
+		public void serviceSearchCompleted(int transID, int respCode) {
+		}
+	}
+}
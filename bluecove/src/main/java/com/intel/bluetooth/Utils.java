@@ -84,13 +84,16 @@ public abstract class Utils {
 		if (uuid == null) {
 			return -1;
 		}
-		String str = uuid.toString().toUpperCase();
-		int shortIdx = str.indexOf(BluetoothConsts.SHORT_UUID_BASE);
-		if ((shortIdx != -1) && (shortIdx + BluetoothConsts.SHORT_UUID_BASE.length() == str.length())) {
-			// This is short 16-bit or 32-bit UUID
-			return Long.parseLong(str.substring(0, shortIdx), 16);
+		String str = uuid.toString();
+		if (!str.regionMatches(true, 8, BluetoothConsts.SHORT_UUID_BASE, 0, BluetoothConsts.SHORT_UUID_BASE.length())) {
+			return -1;
+		}
+		// This is short 16-bit or 32-bit UUID
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 4) | Character.digit(str.charAt(i), 16);
 		}
-		return -1;
+		return value;
 	}
 
 	static boolean is32Bit(UUID uuid) {
@@ -174,12 +177,16 @@ public abstract class Utils {
 	}
 
 	static String newStringUTF8(byte bytes[]) {
+		return newStringUTF8(bytes, 0, bytes.length);
+	}
+
+	static String newStringUTF8(byte bytes[], int off, int len) {
 		try {
-			return new String(bytes, "UTF-8");
+			return new String(bytes, off, len, "UTF-8");
 		} catch (IllegalArgumentException e) {
-			return new String(bytes);
+			return new String(bytes, off, len);
 		} catch (UnsupportedEncodingException e) {
-			return new String(bytes);
+			return new String(bytes, off, len);
 		}
 	}
 
@@ -194,12 +201,16 @@ public abstract class Utils {
 	}
 
 	static String newStringASCII(byte bytes[]) {
+		return newStringASCII(bytes, 0, bytes.length);
+	}
+
+	static String newStringASCII(byte bytes[], int off, int len) {
 		try {
-			return new String(bytes, "US-ASCII");
+			return new String(bytes, off, len, "US-ASCII");
 		} catch (IllegalArgumentException e) {
-			return new String(bytes);
+			return new String(bytes, off, len);
 		} catch (UnsupportedEncodingException e) {
-			return new String(bytes);
+			return new String(bytes, off, len);
 		}
 	}
 
@@ -247,23 +258,46 @@ public abstract class Utils {
 		}
 	}
 
-	static class TimerThread extends Thread {
+	static class TimerThread implements Runnable {
 
 		long delay;
 
 		Runnable run;
 
+		private boolean canceled = false;
+
 		public TimerThread(long delay, Runnable run) {
 			this.delay = delay;
 			this.run = run;
 		}
 
 		public void run() {
-			try {
-				Thread.sleep(delay);
-				run.run();
-			} catch (InterruptedException e) {
+			long end = System.currentTimeMillis() + delay;
+			synchronized (this) {
+				while (!canceled) {
+					long left = end - System.currentTimeMillis();
+					if (left <= 0) {
+						break;
+					}
+					try {
+						wait(left);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (canceled) {
+					return;
+				}
 			}
+			run.run();
+		}
+
+		/**
+		 * Cancel the task if it has not been executed yet.
+		 */
+		synchronized void cancel() {
+			canceled = true;
+			notifyAll();
 		}
 
 	}
@@ -279,8 +313,7 @@ public abstract class Utils {
 	 */
 	static TimerThread schedule(final long delay, final Runnable run) {
 		TimerThread t = new TimerThread(delay, run);
-		UtilsJavaSE.threadSetDaemon(t);
-		t.start();
+		WorkerThreadPool.execute("TimerThread", t);
 		return t;
 	}
 
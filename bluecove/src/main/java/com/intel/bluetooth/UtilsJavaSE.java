@@ -181,6 +181,13 @@ public class UtilsJavaSE {
 		}
 	}
 
+	static void threadSetName(Thread thread, String name) {
+		try {
+			thread.setName(name);
+		} catch (Throwable midp) {
+		}
+	}
+
 	static boolean runtimeAddShutdownHook(Thread thread) {
 		try {
 			// since Java 1.3
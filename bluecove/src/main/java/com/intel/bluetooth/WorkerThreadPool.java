@@ -0,0 +1,220 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import java.lang.reflect.Method;
+import java.util.Vector;
+
+/**
+ * Threads used by BlueCove for device inquiry, service search, OBEX server sessions and timers.
+ * <p>
+ * Finished threads are kept idle and reused by next task. Tasks are never queued: when there are no idle threads new
+ * thread is created, so the task waiting for another one can't block the pool. Only threads of the caller ThreadGroup
+ * are reused. The thread is named after the task while it runs.
+ * <p>
+ * On Java 21 virtual threads can be used instead of the pool, see property "bluecove.thread_pool.virtual".
+ * 
+ * <p>
+ * <b><u>Your application should not use this class directly.</u></b>
+ * 
+ * @see BlueCoveConfigProperties#PROPERTY_THREAD_POOL_SIZE
+ */
+public class WorkerThreadPool {
+
+	private static final String WORKER_NAME = "BlueCoveWorker-";
+
+	private static final Vector idleWorkers = new Vector();
+
+	private static int threadNumber;
+
+	private static boolean virtualThreadsChecked = false;
+
+	private static Method ofVirtual;
+
+	private static Method builderName;
+
+	private static Method builderUnstarted;
+
+	private WorkerThreadPool() {
+	}
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * Run the task on pooled daemon thread.
+	 * 
+	 * @param name
+	 *            thread name while the task runs
+	 * @param task
+	 *            the task
+	 */
+	public static void execute(String name, Runnable task) {
+		if (BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_THREAD_POOL_VIRTUAL, false)) {
+			Thread t = createVirtualThread(name, task);
+			if (t != null) {
+				t.start();
+				return;
+			}
+		}
+		int size = BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_THREAD_POOL_SIZE,
+				BlueCoveConfigProperties.PROPERTY_THREAD_POOL_SIZE_DEFAULT);
+		if (size <= 0) {
+			Thread t = new Thread(task, name);
+			UtilsJavaSE.threadSetDaemon(t);
+			t.start();
+			return;
+		}
+		// Thread stays in ThreadGroup of the caller, application may wait for threads of its group
+		ThreadGroup group = Thread.currentThread().getThreadGroup();
+		synchronized (idleWorkers) {
+			for (int i = idleWorkers.size() - 1; i >= 0; i--) {
+				Worker w = (Worker) idleWorkers.elementAt(i);
+				if (w.getThreadGroup() == group) {
+					idleWorkers.removeElementAt(i);
+					w.assign(name, task);
+					return;
+				}
+			}
+		}
+		Worker w = new Worker(name, task);
+		UtilsJavaSE.threadSetDaemon(w);
+		w.start();
+	}
+
+	/**
+	 * @return number of idle threads kept for reuse
+	 */
+	static int getIdleCount() {
+		return idleWorkers.size();
+	}
+
+	private static synchronized Thread createVirtualThread(String name, Runnable task) {
+		if (!virtualThreadsChecked) {
+			virtualThreadsChecked = true;
+			try {
+				ofVirtual = Thread.class.getMethod("ofVirtual", new Class[0]);
+				Class builderClass = Class.forName("java.lang.Thread$Builder");
+				builderName = builderClass.getMethod("name", new Class[] { String.class });
+				builderUnstarted = builderClass.getMethod("unstarted", new Class[] { Runnable.class });
+			} catch (Throwable e) {
+				DebugLog.debug("virtual threads not available", e.toString());
+				ofVirtual = null;
+			}
+		}
+		if (ofVirtual == null) {
+			return null;
+		}
+		try {
+			Object builder = ofVirtual.invoke(null, new Object[0]);
+			builder = builderName.invoke(builder, new Object[] { name });
+			return (Thread) builderUnstarted.invoke(builder, new Object[] { task });
+		} catch (Throwable e) {
+			DebugLog.error("create virtual thread", e);
+			return null;
+		}
+	}
+
+	private static class Worker extends Thread {
+
+		private final String workerName = WORKER_NAME + nextThreadNum();
+
+		private String taskName;
+
+		private Runnable task;
+
+		Worker(String name, Runnable task) {
+			super(name);
+			this.taskName = name;
+			this.task = task;
+		}
+
+		/**
+		 * Called with idleWorkers lock held.
+		 */
+		synchronized void assign(String name, Runnable task) {
+			this.taskName = name;
+			this.task = task;
+			notifyAll();
+		}
+
+		public void run() {
+			while (true) {
+				Runnable r;
+				synchronized (this) {
+					r = task;
+					task = null;
+				}
+				UtilsJavaSE.threadSetName(this, taskName);
+				try {
+					r.run();
+				} catch (Throwable e) {
+					DebugLog.error(taskName, e);
+				}
+				BlueCoveImpl.clearThreadBluetoothStack();
+				UtilsJavaSE.threadSetName(this, workerName);
+				if (!waitForTask()) {
+					return;
+				}
+			}
+		}
+
+		private boolean waitForTask() {
+			int size = BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_THREAD_POOL_SIZE,
+					BlueCoveConfigProperties.PROPERTY_THREAD_POOL_SIZE_DEFAULT);
+			long idle = 1000L * BlueCoveImpl.getConfigProperty(BlueCoveConfigProperties.PROPERTY_THREAD_POOL_IDLE,
+					BlueCoveConfigProperties.PROPERTY_THREAD_POOL_IDLE_DEFAULT);
+			synchronized (idleWorkers) {
+				if (idleWorkers.size() >= size) {
+					return false;
+				}
+				idleWorkers.addElement(this);
+			}
+			long end = System.currentTimeMillis() + idle;
+			synchronized (this) {
+				while (task == null) {
+					long left = end - System.currentTimeMillis();
+					if (left <= 0) {
+						break;
+					}
+					try {
+						wait(left);
+					} catch (InterruptedException e) {
+						break;
+					}
+				}
+			}
+			synchronized (idleWorkers) {
+				synchronized (this) {
+					if (task != null) {
+						return true;
+					}
+					idleWorkers.removeElement(this);
+					return false;
+				}
+			}
+		}
+	}
+}
@@ -26,8 +26,11 @@
 package com.intel.bluetooth.obex;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import javax.microedition.io.Connection;
+import javax.obex.Operation;
 
 /**
  * Allow access to BlueCove OBEX internals. Non JSR-82.
@@ -70,6 +73,161 @@ public abstract class BlueCoveOBEX {
         }
     }
 
+    /**
+     * Create OBEX reliable session. Should be called before clientSession.connect(headers). Each packet in the session
+     * is sent with Session-Sequence-Number header and the session can be resumed on new connection when the transport
+     * connection is broken or suspended.
+     * 
+     * @param c
+     *            the OBEX client connection
+     * @param timeout
+     *            time in seconds the suspended session is kept by server, <code>-1</code> for infinite
+     * @return the session ID used to resume the session
+     * @throws IOException
+     *             if server does not support reliable sessions
+     */
+    public static byte[] createReliableSession(Connection c, long timeout) throws IOException {
+        if (timeout < 0) {
+            timeout = OBEXReliableSession.TIMEOUT_INFINITE;
+        }
+        return clientSession(c).createReliableSession(timeout);
+    }
+
+    /**
+     * Suspend OBEX reliable session and close the connection.
+     * 
+     * @param c
+     *            the OBEX client connection
+     * @throws IOException
+     */
+    public static void suspendReliableSession(Connection c) throws IOException {
+        clientSession(c).suspendReliableSession();
+    }
+
+    /**
+     * Resume suspended or broken OBEX reliable session on new connection. The OBEX connection state is restored and
+     * clientSession.connect(headers) should not be called.
+     * 
+     * @param c
+     *            the new OBEX client connection to the same server
+     * @param sessionID
+     *            the value returned by createReliableSession
+     * @throws IOException
+     */
+    public static void resumeReliableSession(Connection c, byte[] sessionID) throws IOException {
+        if (sessionID == null) {
+            throw new NullPointerException("sessionID is null");
+        }
+        clientSession(c).resumeReliableSession(sessionID);
+    }
+
+    /**
+     * Close OBEX reliable session, session state is removed on client and server.
+     * 
+     * @param c
+     *            the OBEX client connection
+     * @throws IOException
+     */
+    public static void closeReliableSession(Connection c) throws IOException {
+        clientSession(c).closeReliableSession();
+    }
+
+    /**
+     * Once reliable session is resumed this will return the number of Body bytes of the interrupted operation received
+     * by peer. Application should continue the transfer from this offset. The value is reset when the next operation
+     * completes.
+     * 
+     * @param c
+     *            the OBEX client connection or the Operation received by ServerRequestHandler
+     * @return the byte offset, <code>0</code> if there are no interrupted operation
+     */
+    public static long getReliableSessionResumeOffset(Connection c) {
+        if (c instanceof OBEXSessionBase) {
+            return ((OBEXSessionBase) c).getResumeOffset();
+        } else if (c instanceof OBEXServerOperation) {
+            return ((OBEXServerOperation) c).session.getResumeOffset();
+        } else {
+            throw new IllegalArgumentException("Not a BlueCove OBEX Session " + c.getClass().getName());
+        }
+    }
+
+    /**
+     * Statistics of OBEX session, counters are maintained for all client and server sessions.
+     * 
+     * @param c
+     *            the OBEX client connection or the Operation received by ServerRequestHandler
+     * @return copy of current session statistics
+     */
+    public static OBEXSessionStatistics getStatistics(Connection c) {
+        if (c instanceof OBEXSessionBase) {
+            return ((OBEXSessionBase) c).getStatistics();
+        } else if (c instanceof OBEXServerOperation) {
+            return ((OBEXServerOperation) c).session.getStatistics();
+        } else {
+            throw new IllegalArgumentException("Not a BlueCove OBEX Session " + c.getClass().getName());
+        }
+    }
+
+    /**
+     * Register the listener receiving statistics of all client and server OBEX sessions when they are closed. Can be
+     * used to export the values to application monitoring.
+     * 
+     * @param listener
+     *            the listener or <code>null</code> to remove the registered one
+     */
+    public static void setStatisticsListener(OBEXSessionStatisticsListener listener) {
+        OBEXSessionBase.statisticsListener = listener;
+    }
+
+    /**
+     * Read the data of PUT operation on server and write it to the given stream on separate thread. Allows to overlap
+     * Bluetooth and disk I/O for big uploads. Should be used together with java system property
+     * "bluecove.obex.receive_ahead" so next packets are received while the data is written.
+     * <p>
+     * The stream <code>out</code> is closed when all data has been written.
+     * 
+     * @param operation
+     *            the Operation received by ServerRequestHandler.onPut
+     * @param out
+     *            the destination, e.g. FileOutputStream
+     * @param segments
+     *            number of data segments queued for writing, when the queue is full reading from operation is delayed
+     * @return the number of bytes received
+     * @throws IOException
+     */
+    public static long receiveBody(Operation operation, OutputStream out, int segments) throws IOException {
+        int segmentSize = OBEXOperationCodes.OBEX_DEFAULT_MTU;
+        if (operation instanceof OBEXServerOperation) {
+            segmentSize = ((OBEXServerOperation) operation).session.mtu;
+        }
+        InputStream is = operation.openInputStream();
+        OutputStream sink = new OBEXWriteBehindOutputStream(out, segments, segmentSize);
+        long count = 0;
+        try {
+            byte[] buffer = new byte[segmentSize];
+            int len;
+            while ((len = is.read(buffer, 0, buffer.length)) != -1) {
+                sink.write(buffer, 0, len);
+                count += len;
+            }
+        } finally {
+            try {
+                is.close();
+            } finally {
+                sink.close();
+            }
+        }
+        return count;
+    }
+
+    private static OBEXClientSessionImpl clientSession(Connection c) {
+        if (c instanceof OBEXClientSessionImpl) {
+            return (OBEXClientSessionImpl) c;
+        } else {
+            throw new IllegalArgumentException("Not a BlueCove OBEX Client Session " + c.getClass().getName());
+        }
+    }
+
     /**
      * ConvertOBEX SUCCESS response code to human readable string, useful for debugging
      * applications.
@@ -300,7 +300,7 @@ class OBEXAuthentication {
 		}
 	}
 
-	private static synchronized byte[] createNonce() {
+	static synchronized byte[] createNonce() {
 		MD5DigestWrapper md5 = new MD5DigestWrapper();
 		md5.update(createTimestamp());
 		md5.update(COLUMN);
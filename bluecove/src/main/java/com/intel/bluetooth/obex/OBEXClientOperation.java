@@ -84,6 +84,7 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 		this.operationInProgress = false;
 		this.lock = new Object();
 		this.inputStream = new OBEXOperationInputStream(this);
+		session.transferStarted();
 		startOperation(sendHeaders);
 	}
 
@@ -136,6 +137,7 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 		}
 		OBEXHeaderSetImpl dataHeaders = OBEXSessionBase.createOBEXHeaderSetImpl();
 		dataHeaders.setHeader(dataHeaderID, buffer);
+		session.transferDataSent(buffer.length);
 		exchangePacket(dataHeaders);
 	}
 
@@ -155,7 +157,7 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 		}
 	}
 
-	private void exchangePacket(OBEXHeaderSetImpl headers) throws IOException {
+	void exchangePacket(OBEXHeaderSetImpl headers) throws IOException {
 		boolean success = false;
 		try {
 			session.writePacket(this.operationId, headers);
@@ -185,6 +187,9 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 				processIncommingData(dataHeaders, true);
 				this.operationInProgress = false;
 				this.operationInContinue = false;
+				if (requestEnded) {
+					session.transferCompleted();
+				}
 				break;
 			case OBEXOperationCodes.OBEX_RESPONSE_CONTINUE:
 				processIncommingHeaders(dataHeaders);
@@ -231,18 +236,16 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 		this.replyHeaders = dataHeaders;
 	}
 
-	protected void processIncommingData(HeaderSet dataHeaders, boolean eof) throws IOException {
-		byte[] data = (byte[]) dataHeaders.getHeader(OBEXHeaderSetImpl.OBEX_HDR_BODY);
-		if (data == null) {
-			data = (byte[]) dataHeaders.getHeader(OBEXHeaderSetImpl.OBEX_HDR_BODY_END);
-			if (data != null) {
-				finalBodyReceived = true;
-				eof = true;
-			}
+	protected void processIncommingData(OBEXHeaderSetImpl dataHeaders, boolean eof) throws IOException {
+		int dataHeaderID = dataHeaders.getDataHeaderID();
+		if (dataHeaderID == OBEXHeaderSetImpl.OBEX_HDR_BODY_END) {
+			finalBodyReceived = true;
+			eof = true;
 		}
-		if (data != null) {
-			DebugLog.debug("client received Data eof: " + eof + " len: ", data.length);
-			inputStream.appendData(data, eof);
+		if (dataHeaderID != -1) {
+			int len = dataHeaders.appendData(dataHeaderID, inputStream, eof);
+			session.transferDataReceived(len);
+			DebugLog.debug("client received Data eof: " + eof + " len: ", len);
 		} else if (eof) {
 			inputStream.appendData(null, eof);
 		}
@@ -264,9 +267,25 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 			}
 			this.inputStream.close();
 		}
+		stopReceiveAhead(false);
+		if ((!this.operationInProgress) && (!this.operationInContinue)) {
+			// Ended while the packets were received ahead
+			this.isClosed = true;
+			closeStream();
+			return;
+		}
 		writeAbort();
 	}
 
+	/**
+	 * Wait for packet exchange running in other thread to complete.
+	 *
+	 * @param receiveAll
+	 *            continue to receive all remaining data
+	 */
+	protected void stopReceiveAhead(boolean receiveAll) throws IOException {
+	}
+
 	private void writeAbort() throws IOException {
 		try {
 			session.writePacket(OBEXOperationCodes.ABORT, null);
@@ -294,6 +313,7 @@ abstract class OBEXClientOperation implements Operation, OBEXOperation, OBEXOper
 	}
 
 	private void receiveOperationEnd() throws IOException {
+		stopReceiveAhead(true);
 		while (!isClosed() && (operationInContinue)) {
 			DebugLog.debug("operation expects operation end");
 			receiveData(this.inputStream);
@@ -26,11 +26,36 @@ package com.intel.bluetooth.obex;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
 import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.WorkerThreadPool;
 
-class OBEXClientOperationGet extends OBEXClientOperation {
+class OBEXClientOperationGet extends OBEXClientOperation implements Runnable {
+
+	private static int threadNumber;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * Next packets are requested ahead of the application on separate thread, <code>false</code> when data received
+	 * synchronously.
+	 */
+	private boolean receiveAheadStarted = false;
+
+	private boolean receiveAheadRunning = false;
+
+	/**
+	 * Receive-ahead task has returned, guarded by receiveAheadLock.
+	 */
+	private boolean receiveAheadFinished = false;
+
+	private final Object receiveAheadLock = new Object();
+
+	private IOException receiveAheadError;
 
 	OBEXClientOperationGet(OBEXClientSessionImpl session, OBEXHeaderSetImpl sendHeaders) throws IOException {
 		super(session, OBEXOperationCodes.GET, sendHeaders);
@@ -49,9 +74,86 @@ class OBEXClientOperationGet extends OBEXClientOperation {
 		DebugLog.debug("openInputStream");
 		this.inputStreamOpened = true;
 		endRequestPhase();
+		startReceiveAhead();
 		return this.inputStream;
 	}
 
+	private void startReceiveAhead() {
+		if ((session.obexConnectionParams.receiveAhead <= 0) || (!operationInContinue) || errorReceived) {
+			return;
+		}
+		inputStream.setReceiveLimit(session.obexConnectionParams.receiveAhead * session.mtu);
+		receiveAheadRunning = true;
+		receiveAheadStarted = true;
+		WorkerThreadPool.execute("OBEXReceiveAheadThread-" + nextThreadNum(), this);
+	}
+
+	/**
+	 * Send next GET request as soon as the response is received while there is space in input stream buffer.
+	 */
+	public void run() {
+		try {
+			while (operationInContinue && (!errorReceived) && (!isClosed)) {
+				if (!inputStream.waitForSpace()) {
+					break;
+				}
+				exchangePacket(null);
+			}
+		} catch (IOException e) {
+			DebugLog.debug("receive-ahead error", e);
+			receiveAheadError = e;
+		} catch (Throwable e) {
+			DebugLog.error("receive-ahead error", e);
+			receiveAheadError = new IOException(e.toString());
+		} finally {
+			receiveAheadRunning = false;
+			// Wakeup reader waiting for data
+			inputStream.appendData(null, false);
+			synchronized (receiveAheadLock) {
+				receiveAheadFinished = true;
+				receiveAheadLock.notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.intel.bluetooth.obex.OBEXClientOperation#receiveData(com.intel.bluetooth.obex.OBEXOperationInputStream)
+	 */
+	public void receiveData(OBEXOperationInputStream is) throws IOException {
+		if (receiveAheadError != null) {
+			throw receiveAheadError;
+		}
+		if (receiveAheadRunning) {
+			is.waitForData();
+			return;
+		}
+		super.receiveData(is);
+	}
+
+	protected void stopReceiveAhead(boolean receiveAll) throws IOException {
+		if (!receiveAheadStarted) {
+			return;
+		}
+		if (receiveAll) {
+			inputStream.setReceiveLimit(0);
+		}
+		synchronized (receiveAheadLock) {
+			while (!receiveAheadFinished) {
+				try {
+					receiveAheadLock.wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+		}
+		receiveAheadStarted = false;
+		if (receiveAll && (receiveAheadError != null)) {
+			throw receiveAheadError;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -66,7 +168,7 @@ class OBEXClientOperationGet extends OBEXClientOperation {
 			throw new IOException("the request phase has already ended");
 		}
 		this.outputStreamOpened = true;
-		this.outputStream = new OBEXOperationOutputStream(session.mtu, this);
+		this.outputStream = new OBEXOperationOutputStream(session.getOperationMTU(), this);
 		return this.outputStream;
 	}
 
@@ -63,7 +63,7 @@ class OBEXClientOperationPut extends OBEXClientOperation {
 			throw new IOException("output already open");
 		}
 		this.outputStreamOpened = true;
-		this.outputStream = new OBEXOperationOutputStream(session.mtu, this);
+		this.outputStream = new OBEXOperationOutputStream(session.getOperationMTU(), this);
 		this.operationInProgress = true;
 		return this.outputStream;
 	}
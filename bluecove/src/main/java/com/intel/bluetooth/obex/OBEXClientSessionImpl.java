@@ -24,6 +24,7 @@
  */
 package com.intel.bluetooth.obex;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Vector;
 
@@ -235,6 +236,134 @@ public class OBEXClientSessionImpl extends OBEXSessionBase implements ClientSess
 		}
 	}
 
+	/**
+	 * Create reliable session, should be called before connect.
+	 * 
+	 * @param timeout
+	 *            in seconds the suspended session is kept by server
+	 * @return the session ID
+	 */
+	byte[] createReliableSession(long timeout) throws IOException {
+		if (this.reliableSession != null) {
+			throw new IOException("Reliable session already created");
+		}
+		if (isConnected) {
+			throw new IOException("Session already connected");
+		}
+		byte[] address = getLocalAddressBytes();
+		byte[] nonce = OBEXAuthentication.createNonce();
+		ByteArrayOutputStream params = new ByteArrayOutputStream();
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_OPCODE,
+				OBEXReliableSession.OPCODE_CREATE);
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_DEVICE_ADDRESS, address);
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_NONCE, nonce);
+		if (timeout != OBEXReliableSession.TIMEOUT_INFINITE) {
+			OBEXReliableSession.writeTimeoutParameter(params, timeout);
+		}
+		byte[] serverParams = sessionCommand(params);
+
+		byte[] serverAddress = OBEXReliableSession.readParameter(serverParams, OBEXReliableSession.TAG_DEVICE_ADDRESS);
+		byte[] serverNonce = OBEXReliableSession.readParameter(serverParams, OBEXReliableSession.TAG_NONCE);
+		if ((serverAddress == null) || (serverNonce == null)) {
+			throw new IOException("Invalid Session-Parameters received");
+		}
+		byte[] sessionID = OBEXReliableSession.createSessionID(address, nonce, serverAddress, serverNonce);
+		byte[] serverSessionID = OBEXReliableSession.readParameter(serverParams, OBEXReliableSession.TAG_SESSION_ID);
+		if ((serverSessionID != null) && (!OBEXAuthentication.equals(sessionID, serverSessionID))) {
+			throw new IOException("Invalid Session ID received");
+		}
+		OBEXReliableSession rs = new OBEXReliableSession(false);
+		rs.sessionID = sessionID;
+		rs.timeout = OBEXReliableSession.readTimeoutParameter(serverParams);
+		rs.attach(this);
+		OBEXReliableSession.register(rs);
+		this.reliableSession = rs;
+		DebugLog.debug("reliable session created");
+		byte[] id = new byte[sessionID.length];
+		System.arraycopy(sessionID, 0, id, 0, sessionID.length);
+		return id;
+	}
+
+	/**
+	 * Suspend reliable session and close the transport connection.
+	 */
+	void suspendReliableSession() throws IOException {
+		if (this.reliableSession == null) {
+			throw new IOException("No reliable session");
+		}
+		ByteArrayOutputStream params = new ByteArrayOutputStream();
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_OPCODE,
+				OBEXReliableSession.OPCODE_SUSPEND);
+		sessionCommand(params);
+		this.reliableSession.suspend(this);
+		this.reliableSession = null;
+		this.isConnected = false;
+		this.operation = null;
+		close();
+	}
+
+	/**
+	 * Resume suspended or broken reliable session on this new connection.
+	 */
+	void resumeReliableSession(byte[] sessionID) throws IOException {
+		if ((this.reliableSession != null) || isConnected) {
+			throw new IOException("Session already connected");
+		}
+		OBEXReliableSession rs = OBEXReliableSession.find(false, sessionID);
+		if (rs == null) {
+			throw new IOException("Reliable session not found");
+		}
+		ByteArrayOutputStream params = new ByteArrayOutputStream();
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_OPCODE,
+				OBEXReliableSession.OPCODE_RESUME);
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_DEVICE_ADDRESS, getLocalAddressBytes());
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_NONCE, OBEXAuthentication.createNonce());
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_ID, rs.sessionID);
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_NEXT_SEQUENCE_NUMBER, rs.nextSequenceNumber);
+		byte[] serverParams = sessionCommand(params);
+		rs.resume(this, OBEXReliableSession.readIntParameter(serverParams,
+				OBEXReliableSession.TAG_NEXT_SEQUENCE_NUMBER));
+		this.reliableSession = rs;
+	}
+
+	/**
+	 * Close reliable session, the OBEX connection remains open.
+	 */
+	void closeReliableSession() throws IOException {
+		if (this.reliableSession == null) {
+			throw new IOException("No reliable session");
+		}
+		ByteArrayOutputStream params = new ByteArrayOutputStream();
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_OPCODE,
+				OBEXReliableSession.OPCODE_CLOSE);
+		OBEXReliableSession.writeParameter(params, OBEXReliableSession.TAG_SESSION_ID, this.reliableSession.sessionID);
+		try {
+			sessionCommand(params);
+		} finally {
+			OBEXReliableSession.unregister(this.reliableSession);
+			this.reliableSession = null;
+		}
+	}
+
+	/**
+	 * Send SESSION command.
+	 * 
+	 * @return Session-Parameters received from server
+	 */
+	private byte[] sessionCommand(ByteArrayOutputStream params) throws IOException {
+		if ((this.operation != null) && (!this.operation.isClosed())) {
+			throw new IOException("Client is already in an operation");
+		}
+		writePacketWithFlags(OBEXOperationCodes.SESSION_FINAL, OBEXReliableSession.toHeaderBytes(params), null);
+		byte[] b = readPacket();
+		OBEXHeaderSetImpl responseHeaders = OBEXHeaderSetImpl.readHeaders(b[0], b, 3);
+		if (responseHeaders.getResponseCode() != ResponseCodes.OBEX_HTTP_OK) {
+			throw new IOException("Session command failed "
+					+ OBEXUtils.toStringObexResponseCodes(responseHeaders.getResponseCode()));
+		}
+		return responseHeaders.getSessionParameters();
+	}
+
 	public void setAuthenticator(Authenticator auth) {
 		if (auth == null) {
 			throw new NullPointerException("auth is null");
@@ -249,6 +378,11 @@ public class OBEXClientSessionImpl extends OBEXSessionBase implements ClientSess
                 this.operation = null;
             }
         } finally {
+            // Reliable session can be resumed on new connection
+            if (this.reliableSession != null) {
+                this.reliableSession.suspend(this);
+                this.reliableSession = null;
+            }
             // Close connection even if operation can't be closed.
             super.close();
         }
@@ -54,4 +54,12 @@ public class OBEXConnectionParams {
 	 * Java System property "bluecove.obex.mtu" can be used to define the value.
 	 */
 	public int mtu = OBEX_DEFAULT_MTU;
+
+	/**
+	 * Number of packets with operation data received ahead of the application, server PUT and client GET. 0 disables
+	 * receive-ahead.
+	 * 
+	 * Java System property "bluecove.obex.receive_ahead" can be used to define the value.
+	 */
+	public int receiveAhead = 0;
 }
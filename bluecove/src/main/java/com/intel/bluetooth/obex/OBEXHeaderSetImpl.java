@@ -29,7 +29,6 @@ import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.TimeZone;
 import java.util.Vector;
 
@@ -131,20 +130,53 @@ class OBEXHeaderSetImpl implements HeaderSet {
 
 	private int responseCode;
 
-	private Hashtable headerValues;
+	/**
+	 * Number of headers in the table
+	 */
+	private int headersCount;
+
+	/**
+	 * Header IDs in the order they were added or received
+	 */
+	private int[] headerIDs;
+
+	/**
+	 * Java value of the header or, while the header is not decoded, the received packet buffer
+	 */
+	private Object[] headerValues;
+
+	/**
+	 * Offset of not decoded header in received packet buffer, <code>-1</code> when Java value is available
+	 */
+	private int[] rawOffsets;
 
 	private Vector authResponses;
 
 	private Vector authChallenges;
 
+	/**
+	 * Received Session-Parameters header data
+	 */
+	private byte[] sessionParameters;
+
+	/**
+	 * Received Session-Sequence-Number or <code>-1</code>
+	 */
+	private int sessionSequenceNumber = -1;
+
 	private static final int NO_RESPONSE_CODE = Integer.MIN_VALUE;
 
+	private static final int INITIAL_TABLE_SIZE = 4;
+
 	OBEXHeaderSetImpl() {
 		this(NO_RESPONSE_CODE);
 	}
 
 	private OBEXHeaderSetImpl(int responseCode) {
-		this.headerValues = new Hashtable();
+		this.headersCount = 0;
+		this.headerIDs = new int[INITIAL_TABLE_SIZE];
+		this.headerValues = new Object[INITIAL_TABLE_SIZE];
+		this.rawOffsets = new int[INITIAL_TABLE_SIZE];
 		this.responseCode = responseCode;
 		this.authResponses = null;
 		this.authChallenges = null;
@@ -162,7 +194,7 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		}
 	}
 
-	private void validateHeaderID(int headerID) throws IllegalArgumentException {
+	private static void validateHeaderID(int headerID) throws IllegalArgumentException {
 		if (headerID < 0 || headerID > 0xff) {
 			throw new IllegalArgumentException("Expected header ID in range 0 to 255");
 		}
@@ -172,10 +204,66 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		}
 	}
 
+	private int indexOf(int headerID) {
+		for (int i = 0; i < headersCount; i++) {
+			if (headerIDs[i] == headerID) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void remove(int index) {
+		int tail = headersCount - index - 1;
+		if (tail > 0) {
+			System.arraycopy(headerIDs, index + 1, headerIDs, index, tail);
+			System.arraycopy(headerValues, index + 1, headerValues, index, tail);
+			System.arraycopy(rawOffsets, index + 1, rawOffsets, index, tail);
+		}
+		headersCount--;
+		headerValues[headersCount] = null;
+	}
+
+	/**
+	 * Put the value to the table.
+	 * 
+	 * @param headerID
+	 * @param value
+	 *            Java value or received packet buffer
+	 * @param rawOffset
+	 *            header offset in packet buffer or <code>-1</code> for Java value
+	 */
+	private synchronized void put(int headerID, Object value, int rawOffset) {
+		int index = indexOf(headerID);
+		if (index == -1) {
+			if (headersCount == headerIDs.length) {
+				int newSize = headersCount * 2;
+				int[] newIDs = new int[newSize];
+				Object[] newValues = new Object[newSize];
+				int[] newOffsets = new int[newSize];
+				System.arraycopy(headerIDs, 0, newIDs, 0, headersCount);
+				System.arraycopy(headerValues, 0, newValues, 0, headersCount);
+				System.arraycopy(rawOffsets, 0, newOffsets, 0, headersCount);
+				headerIDs = newIDs;
+				headerValues = newValues;
+				rawOffsets = newOffsets;
+			}
+			index = headersCount++;
+			headerIDs[index] = headerID;
+		}
+		headerValues[index] = value;
+		rawOffsets[index] = rawOffset;
+	}
+
 	public void setHeader(int headerID, Object headerValue) {
 		validateHeaderID(headerID);
 		if (headerValue == null) {
-			headerValues.remove(new Integer(headerID));
+			synchronized (this) {
+				int index = indexOf(headerID);
+				if (index != -1) {
+					remove(index);
+				}
+			}
 		} else {
 			// Validate Java value Type
 			if ((headerID == OBEX_HDR_TIME) || (headerID == OBEX_HDR_TIME2)) {
@@ -216,13 +304,22 @@ class OBEXHeaderSetImpl implements HeaderSet {
 					throw new IllegalArgumentException("Unsupported encoding " + (headerID & OBEX_HDR_HI_MASK));
 				}
 			}
-			headerValues.put(new Integer(headerID), headerValue);
+			put(headerID, headerValue, -1);
 		}
 	}
 
-	public Object getHeader(int headerID) throws IOException {
+	public synchronized Object getHeader(int headerID) throws IOException {
 		validateHeaderID(headerID);
-		return headerValues.get(new Integer(headerID));
+		int index = indexOf(headerID);
+		if (index == -1) {
+			return null;
+		}
+		if (rawOffsets[index] != -1) {
+			// Decode the value on first access
+			headerValues[index] = decodeHeader(headerID, (byte[]) headerValues[index], rawOffsets[index]);
+			rawOffsets[index] = -1;
+		}
+		return headerValues[index];
 	}
 
 	/*
@@ -230,16 +327,13 @@ class OBEXHeaderSetImpl implements HeaderSet {
 	 *
 	 * @see javax.obex.HeaderSet#getHeaderList()
 	 */
-	public int[] getHeaderList() throws IOException {
-		if (headerValues.size() == 0) {
+	public synchronized int[] getHeaderList() throws IOException {
+		if (headersCount == 0) {
 			// Spec: null if no headers are available
 			return null;
 		}
-		int[] headerIDArray = new int[headerValues.size()];
-		int i = 0;
-		for (Enumeration e = headerValues.keys(); e.hasMoreElements();) {
-			headerIDArray[i++] = ((Integer) e.nextElement()).intValue();
-		}
+		int[] headerIDArray = new int[headersCount];
+		System.arraycopy(headerIDs, 0, headerIDArray, 0, headersCount);
 		return headerIDArray;
 	}
 
@@ -250,9 +344,57 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		return this.responseCode;
 	}
 
-	boolean hasIncommingData() {
-		return headerValues.contains(new Integer(OBEX_HDR_BODY))
-				|| headerValues.contains(new Integer(OBEX_HDR_BODY_END));
+	synchronized boolean hasIncommingData() {
+		return (indexOf(OBEX_HDR_BODY) != -1) || (indexOf(OBEX_HDR_BODY_END) != -1);
+	}
+
+	/**
+	 * Find the data header to be delivered to application. Body is used if present, End of Body otherwise.
+	 * 
+	 * @return OBEX_HDR_BODY, OBEX_HDR_BODY_END or <code>-1</code> if there are no data in this HeaderSet
+	 */
+	synchronized int getDataHeaderID() {
+		if (indexOf(OBEX_HDR_BODY) != -1) {
+			return OBEX_HDR_BODY;
+		} else if (indexOf(OBEX_HDR_BODY_END) != -1) {
+			return OBEX_HDR_BODY_END;
+		} else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Append the data of Body or End of Body header to the stream. Received data are copied directly from packet
+	 * buffer without creating intermediate byte array.
+	 * 
+	 * @param dataHeaderID
+	 *            OBEX_HDR_BODY or OBEX_HDR_BODY_END
+	 * @return length of data appended
+	 */
+	synchronized int appendData(int dataHeaderID, OBEXOperationInputStream is, boolean eof) {
+		int index = indexOf(dataHeaderID);
+		if (index == -1) {
+			return 0;
+		}
+		int rawOffset = rawOffsets[index];
+		byte[] b = (byte[]) headerValues[index];
+		int len;
+		if (rawOffset != -1) {
+			len = OBEXUtils.bytesToShort(b[rawOffset + 1], b[rawOffset + 2]) - 3;
+			is.appendData(b, rawOffset + 3, len, eof);
+		} else {
+			len = b.length;
+			is.appendData(b, 0, len, eof);
+		}
+		return len;
+	}
+
+	byte[] getSessionParameters() {
+		return this.sessionParameters;
+	}
+
+	int getSessionSequenceNumber() {
+		return this.sessionSequenceNumber;
 	}
 
 	static OBEXHeaderSetImpl cloneHeaders(HeaderSet headers) throws IOException {
@@ -263,20 +405,15 @@ class OBEXHeaderSetImpl implements HeaderSet {
 			throw new IllegalArgumentException("Illegal HeaderSet type");
 		}
 		OBEXHeaderSetImpl hs = new OBEXHeaderSetImpl(((OBEXHeaderSetImpl) headers).responseCode);
-
-		int[] headerIDArray = headers.getHeaderList();
-		for (int i = 0; (headerIDArray != null) && (i < headerIDArray.length); i++) {
-			int headerID = headerIDArray[i];
-			// Body is not accessible by the client
-			if ((headerID == OBEX_HDR_BODY) || (headerID == OBEX_HDR_BODY_END)) {
-				continue;
-			}
-			hs.setHeader(headerID, headers.getHeader(headerID));
-		}
+		copyHeaders(hs, (OBEXHeaderSetImpl) headers);
 		return hs;
 	}
 
 	static HeaderSet appendHeaders(HeaderSet dst, HeaderSet src) throws IOException {
+		if ((dst instanceof OBEXHeaderSetImpl) && (src instanceof OBEXHeaderSetImpl)) {
+			copyHeaders((OBEXHeaderSetImpl) dst, (OBEXHeaderSetImpl) src);
+			return dst;
+		}
 		int[] headerIDArray = src.getHeaderList();
 		for (int i = 0; (headerIDArray != null) && (i < headerIDArray.length); i++) {
 			int headerID = headerIDArray[i];
@@ -288,6 +425,22 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		return dst;
 	}
 
+	/**
+	 * Copy all headers except Body. Not decoded values are shared without decoding them.
+	 */
+	private static void copyHeaders(OBEXHeaderSetImpl dst, OBEXHeaderSetImpl src) {
+		synchronized (src) {
+			for (int i = 0; i < src.headersCount; i++) {
+				int headerID = src.headerIDs[i];
+				// Body is not accessible by the client
+				if ((headerID == OBEX_HDR_BODY) || (headerID == OBEX_HDR_BODY_END)) {
+					continue;
+				}
+				dst.put(headerID, src.headerValues[i], src.rawOffsets[i]);
+			}
+		}
+	}
+
 	public synchronized void createAuthenticationChallenge(String realm, boolean isUserIdRequired, boolean isFullAccess) {
 		if (authChallenges == null) {
 			authChallenges = new Vector();
@@ -450,6 +603,9 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		return readHeaders(new OBEXHeaderSetImpl(0xFF & responseCode), buf, off);
 	}
 
+	/**
+	 * Only validates the headers structure. Values are decoded by getHeader() when requested by application.
+	 */
 	private static OBEXHeaderSetImpl readHeaders(OBEXHeaderSetImpl hs, byte[] buf, int off) throws IOException {
 		int count = 0;
 		while (off < buf.length) {
@@ -457,65 +613,56 @@ class OBEXHeaderSetImpl implements HeaderSet {
 			int len = 0;
 			switch (hi & OBEX_HDR_HI_MASK) {
 			case OBEX_STRING:
-				len = OBEXUtils.bytesToShort(buf[off + 1], buf[off + 2]);
-				if (len == 3) {
-					hs.setHeader(hi, "");
-				} else {
-					byte data[] = new byte[len - 5];
-					System.arraycopy(buf, off + 3, data, 0, data.length);
-					hs.setHeader(hi, OBEXUtils.newStringUTF16(data));
-				}
-				break;
 			case OBEX_BYTE_STREAM:
+				if (off + 3 > buf.length) {
+					throw new IOException("Invalid header length");
+				}
 				len = OBEXUtils.bytesToShort(buf[off + 1], buf[off + 2]);
-				byte data[] = new byte[len - 3];
-				System.arraycopy(buf, off + 3, data, 0, data.length);
-				if (hi == OBEX_HDR_TYPE) {
-					if (data[data.length - 1] != 0) {
-						hs.setHeader(hi, new String(data, "iso-8859-1"));
-					} else {
-						hs.setHeader(hi, new String(data, 0, data.length - 1, "iso-8859-1"));
-					}
-				} else if (hi == OBEX_HDR_TIME) {
-					hs.setHeader(hi, readTimeISO8601(data));
-				} else if (hi == OBEX_HDR_AUTH_CHALLENGE) {
-					synchronized (hs) {
-						if (hs.authChallenges == null) {
-							hs.authChallenges = new Vector();
-						}
-					}
-					hs.authChallenges.addElement(data);
-					DebugLog.debug("received AUTH_CHALLENGE");
-				} else if (hi == OBEX_HDR_AUTH_RESPONSE) {
-					synchronized (hs) {
-						if (hs.authResponses == null) {
-							hs.authResponses = new Vector();
-						}
-					}
-					hs.authResponses.addElement(data);
-					DebugLog.debug("received AUTH_RESPONSE");
-				} else {
-					hs.setHeader(hi, data);
+				if (len < 3) {
+					throw new IOException("Invalid header length " + len);
 				}
 				break;
 			case OBEX_BYTE:
 				len = 2;
-				hs.setHeader(hi, new Byte(buf[off + 1]));
 				break;
 			case OBEX_INT:
 				len = 5;
-				long intValue = readObexInt(buf, off + 1);
-				if (hi == OBEX_HDR_TIME2) {
-					Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-					cal.setTime(new Date(intValue * 1000));
-					hs.setHeader(hi, cal);
-				} else {
-					hs.setHeader(hi, new Long(intValue));
-				}
 				break;
 			default:
 				throw new IOException("Unsupported encoding " + (hi & OBEX_HDR_HI_MASK));
 			}
+			if (off + len > buf.length) {
+				throw new IOException("Invalid header length " + len);
+			}
+			if (hi == OBEX_HDR_AUTH_CHALLENGE) {
+				byte data[] = new byte[len - 3];
+				System.arraycopy(buf, off + 3, data, 0, data.length);
+				synchronized (hs) {
+					if (hs.authChallenges == null) {
+						hs.authChallenges = new Vector();
+					}
+				}
+				hs.authChallenges.addElement(data);
+				DebugLog.debug("received AUTH_CHALLENGE");
+			} else if (hi == OBEX_HDR_AUTH_RESPONSE) {
+				byte data[] = new byte[len - 3];
+				System.arraycopy(buf, off + 3, data, 0, data.length);
+				synchronized (hs) {
+					if (hs.authResponses == null) {
+						hs.authResponses = new Vector();
+					}
+				}
+				hs.authResponses.addElement(data);
+				DebugLog.debug("received AUTH_RESPONSE");
+			} else if (hi == OBEX_HDR_SESSIONPARAM) {
+				hs.sessionParameters = new byte[len - 3];
+				System.arraycopy(buf, off + 3, hs.sessionParameters, 0, hs.sessionParameters.length);
+			} else if (hi == OBEX_HDR_SESSIONSEQ) {
+				hs.sessionSequenceNumber = buf[off + 1] & 0xFF;
+			} else {
+				validateHeaderID(hi);
+				hs.put(hi, buf, off);
+			}
 			off += len;
 			count++;
 		}
@@ -525,6 +672,49 @@ class OBEXHeaderSetImpl implements HeaderSet {
 		return hs;
 	}
 
+	private static Object decodeHeader(int hi, byte[] buf, int off) throws IOException {
+		switch (hi & OBEX_HDR_HI_MASK) {
+		case OBEX_STRING: {
+			int len = OBEXUtils.bytesToShort(buf[off + 1], buf[off + 2]);
+			if (len <= 5) {
+				return "";
+			} else {
+				return OBEXUtils.newStringUTF16(buf, off + 3, len - 5);
+			}
+		}
+		case OBEX_BYTE_STREAM: {
+			int dataLen = OBEXUtils.bytesToShort(buf[off + 1], buf[off + 2]) - 3;
+			int dataOff = off + 3;
+			if (hi == OBEX_HDR_TYPE) {
+				if ((dataLen == 0) || (buf[dataOff + dataLen - 1] != 0)) {
+					return new String(buf, dataOff, dataLen, "iso-8859-1");
+				} else {
+					return new String(buf, dataOff, dataLen - 1, "iso-8859-1");
+				}
+			} else if (hi == OBEX_HDR_TIME) {
+				return readTimeISO8601(buf, dataOff, dataLen);
+			} else {
+				byte data[] = new byte[dataLen];
+				System.arraycopy(buf, dataOff, data, 0, dataLen);
+				return data;
+			}
+		}
+		case OBEX_BYTE:
+			return new Byte(buf[off + 1]);
+		case OBEX_INT:
+			long intValue = readObexInt(buf, off + 1);
+			if (hi == OBEX_HDR_TIME2) {
+				Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+				cal.setTime(new Date(intValue * 1000));
+				return cal;
+			} else {
+				return new Long(intValue);
+			}
+		default:
+			throw new IOException("Unsupported encoding " + (hi & OBEX_HDR_HI_MASK));
+		}
+	}
+
 	private static byte[] d4(int i) {
 		byte[] b = new byte[4];
 		int d = 1000;
@@ -563,26 +753,42 @@ class OBEXHeaderSetImpl implements HeaderSet {
 	 * ISO-8601 UTC YYYYMMDDTHHMMSS(Z) Z for UTC time
 	 */
 	static Calendar readTimeISO8601(byte data[]) throws IOException {
+		return readTimeISO8601(data, 0, data.length);
+	}
+
+	static Calendar readTimeISO8601(byte data[], int off, int len) throws IOException {
 		boolean utc = false;
-		if ((data.length != 16) && (data.length != 15)) {
-			throw new IOException("Invalid ISO-8601 date length " + new String(data) + " length " + data.length);
-		} else if (data[8] != 'T') {
-			throw new IOException("Invalid ISO-8601 date " + new String(data));
-		} else if (data.length == 16) {
-			if (data[15] != 'Z') {
-				throw new IOException("Invalid ISO-8601 date " + new String(data));
+		if ((len != 16) && (len != 15)) {
+			throw new IOException("Invalid ISO-8601 date length " + new String(data, off, len) + " length " + len);
+		} else if (data[off + 8] != 'T') {
+			throw new IOException("Invalid ISO-8601 date " + new String(data, off, len));
+		} else if (len == 16) {
+			if (data[off + 15] != 'Z') {
+				throw new IOException("Invalid ISO-8601 date " + new String(data, off, len));
 			} else {
 				utc = true;
 			}
 		}
 		Calendar cal = utc ? Calendar.getInstance(TimeZone.getTimeZone("UTC")) : Calendar.getInstance();
-		cal.set(Calendar.YEAR, Integer.valueOf(new String(data, 0, 4)).intValue());
-		cal.set(Calendar.MONTH, Integer.valueOf(new String(data, 4, 2)).intValue() - 1);
-		cal.set(Calendar.DAY_OF_MONTH, Integer.valueOf(new String(data, 6, 2)).intValue());
-		cal.set(Calendar.HOUR_OF_DAY, Integer.valueOf(new String(data, 9, 2)).intValue());
-		cal.set(Calendar.MINUTE, Integer.valueOf(new String(data, 11, 2)).intValue());
-		cal.set(Calendar.SECOND, Integer.valueOf(new String(data, 13, 2)).intValue());
+		cal.set(Calendar.YEAR, readDecimal(data, off, 4));
+		cal.set(Calendar.MONTH, readDecimal(data, off + 4, 2) - 1);
+		cal.set(Calendar.DAY_OF_MONTH, readDecimal(data, off + 6, 2));
+		cal.set(Calendar.HOUR_OF_DAY, readDecimal(data, off + 9, 2));
+		cal.set(Calendar.MINUTE, readDecimal(data, off + 11, 2));
+		cal.set(Calendar.SECOND, readDecimal(data, off + 13, 2));
 		return cal;
 	}
 
+	private static int readDecimal(byte data[], int off, int len) throws IOException {
+		int value = 0;
+		for (int i = off; i < off + len; i++) {
+			int digit = data[i] - '0';
+			if ((digit < 0) || (digit > 9)) {
+				throw new IOException("Invalid ISO-8601 date " + new String(data, off, len));
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
 }
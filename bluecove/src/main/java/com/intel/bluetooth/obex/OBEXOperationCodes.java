@@ -64,6 +64,8 @@ interface OBEXOperationCodes {
 	
 	public static final char SESSION = 0x07;
 
+	public static final char SESSION_FINAL = SESSION | FINAL_BIT;
+
 	public static final char ABORT = 0xFF;
 
 	public static final int OBEX_RESPONSE_CONTINUE = 0x90;
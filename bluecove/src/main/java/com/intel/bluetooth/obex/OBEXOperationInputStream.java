@@ -25,6 +25,7 @@ package com.intel.bluetooth.obex;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 
 class OBEXOperationInputStream extends InputStream {
 
@@ -46,6 +47,13 @@ class OBEXOperationInputStream extends InputStream {
 
 	private boolean eofReceived = false;
 
+	private boolean spaceWaiting = false;
+
+	/**
+	 * Maximum number of bytes received ahead of the application, 0 for no limit.
+	 */
+	private int receiveLimit = 0;
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -66,7 +74,94 @@ class OBEXOperationInputStream extends InputStream {
 			if (appendPos == readPos) {
 				return -1;
 			}
-			return buffer[readPos++] & 0xFF;
+			int b = buffer[readPos++] & 0xFF;
+			dataConsumed();
+			return b;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		if ((off < 0) || (len < 0) || (off + len > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (isClosed) {
+			throw new IOException("Stream closed");
+		}
+		if (this.operation.isClosed() && (appendPos == readPos)) {
+			return -1;
+		}
+		synchronized (lock) {
+			while (!eofReceived && (this.operation instanceof OBEXOperationReceive) && !isClosed
+					&& (!this.operation.isClosed()) && (appendPos == readPos)) {
+				((OBEXOperationReceive) this.operation).receiveData(this);
+			}
+			if (appendPos == readPos) {
+				return -1;
+			}
+			int count = appendPos - readPos;
+			if (count > len) {
+				count = len;
+			}
+			System.arraycopy(buffer, readPos, b, off, count);
+			readPos += count;
+			dataConsumed();
+			return count;
+		}
+	}
+
+	private void dataConsumed() {
+		if (spaceWaiting) {
+			spaceWaiting = false;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait for data appended by other thread, called from receiveData.
+	 */
+	void waitForData() throws IOException {
+		synchronized (lock) {
+			if ((appendPos == readPos) && !eofReceived && !isClosed) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+		}
+	}
+
+	void setReceiveLimit(int limit) {
+		synchronized (lock) {
+			receiveLimit = limit;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait until the application reads the data so there are less than receiveLimit bytes available.
+	 *
+	 * @return <code>false</code> if stream closed or all data received.
+	 */
+	boolean waitForSpace() throws IOException {
+		synchronized (lock) {
+			while (!isClosed && !eofReceived && (receiveLimit > 0) && (appendPos - readPos >= receiveLimit)) {
+				spaceWaiting = true;
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+			return !isClosed && !eofReceived;
 		}
 	}
 
@@ -94,6 +189,14 @@ class OBEXOperationInputStream extends InputStream {
 	}
 
 	void appendData(byte[] b, boolean eof) {
+		if (b == null) {
+			appendData(null, 0, 0, eof);
+		} else {
+			appendData(b, 0, b.length, eof);
+		}
+	}
+
+	void appendData(byte[] b, int off, int len, boolean eof) {
 		if (isClosed || eofReceived) {
 			return;
 		}
@@ -101,9 +204,14 @@ class OBEXOperationInputStream extends InputStream {
 			if (eof) {
 				eofReceived = true;
 			}
-			if ((b != null) && (b.length != 0)) {
-				if (appendPos + b.length > buffer.length) {
-					int newSize = (b.length + (appendPos - readPos)) * 2;
+			if ((b != null) && (len != 0)) {
+				if ((appendPos + len > buffer.length) && (appendPos - readPos + len <= buffer.length)) {
+					// Reuse the buffer space already consumed by application
+					System.arraycopy(buffer, readPos, buffer, 0, appendPos - readPos);
+					appendPos -= readPos;
+					readPos = 0;
+				} else if (appendPos + len > buffer.length) {
+					int newSize = (len + (appendPos - readPos)) * 2;
 					if (newSize < buffer.length) {
 						newSize = buffer.length;
 					}
@@ -113,8 +221,8 @@ class OBEXOperationInputStream extends InputStream {
 					appendPos -= readPos;
 					readPos = 0;
 				}
-				System.arraycopy(b, 0, buffer, appendPos, b.length);
-				appendPos += b.length;
+				System.arraycopy(b, off, buffer, appendPos, len);
+				appendPos += len;
 			}
 			lock.notifyAll();
 		}
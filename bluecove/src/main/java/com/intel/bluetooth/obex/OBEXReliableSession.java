@@ -0,0 +1,393 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2007-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import com.intel.bluetooth.DebugLog;
+
+/**
+ * OBEX reliable session state. Created by SESSION command with Session-Parameters header (0x52) and kept after the
+ * transport connection is suspended or broken, so it can be resumed on new connection.
+ *
+ * Each packet exchanged in active session carries Session-Sequence-Number header (0x93). Client requests and server
+ * responses have the same sequence number.
+ *
+ * Number of Body bytes exchanged in interrupted operation is tracked on both sides and adjusted on resume using the
+ * peer next sequence number. This value is used by application to continue the transfer.
+ */
+class OBEXReliableSession {
+
+	/* Session-Parameters tags */
+
+	static final int TAG_DEVICE_ADDRESS = 0x00;
+
+	static final int TAG_NONCE = 0x01;
+
+	static final int TAG_SESSION_ID = 0x02;
+
+	static final int TAG_NEXT_SEQUENCE_NUMBER = 0x03;
+
+	static final int TAG_TIMEOUT = 0x04;
+
+	static final int TAG_SESSION_OPCODE = 0x05;
+
+	/* Session opcodes */
+
+	static final int OPCODE_CREATE = 0x00;
+
+	static final int OPCODE_CLOSE = 0x01;
+
+	static final int OPCODE_SUSPEND = 0x02;
+
+	static final int OPCODE_RESUME = 0x03;
+
+	static final int OPCODE_SET_TIMEOUT = 0x04;
+
+	/**
+	 * Session never expires when suspended.
+	 */
+	static final long TIMEOUT_INFINITE = 0xFFFFFFFFl;
+
+	/**
+	 * Maximum number of suspended sessions kept by client or server, the oldest are removed first. Sessions with
+	 * infinite timeout are left in registry after each broken connection that is never resumed.
+	 */
+	static final int SUSPENDED_MAX = 16;
+
+	/**
+	 * Active and suspended sessions by ID, client and server sessions are stored separately.
+	 */
+	private static Hashtable sessions = new Hashtable();
+
+	final boolean server;
+
+	byte[] sessionID;
+
+	/**
+	 * Client: sequence number of next request. Server: sequence number expected in next request.
+	 */
+	int nextSequenceNumber;
+
+	/**
+	 * Timeout in seconds
+	 */
+	long timeout = TIMEOUT_INFINITE;
+
+	boolean suspended;
+
+	/**
+	 * Server: address of the client device that created the session, <code>-1</code> when transport is not Bluetooth.
+	 */
+	long remoteAddress = -1;
+
+	/**
+	 * Server: ServerRequestHandler of the connection that created the session. Session can only be resumed by the
+	 * same device on connection with the same handler.
+	 */
+	Object serverHandler;
+
+	private OBEXSessionBase owner;
+
+	private long suspendedTime;
+
+	/* Saved OBEX connection state */
+
+	boolean isConnected;
+
+	long connectionID = -1;
+
+	int mtu;
+
+	/**
+	 * Response sent by server, retransmitted when client repeats the request after resume.
+	 */
+	byte[] lastResponse;
+
+	/* Transfer progress of current operation */
+
+	private long transferOffset;
+
+	private long pendingBytes;
+
+	private long resumeOffset;
+
+	OBEXReliableSession(boolean server) {
+		this.server = server;
+	}
+
+	static byte[] createSessionID(byte[] clientAddress, byte[] clientNonce, byte[] serverAddress, byte[] serverNonce) {
+		MD5DigestWrapper md5 = new MD5DigestWrapper();
+		md5.update(clientAddress);
+		md5.update(clientNonce);
+		md5.update(serverAddress);
+		md5.update(serverNonce);
+		return md5.digest();
+	}
+
+	private static String registryKey(boolean server, byte[] sessionID) {
+		StringBuffer buf = new StringBuffer(server ? "s" : "c");
+		for (int i = 0; i < sessionID.length; i++) {
+			buf.append(Integer.toHexString((sessionID[i] & 0xFF) | 0x100).substring(1));
+		}
+		return buf.toString();
+	}
+
+	static synchronized void register(OBEXReliableSession session) {
+		removeExpired();
+		sessions.put(registryKey(session.server, session.sessionID), session);
+	}
+
+	static synchronized void unregister(OBEXReliableSession session) {
+		sessions.remove(registryKey(session.server, session.sessionID));
+	}
+
+	static synchronized OBEXReliableSession find(boolean server, byte[] sessionID) {
+		removeExpired();
+		return (OBEXReliableSession) sessions.get(registryKey(server, sessionID));
+	}
+
+	private static void removeExpired() {
+		long now = System.currentTimeMillis();
+		Vector expired = null;
+		int suspendedCount = 0;
+		for (Enumeration en = sessions.elements(); en.hasMoreElements();) {
+			OBEXReliableSession s = (OBEXReliableSession) en.nextElement();
+			if (!s.suspended) {
+				continue;
+			}
+			if ((s.timeout != TIMEOUT_INFINITE) && (now - s.suspendedTime > s.timeout * 1000)) {
+				if (expired == null) {
+					expired = new Vector();
+				}
+				expired.addElement(s);
+			} else {
+				suspendedCount++;
+			}
+		}
+		if (expired != null) {
+			for (Enumeration en = expired.elements(); en.hasMoreElements();) {
+				OBEXReliableSession s = (OBEXReliableSession) en.nextElement();
+				DebugLog.debug("reliable session expired");
+				sessions.remove(registryKey(s.server, s.sessionID));
+			}
+		}
+		while (suspendedCount > SUSPENDED_MAX) {
+			OBEXReliableSession oldest = null;
+			for (Enumeration en = sessions.elements(); en.hasMoreElements();) {
+				OBEXReliableSession s = (OBEXReliableSession) en.nextElement();
+				if (s.suspended && ((oldest == null) || (s.suspendedTime < oldest.suspendedTime))) {
+					oldest = s;
+				}
+			}
+			DebugLog.debug("too many suspended reliable sessions, removed oldest");
+			sessions.remove(registryKey(oldest.server, oldest.sessionID));
+			suspendedCount--;
+		}
+	}
+
+	/**
+	 * Session using this state while it is active
+	 */
+	synchronized void attach(OBEXSessionBase session) {
+		this.owner = session;
+		this.suspended = false;
+	}
+
+	/**
+	 * Save the connection state, called on SESSION suspend command or when transport connection is broken.
+	 * 
+	 * @param caller
+	 *            the session that used this state, nothing is done if the state was resumed by another session
+	 */
+	synchronized void suspend(OBEXSessionBase caller) {
+		if (suspended || (owner != caller)) {
+			return;
+		}
+		if (owner != null) {
+			this.isConnected = owner.isConnected;
+			this.connectionID = owner.connectionID;
+			this.mtu = owner.mtu;
+			owner = null;
+		}
+		this.suspended = true;
+		this.suspendedTime = System.currentTimeMillis();
+		DebugLog.debug("reliable session suspended, transfer offset", transferOffset);
+	}
+
+	/**
+	 * Restore connection state in new session and adjust transfer offset.
+	 *
+	 * @param peerNextSequenceNumber
+	 *            next sequence number reported by peer or <code>-1</code> if unknown
+	 */
+	synchronized void resume(OBEXSessionBase session, int peerNextSequenceNumber) {
+		// Transport connection is broken but the old session have not detected this yet
+		suspend(owner);
+		session.isConnected = this.isConnected;
+		session.connectionID = this.connectionID;
+		session.mtu = this.mtu;
+		if (pendingBytes != 0) {
+			if (server) {
+				// Client have received the last response
+				if (peerNextSequenceNumber == nextSequenceNumber) {
+					transferOffset += pendingBytes;
+				}
+			} else {
+				// Server have received the last request
+				if (peerNextSequenceNumber == ((nextSequenceNumber + 1) & 0xFF)) {
+					transferOffset += pendingBytes;
+				}
+			}
+			pendingBytes = 0;
+		}
+		if ((!server) && (peerNextSequenceNumber != -1)) {
+			this.nextSequenceNumber = peerNextSequenceNumber;
+		}
+		this.resumeOffset = transferOffset;
+		attach(session);
+		DebugLog.debug("reliable session resumed, transfer offset", resumeOffset);
+	}
+
+	/**
+	 * Called when client have received the response or server have received the next request.
+	 */
+	synchronized void packetAcknowledged() {
+		transferOffset += pendingBytes;
+		pendingBytes = 0;
+	}
+
+	/**
+	 * Body data sent, confirmed when peer acknowledge the packet.
+	 */
+	synchronized void dataSent(int len) {
+		pendingBytes = len;
+	}
+
+	synchronized void dataReceived(int len) {
+		transferOffset += len;
+	}
+
+	/**
+	 * New operation continues the transfer from the resume offset.
+	 */
+	synchronized void operationStarted() {
+		transferOffset = resumeOffset;
+		pendingBytes = 0;
+	}
+
+	synchronized void operationCompleted() {
+		transferOffset = 0;
+		pendingBytes = 0;
+		resumeOffset = 0;
+	}
+
+	synchronized long getResumeOffset() {
+		return resumeOffset;
+	}
+
+	/* Session-Parameters header encoding */
+
+	static void writeParameter(ByteArrayOutputStream buf, int tag, byte[] value) {
+		buf.write(tag);
+		buf.write(value.length);
+		buf.write(value, 0, value.length);
+	}
+
+	static void writeParameter(ByteArrayOutputStream buf, int tag, int value) {
+		buf.write(tag);
+		buf.write(1);
+		buf.write(value);
+	}
+
+	static void writeTimeoutParameter(ByteArrayOutputStream buf, long timeout) {
+		buf.write(TAG_TIMEOUT);
+		buf.write(4);
+		buf.write((int) ((timeout >>> 24) & 0xFF));
+		buf.write((int) ((timeout >>> 16) & 0xFF));
+		buf.write((int) ((timeout >>> 8) & 0xFF));
+		buf.write((int) (timeout & 0xFF));
+	}
+
+	/**
+	 * Create Session-Parameters header with prefix, ready to be sent as packet data.
+	 */
+	static byte[] toHeaderBytes(ByteArrayOutputStream parameters) throws IOException {
+		byte[] data = parameters.toByteArray();
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		OBEXHeaderSetImpl.writeObexLen(buf, OBEXHeaderSetImpl.OBEX_HDR_SESSIONPARAM, 3 + data.length);
+		buf.write(data);
+		return buf.toByteArray();
+	}
+
+	/**
+	 * Find the parameter value in Session-Parameters header data.
+	 *
+	 * @return the value or <code>null</code> if not found
+	 */
+	static byte[] readParameter(byte[] parameters, int tag) throws IOException {
+		if (parameters == null) {
+			return null;
+		}
+		for (int i = 0; i + 1 < parameters.length;) {
+			int t = parameters[i] & 0xFF;
+			int len = parameters[i + 1] & 0xFF;
+			i += 2;
+			if (i + len > parameters.length) {
+				throw new IOException("Corrupted Session-Parameters");
+			}
+			if (t == tag) {
+				byte[] value = new byte[len];
+				System.arraycopy(parameters, i, value, 0, len);
+				return value;
+			}
+			i += len;
+		}
+		return null;
+	}
+
+	static int readIntParameter(byte[] parameters, int tag) throws IOException {
+		byte[] value = readParameter(parameters, tag);
+		if ((value == null) || (value.length == 0)) {
+			return -1;
+		}
+		long v = 0;
+		for (int i = 0; i < value.length; i++) {
+			v = (v << 8) | (value[i] & 0xFF);
+		}
+		return (int) v;
+	}
+
+	static long readTimeoutParameter(byte[] parameters) throws IOException {
+		byte[] value = readParameter(parameters, TAG_TIMEOUT);
+		if ((value == null) || (value.length != 4)) {
+			return TIMEOUT_INFINITE;
+		}
+		return OBEXHeaderSetImpl.readObexInt(value, 0);
+	}
+}
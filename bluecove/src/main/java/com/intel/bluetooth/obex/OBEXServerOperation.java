@@ -95,22 +95,20 @@ abstract class OBEXServerOperation implements Operation, OBEXOperation {
 		}
 	}
 
-	protected void processIncommingData(HeaderSet dataHeaders, boolean eof) throws IOException {
+	protected void processIncommingData(OBEXHeaderSetImpl dataHeaders, boolean eof) throws IOException {
 		// If this operation closing
 		if (this.inputStream == null) {
 			return;
 		}
-		byte[] data = (byte[]) dataHeaders.getHeader(OBEXHeaderSetImpl.OBEX_HDR_BODY);
-		if (data == null) {
-			data = (byte[]) dataHeaders.getHeader(OBEXHeaderSetImpl.OBEX_HDR_BODY_END);
-			if (data != null) {
-				eof = true;
-			}
+		int dataHeaderID = dataHeaders.getDataHeaderID();
+		if (dataHeaderID == OBEXHeaderSetImpl.OBEX_HDR_BODY_END) {
+			eof = true;
 		}
-		if (data != null) {
+		if (dataHeaderID != -1) {
 			incommingDataReceived = true;
-			DebugLog.debug("server received Data eof: " + eof + " len:", data.length);
-			inputStream.appendData(data, eof);
+			int len = dataHeaders.appendData(dataHeaderID, inputStream, eof);
+			session.transferDataReceived(len);
+			DebugLog.debug("server received Data eof: " + eof + " len:", len);
 		} else if (eof) {
 			inputStream.appendData(null, eof);
 		}
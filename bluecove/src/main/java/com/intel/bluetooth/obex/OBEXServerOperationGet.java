@@ -75,7 +75,7 @@ class OBEXServerOperationGet extends OBEXServerOperation implements OBEXOperatio
 			throw new IOException("output stream already open");
 		}
 		requestEnded = true;
-		outputStream = new OBEXOperationOutputStream(session.mtu, this);
+		outputStream = new OBEXOperationOutputStream(session.getOperationMTU(), this);
 		session.writePacket(OBEXOperationCodes.OBEX_RESPONSE_CONTINUE, sendHeaders);
 		sendHeaders = null;
 		return outputStream;
@@ -109,7 +109,7 @@ class OBEXServerOperationGet extends OBEXServerOperation implements OBEXOperatio
 			if (finalPacket) {
 				requestEnded = true;
 			}
-			HeaderSet requestHeaders = OBEXHeaderSetImpl.readHeaders(b[0], b, 3);
+			OBEXHeaderSetImpl requestHeaders = OBEXHeaderSetImpl.readHeaders(b[0], b, 3);
 			OBEXHeaderSetImpl.appendHeaders(this.receivedHeaders, requestHeaders);
 			processIncommingData(requestHeaders, finalPacket);
 			break;
@@ -165,6 +165,7 @@ class OBEXServerOperationGet extends OBEXServerOperation implements OBEXOperatio
 			OBEXHeaderSetImpl.appendHeaders(dataHeaders, sendHeaders);
 			sendHeaders = null;
 		}
+		session.transferDataSent(buffer.length);
 		session.writePacket(opcode, dataHeaders);
 		readRequestPacket();
 	}
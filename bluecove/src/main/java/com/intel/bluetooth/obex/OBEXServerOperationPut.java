@@ -26,17 +26,48 @@ package com.intel.bluetooth.obex;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
+import javax.obex.HeaderSet;
 import javax.obex.ResponseCodes;
 
 import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.WorkerThreadPool;
 
-class OBEXServerOperationPut extends OBEXServerOperation implements OBEXOperationReceive, OBEXOperationDelivery {
+class OBEXServerOperationPut extends OBEXServerOperation implements OBEXOperationReceive, OBEXOperationDelivery,
+		Runnable {
+
+	private static int threadNumber;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	/**
+	 * Packets are received ahead of the application on separate thread, <code>false</code> when data received
+	 * synchronously.
+	 */
+	private boolean receiveAheadStarted = false;
+
+	private boolean receiveAheadRunning = false;
+
+	/**
+	 * Receive-ahead task has returned, guarded by receiveAheadLock.
+	 */
+	private boolean receiveAheadFinished = false;
+
+	private final Object receiveAheadLock = new Object();
+
+	private IOException receiveAheadError;
 
 	protected OBEXServerOperationPut(OBEXServerSessionImpl session, OBEXHeaderSetImpl receivedHeaders,
 			boolean finalPacket) throws IOException {
 		super(session, receivedHeaders);
+		if (finalPacket) {
+			// Single packet PUT
+			finalPacketReceived = true;
+		}
 		this.inputStream = new OBEXOperationInputStream(this);
 		processIncommingData(receivedHeaders, finalPacket);
 	}
@@ -55,9 +86,93 @@ class OBEXServerOperationPut extends OBEXServerOperation implements OBEXOperatio
 		}
 		DebugLog.debug("openInputStream");
 		inputStreamOpened = true;
+		startReceiveAhead();
 		return inputStream;
 	}
 
+	private void startReceiveAhead() {
+		if ((session.obexConnectionParams.receiveAhead <= 0) || finalPacketReceived || errorReceived) {
+			return;
+		}
+		inputStream.setReceiveLimit(session.obexConnectionParams.receiveAhead * session.mtu);
+		receiveAheadRunning = true;
+		receiveAheadStarted = true;
+		WorkerThreadPool.execute("OBEXReceiveAheadThread-" + nextThreadNum(), this);
+	}
+
+	/**
+	 * Receive data packets while the application is busy processing previous data. CONTINUE response is sent only when
+	 * there is space for next packet in input stream buffer.
+	 */
+	public void run() {
+		try {
+			while ((!finalPacketReceived) && (!errorReceived) && (!isClosed)) {
+				if (!inputStream.waitForSpace()) {
+					break;
+				}
+				DebugLog.debug("server operation reply continue, receive-ahead");
+				OBEXHeaderSetImpl headers;
+				synchronized (this) {
+					headers = sendHeaders;
+					sendHeaders = null;
+				}
+				session.writePacket(OBEXOperationCodes.OBEX_RESPONSE_CONTINUE, headers);
+				readRequestPacket();
+			}
+		} catch (IOException e) {
+			if (!isAborted) {
+				DebugLog.debug("receive-ahead error", e);
+				receiveAheadError = e;
+			}
+		} catch (Throwable e) {
+			DebugLog.error("receive-ahead error", e);
+			receiveAheadError = new IOException(e.toString());
+		} finally {
+			receiveAheadRunning = false;
+			// Wakeup reader waiting for data
+			OBEXOperationInputStream is = inputStream;
+			if (is != null) {
+				is.appendData(null, false);
+			}
+			synchronized (receiveAheadLock) {
+				receiveAheadFinished = true;
+				receiveAheadLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Called after request handler returns. The packet exchange that is in progress is completed and the last request
+	 * is left for writeResponse().
+	 */
+	void stopReceiveAhead() throws IOException {
+		if (!receiveAheadStarted) {
+			return;
+		}
+		if (inputStream != null) {
+			inputStream.close();
+		}
+		synchronized (receiveAheadLock) {
+			while (!receiveAheadFinished) {
+				try {
+					receiveAheadLock.wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+		}
+		receiveAheadStarted = false;
+		if (receiveAheadError != null) {
+			throw receiveAheadError;
+		}
+	}
+
+	public void sendHeaders(HeaderSet headers) throws IOException {
+		synchronized (this) {
+			super.sendHeaders(headers);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -70,7 +185,7 @@ class OBEXServerOperationPut extends OBEXServerOperation implements OBEXOperatio
 		if (outputStream != null) {
 			throw new IOException("output stream already open");
 		}
-		outputStream = new OBEXOperationOutputStream(session.mtu, this);
+		outputStream = new OBEXOperationOutputStream(session.getOperationMTU(), this);
 		return outputStream;
 	}
 
@@ -129,6 +244,13 @@ class OBEXServerOperationPut extends OBEXServerOperation implements OBEXOperatio
 	 * @see com.intel.bluetooth.obex.OBEXOperationReceive#receiveData(com.intel.bluetooth.obex.OBEXOperationInputStream)
 	 */
 	public void receiveData(OBEXOperationInputStream is) throws IOException {
+		if (receiveAheadError != null) {
+			throw receiveAheadError;
+		}
+		if (receiveAheadRunning) {
+			is.waitForData();
+			return;
+		}
 		if (finalPacketReceived || errorReceived) {
 			is.appendData(null, true);
 			return;
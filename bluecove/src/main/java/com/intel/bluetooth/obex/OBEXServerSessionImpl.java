@@ -24,6 +24,7 @@
  */
 package com.intel.bluetooth.obex;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 
@@ -35,7 +36,7 @@ import javax.obex.ServerRequestHandler;
 import com.intel.bluetooth.BlueCoveImpl;
 import com.intel.bluetooth.BluetoothServerConnection;
 import com.intel.bluetooth.DebugLog;
-import com.intel.bluetooth.UtilsJavaSE;
+import com.intel.bluetooth.WorkerThreadPool;
 
 class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, BluetoothServerConnection {
 
@@ -51,8 +52,6 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 
 	private Object stackID;
 
-	private Thread handlerThread;
-
 	private static int threadNumber;
 
 	private static synchronized int nextThreadNum() {
@@ -68,12 +67,10 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 		this.handler = handler;
 		this.authenticator = authenticator;
 		stackID = BlueCoveImpl.getCurrentThreadBluetoothStackID();
-		handlerThread = new Thread(this, "OBEXServerSessionThread-" + nextThreadNum());
-		UtilsJavaSE.threadSetDaemon(handlerThread);
 	}
 
 	void startSessionHandlerThread() {
-		handlerThread.start();
+		WorkerThreadPool.execute("OBEXServerSessionThread-" + nextThreadNum(), this);
 	}
 
 	public void run() {
@@ -99,6 +96,11 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 			}
 		} finally {
 			DebugLog.debug("OBEXServerSession ends");
+			// Reliable session can be resumed on new connection
+			if (reliableSession != null) {
+				reliableSession.suspend(this);
+				reliableSession = null;
+			}
 			try {
 				super.close();
 			} catch (IOException e) {
@@ -174,6 +176,9 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 			case OBEXOperationCodes.GET:
 				processGet(b, finalPacket);
 				break;
+			case OBEXOperationCodes.SESSION_FINAL:
+				processSession(b);
+				break;
 			default:
 				writePacket(ResponseCodes.OBEX_HTTP_NOT_IMPLEMENTED, null);
 			}
@@ -296,7 +301,9 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 			return;
 		}
 		DebugLog.debug("Put operation");
-		operation = new OBEXServerOperationPut(this, requestHeaders, finalPacket);
+		transferStarted();
+		OBEXServerOperationPut putOperation = new OBEXServerOperationPut(this, requestHeaders, finalPacket);
+		operation = putOperation;
 		try {
 			int rc = ResponseCodes.OBEX_HTTP_OK;
 			try {
@@ -305,8 +312,10 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 				rc = ResponseCodes.OBEX_HTTP_UNAVAILABLE;
 				DebugLog.error("onPut", e);
 			}
+			putOperation.stopReceiveAhead();
 			if (!operation.isAborted) {
 				operation.writeResponse(rc);
+				transferCompleted();
 			}
 		} finally {
 			operation.close();
@@ -326,6 +335,7 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 			return;
 		}
 
+		transferStarted();
 		operation = new OBEXServerOperationGet(this, requestHeaders, finalPacket);
 
 		// OFF; Not tested in TCK
@@ -345,6 +355,7 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 			}
 			if (!operation.isAborted) {
 				operation.writeResponse(rc);
+				transferCompleted();
 			}
 		} finally {
 			operation.close();
@@ -352,6 +363,101 @@ class OBEXServerSessionImpl extends OBEXSessionBase implements Runnable, Bluetoo
 		}
 	}
 
+	private void processSession(byte[] b) throws IOException {
+		OBEXHeaderSetImpl requestHeaders = OBEXHeaderSetImpl.readHeaders(b, 3);
+		byte[] params = requestHeaders.getSessionParameters();
+		int sessionOpcode = OBEXReliableSession.readIntParameter(params, OBEXReliableSession.TAG_SESSION_OPCODE);
+		DebugLog.debug("Session operation", sessionOpcode);
+		ByteArrayOutputStream replyParams = new ByteArrayOutputStream();
+		switch (sessionOpcode) {
+		case OBEXReliableSession.OPCODE_CREATE: {
+			byte[] clientAddress = OBEXReliableSession.readParameter(params, OBEXReliableSession.TAG_DEVICE_ADDRESS);
+			byte[] clientNonce = OBEXReliableSession.readParameter(params, OBEXReliableSession.TAG_NONCE);
+			if ((reliableSession != null) || (clientAddress == null) || (clientNonce == null)) {
+				writePacket(ResponseCodes.OBEX_HTTP_BAD_REQUEST, null);
+				return;
+			}
+			byte[] address = getLocalAddressBytes();
+			byte[] nonce = OBEXAuthentication.createNonce();
+			OBEXReliableSession rs = new OBEXReliableSession(true);
+			rs.sessionID = OBEXReliableSession.createSessionID(clientAddress, clientNonce, address, nonce);
+			rs.timeout = OBEXReliableSession.readTimeoutParameter(params);
+			rs.remoteAddress = getRemoteAddressIfAvailable();
+			rs.serverHandler = handler;
+			rs.attach(this);
+			OBEXReliableSession.register(rs);
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_DEVICE_ADDRESS, address);
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_NONCE, nonce);
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_SESSION_ID, rs.sessionID);
+			if (rs.timeout != OBEXReliableSession.TIMEOUT_INFINITE) {
+				OBEXReliableSession.writeTimeoutParameter(replyParams, rs.timeout);
+			}
+			writePacketWithFlags(ResponseCodes.OBEX_HTTP_OK, OBEXReliableSession.toHeaderBytes(replyParams), null);
+			reliableSession = rs;
+			DebugLog.debug("reliable session created");
+			break;
+		}
+		case OBEXReliableSession.OPCODE_RESUME: {
+			byte[] sessionID = OBEXReliableSession.readParameter(params, OBEXReliableSession.TAG_SESSION_ID);
+			OBEXReliableSession rs = null;
+			if ((sessionID != null) && (reliableSession == null)) {
+				rs = OBEXReliableSession.find(true, sessionID);
+			}
+			if (rs == null) {
+				writePacket(ResponseCodes.OBEX_HTTP_NOT_FOUND, null);
+				return;
+			}
+			if ((rs.serverHandler != handler) || (rs.remoteAddress != getRemoteAddressIfAvailable())) {
+				DebugLog.debug("reliable session belongs to other client or server");
+				writePacket(ResponseCodes.OBEX_HTTP_FORBIDDEN, null);
+				return;
+			}
+			rs.resume(this, OBEXReliableSession.readIntParameter(params, OBEXReliableSession.TAG_NEXT_SEQUENCE_NUMBER));
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_DEVICE_ADDRESS, getLocalAddressBytes());
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_NONCE, OBEXAuthentication.createNonce());
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_SESSION_ID, rs.sessionID);
+			OBEXReliableSession.writeParameter(replyParams, OBEXReliableSession.TAG_NEXT_SEQUENCE_NUMBER,
+					rs.nextSequenceNumber);
+			if (rs.timeout != OBEXReliableSession.TIMEOUT_INFINITE) {
+				OBEXReliableSession.writeTimeoutParameter(replyParams, rs.timeout);
+			}
+			writePacketWithFlags(ResponseCodes.OBEX_HTTP_OK, OBEXReliableSession.toHeaderBytes(replyParams), null);
+			reliableSession = rs;
+			break;
+		}
+		case OBEXReliableSession.OPCODE_SUSPEND:
+			if (reliableSession == null) {
+				writePacket(ResponseCodes.OBEX_HTTP_BAD_REQUEST, null);
+				return;
+			}
+			writePacket(ResponseCodes.OBEX_HTTP_OK, null);
+			reliableSession.suspend(this);
+			reliableSession = null;
+			// Client will close the transport connection
+			this.isConnected = false;
+			break;
+		case OBEXReliableSession.OPCODE_CLOSE:
+			if (reliableSession == null) {
+				writePacket(ResponseCodes.OBEX_HTTP_BAD_REQUEST, null);
+				return;
+			}
+			writePacket(ResponseCodes.OBEX_HTTP_OK, null);
+			OBEXReliableSession.unregister(reliableSession);
+			reliableSession = null;
+			break;
+		case OBEXReliableSession.OPCODE_SET_TIMEOUT:
+			if (reliableSession == null) {
+				writePacket(ResponseCodes.OBEX_HTTP_BAD_REQUEST, null);
+				return;
+			}
+			reliableSession.timeout = OBEXReliableSession.readTimeoutParameter(params);
+			writePacket(ResponseCodes.OBEX_HTTP_OK, null);
+			break;
+		default:
+			writePacket(ResponseCodes.OBEX_HTTP_NOT_IMPLEMENTED, null);
+		}
+	}
+
 	private void processAbort() throws IOException {
 		DebugLog.debug("Abort operation");
 		if (!validateConnection()) {
@@ -31,6 +31,7 @@ import java.io.OutputStream;
 import java.util.Enumeration;
 import java.util.Vector;
 
+import javax.bluetooth.BluetoothStateException;
 import javax.bluetooth.RemoteDevice;
 import javax.bluetooth.ServiceRecord;
 import javax.microedition.io.Connection;
@@ -42,6 +43,7 @@ import javax.obex.ServerRequestHandler;
 import com.intel.bluetooth.BluetoothConnectionAccess;
 import com.intel.bluetooth.BluetoothStack;
 import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.RemoteDeviceHelper;
 import com.intel.bluetooth.obex.OBEXAuthentication.Challenge;
 
 /**
@@ -74,6 +76,24 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
 
     private Vector authChallengesSent;
 
+    protected final OBEXSessionStatistics statistics;
+
+    static OBEXSessionStatisticsListener statisticsListener;
+
+    private boolean statisticsReported;
+
+    /**
+     * Active reliable session or <code>null</code>
+     */
+    protected OBEXReliableSession reliableSession;
+
+    /**
+     * Last packet opcode sent and received, used to find the headers offset and Session-Sequence-Number presence
+     */
+    private int lastCommId;
+
+    private int lastReceivedOpcode;
+
     /**
      * Each request packet flowed by response. This flag is from Client point of view
      */
@@ -90,6 +110,7 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
         this.connectionID = -1;
         this.packetsCountWrite = 0;
         this.packetsCountRead = 0;
+        this.statistics = new OBEXSessionStatistics(this instanceof OBEXServerSessionImpl);
         boolean initOK = false;
         try {
             this.os = conn.openOutputStream();
@@ -107,6 +128,7 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
     }
 
     public void close() throws IOException {
+        reportStatistics();
         StreamConnection c = this.conn;
         this.conn = null;
         try {
@@ -131,6 +153,28 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
 
     }
 
+    private void reportStatistics() {
+        OBEXSessionStatisticsListener listener = statisticsListener;
+        if ((listener == null) || (this.conn == null)) {
+            return;
+        }
+        synchronized (this.statistics) {
+            if (statisticsReported) {
+                return;
+            }
+            statisticsReported = true;
+        }
+        try {
+            listener.sessionClosed(this, getStatistics());
+        } catch (Throwable e) {
+            DebugLog.error("statistics listener error", e);
+        }
+    }
+
+    OBEXSessionStatistics getStatistics() {
+        return this.statistics.copy(this.mtu);
+    }
+
     static OBEXHeaderSetImpl createOBEXHeaderSetImpl() {
         return new OBEXHeaderSetImpl();
     }
@@ -159,6 +203,17 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
         if (headerFlagsData != null) {
             len += headerFlagsData.length;
         }
+        int sequenceNumber = -1;
+        if ((this.reliableSession != null) && ((commId & 0xFF) != OBEXOperationCodes.SESSION_FINAL)
+                && (this.lastReceivedOpcode != OBEXOperationCodes.SESSION_FINAL)) {
+            if (this.reliableSession.server) {
+                // Response has the sequence number of the request
+                sequenceNumber = (this.reliableSession.nextSequenceNumber - 1) & 0xFF;
+            } else {
+                sequenceNumber = this.reliableSession.nextSequenceNumber;
+            }
+            len += 2;
+        }
         byte[] data = null;
         if (headers != null) {
             data = OBEXHeaderSetImpl.toByteArray(headers);
@@ -173,6 +228,10 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
         if (headerFlagsData != null) {
             buf.write(headerFlagsData);
         }
+        if (sequenceNumber != -1) {
+            buf.write(OBEXHeaderSetImpl.OBEX_HDR_SESSIONSEQ);
+            buf.write(sequenceNumber);
+        }
         if (this.connectionID != -1) {
             OBEXHeaderSetImpl.writeObexInt(buf, OBEXHeaderSetImpl.OBEX_HDR_CONNECTION, this.connectionID);
         }
@@ -180,8 +239,14 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
             buf.write(data);
         }
         DebugLog.debug0x("obex send (" + this.packetsCountWrite + ")", OBEXUtils.toStringObexResponseCodes(commId), commId);
-        os.write(buf.toByteArray());
+        byte[] packet = buf.toByteArray();
+        if ((this.reliableSession != null) && (this.reliableSession.server)) {
+            this.reliableSession.lastResponse = packet;
+        }
+        this.lastCommId = commId & 0xFF;
+        os.write(packet);
         os.flush();
+        this.statistics.packetSent(commId & 0xFF, packet.length);
         DebugLog.debug("obex sent (" + this.packetsCountWrite + ") len", len);
 
         if ((headers != null) && (headers.hasAuthenticationChallenge())) {
@@ -201,6 +266,17 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
             throw new IOException("Read packet out of order");
         }
         this.requestSent = false;
+        while (true) {
+            byte[] data = readPacketData();
+            this.lastReceivedOpcode = data[0] & 0xFF;
+            this.statistics.packetReceived(this.lastReceivedOpcode, data.length);
+            if ((this.reliableSession == null) || (acceptSequenceNumber(data))) {
+                return data;
+            }
+        }
+    }
+
+    private byte[] readPacketData() throws IOException {
         byte[] header = new byte[3];
         OBEXUtils.readFully(is, obexConnectionParams, header);
         this.packetsCountRead++;
@@ -221,6 +297,133 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
         return data;
     }
 
+    /**
+     * Validate Session-Sequence-Number in received packet.
+     * 
+     * @return false if the packet is a repeated request and the response was sent again
+     */
+    private boolean acceptSequenceNumber(byte[] data) throws IOException {
+        int opcode = data[0] & 0xFF;
+        if ((opcode == OBEXOperationCodes.SESSION_FINAL) || (this.lastCommId == OBEXOperationCodes.SESSION_FINAL)) {
+            return true;
+        }
+        int off = 3;
+        if (this.reliableSession.server) {
+            if (opcode == OBEXOperationCodes.CONNECT) {
+                off = 7;
+            } else if ((opcode == OBEXOperationCodes.SETPATH) || (opcode == OBEXOperationCodes.SETPATH_FINAL)) {
+                off = 5;
+            }
+        } else if (this.lastCommId == OBEXOperationCodes.CONNECT) {
+            off = 7;
+        }
+        if ((data.length < off + 2) || ((data[off] & 0xFF) != OBEXHeaderSetImpl.OBEX_HDR_SESSIONSEQ)) {
+            DebugLog.debug("Session-Sequence-Number is missing");
+            return true;
+        }
+        int sequenceNumber = data[off + 1] & 0xFF;
+        int expected = this.reliableSession.nextSequenceNumber;
+        if (sequenceNumber == expected) {
+            this.reliableSession.nextSequenceNumber = (expected + 1) & 0xFF;
+            this.reliableSession.packetAcknowledged();
+            return true;
+        } else if (this.reliableSession.server && (sequenceNumber == ((expected - 1) & 0xFF))
+                && (this.reliableSession.lastResponse != null)) {
+            DebugLog.debug("resend response to repeated request", sequenceNumber);
+            os.write(this.reliableSession.lastResponse);
+            os.flush();
+            return false;
+        } else {
+            throw new IOException("Invalid Session-Sequence-Number " + sequenceNumber + ", expected " + expected);
+        }
+    }
+
+    /**
+     * MTU available for operation data, Session-Sequence-Number is added to each packet in reliable session.
+     */
+    int getOperationMTU() {
+        if (this.reliableSession != null) {
+            return this.mtu - 2;
+        } else {
+            return this.mtu;
+        }
+    }
+
+    void transferStarted() {
+        if (this.reliableSession != null) {
+            this.reliableSession.operationStarted();
+        }
+    }
+
+    void transferCompleted() {
+        if (this.reliableSession != null) {
+            this.reliableSession.operationCompleted();
+        }
+    }
+
+    void transferDataSent(int len) {
+        if (this.reliableSession != null) {
+            this.reliableSession.dataSent(len);
+        }
+    }
+
+    void transferDataReceived(int len) {
+        if (this.reliableSession != null) {
+            this.reliableSession.dataReceived(len);
+        }
+    }
+
+    /**
+     * @return the number of Body bytes of interrupted operation exchanged before the reliable session was resumed
+     */
+    long getResumeOffset() {
+        if (this.reliableSession != null) {
+            return this.reliableSession.getResumeOffset();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * @return Bluetooth address of local device or empty array for non Bluetooth connections
+     */
+    byte[] getLocalAddressBytes() {
+        byte[] address = new byte[0];
+        try {
+            BluetoothStack stack = getBluetoothStackIfAvailable();
+            if (stack != null) {
+                long l = RemoteDeviceHelper.getAddress(stack.getLocalDeviceBluetoothAddress());
+                address = new byte[6];
+                for (int i = 5; i >= 0; i--) {
+                    address[i] = (byte) (l & 0xFF);
+                    l >>>= 8;
+                }
+            }
+        } catch (BluetoothStateException e) {
+            DebugLog.debug("can't get local address", e);
+        }
+        return address;
+    }
+
+    /**
+     * @return address of the remote device or <code>-1</code> when transport is not Bluetooth
+     */
+    long getRemoteAddressIfAvailable() throws IOException {
+        if (conn instanceof BluetoothConnectionAccess) {
+            return ((BluetoothConnectionAccess) conn).getRemoteAddress();
+        } else {
+            return -1;
+        }
+    }
+
+    private BluetoothStack getBluetoothStackIfAvailable() {
+        if (conn instanceof BluetoothConnectionAccess) {
+            return ((BluetoothConnectionAccess) conn).getBluetoothStack();
+        } else {
+            return null;
+        }
+    }
+
     private void validateBluetoothConnection() {
         if ((conn != null) && !(conn instanceof BluetoothConnectionAccess)) {
             throw new IllegalArgumentException("Not a Bluetooth connection " + conn.getClass().getName());
@@ -244,9 +447,11 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
                 throw new IOException("Authentication challenges had not been sent");
             }
             boolean authenticated = false;
+            long start = System.currentTimeMillis();
             try {
                 authenticated = OBEXAuthentication.handleAuthenticationResponse(incomingHeaders, authenticator, serverHandler, authChallengesSent);
             } finally {
+                this.statistics.authenticationCompleted(System.currentTimeMillis() - start);
                 if ((authenticated) && (authChallengesSent != null)) {
                     authChallengesSent.removeAllElements();
                 }
@@ -265,7 +470,12 @@ abstract class OBEXSessionBase implements Connection, BluetoothConnectionAccess
             if (authenticator == null) {
                 throw new IOException("Authenticator required for authentication");
             }
-            OBEXAuthentication.handleAuthenticationChallenge(incomingHeaders, replyHeaders, authenticator);
+            long start = System.currentTimeMillis();
+            try {
+                OBEXAuthentication.handleAuthenticationChallenge(incomingHeaders, replyHeaders, authenticator);
+            } finally {
+                this.statistics.authenticationCompleted(System.currentTimeMillis() - start);
+            }
         }
     }
 
@@ -0,0 +1,310 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2007-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+/**
+ * OBEX session statistics. Counters are updated while packets are sent and received, application receives a copy
+ * using BlueCoveOBEX.getStatistics(Connection) or OBEXSessionStatisticsListener.
+ * <p>
+ * Response time is measured per request opcode. On client this is the time between request sent and response
+ * received, on server the time between request received and response sent (request handler processing time).
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public class OBEXSessionStatistics {
+
+	/**
+	 * Upper bounds in milliseconds of response time histogram buckets, the last bucket has no upper bound.
+	 */
+	private static final int[] histogramLimits = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+	/**
+	 * Number of buckets in response time histogram
+	 */
+	public static final int HISTOGRAM_BUCKETS = histogramLimits.length + 1;
+
+	private static final int OPCODE_SLOTS = 9;
+
+	private final boolean server;
+
+	private long packetsSent;
+
+	private long packetsReceived;
+
+	private long bytesSent;
+
+	private long bytesReceived;
+
+	private int abortCount;
+
+	private int authenticationCount;
+
+	private long authenticationTime;
+
+	private int mtu;
+
+	private long[] responseCount = new long[OPCODE_SLOTS];
+
+	private long[] responseTimeTotal = new long[OPCODE_SLOTS];
+
+	private long[] responseTimeMax = new long[OPCODE_SLOTS];
+
+	private int[][] responseTimeHistogram = new int[OPCODE_SLOTS][HISTOGRAM_BUCKETS];
+
+	private int requestSlot = -1;
+
+	private long requestTime;
+
+	OBEXSessionStatistics(boolean server) {
+		this.server = server;
+	}
+
+	private static int opcodeSlot(int opcode) {
+		if (opcode == OBEXOperationCodes.ABORT) {
+			return OPCODE_SLOTS - 1;
+		}
+		int slot = opcode & ~OBEXOperationCodes.FINAL_BIT;
+		if (slot >= OPCODE_SLOTS - 1) {
+			return -1;
+		}
+		return slot;
+	}
+
+	/**
+	 * Upper bound of histogram bucket.
+	 * 
+	 * @param bucket
+	 *            index in array returned by getResponseTimeHistogram
+	 * @return time in milliseconds or <code>Long.MAX_VALUE</code> for the last bucket
+	 */
+	public static long getHistogramBucketLimit(int bucket) {
+		if (bucket == histogramLimits.length) {
+			return Long.MAX_VALUE;
+		}
+		return histogramLimits[bucket];
+	}
+
+	synchronized void packetSent(int commId, int len) {
+		packetsSent++;
+		bytesSent += len;
+		if (server) {
+			responseCompleted();
+		} else {
+			requestStarted(commId);
+		}
+	}
+
+	synchronized void packetReceived(int opcode, int len) {
+		packetsReceived++;
+		bytesReceived += len;
+		if (server) {
+			requestStarted(opcode);
+		} else {
+			responseCompleted();
+		}
+	}
+
+	private void requestStarted(int opcode) {
+		if (opcode == OBEXOperationCodes.ABORT) {
+			abortCount++;
+		}
+		requestSlot = opcodeSlot(opcode);
+		requestTime = System.currentTimeMillis();
+	}
+
+	private void responseCompleted() {
+		if (requestSlot == -1) {
+			return;
+		}
+		long time = System.currentTimeMillis() - requestTime;
+		if (time < 0) {
+			time = 0;
+		}
+		responseCount[requestSlot]++;
+		responseTimeTotal[requestSlot] += time;
+		if (time > responseTimeMax[requestSlot]) {
+			responseTimeMax[requestSlot] = time;
+		}
+		int bucket = 0;
+		while ((bucket < histogramLimits.length) && (time >= histogramLimits[bucket])) {
+			bucket++;
+		}
+		responseTimeHistogram[requestSlot][bucket]++;
+		requestSlot = -1;
+	}
+
+	synchronized void authenticationCompleted(long time) {
+		authenticationCount++;
+		authenticationTime += time;
+	}
+
+	synchronized OBEXSessionStatistics copy(int mtu) {
+		OBEXSessionStatistics c = new OBEXSessionStatistics(server);
+		c.packetsSent = packetsSent;
+		c.packetsReceived = packetsReceived;
+		c.bytesSent = bytesSent;
+		c.bytesReceived = bytesReceived;
+		c.abortCount = abortCount;
+		c.authenticationCount = authenticationCount;
+		c.authenticationTime = authenticationTime;
+		c.mtu = mtu;
+		System.arraycopy(responseCount, 0, c.responseCount, 0, OPCODE_SLOTS);
+		System.arraycopy(responseTimeTotal, 0, c.responseTimeTotal, 0, OPCODE_SLOTS);
+		System.arraycopy(responseTimeMax, 0, c.responseTimeMax, 0, OPCODE_SLOTS);
+		for (int i = 0; i < OPCODE_SLOTS; i++) {
+			System.arraycopy(responseTimeHistogram[i], 0, c.responseTimeHistogram[i], 0, HISTOGRAM_BUCKETS);
+		}
+		return c;
+	}
+
+	private static int validSlot(int opcode) {
+		int slot = opcodeSlot(opcode);
+		if (slot == -1) {
+			throw new IllegalArgumentException("Invalid OBEX opcode " + opcode);
+		}
+		return slot;
+	}
+
+	/**
+	 * @return <code>true</code> if this is server session statistics
+	 */
+	public boolean isServer() {
+		return server;
+	}
+
+	public long getPacketsSent() {
+		return packetsSent;
+	}
+
+	public long getPacketsReceived() {
+		return packetsReceived;
+	}
+
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * @return number of ABORT requests sent or received
+	 */
+	public int getAbortCount() {
+		return abortCount;
+	}
+
+	/**
+	 * @return number of authentication challenges and responses processed by Authenticator
+	 */
+	public int getAuthenticationCount() {
+		return authenticationCount;
+	}
+
+	/**
+	 * @return total time in milliseconds spent in Authenticator calls
+	 */
+	public long getAuthenticationTime() {
+		return authenticationTime;
+	}
+
+	/**
+	 * @return negotiated MTU
+	 */
+	public int getMTU() {
+		return mtu;
+	}
+
+	/**
+	 * @param opcode
+	 *            OBEX request opcode (e.g. 0x80 CONNECT, 0x02 PUT, 0x03 GET, 0xFF ABORT), final bit is ignored
+	 * @return number of responses
+	 */
+	public long getResponseCount(int opcode) {
+		return responseCount[validSlot(opcode)];
+	}
+
+	/**
+	 * @param opcode
+	 *            OBEX request opcode
+	 * @return total response time in milliseconds
+	 */
+	public long getResponseTimeTotal(int opcode) {
+		return responseTimeTotal[validSlot(opcode)];
+	}
+
+	/**
+	 * @param opcode
+	 *            OBEX request opcode
+	 * @return maximum response time in milliseconds
+	 */
+	public long getResponseTimeMax(int opcode) {
+		return responseTimeMax[validSlot(opcode)];
+	}
+
+	/**
+	 * @param opcode
+	 *            OBEX request opcode
+	 * @return number of responses in each bucket
+	 * @see #getHistogramBucketLimit(int)
+	 */
+	public int[] getResponseTimeHistogram(int opcode) {
+		int[] histogram = new int[HISTOGRAM_BUCKETS];
+		System.arraycopy(responseTimeHistogram[validSlot(opcode)], 0, histogram, 0, HISTOGRAM_BUCKETS);
+		return histogram;
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		buf.append(server ? "server" : "client");
+		buf.append(" packets sent ").append(packetsSent).append(" (").append(bytesSent).append(" bytes)");
+		buf.append(", received ").append(packetsReceived).append(" (").append(bytesReceived).append(" bytes)");
+		buf.append(", mtu ").append(mtu);
+		for (int i = 0; i < OPCODE_SLOTS; i++) {
+			if (responseCount[i] == 0) {
+				continue;
+			}
+			int opcode = i;
+			if (i == OPCODE_SLOTS - 1) {
+				opcode = OBEXOperationCodes.ABORT;
+			} else if (i <= 1) {
+				// CONNECT and DISCONNECT are always final
+				opcode |= OBEXOperationCodes.FINAL_BIT;
+			}
+			buf.append(", ").append(OBEXUtils.toStringObexResponseCodes(opcode));
+			buf.append(" ").append(responseCount[i]).append(" avg ").append(responseTimeTotal[i] / responseCount[i]);
+			buf.append(" max ").append(responseTimeMax[i]).append(" ms");
+		}
+		if (abortCount != 0) {
+			buf.append(", aborts ").append(abortCount);
+		}
+		if (authenticationCount != 0) {
+			buf.append(", authentication ").append(authenticationCount).append(" ").append(authenticationTime).append(" ms");
+		}
+		return buf.toString();
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2007-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+import javax.microedition.io.Connection;
+
+/**
+ * Receives OBEX session statistics when client or server session is closed. Register using
+ * BlueCoveOBEX.setStatisticsListener(..).
+ * <p>
+ * <b>PUBLIC JSR-82 extension</b>
+ * 
+ * @since bluecove 2.1.1
+ */
+public interface OBEXSessionStatisticsListener {
+
+	/**
+	 * Called before the session transport connection is closed.
+	 * 
+	 * @param session
+	 *            the OBEX ClientSession or server session Connection
+	 * @param statistics
+	 *            final session statistics
+	 */
+	public void sessionClosed(Connection session, OBEXSessionStatistics statistics);
+}
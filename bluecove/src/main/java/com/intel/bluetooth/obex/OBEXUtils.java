@@ -77,22 +77,30 @@ abstract class OBEXUtils {
 	}
 
 	static String newStringUTF16Simple(byte bytes[]) throws UnsupportedEncodingException {
+		return newStringUTF16Simple(bytes, 0, bytes.length);
+	}
+
+	static String newStringUTF16Simple(byte bytes[], int off, int len) throws UnsupportedEncodingException {
 		StringBuffer buf = new StringBuffer();
-		for (int i = 0; i < bytes.length; i += 2) {
+		for (int i = off; i < off + len; i += 2) {
 			buf.append((char) bytesToShort(bytes[i], bytes[i + 1]));
 		}
 		return buf.toString();
 	}
 
 	static String newStringUTF16(byte bytes[]) throws UnsupportedEncodingException {
+		return newStringUTF16(bytes, 0, bytes.length);
+	}
+
+	static String newStringUTF16(byte bytes[], int off, int len) throws UnsupportedEncodingException {
 		try {
-			return new String(bytes, "UTF-16BE");
+			return new String(bytes, off, len, "UTF-16BE");
 		} catch (IllegalArgumentException e) {
 			// Java 1.1
-			return newStringUTF16Simple(bytes);
+			return newStringUTF16Simple(bytes, off, len);
 		} catch (UnsupportedEncodingException e) {
 			// IBM J9
-			return newStringUTF16Simple(bytes);
+			return newStringUTF16Simple(bytes, off, len);
 		}
 	}
 
@@ -0,0 +1,243 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2007-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Vector;
+
+import com.intel.bluetooth.DebugLog;
+import com.intel.bluetooth.UtilsJavaSE;
+import com.intel.bluetooth.WorkerThreadPool;
+
+/**
+ * Writes the data to underlying stream (e.g. FileOutputStream) on separate thread. The data is queued in fixed number
+ * of segments; when all segments are used write blocks until the writer thread is done with the oldest one.
+ */
+class OBEXWriteBehindOutputStream extends OutputStream implements Runnable {
+
+	private static int threadNumber;
+
+	private static synchronized int nextThreadNum() {
+		return threadNumber++;
+	}
+
+	private final OutputStream out;
+
+	private final int segmentSize;
+
+	/**
+	 * Segments with data waiting to be written
+	 */
+	private final Vector queue = new Vector();
+
+	/**
+	 * Segments ready for reuse
+	 */
+	private final Vector free = new Vector();
+
+	private final int[] segmentLengths;
+
+	private int segmentsAllocated;
+
+	private byte[] current;
+
+	private int currentLength;
+
+	private boolean isClosed = false;
+
+	private boolean writing = false;
+
+	private IOException error;
+
+	OBEXWriteBehindOutputStream(OutputStream out, int segments, int segmentSize) {
+		if (segments < 1) {
+			throw new IllegalArgumentException("segments " + segments);
+		}
+		this.out = out;
+		this.segmentSize = segmentSize;
+		this.segmentLengths = new int[segments];
+		WorkerThreadPool.execute("OBEXWriteBehindThread-" + nextThreadNum(), this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(int)
+	 */
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	public void write(byte[] b, int off, int len) throws IOException {
+		if ((off < 0) || (len < 0) || (off + len > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			if (current == null) {
+				current = takeFreeSegment();
+				currentLength = 0;
+			}
+			int count = segmentSize - currentLength;
+			if (count > len) {
+				count = len;
+			}
+			System.arraycopy(b, off, current, currentLength, count);
+			currentLength += count;
+			off += count;
+			len -= count;
+			if (currentLength == segmentSize) {
+				queueCurrent();
+			}
+		}
+	}
+
+	private synchronized byte[] takeFreeSegment() throws IOException {
+		while (true) {
+			checkState();
+			if (!free.isEmpty()) {
+				byte[] segment = (byte[]) free.lastElement();
+				free.removeElementAt(free.size() - 1);
+				return segment;
+			}
+			if (segmentsAllocated < segmentLengths.length) {
+				segmentsAllocated++;
+				return new byte[segmentSize];
+			}
+			waitForWriter();
+		}
+	}
+
+	private synchronized void queueCurrent() {
+		if ((current != null) && (currentLength > 0)) {
+			queue.addElement(current);
+			segmentLengths[queue.size() - 1] = currentLength;
+			current = null;
+			notifyAll();
+		}
+	}
+
+	private void checkState() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		if (isClosed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private void waitForWriter() throws IOException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+
+	/**
+	 * Blocks until all data is written to underlying stream.
+	 */
+	public void flush() throws IOException {
+		queueCurrent();
+		synchronized (this) {
+			while ((!queue.isEmpty() || writing) && (error == null)) {
+				waitForWriter();
+			}
+			if (error != null) {
+				throw error;
+			}
+		}
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		if (isClosed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			synchronized (this) {
+				isClosed = true;
+				notifyAll();
+			}
+			out.close();
+		}
+	}
+
+	public void run() {
+		try {
+			while (true) {
+				byte[] segment;
+				int length;
+				synchronized (this) {
+					while (queue.isEmpty() && !isClosed) {
+						wait();
+					}
+					if (queue.isEmpty()) {
+						return;
+					}
+					segment = (byte[]) queue.firstElement();
+					length = segmentLengths[0];
+					queue.removeElementAt(0);
+					System.arraycopy(segmentLengths, 1, segmentLengths, 0, queue.size());
+					writing = true;
+				}
+				IOException writeError = null;
+				try {
+					out.write(segment, 0, length);
+				} catch (IOException e) {
+					DebugLog.debug("write-behind error", e);
+					writeError = e;
+				} catch (Throwable e) {
+					DebugLog.error("write-behind error", e);
+					writeError = (IOException) UtilsJavaSE.initCause(new IOException(e.toString()), e);
+				}
+				synchronized (this) {
+					// Error is set before writing is cleared so flush() can't miss it
+					if (writeError != null) {
+						error = writeError;
+					}
+					writing = false;
+					free.addElement(segment);
+					notifyAll();
+				}
+				if (writeError != null) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			synchronized (this) {
+				error = new InterruptedIOException();
+				notifyAll();
+			}
+		}
+	}
+}
@@ -27,7 +27,7 @@
 package javax.bluetooth;
 
 import java.util.Enumeration;
-import java.util.Vector;
+import java.util.NoSuchElementException;
 
 import com.intel.bluetooth.Utils;
 
@@ -255,8 +255,29 @@ public class DataElement {
 	 */
 	public static final int DATALT = 0x0038;
 
+	/**
+	 * Value of String, URL, UUID and byte[] types
+	 */
 	private Object value;
 
+	/**
+	 * Value of integer types and BOOL
+	 */
+	private long longValue;
+
+	/**
+	 * Elements of DATSEQ and DATALT
+	 */
+	private DataElement[] elements;
+
+	private int elementsCount;
+
+	/**
+	 * Array <code>elements</code> is referenced by Enumeration returned from getValue() and should be copied before
+	 * modification.
+	 */
+	private boolean elementsShared;
+
 	private int valueType;
 
 	/**
@@ -279,11 +300,8 @@ public class DataElement {
 	public DataElement(int valueType) {
 		switch (valueType) {
 		case NULL:
-			value = null;
-			break;
 		case DATALT:
 		case DATSEQ:
-			value = new Vector();
 			break;
 		default:
 			throw new IllegalArgumentException("valueType " + typeToString(valueType)
@@ -304,7 +322,7 @@ public class DataElement {
 	 */
 
 	public DataElement(boolean bool) {
-		value = bool ? Boolean.TRUE : Boolean.FALSE;
+		longValue = bool ? 1 : 0;
 		valueType = BOOL;
 	}
 
@@ -415,7 +433,7 @@ public class DataElement {
 			throw new IllegalArgumentException("type " + typeToString(valueType) + " can't be represented long");
 		}
 
-		this.value = new Long(value);
+		this.longValue = value;
 		this.valueType = valueType;
 	}
 
@@ -545,7 +563,7 @@ public class DataElement {
 		switch (valueType) {
 		case DATALT:
 		case DATSEQ:
-			((Vector) value).addElement(elem);
+			insertElement(elem, elementsCount);
 			break;
 		default:
 			throw new ClassCastException("DataType is not DATSEQ or DATALT");
@@ -596,7 +614,10 @@ public class DataElement {
 		switch (valueType) {
 		case DATALT:
 		case DATSEQ:
-			((Vector) value).insertElementAt(elem, index);
+			if ((index < 0) || (index > elementsCount)) {
+				throw new ArrayIndexOutOfBoundsException(index + " > " + elementsCount);
+			}
+			insertElement(elem, index);
 			break;
 		default:
 			throw new ClassCastException("DataType is not DATSEQ or DATALT");
@@ -620,7 +641,7 @@ public class DataElement {
 		switch (valueType) {
 		case DATALT:
 		case DATSEQ:
-			return ((Vector) value).size();
+			return elementsCount;
 		default:
 			throw new ClassCastException("DataType is not DATSEQ or DATALT");
 		}
@@ -664,7 +685,13 @@ public class DataElement {
 		switch (valueType) {
 		case DATALT:
 		case DATSEQ:
-			return ((Vector) value).removeElement(elem);
+			for (int i = 0; i < elementsCount; i++) {
+				if (elem.equals(elements[i])) {
+					removeElementAt(i);
+					return true;
+				}
+			}
+			return false;
 		default:
 			throw new ClassCastException("DataType is not DATSEQ or DATALT");
 		}
@@ -727,7 +754,7 @@ public class DataElement {
 		case INT_2:
 		case INT_4:
 		case INT_8:
-			return ((Long) value).longValue();
+			return longValue;
 		default:
 			throw new ClassCastException("DataType is not INT");
 		}
@@ -748,7 +775,7 @@ public class DataElement {
 
 	public boolean getBoolean() {
 		if (valueType == BOOL) {
-			return ((Boolean) value).booleanValue();
+			return (longValue != 0);
 		} else {
 			throw new ClassCastException("DataType is not BOOL");
 		}
@@ -825,12 +852,70 @@ public class DataElement {
 			return Utils.clone((byte[]) value);
 		case DATSEQ:
 		case DATALT:
-			return ((Vector) value).elements();
+			// Enumeration is a snapshot, array is copied on next modification
+			elementsShared = true;
+			return new ElementsEnumeration(elements, elementsCount);
 		default:
 			throw new ClassCastException("DataType is simple java type");
 		}
 	}
 
+	private void insertElement(DataElement elem, int index) {
+		if (elements == null) {
+			elements = new DataElement[4];
+		} else if (elementsShared || (elementsCount == elements.length)) {
+			int size = (elementsCount == elements.length) ? elementsCount * 2 : elements.length;
+			DataElement[] copy = new DataElement[size];
+			System.arraycopy(elements, 0, copy, 0, elementsCount);
+			elements = copy;
+			elementsShared = false;
+		}
+		if (index < elementsCount) {
+			System.arraycopy(elements, index, elements, index + 1, elementsCount - index);
+		}
+		elements[index] = elem;
+		elementsCount++;
+	}
+
+	private void removeElementAt(int index) {
+		if (elementsShared) {
+			DataElement[] copy = new DataElement[elements.length];
+			System.arraycopy(elements, 0, copy, 0, elementsCount);
+			elements = copy;
+			elementsShared = false;
+		}
+		elementsCount--;
+		if (index < elementsCount) {
+			System.arraycopy(elements, index + 1, elements, index, elementsCount - index);
+		}
+		elements[elementsCount] = null;
+	}
+
+	private static class ElementsEnumeration implements Enumeration {
+
+		private final DataElement[] elements;
+
+		private final int count;
+
+		private int next;
+
+		ElementsEnumeration(DataElement[] elements, int count) {
+			this.elements = elements;
+			this.count = count;
+		}
+
+		public boolean hasMoreElements() {
+			return (next < count);
+		}
+
+		public Object nextElement() {
+			if (next >= count) {
+				throw new NoSuchElementException();
+			}
+			return elements[next++];
+		}
+	}
+
 	private static String typeToString(int type) {
 		switch (type) {
 		case DataElement.NULL:
@@ -887,8 +972,9 @@ public class DataElement {
 		case INT_2:
 		case INT_4:
 		case INT_8:
-			return typeToString(valueType) + " 0x" + Utils.toHexString(((Long) value).longValue());
+			return typeToString(valueType) + " 0x" + Utils.toHexString(longValue);
 		case BOOL:
+			return typeToString(valueType) + " " + getBoolean();
 		case URL:
 		case STRING:
 		case UUID:
@@ -911,8 +997,8 @@ public class DataElement {
 		case DATSEQ: {
 			StringBuffer buf = new StringBuffer("DATSEQ {\n");
 
-			for (Enumeration e = ((Vector) value).elements(); e.hasMoreElements();) {
-				buf.append(e.nextElement());
+			for (int i = 0; i < elementsCount; i++) {
+				buf.append(elements[i]);
 				buf.append("\n");
 			}
 
@@ -923,8 +1009,8 @@ public class DataElement {
 		case DATALT: {
 			StringBuffer buf = new StringBuffer("DATALT {\n");
 
-			for (Enumeration e = ((Vector) value).elements(); e.hasMoreElements();) {
-				buf.append(e.nextElement());
+			for (int i = 0; i < elementsCount; i++) {
+				buf.append(elements[i]);
 				buf.append("\n");
 			}
 
@@ -30,6 +30,7 @@ import com.intel.bluetooth.BluetoothStack;
 import com.intel.bluetooth.DebugLog;
 import com.intel.bluetooth.RemoteDeviceHelper;
 import com.intel.bluetooth.SelectServiceHandler;
+import com.intel.bluetooth.SharedInquiry;
 
 /**
  * The <code>DiscoveryAgent</code> class provides methods to perform device
@@ -211,7 +212,7 @@ public class DiscoveryAgent {
 		if ((accessCode != LIAC) && (accessCode != GIAC) && ((accessCode < 0x9E8B00) || (accessCode > 0x9E8B3F))) {
 			throw new IllegalArgumentException("Invalid accessCode " + accessCode);
 		}
-		return this.bluetoothStack.startInquiry(accessCode, listener);
+		return SharedInquiry.startInquiry(this.bluetoothStack, accessCode, listener);
 	}
 
 	/**
@@ -242,7 +243,7 @@ public class DiscoveryAgent {
 			throw new NullPointerException("DiscoveryListener is null");
 		}
 		DebugLog.debug("cancelInquiry");
-		return this.bluetoothStack.cancelInquiry(listener);
+		return SharedInquiry.cancelInquiry(this.bluetoothStack, listener);
 	}
 
 	/**
@@ -26,9 +26,6 @@
  */
 package javax.bluetooth;
 
-import com.intel.bluetooth.BluetoothConsts;
-import com.intel.bluetooth.Utils;
-
 /**
  * The <code>UUID</code> class defines universally unique identifiers. These
  * 128-bit unsigned integers are guaranteed to be unique across all time and
@@ -141,7 +138,21 @@ import com.intel.bluetooth.Utils;
  */
 public class UUID {
 
-	private byte[] uuidValue;
+	/**
+	 * Lower 64 bits of Bluetooth Base UUID 00000000-0000-1000-8000-00805F9B34FB
+	 */
+	private static final long BASE_UUID_LSB = 0x800000805F9B34FBl;
+
+	private static final long BASE_UUID_MSB = 0x0000000000001000l;
+
+	private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+	/**
+	 * 128-bit value stored as two longs, most significant first.
+	 */
+	private final long msb;
+
+	private final long lsb;
 
 	/**
 	 * Creates a <code>UUID</code> object from <code>long</code> value
@@ -161,10 +172,11 @@ public class UUID {
 	 *
 	 */
 	public UUID(long uuidValue) {
-		this(Utils.toHexString(uuidValue), true);
 		if (uuidValue < 0 || uuidValue > 0xffffffffl) {
 			throw new IllegalArgumentException("uuidValue is not in the range [0, 2^32 -1]");
 		}
+		this.msb = (uuidValue << 32) | BASE_UUID_MSB;
+		this.lsb = BASE_UUID_LSB;
 	}
 
 	/**
@@ -221,16 +233,35 @@ public class UUID {
 			if (length < 1 || length > 8) {
 				throw new IllegalArgumentException();
 			}
-			this.uuidValue = Utils.UUIDToByteArray("00000000".substring(length) + uuidValue
-					+ BluetoothConsts.SHORT_UUID_BASE);
+			long value = 0;
+			for (int i = 0; i < length; i++) {
+				value = (value << 4) | hexDigit(uuidValue, i);
+			}
+			this.msb = (value << 32) | BASE_UUID_MSB;
+			this.lsb = BASE_UUID_LSB;
 		} else {
 			if (length < 1 || length > 32) {
 				throw new IllegalArgumentException();
 			}
-			this.uuidValue = Utils.UUIDToByteArray("00000000000000000000000000000000".substring(length) + uuidValue);
+			long hi = 0;
+			long lo = 0;
+			for (int i = 0; i < length; i++) {
+				hi = (hi << 4) | (lo >>> 60);
+				lo = (lo << 4) | hexDigit(uuidValue, i);
+			}
+			this.msb = hi;
+			this.lsb = lo;
 		}
 	}
 
+	private static int hexDigit(String uuidValue, int index) {
+		int digit = Character.digit(uuidValue.charAt(index), 16);
+		if (digit < 0) {
+			throw new NumberFormatException("Invalid UUID " + uuidValue);
+		}
+		return digit;
+	}
+
 	/**
      * Returns the string representation of the 128-bit UUID object. The string
      * being returned represents a UUID that contains characters from the
@@ -245,7 +276,12 @@ public class UUID {
      * 
      */
 	public String toString() {
-		return Utils.UUIDByteArrayToString(uuidValue);
+		char[] buf = new char[32];
+		for (int i = 0; i < 16; i++) {
+			buf[i] = hexDigits[(int) (msb >>> (60 - i * 4)) & 0xF];
+			buf[16 + i] = hexDigits[(int) (lsb >>> (60 - i * 4)) & 0xF];
+		}
+		return new String(buf);
 	}
 
 	/**
@@ -261,17 +297,13 @@ public class UUID {
 	 *
 	 */
 	public boolean equals(Object value) {
+		if (value == this) {
+			return true;
+		}
 		if (value == null || !(value instanceof UUID)) {
 			return false;
 		}
-
-		for (int i = 0; i < 16; i++) {
-			if (uuidValue[i] != ((UUID) value).uuidValue[i]) {
-				return false;
-			}
-		}
-
-		return true;
+		return (msb == ((UUID) value).msb) && (lsb == ((UUID) value).lsb);
 	}
 
 	/**
@@ -283,8 +315,8 @@ public class UUID {
 	 * @return the hash code for this object
 	 */
 	public int hashCode() {
-		return uuidValue[12] << 24 & 0xff000000 | uuidValue[13] << 16
-			& 0x00ff0000 | uuidValue[14] << 8 & 0x0000ff00 | uuidValue[15]
-			& 0x000000ff;
+		// All 128 bits are used; the short UUID value is in the upper half of msb
+		long h = msb ^ lsb;
+		return (int) (h >>> 32) ^ (int) h;
 	}
-}
\ No newline at end of file
+}
@@ -124,11 +124,18 @@ public class SDPStreamTest extends TestCase {
 		return (new SDPInputStream(new ByteArrayInputStream(blob))).readElement();
 	}
 
+	private static byte[] toByteArray(DataElement element) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		(new SDPOutputStream(out)).writeElement(element);
+		return out.toByteArray();
+	}
+
 	private void validateConversion(DataElement element) throws IOException {
 		DataElement elementConverted = doubleCovert(element);
 		boolean passed = false;
 		try {
 			assertEquals("", element, elementConverted);
+			assertEquals("decoder ", element, (new SDPDecoder(toByteArray(element))).readElement());
 			passed = true;
 		} finally {
 			if (!passed) {
@@ -253,6 +260,100 @@ public class SDPStreamTest extends TestCase {
 		validateConversion(seq);
 	}
 
+	public void testDATALT() throws IOException {
+		DataElement alt = new DataElement(DataElement.DATALT);
+		alt.addElement(new DataElement(DataElement.STRING, stringUTFData));
+		alt.addElement(new DataElement(DataElement.UUID, new UUID(0x1105)));
+		validateConversion(alt);
+
+		DataElement seq = new DataElement(DataElement.DATSEQ);
+		seq.addElement(alt);
+		seq.addElement(new DataElement(DataElement.U_INT_2, 0x14));
+		validateConversion(seq);
+
+		DataElement alt16 = new DataElement(DataElement.DATALT);
+		for (int i = 0; i < (0xFF / 9) + 1; i++) {
+			alt16.addElement(new DataElement(DataElement.INT_8, i));
+		}
+		validateConversion(alt16);
+	}
+
+	public void testEncoderFormat() throws IOException {
+		DataElement seq = new DataElement(DataElement.DATSEQ);
+		seq.addElement(new DataElement(DataElement.U_INT_1, 1));
+		seq.addElement(new DataElement(DataElement.UUID, new UUID(0x1105)));
+		seq.addElement(new DataElement(DataElement.STRING, "A"));
+		byte[] expected = new byte[] { 0x35, 0x08, 0x08, 0x01, 0x19, 0x11, 0x05, 0x25, 0x01, 0x41 };
+		byte[] data = toByteArray(seq);
+		assertEquals("length", expected.length, data.length);
+		assertEquals("getLength", expected.length, SDPOutputStream.getLength(seq));
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("byte [" + i + "]", expected[i], data[i]);
+		}
+	}
+
+	public void testDecoderSkipElement() throws IOException {
+		DataElement seq = new DataElement(DataElement.DATSEQ);
+		DataElement seq2 = new DataElement(DataElement.DATSEQ);
+		seq2.addElement(new DataElement(DataElement.STRING, stringUTFData));
+		seq2.addElement(new DataElement(DataElement.UUID, new UUID(0x1105)));
+		seq.addElement(seq2);
+		seq.addElement(new DataElement(DataElement.STRING, getLongString(0x100 + 2)));
+		seq.addElement(new DataElement(DataElement.U_INT_2, 0x14));
+		seq.addElement(new DataElement(DataElement.NULL));
+		DataElement last = new DataElement(DataElement.INT_4, -25678);
+		seq.addElement(last);
+
+		byte[] data = toByteArray(seq);
+		SDPDecoder decoder = new SDPDecoder(data);
+		int end = decoder.readSequenceHeader();
+		assertEquals("sequence end", data.length, end);
+		for (int i = 0; i < 4; i++) {
+			decoder.skipElement();
+		}
+		assertEquals("last", last, decoder.readElement());
+		assertFalse("hasMoreElements", decoder.hasMoreElements());
+
+		decoder = new SDPDecoder(data);
+		decoder.skipElement();
+		assertFalse("skip all", decoder.hasMoreElements());
+	}
+
+	public void testDecoderTruncated() throws IOException {
+		DataElement seq = new DataElement(DataElement.DATSEQ);
+		seq.addElement(new DataElement(DataElement.STRING, "12345"));
+		seq.addElement(new DataElement(DataElement.U_INT_4, 0x15));
+		byte[] data = toByteArray(seq);
+		for (int len = 0; len < data.length; len++) {
+			try {
+				(new SDPDecoder(data, 0, len)).readElement();
+				fail("IOException expected for length " + len);
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public void testInputStreamTruncatedLargeElement() throws IOException {
+		// DATSEQ with 32 bit length close to Integer.MAX_VALUE and only 3 bytes of data
+		byte[] data = new byte[] { 0x37, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 0x08, 0x01, 0x02 };
+		try {
+			(new SDPInputStream(new ByteArrayInputStream(data))).readElement();
+			fail("IOException expected");
+		} catch (IOException e) {
+		}
+	}
+
+	public void testDecoderUUID128() throws IOException {
+		byte[] data = toByteArray(new DataElement(DataElement.UUID, new UUID("B10C0BE1111111111111111111110001", false)));
+		assertEquals("length", 17, data.length);
+		assertEquals("UUID", new UUID("B10C0BE1111111111111111111110001", false), SDPDecoder.readUUID128(data, 1));
+
+		UUID uuid = SDPDecoder.readUUID128(Utils.UUIDToByteArray("0000110500001000800000805f9b34fb"), 0);
+		assertEquals("short UUID", new UUID(0x1105), uuid);
+		uuid = SDPDecoder.readUUID128(Utils.UUIDToByteArray("F000110500001000800000805f9b34fb"), 0);
+		assertEquals("32-bit UUID", new UUID(0xF0001105l), uuid);
+	}
+
 	public void testOtherAttributes() throws IOException {
 		validateConversion(new DataElement(true));
 		validateConversion(new DataElement(false));
@@ -275,4 +376,87 @@ public class SDPStreamTest extends TestCase {
 		serviceRecord2.populateRFCOMMAttributes(1, 2, new UUID(3), "BBBB", true);
 		validateServiceRecordConvert("RFCOMM", serviceRecord2);
 	}
+
+	public void testServiceRecordLazyAttributes() throws IOException {
+		ServiceRecordImpl serviceRecord = new ServiceRecordImpl(null, null, 0);
+		serviceRecord.populateRFCOMMAttributes(1, 2, new UUID(3), "BBBB", true);
+		byte[] data = serviceRecord.toByteArray();
+
+		ServiceRecordImpl serviceRecord2 = new ServiceRecordImpl(null, null, 0);
+		assertTrue("populated", serviceRecord2.loadByteArray(data, null, true));
+		assertEquals("attributes", serviceRecord.getAttributeIDs().length, serviceRecord2.getAttributeIDs().length);
+		assertEquals("URL", serviceRecord.getConnectionURL(0, false), serviceRecord2.getConnectionURL(0, false));
+		assertEquals("lazy", serviceRecord, serviceRecord2);
+		assertEquals("toByteArray", data, serviceRecord2.toByteArray());
+
+		int[] attrIDs = new int[] { BluetoothConsts.ServiceClassIDList, 0x0123 };
+		ServiceRecordImpl serviceRecord3 = new ServiceRecordImpl(null, null, 0);
+		serviceRecord3.populateAttributeValue(0x0123, new DataElement(DataElement.NULL));
+		assertTrue("populated", serviceRecord3.loadByteArray(data, attrIDs, true));
+		assertEquals("requested attributes", 1, serviceRecord3.getAttributeIDs().length);
+		assertNotNull("ServiceClassIDList", serviceRecord3.getAttributeValue(BluetoothConsts.ServiceClassIDList));
+		assertNull("not requested", serviceRecord3.getAttributeValue(BluetoothConsts.ProtocolDescriptorList));
+		assertNull("removed", serviceRecord3.getAttributeValue(0x0123));
+	}
+
+	public void testServiceRecordCachedBinary() throws IOException {
+		ServiceRecordImpl serviceRecord = new ServiceRecordImpl(null, null, 0);
+		serviceRecord.populateRFCOMMAttributes(1, 2, new UUID(3), "BBBB", false);
+		byte[] data = serviceRecord.toByteArray();
+		assertSame("cached", data, serviceRecord.toByteArray());
+
+		serviceRecord.setAttributeValue(0x0300, new DataElement(DataElement.U_INT_1, 7));
+		serviceRecord.setAttributeValue(0x0008, new DataElement(DataElement.U_INT_1, 0xFF));
+		byte[] data2 = serviceRecord.toByteArray();
+		assertNotSame("updated", data, data2);
+		int[] ids = serviceRecord.getAttributeIDs();
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue("sorted", ids[i - 1] < ids[i]);
+		}
+
+		ServiceRecordImpl serviceRecord2 = new ServiceRecordImpl(null, null, 0);
+		serviceRecord2.loadByteArray(data2);
+		assertEquals("loaded", serviceRecord, serviceRecord2);
+
+		assertTrue("removed", serviceRecord.setAttributeValue(0x0300, null));
+		assertFalse("removed", serviceRecord.setAttributeValue(0x0300, null));
+		assertEquals("after remove", data.length + 5, serviceRecord.toByteArray().length);
+		serviceRecord.populateAttributeValue(0x0008, null);
+		assertEquals("after populate", data, serviceRecord.toByteArray());
+	}
+
+	public void testServiceRecordSourceBinary() throws IOException {
+		ServiceRecordImpl serviceRecord = new ServiceRecordImpl(null, null, 0);
+		serviceRecord.populateRFCOMMAttributes(1, 2, new UUID(3), "BBBB", true);
+		byte[] data = serviceRecord.toByteArray();
+
+		ServiceRecordImpl loaded = new ServiceRecordImpl(null, null, 0);
+		loaded.loadByteArray(data, null, false);
+		assertSame("source", data, loaded.toByteArray());
+		ServiceRecordImpl loadedLazy = new ServiceRecordImpl(null, null, 0);
+		loadedLazy.loadByteArray(data, null, true);
+		assertSame("lazy source", data, loadedLazy.toByteArray());
+
+		int[] attrIDs = new int[] { BluetoothConsts.ServiceClassIDList, BluetoothConsts.ProtocolDescriptorList };
+		ServiceRecordImpl filtered = new ServiceRecordImpl(null, null, 0);
+		filtered.loadByteArray(data, attrIDs, false);
+		ServiceRecordImpl filteredLazy = new ServiceRecordImpl(null, null, 0);
+		filteredLazy.loadByteArray(data, attrIDs, true);
+		assertEquals("filtered lazy", filtered.toByteArray(), filteredLazy.toByteArray());
+		assertEquals("filtered attributes", filtered, filteredLazy);
+
+		loadedLazy.setAttributeValue(0x0300, new DataElement(DataElement.U_INT_1, 7));
+		byte[] modified = loadedLazy.toByteArray();
+		assertNotSame("modified", data, modified);
+		ServiceRecordImpl reloaded = new ServiceRecordImpl(null, null, 0);
+		reloaded.loadByteArray(modified, null, false);
+		assertEquals("modified attributes", loadedLazy, reloaded);
+	}
+
+	private static void assertEquals(String message, byte[] expected, byte[] actual) {
+		assertEquals(message + " length", expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(message + " [" + i + "]", expected[i], actual[i]);
+		}
+	}
 }
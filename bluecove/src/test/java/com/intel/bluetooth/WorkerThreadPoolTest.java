@@ -0,0 +1,91 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2006-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ */
+public class WorkerThreadPoolTest extends TestCase {
+
+	private class Task implements Runnable {
+
+		Thread thread;
+
+		String name;
+
+		boolean done;
+
+		public synchronized void run() {
+			thread = Thread.currentThread();
+			name = thread.getName();
+			done = true;
+			notifyAll();
+		}
+
+		synchronized void waitDone() throws InterruptedException {
+			long end = System.currentTimeMillis() + 5000;
+			while (!done && (System.currentTimeMillis() < end)) {
+				wait(100);
+			}
+			assertTrue("task done", done);
+		}
+	}
+
+	private void waitIdle(Thread thread) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while ((thread.getState() != Thread.State.TIMED_WAITING) && (System.currentTimeMillis() < end)) {
+			Thread.sleep(10);
+		}
+		assertTrue("idle thread", WorkerThreadPool.getIdleCount() > 0);
+	}
+
+	public void testReuse() throws Exception {
+		Task task1 = new Task();
+		WorkerThreadPool.execute("Task1", task1);
+		task1.waitDone();
+		assertEquals("name", "Task1", task1.name);
+		assertTrue("daemon", task1.thread.isDaemon());
+		waitIdle(task1.thread);
+
+		Task task2 = new Task();
+		WorkerThreadPool.execute("Task2", task2);
+		task2.waitDone();
+		assertEquals("name", "Task2", task2.name);
+		assertSame("thread reused", task1.thread, task2.thread);
+	}
+
+	public void testTimerCancel() throws Exception {
+		Task task = new Task();
+		Utils.TimerThread timer = Utils.schedule(200, task);
+		timer.cancel();
+		Thread.sleep(400);
+		assertFalse("canceled task executed", task.done);
+
+		task = new Task();
+		Utils.schedule(10, task);
+		task.waitDone();
+	}
+}
@@ -216,4 +216,22 @@ public class HeaderTest extends TestCase {
 		validateReadWrite(hs);
 	}
 
+	public void testHeaderBodyRead() throws IOException {
+		HeaderSet hs = new OBEXHeaderSetImpl();
+		hs.setHeader(HeaderSet.NAME, "test.txt");
+		hs.setHeader(OBEXHeaderSetImpl.OBEX_HDR_BODY_END, new byte[] { 1, 2, 3 });
+		byte b[] = OBEXHeaderSetImpl.toByteArray(hs);
+		OBEXHeaderSetImpl r = OBEXHeaderSetImpl.readHeaders((byte) 0, b, 0);
+		assertEquals("data header", OBEXHeaderSetImpl.OBEX_HDR_BODY_END, r.getDataHeaderID());
+
+		OBEXOperationInputStream is = new OBEXOperationInputStream(null);
+		assertEquals("data length", 3, r.appendData(r.getDataHeaderID(), is, true));
+		assertEquals("available", 3, is.available());
+
+		OBEXHeaderSetImpl c = OBEXHeaderSetImpl.cloneHeaders(r);
+		assertEquals("Body removed", -1, c.getDataHeaderID());
+		assertEquals("Header value", "test.txt", c.getHeader(HeaderSet.NAME));
+		assertEquals("Header value", "test.txt", r.getHeader(HeaderSet.NAME));
+	}
+
 }
@@ -0,0 +1,72 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+import junit.framework.TestCase;
+
+public class OBEXReliableSessionRegistryTest extends TestCase {
+
+	private static OBEXReliableSession createSuspended(int id) {
+		OBEXReliableSession rs = new OBEXReliableSession(true);
+		rs.sessionID = new byte[] { 0x7E, (byte) id };
+		OBEXReliableSession.register(rs);
+		rs.suspend(null);
+		return rs;
+	}
+
+	public void testSuspendedSessionsLimit() {
+		int count = OBEXReliableSession.SUSPENDED_MAX + 5;
+		OBEXReliableSession[] sessions = new OBEXReliableSession[count];
+		for (int i = 0; i < count; i++) {
+			sessions[i] = createSuspended(i);
+			assertEquals("infinite timeout", OBEXReliableSession.TIMEOUT_INFINITE, sessions[i].timeout);
+		}
+		int found = 0;
+		for (int i = 0; i < count; i++) {
+			if (OBEXReliableSession.find(true, sessions[i].sessionID) != null) {
+				found++;
+			}
+		}
+		assertEquals("suspended sessions", OBEXReliableSession.SUSPENDED_MAX, found);
+		for (int i = 0; i < count; i++) {
+			OBEXReliableSession.unregister(sessions[i]);
+		}
+	}
+
+	public void testActiveSessionsKept() {
+		OBEXReliableSession active = new OBEXReliableSession(true);
+		active.sessionID = new byte[] { 0x7F, 0 };
+		OBEXReliableSession.register(active);
+		int count = OBEXReliableSession.SUSPENDED_MAX + 5;
+		OBEXReliableSession[] sessions = new OBEXReliableSession[count];
+		for (int i = 0; i < count; i++) {
+			sessions[i] = createSuspended(i);
+		}
+		assertSame("active", active, OBEXReliableSession.find(true, active.sessionID));
+		OBEXReliableSession.unregister(active);
+		for (int i = 0; i < count; i++) {
+			OBEXReliableSession.unregister(sessions[i]);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2004 Intel Corporation
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package com.intel.bluetooth.obex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+public class OBEXWriteBehindOutputStreamTest extends TestCase {
+
+	private static class FailingOutputStream extends OutputStream {
+
+		public void write(int b) throws IOException {
+			throw new IllegalStateException("sink failure");
+		}
+	}
+
+	public void testWrite() throws IOException {
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		OBEXWriteBehindOutputStream os = new OBEXWriteBehindOutputStream(sink, 2, 4);
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+		os.write(data, 0, data.length);
+		os.close();
+		byte[] written = sink.toByteArray();
+		assertEquals("length", data.length, written.length);
+		for (int i = 0; i < data.length; i++) {
+			assertEquals("byte " + i, data[i], written[i]);
+		}
+	}
+
+	public void testRuntimeExceptionInSink() throws Exception {
+		final OBEXWriteBehindOutputStream os = new OBEXWriteBehindOutputStream(new FailingOutputStream(), 2, 4);
+		final Throwable[] result = new Throwable[1];
+		Thread t = new Thread() {
+			public void run() {
+				try {
+					os.write(new byte[4], 0, 4);
+					os.flush();
+				} catch (Throwable e) {
+					result[0] = e;
+				}
+			}
+		};
+		t.start();
+		t.join(5000);
+		assertFalse("flush blocked", t.isAlive());
+		assertTrue("IOException expected " + result[0], result[0] instanceof IOException);
+	}
+}
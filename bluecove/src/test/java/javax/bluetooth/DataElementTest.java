@@ -0,0 +1,115 @@
+/**
+ *  BlueCove - Java library for Bluetooth
+ *  Copyright (C) 2006-2009 Vlad Skarzhevskyy
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *  @version $Id$
+ */
+package javax.bluetooth;
+
+import java.util.Enumeration;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ */
+public class DataElementTest extends TestCase {
+
+	private static int[] values(DataElement seq) {
+		int[] v = new int[seq.getSize()];
+		int i = 0;
+		for (Enumeration en = (Enumeration) seq.getValue(); en.hasMoreElements();) {
+			v[i++] = (int) ((DataElement) en.nextElement()).getLong();
+		}
+		assertEquals("enumeration size", v.length, i);
+		return v;
+	}
+
+	private static void assertValues(String message, int[] expected, DataElement seq) {
+		int[] v = values(seq);
+		assertEquals(message + " size", expected.length, v.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(message + " [" + i + "]", expected[i], v[i]);
+		}
+	}
+
+	public void testSequence() {
+		DataElement seq = new DataElement(DataElement.DATSEQ);
+		assertEquals("empty", 0, seq.getSize());
+		assertFalse("empty", ((Enumeration) seq.getValue()).hasMoreElements());
+		DataElement[] items = new DataElement[10];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new DataElement(DataElement.U_INT_1, i);
+			seq.addElement(items[i]);
+		}
+		assertValues("add", new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, seq);
+
+		seq.insertElementAt(new DataElement(DataElement.INT_1, -1), 0);
+		seq.insertElementAt(new DataElement(DataElement.INT_1, 10), seq.getSize());
+		assertValues("insert", new int[] { -1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }, seq);
+
+		assertTrue("remove", seq.removeElement(items[5]));
+		assertFalse("remove", seq.removeElement(items[5]));
+		assertFalse("remove other", seq.removeElement(new DataElement(DataElement.U_INT_1, 1)));
+		assertValues("remove", new int[] { -1, 0, 1, 2, 3, 4, 6, 7, 8, 9, 10 }, seq);
+
+		try {
+			seq.insertElementAt(items[5], seq.getSize() + 1);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			seq.insertElementAt(items[5], -1);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	public void testEnumerationSnapshot() {
+		DataElement seq = new DataElement(DataElement.DATALT);
+		seq.addElement(new DataElement(DataElement.U_INT_2, 1));
+		seq.addElement(new DataElement(DataElement.U_INT_2, 2));
+		Enumeration en = (Enumeration) seq.getValue();
+		DataElement first = (DataElement) en.nextElement();
+		seq.removeElement(first);
+		seq.insertElementAt(new DataElement(DataElement.U_INT_2, 3), 0);
+		assertEquals("snapshot", 2, ((DataElement) en.nextElement()).getLong());
+		assertFalse("snapshot end", en.hasMoreElements());
+		assertValues("modified", new int[] { 3, 2 }, seq);
+	}
+
+	public void testPrimitiveValues() {
+		assertEquals("U_INT_4", 0xFFFFFFFFl, new DataElement(DataElement.U_INT_4, 0xFFFFFFFFl).getLong());
+		assertEquals("INT_8", Long.MIN_VALUE, new DataElement(DataElement.INT_8, Long.MIN_VALUE).getLong());
+		assertTrue("BOOL", new DataElement(true).getBoolean());
+		assertFalse("BOOL", new DataElement(false).getBoolean());
+		assertEquals("toString", "BOOL true", new DataElement(true).toString());
+		try {
+			new DataElement(DataElement.STRING, "s").getLong();
+			fail("ClassCastException expected");
+		} catch (ClassCastException e) {
+		}
+		try {
+			new DataElement(DataElement.U_INT_1, 1).getValue();
+			fail("ClassCastException expected");
+		} catch (ClassCastException e) {
+		}
+	}
+}
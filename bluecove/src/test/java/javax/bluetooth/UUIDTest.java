@@ -34,5 +34,48 @@ public class UUIDTest extends TestCase {
 	public void testUUIDConstructor() {
 		assertEquals("obex UUID", new UUID("0000110500001000800000805f9b34fb", false), new UUID(0x1105));
 		assertEquals("UUID32", new UUID("2130110700001000800000805f9b34fb", false), new UUID(0x21301107));
+		assertEquals("short string", new UUID(0x1105), new UUID("1105", true));
+		assertEquals("short string", new UUID(0xFFFFFFFFl), new UUID("FfffFFff", true));
+		assertEquals("short 128", new UUID("1", false), new UUID("00000000000000000000000000000001", false));
+	}
+
+	public void testUUIDToString() {
+		assertEquals("obex UUID", "0000110500001000800000805f9b34fb", new UUID(0x1105).toString());
+		assertEquals("UUID128", "b10c0be1111111111111111111110001", new UUID("B10C0BE1111111111111111111110001", false)
+				.toString());
+		assertEquals("UUID128 short", "00000000000000000000000000000abc", new UUID("abc", false).toString());
+	}
+
+	public void testUUIDInvalid() {
+		try {
+			new UUID("12-4", true);
+			fail("NumberFormatException expected");
+		} catch (NumberFormatException e) {
+		}
+		try {
+			new UUID("123456789", true);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new UUID(0x100000000l);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new UUID(-1);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testUUIDHashCode() {
+		assertEquals("equal UUIDs", new UUID(0x1105).hashCode(), new UUID("0000110500001000800000805f9b34fb", false)
+				.hashCode());
+		java.util.Hashtable hashes = new java.util.Hashtable();
+		for (int i = 0; i < 0x2000; i++) {
+			hashes.put(new Integer(new UUID(i).hashCode()), Boolean.TRUE);
+		}
+		assertEquals("short UUIDs hash", 0x2000, hashes.size());
 	}
 }